@@ -15,6 +15,7 @@
 package io.codelaser.maddi.aapi.parser;
 
 import io.codelaser.maddi.modification.common.defaults.ShallowAnalyzer;
+import io.codelaser.maddi.modification.prepwork.io.HintsArchive;
 import io.codelaser.maddi.modification.prepwork.io.WriteAnalysisResults;
 import io.codelaser.maddi.cst.api.analysis.Message;
 import io.codelaser.maddi.cst.api.element.Element;
@@ -40,7 +41,7 @@ From analysis hints to machine-readable analysis results in json format.
 Process:
     - AnalysisHintsParser (here)
     - ShallowAnalyzer (in modification-common)
-    - WriteAnalysisResults (in modification-prepwork)
+    - WriteAnalysisResults (in modification-prepwork), then HintsArchive over the results directory
     - AnalysisHintsWriter (here, to update the hints file), uses AnalysisHintsComposer
  */
 public class AnalysisHintsCompiler {
@@ -93,6 +94,8 @@ public class AnalysisHintsCompiler {
         }
         File subDirOutFile = analysisHints.analysisResultsDir().toFile();
         wa.write(subDirOutFile.getAbsolutePath(), trie);
+        // the binary index over the whole directory, so that loaders decode per type on first use
+        HintsArchive.writeDirectory(subDirOutFile.toPath());
 
         if (analysisHints.updatedHintsPath() != null) {
             AnalysisHintsWriter analysisHintsWriter = new AnalysisHintsWriter(javaInspector,
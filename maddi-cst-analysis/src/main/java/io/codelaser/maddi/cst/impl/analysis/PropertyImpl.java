@@ -18,7 +18,12 @@ import io.codelaser.maddi.cst.api.analysis.Property;
 import io.codelaser.maddi.cst.api.analysis.Property.AnalysisTier;
 import io.codelaser.maddi.cst.api.analysis.Value;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class PropertyImpl implements Property {
+    // first in the class: the static constants below are constructed in textual order, and each takes an ordinal
+    private static final AtomicInteger ORDINALS = new AtomicInteger();
+
     // type
     public static final Property IMMUTABLE_TYPE = new PropertyImpl("immutableType",
             ValueImpl.ImmutableImpl.MUTABLE);
@@ -172,6 +177,7 @@ public class PropertyImpl implements Property {
     public static final Property INSTANCEOF_SCOPE = new PropertyImpl("instanceOfScope", ValueImpl.ScopeImpl.EMPTY,
             AnalysisTier.INTRINSIC);
 
+    private final int ordinal = ORDINALS.getAndIncrement();
     private final String key;
     private final Value defaultValue;
     private final boolean carryOnRewire;
@@ -222,6 +228,11 @@ public class PropertyImpl implements Property {
         return key;
     }
 
+    @Override
+    public int ordinal() {
+        return ordinal;
+    }
+
     @Override
     public Class<? extends Value> classOfValue() {
         return defaultValue.getClass();
@@ -22,22 +22,131 @@ import io.codelaser.maddi.cst.api.info.InfoMapView;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /*
 Does not use SetOnceMap<> because of controlled overwrites.
 
-All access is synchronized on 'this': analyzers write properties of OTHER elements (a method call writes
-UNMODIFIED_PARAMETER on the callee's parameters), so under intra-iteration parallelism two threads can hit
-the same element's map. External compound check-then-act sequences (TolerantWrite) synchronize on the map
-object as well — same monitor.
+Analyzers write properties of OTHER elements (a method call writes UNMODIFIED_PARAMETER on the callee's
+parameters), and with PARALLEL=n every method analyzer reads the maps of its callees, fields and types, so
+the maps are read far more often, and from far more threads, than they are written.
+
+Reads are therefore lock-free: the content is an immutable snapshot, published through a volatile field. The
+snapshot is keyed by the dense Property.ordinal(): a bitmap says which properties are present, the values sit
+in ordinal order, and a value's slot is the number of bits set below its ordinal — one volatile load, a bit
+test and a popcount or two per read, and a handful of bytes per map where a HashMap needs a table and a node
+per entry. Writes build a new snapshot (copy-on-write) and stay synchronized on 'this', so writers exclude
+each other, and external compound check-then-act sequences (TolerantWrite, ShallowMethodAnalyzer) that
+synchronize on the map object still exclude every writer. An overwrite replaces one slot in one publication:
+a concurrent reader sees the old value or the new one, never a transient absence.
+
+A map can also hold a Deferred: values of an analysis-hints archive not decoded yet. It rides in the snapshot, so
+a map without one pays a plain field test per access. The first access runs Deferred.load() (which decodes into
+maps of its own, never taking this monitor) and then merges this map's share in, under the monitor. A reader that
+holds the monitor of another map (TolerantWrite) while it waits for the load therefore cannot deadlock the decoder.
  */
 public class PropertyValueMapImpl implements PropertyValueMap {
     private static final Logger LOGGER = LoggerFactory.getLogger(PropertyValueMapImpl.class);
-    private final Map<Property, Value> map = new HashMap<>();
+
+    private static final class Entries {
+        private static final Entries EMPTY = new Entries(new long[0], new Property[0], new Value[0], null);
+
+        private final long[] present; // bit 'ordinal' set iff the property has a value
+        private final Property[] properties; // in ordinal order
+        private final Value[] values; // aligned with properties
+        private final Deferred deferred; // values still to be merged in; null when none
+
+        private Entries(long[] present, Property[] properties, Value[] values, Deferred deferred) {
+            this.present = present;
+            this.properties = properties;
+            this.values = values;
+            this.deferred = deferred;
+        }
+
+        private boolean contains(int ordinal) {
+            int word = ordinal >>> 6;
+            return word < present.length && (present[word] & (1L << ordinal)) != 0;
+        }
+
+        // the number of present properties with a smaller ordinal: the slot of 'ordinal', present or not
+        private int rank(int ordinal) {
+            int word = ordinal >>> 6;
+            if (word >= present.length) return values.length;
+            int rank = Long.bitCount(present[word] & ((1L << ordinal) - 1));
+            for (int w = 0; w < word; w++) rank += Long.bitCount(present[w]);
+            return rank;
+        }
+
+        private Value get(Property property) {
+            int ordinal = property.ordinal();
+            return contains(ordinal) ? values[rank(ordinal)] : null;
+        }
+
+        private int size() {
+            return values.length;
+        }
+    }
+
+    private volatile Entries entries = Entries.EMPTY;
+
+    // the current snapshot, with a pending deferral merged in first
+    private Entries current() {
+        Entries e = entries;
+        return e.deferred == null ? e : resolve(e.deferred);
+    }
+
+    private Entries resolve(Deferred deferred) {
+        if (!deferred.load()) return entries; // the decoding thread itself: the map as it is
+        synchronized (this) {
+            Entries e = entries;
+            if (e.deferred == deferred) {
+                entries = new Entries(e.present, e.properties, e.values, null);
+                PropertyValueMap values = deferred.valuesFor(this);
+                if (values != null) {
+                    values.propertyValueStream().forEach(pv -> {
+                        if (!entries.contains(pv.property().ordinal())) put(pv.property(), pv.value());
+                    });
+                }
+            }
+            return entries;
+        }
+    }
+
+    @Override
+    public synchronized void setDeferred(Deferred deferred) {
+        Entries e = entries;
+        entries = new Entries(e.present, e.properties, e.values, deferred);
+    }
+
+    // call with the monitor held; returns the previous value, null if there was none
+    private Value put(Property property, Value value) {
+        Entries e = entries;
+        int ordinal = property.ordinal();
+        int at = e.rank(ordinal);
+        if (e.contains(ordinal)) {
+            Value previous = e.values[at];
+            Value[] values = e.values.clone();
+            values[at] = value;
+            entries = new Entries(e.present, e.properties, values, e.deferred); // keys unchanged: share them
+            return previous;
+        }
+        int n = e.size();
+        long[] present = Arrays.copyOf(e.present, Math.max(e.present.length, (ordinal >>> 6) + 1));
+        present[ordinal >>> 6] |= 1L << ordinal;
+        Property[] properties = new Property[n + 1];
+        Value[] values = new Value[n + 1];
+        System.arraycopy(e.properties, 0, properties, 0, at);
+        System.arraycopy(e.values, 0, values, 0, at);
+        properties[at] = property;
+        values[at] = value;
+        System.arraycopy(e.properties, at, properties, at + 1, n - at);
+        System.arraycopy(e.values, at, values, at + 1, n - at);
+        entries = new Entries(present, properties, values, e.deferred);
+        return null;
+    }
 
     /**
      * Carries only the properties that declare {@link Property#carryOnRewire()}; the rest are dropped, which for
@@ -46,54 +155,62 @@ public class PropertyValueMapImpl implements PropertyValueMap {
      * on a rewired method.
      */
     @Override
-    public synchronized PropertyValueMap rewire(InfoMapView infoMap) {
+    public PropertyValueMap rewire(InfoMapView infoMap) {
         return rewire(infoMap, Property::carryOnRewire);
     }
 
     // filtered carry (docs/analysis-rewiring.md): the fingerprint-gated skip passes the analyzer-output predicate
     @Override
-    public synchronized PropertyValueMap rewire(InfoMapView infoMap, java.util.function.Predicate<Property> filter) {
+    public PropertyValueMap rewire(InfoMapView infoMap, java.util.function.Predicate<Property> filter) {
+        Entries e = current();
         PropertyValueMapImpl rewiredMap = new PropertyValueMapImpl();
-        map.forEach((key, value) -> {
-            if (filter.test(key)) rewiredMap.set(key, value.rewire(infoMap));
-        });
+        for (int i = 0; i < e.size(); i++) {
+            if (filter.test(e.properties[i])) rewiredMap.set(e.properties[i], e.values[i].rewire(infoMap));
+        }
         return rewiredMap;
     }
 
     @Override
-    public synchronized Stream<PropertyValue> propertyValueStream() {
-        // snapshot under the lock; the returned stream is safe to consume without it
-        return map.entrySet().stream().map(e -> new PropertyValue(e.getKey(), e.getValue())).toList().stream();
+    public Stream<PropertyValue> propertyValueStream() {
+        // a snapshot: safe to consume while other threads write
+        Entries e = current();
+        return IntStream.range(0, e.size()).mapToObj(i -> new PropertyValue(e.properties[i], e.values[i]));
     }
 
     @Override
-    public synchronized boolean haveAnalyzedValueFor(Property property) {
-        return map.containsKey(property);
+    public boolean haveAnalyzedValueFor(Property property) {
+        return current().contains(property.ordinal());
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized <V extends Value> V getOrDefault(Property property, V defaultValue) {
+    public <V extends Value> V getOrDefault(Property property, V defaultValue) {
         assert defaultValue != null;
-        return (V) map.getOrDefault(property, defaultValue);
+        Value value = current().get(property);
+        return value == null ? defaultValue : (V) value;
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized <V extends Value> V getOrNull(Property property, Class<? extends V> clazz) {
-        return (V) map.get(property);
+    public <V extends Value> V getOrNull(Property property, Class<? extends V> clazz) {
+        return (V) current().get(property);
     }
 
     @SuppressWarnings("unchecked")
     @Override
-    public synchronized <V extends Value> V getOrCreate(Property property, Supplier<V> computeValue) {
-        V v = (V) map.get(property);
+    public <V extends Value> V getOrCreate(Property property, Supplier<V> computeValue) {
+        V v = (V) current().get(property);
         if (v != null) return v;
-        V vv = computeValue.get();
-        if (vv != null) {
-            map.put(property, vv);
+        synchronized (this) {
+            V again = (V) entries.get(property);
+            if (again != null) return again;
+            V vv = computeValue.get();
+            if (vv != null) {
+                put(property, vv);
+                ValueWriteRecorder.record(this);
+            }
+            return vv;
         }
-        return vv;
     }
 
     @Override
@@ -101,23 +218,27 @@ public class PropertyValueMapImpl implements PropertyValueMap {
         assert value != null : "Not allowed to write null";
 
         assert property.classOfValue().isAssignableFrom(value.getClass());
-        if (map.put(property, value) != null) {
+        if (current().contains(property.ordinal())) {
             throw new IllegalArgumentException("Trying to overwrite a value for property " + property);
         }
+        put(property, value);
+        ValueWriteRecorder.record(this);
     }
 
     @SuppressWarnings("unchecked")
     @Override
     public synchronized <V extends Value> boolean setAllowControlledOverwrite(Property property, V value) {
         assert value != null : "Not allowed to write null";
-        V current = (V) map.get(property);
+        V current = (V) current().get(property);
         if (current == null) {
-            map.put(property, value);
+            put(property, value);
+            ValueWriteRecorder.record(this);
             return true;
         }
         if (!current.equals(value)) {
             if (current.overwriteAllowed(value)) {
-                map.put(property, value);
+                put(property, value);
+                ValueWriteRecorder.record(this);
                 return true;
             }
             throw new UnsupportedOperationException("Trying to overwrite " + current + " with "
@@ -130,8 +251,11 @@ public class PropertyValueMapImpl implements PropertyValueMap {
     public synchronized <V extends Value> boolean overwrite(Property property, V value) {
         assert value != null : "Not allowed to write null";
         assert property.classOfValue().isAssignableFrom(value.getClass());
-        Value prev = map.put(property, value);
-        return !value.equals(prev);
+        current();
+        Value prev = put(property, value);
+        boolean changed = !value.equals(prev);
+        if (changed) ValueWriteRecorder.record(this);
+        return changed;
     }
 
     @Override
@@ -141,11 +265,29 @@ public class PropertyValueMapImpl implements PropertyValueMap {
 
     @Override
     public synchronized void removeIf(java.util.function.Predicate<Property> filter) {
-        map.keySet().removeIf(filter);
+        Entries e = current();
+        int[] keep = IntStream.range(0, e.size()).filter(i -> !filter.test(e.properties[i])).toArray();
+        if (keep.length == e.size()) return;
+        ValueWriteRecorder.record(this);
+        if (keep.length == 0) {
+            entries = e.deferred == null ? Entries.EMPTY
+                    : new Entries(new long[0], new Property[0], new Value[0], e.deferred);
+            return;
+        }
+        long[] present = new long[e.present.length];
+        Property[] properties = new Property[keep.length];
+        Value[] values = new Value[keep.length];
+        for (int j = 0; j < keep.length; j++) {
+            properties[j] = e.properties[keep[j]];
+            values[j] = e.values[keep[j]];
+            int ordinal = properties[j].ordinal();
+            present[ordinal >>> 6] |= 1L << ordinal;
+        }
+        entries = new Entries(present, properties, values, e.deferred);
     }
 
     @Override
-    public synchronized boolean isEmpty() {
-        return map.isEmpty();
+    public boolean isEmpty() {
+        return current().size() == 0;
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.impl.analysis;
+
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records which property value maps received a new or changed value, whoever wrote it: the certification tracker of
+ * the iterating analyzer needs every element whose values moved, and a write through
+ * {@link PropertyValueMapImpl} onto another element's map is invisible to the change attribution of the element
+ * being analyzed. Hooked at the writing methods of {@link PropertyValueMapImpl}; a value loaded from a deferred
+ * source is not a write. Armed by the analyzer for its run only; a plain static boolean when off, like
+ * {@link ConsumptionEdgeRecorder}.
+ */
+public class ValueWriteRecorder {
+    public static boolean ENABLED;
+
+    // PropertyValueMapImpl keeps Object's identity equality
+    private static final Set<PropertyValueMap> WRITTEN = ConcurrentHashMap.newKeySet();
+
+    private ValueWriteRecorder() {
+    }
+
+    static void record(PropertyValueMap map) {
+        if (ENABLED) WRITTEN.add(map);
+    }
+
+    /** the maps written since the previous drain; empties the record */
+    public static List<PropertyValueMap> drain() {
+        List<PropertyValueMap> written = List.copyOf(WRITTEN);
+        written.forEach(WRITTEN::remove);
+        return written;
+    }
+
+    public static void reset() {
+        WRITTEN.clear();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.impl.analysis;
+
+import io.codelaser.maddi.cst.api.analysis.Property;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
+import io.codelaser.maddi.cst.api.analysis.Value;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import static io.codelaser.maddi.cst.impl.analysis.ValueImpl.BoolImpl.FALSE;
+import static io.codelaser.maddi.cst.impl.analysis.ValueImpl.BoolImpl.TRUE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contention benchmark for the property store: the access pattern of a PARALLEL=8 iteration, where every
+ * method analyzer reads the property maps of OTHER elements (callees, fields, types) and writes only now and
+ * then. A few thousand maps of ~20 properties each, 8 threads, 1 write per 64 operations.
+ * <p>
+ * The baseline is the previous implementation, a {@code HashMap} behind the map's monitor for every access,
+ * reduced here to the two operations the benchmark needs. PROBE lines carry the numbers. The assertions are on
+ * correctness under contention: a read never loses a property that was present, and after the run every map holds
+ * exactly the properties that were filled or written, none of the concurrent writes to new keys lost.
+ */
+public class TestPropertyValueMapContentionBench {
+    private static final int MAPS = 4096;
+    private static final int PROPERTIES = 24;
+    private static final int FILLED = 20;
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2_000_000;
+    private static final int WRITE_EVERY = 64;
+
+    private static final List<Property> PROPERTY_LIST = new ArrayList<>();
+
+    static {
+        for (int i = 0; i < PROPERTIES; i++) PROPERTY_LIST.add(new PropertyImpl("bench" + i));
+    }
+
+    // the previous PropertyValueMapImpl, as far as this benchmark is concerned
+    private static class SynchronizedHashMapStore {
+        private final Map<Property, Value> map = new HashMap<>();
+
+        synchronized Value get(Property property) {
+            return map.get(property);
+        }
+
+        synchronized void overwrite(Property property, Value value) {
+            map.put(property, value);
+        }
+    }
+
+    private static <M> long run(Supplier<M> newMap, BiFunction<M, Property, Value> get,
+                                TriConsumer<M, Property, Value> overwrite) throws InterruptedException {
+        List<M> maps = new ArrayList<>(MAPS);
+        for (int i = 0; i < MAPS; i++) {
+            M m = newMap.get();
+            for (int p = 0; p < FILLED; p++) overwrite.accept(m, PROPERTY_LIST.get(p), TRUE);
+            maps.add(m);
+        }
+        LongAdder found = new LongAdder();
+        LongAdder lost = new LongAdder();
+        AtomicIntegerArray written = new AtomicIntegerArray(MAPS * PROPERTIES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long hits = 0;
+                long misses = 0;
+                for (int i = 0; i < OPERATIONS; i++) {
+                    // a hot set: analyzers of one wave read the same few callees
+                    int mi = random.nextInt(random.nextInt(8) == 0 ? MAPS : 64);
+                    M m = maps.get(mi);
+                    int pi = random.nextInt(PROPERTIES);
+                    Property p = PROPERTY_LIST.get(pi);
+                    if (i % WRITE_EVERY == 0) {
+                        overwrite.accept(m, p, (i & 64) == 0 ? TRUE : FALSE);
+                        written.set(mi * PROPERTIES + pi, 1);
+                    } else {
+                        Value value = get.apply(m, p);
+                        if (value != null) {
+                            hits++;
+                            if (value != TRUE && value != FALSE) misses++;
+                        } else if (pi < FILLED) {
+                            misses++;
+                        }
+                    }
+                }
+                found.add(hits);
+                lost.add(misses);
+            }));
+        }
+        long t0 = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        assertTrue(found.sum() > 0);
+        assertEquals(0, lost.sum(), "reads that missed a filled property, or saw a foreign value");
+        for (int mi = 0; mi < MAPS; mi++) {
+            for (int pi = 0; pi < PROPERTIES; pi++) {
+                Value value = get.apply(maps.get(mi), PROPERTY_LIST.get(pi));
+                boolean expected = pi < FILLED || written.get(mi * PROPERTIES + pi) == 1;
+                assertEquals(expected, value != null, "map " + mi + ", property " + pi);
+                if (value != null) assertTrue(value == TRUE || value == FALSE);
+            }
+        }
+        return Math.max(1, millis);
+    }
+
+    @FunctionalInterface
+    private interface TriConsumer<A, B, C> {
+        void accept(A a, B b, C c);
+    }
+
+    @DisplayName("lock-free reads vs. the synchronized HashMap, 8 threads")
+    @Test
+    public void bench() throws InterruptedException {
+        long[] baseline = new long[3];
+        long[] store = new long[3];
+        for (int round = 0; round < 3; round++) { // the first round is warm-up
+            baseline[round] = run(SynchronizedHashMapStore::new, SynchronizedHashMapStore::get,
+                    SynchronizedHashMapStore::overwrite);
+            store[round] = run(PropertyValueMapImpl::new, (m, p) -> m.getOrNull(p, Value.class),
+                    PropertyValueMap::overwrite);
+            System.out.printf("PROBE round %d  synchronized HashMap=%6d ms   PropertyValueMapImpl=%6d ms%n",
+                    round, baseline[round], store[round]);
+        }
+        long ops = (long) THREADS * OPERATIONS;
+        System.out.printf("PROBE %d ops: synchronized HashMap %.1f Mops/s, PropertyValueMapImpl %.1f Mops/s%n",
+                ops, ops / 1000.0 / baseline[2], ops / 1000.0 / store[2]);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.impl.analysis;
+
+import io.codelaser.maddi.cst.api.analysis.Property;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
+import io.codelaser.maddi.cst.api.analysis.Value;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static io.codelaser.maddi.cst.impl.analysis.ValueImpl.BoolImpl.FALSE;
+import static io.codelaser.maddi.cst.impl.analysis.ValueImpl.BoolImpl.TRUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPropertyValueMapImpl {
+
+    private static final Property P1 = new PropertyImpl("p1");
+    private static final Property P2 = new PropertyImpl("p2");
+    private static final Property P3 = new PropertyImpl("p3");
+
+    @DisplayName("write-once set, keys in ordinal order")
+    @Test
+    public void test1() {
+        PropertyValueMap map = new PropertyValueMapImpl();
+        assertTrue(map.isEmpty());
+        map.set(P3, TRUE);
+        map.set(P1, FALSE);
+        assertFalse(map.isEmpty());
+        assertTrue(map.haveAnalyzedValueFor(P1));
+        assertFalse(map.haveAnalyzedValueFor(P2));
+        assertSame(TRUE, map.getOrDefault(P3, FALSE));
+        assertSame(TRUE, map.getOrDefault(P2, TRUE));
+        assertNull(map.getOrNull(P2, ValueImpl.BoolImpl.class));
+        assertEquals("p1, p3", map.propertyValueStream().map(pv -> pv.property().key())
+                .collect(Collectors.joining(", ")));
+
+        assertThrows(IllegalArgumentException.class, () -> map.set(P1, TRUE));
+        assertSame(FALSE, map.getOrDefault(P1, TRUE), "a refused write leaves the value in place");
+    }
+
+    @DisplayName("overwrite, removeIf, getOrCreate")
+    @Test
+    public void test2() {
+        PropertyValueMap map = new PropertyValueMapImpl();
+        assertTrue(map.overwrite(P2, TRUE));
+        assertFalse(map.overwrite(P2, TRUE));
+        assertTrue(map.overwrite(P2, FALSE));
+        assertSame(FALSE, map.getOrDefault(P2, TRUE));
+
+        assertSame(TRUE, map.getOrCreate(P1, () -> TRUE));
+        assertSame(TRUE, map.getOrCreate(P1, () -> FALSE));
+
+        map.removeIf(p -> p == P2);
+        assertFalse(map.haveAnalyzedValueFor(P2));
+        assertTrue(map.haveAnalyzedValueFor(P1));
+        map.removeIf(p -> true);
+        assertTrue(map.isEmpty());
+    }
+
+    @DisplayName("a concurrent reader never sees an overwritten value disappear")
+    @Test
+    public void test3() throws InterruptedException {
+        PropertyValueMap map = new PropertyValueMapImpl();
+        map.set(P1, TRUE);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicBoolean sawNull = new AtomicBoolean();
+        Thread reader = new Thread(() -> {
+            while (!stop.get()) {
+                if (map.getOrNull(P1, ValueImpl.BoolImpl.class) == null) sawNull.set(true);
+            }
+        });
+        reader.start();
+        List<Value> values = List.of(TRUE, FALSE);
+        for (int i = 0; i < 200_000; i++) {
+            map.overwrite(P1, values.get(i % 2));
+            // other keys come and go around it
+            map.overwrite(i % 3 == 0 ? P2 : P3, TRUE);
+            map.removeIf(p -> p != P1);
+        }
+        stop.set(true);
+        reader.join();
+        assertFalse(sawNull.get());
+    }
+
+    // one decoder for two maps, as the hints archive has one per primary type
+    private static final class TwoMaps implements PropertyValueMap.Deferred {
+        private final PropertyValueMap first;
+        private final PropertyValueMap second;
+        private final PropertyValueMap decoded = new PropertyValueMapImpl();
+        private int loads;
+
+        TwoMaps(PropertyValueMap first, PropertyValueMap second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public synchronized boolean load() {
+            if (loads++ == 0) decoded.set(P1, TRUE);
+            return true;
+        }
+
+        @Override
+        public PropertyValueMap valuesFor(PropertyValueMap target) {
+            return target == first ? decoded : null;
+        }
+    }
+
+    @DisplayName("deferred values: decoded once, on first access, merged into the map they belong to")
+    @Test
+    public void test4() {
+        PropertyValueMap m1 = new PropertyValueMapImpl();
+        PropertyValueMap m2 = new PropertyValueMapImpl();
+        TwoMaps deferred = new TwoMaps(m1, m2);
+        m1.setDeferred(deferred);
+        m2.setDeferred(deferred);
+        assertEquals(0, deferred.loads);
+
+        assertFalse(m2.haveAnalyzedValueFor(P1), "nothing was decoded for m2");
+        assertEquals(1, deferred.loads);
+        assertSame(TRUE, m1.getOrDefault(P1, FALSE));
+        assertEquals("p1", m1.propertyValueStream().map(pv -> pv.property().key())
+                .collect(Collectors.joining(", ")));
+        assertEquals(2, deferred.loads, "each map asks once, then the deferral is gone");
+        assertSame(TRUE, m1.getOrDefault(P1, FALSE));
+        assertEquals(2, deferred.loads);
+
+        PropertyValueMap m3 = new PropertyValueMapImpl();
+        m3.setDeferred(new TwoMaps(m3, null));
+        assertThrows(IllegalArgumentException.class, () -> m3.set(P1, FALSE),
+                "a write sees the decoded value first");
+    }
+}
@@ -21,6 +21,13 @@ public interface Property {
 
     String key();
 
+    /**
+     * Dense number of this property, unique in the JVM, assigned at construction. Property stores key on it
+     * rather than on hash and equality: properties are identity objects, and an int compares without a
+     * memory access.
+     */
+    int ordinal();
+
     /**
      * Whether this property's value survives a rewire (see {@code docs/rewiring.md}).
      * <p>
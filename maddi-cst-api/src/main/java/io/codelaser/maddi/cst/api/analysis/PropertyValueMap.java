@@ -76,4 +76,25 @@ public interface PropertyValueMap {
     <V extends Value> boolean overwrite(Property property, V value);
 
     void setAll(PropertyValueMap analysis);
+
+    /**
+     * Values that an external source (a binary analysis-hints archive) holds for this map, decoded only when the map
+     * is first used. One instance typically serves all the maps of a primary type, so its first use decodes them all.
+     */
+    interface Deferred {
+        /**
+         * Decode, once; blocks while another thread decodes. Returns false on a re-entrant call from the decoding
+         * thread itself, which must then see the map as it is.
+         */
+        boolean load();
+
+        /** After {@link #load()}: the decoded values for {@code target}, or null when there are none. */
+        PropertyValueMap valuesFor(PropertyValueMap target);
+    }
+
+    /**
+     * Defer the values of {@code deferred} until this map is first read or written; every access then merges them
+     * in first. Null removes a pending deferral.
+     */
+    void setDeferred(Deferred deferred);
 }
@@ -91,4 +91,11 @@ public interface Predefined extends PredefinedWithoutParameterizedType {
     ParameterizedType widestTypeUnbox(ParameterizedType t1, ParameterizedType t2);
 
     boolean isAssignableFrom(ParameterizedType target, ParameterizedType from);
+
+    /*
+    assignability scores are remembered across queries; types are equal by fully qualified name, so when re-parsing
+    replaces types (and possibly their hierarchy), the inspector must make the runtime forget them.
+    The factory also drops its interned parameterized types here.
+     */
+    void clearAssignabilityCache();
 }
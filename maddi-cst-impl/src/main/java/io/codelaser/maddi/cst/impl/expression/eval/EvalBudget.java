@@ -35,27 +35,31 @@ public class EvalBudget {
     // dispatchers burn millions before their 30-minute grinds. 100_000 separates the populations.
     private static final int MAX_EVAL_ENTRIES_PER_TOP_LEVEL = 100_000;
 
-    // [0] = depth, [1] = entries consumed under the current top-level operation
-    private static final ThreadLocal<int[]> STATE = ThreadLocal.withInitial(() -> new int[2]);
+    // [0] = depth, [1] = entries consumed under the current top-level operation, [2] = entries consumed by the
+    // completed top-level operations of this thread (for the analysis profiler, see consumed())
+    private static final ThreadLocal<long[]> STATE = ThreadLocal.withInitial(() -> new long[3]);
 
     private EvalBudget() {
     }
 
     /** Call on evaluator entry; pair with {@link #exit()} in a finally block. */
     public static void enter() {
-        int[] state = STATE.get();
+        long[] state = STATE.get();
         if (state[0]++ == 0) {
             state[1] = 0;
         }
     }
 
     public static void exit() {
-        STATE.get()[0]--;
+        long[] state = STATE.get();
+        if (--state[0] == 0) {
+            state[2] += state[1];
+        }
     }
 
     /** Consume one unit of work; true when the current top-level operation is over budget. */
     public static boolean exhausted() {
-        int[] state = STATE.get();
+        long[] state = STATE.get();
         return ++state[1] > MAX_EVAL_ENTRIES_PER_TOP_LEVEL;
     }
 
@@ -65,7 +69,7 @@ public class EvalBudget {
      * point: standalone calls stay untouched, nested ones share the top-level budget.
      */
     public static boolean tickNested() {
-        int[] state = STATE.get();
+        long[] state = STATE.get();
         if (state[0] == 0) return false;
         return ++state[1] > MAX_EVAL_ENTRIES_PER_TOP_LEVEL;
     }
@@ -79,4 +83,13 @@ public class EvalBudget {
     public static boolean overBudget() {
         return STATE.get()[1] > MAX_EVAL_ENTRIES_PER_TOP_LEVEL;
     }
+
+    /**
+     * The units of work consumed on this thread so far, including those of a top-level operation still running.
+     * Monotone; read before and after a piece of work to attribute the difference to it.
+     */
+    public static long consumed() {
+        long[] state = STATE.get();
+        return state[2] + (state[0] > 0 ? state[1] : 0);
+    }
 }
@@ -63,6 +63,7 @@ public class FactoryImpl extends PredefinedImpl implements Factory {
     // part-of-construction exclusion the way assignments do, and the mutable map capped FactoryImpl
     // at @Mutable (the eventual cluster's Runtime lean root)
     private final Map<MethodInfo, Precedence> precedenceMap;
+    private final ParameterizedTypeInterner parameterizedTypeInterner = new ParameterizedTypeInterner();
 
     public FactoryImpl() {
         zero = new IntConstantImpl(List.of(), noSource(), intParameterizedType(), 0);
@@ -881,16 +882,25 @@ public class FactoryImpl extends PredefinedImpl implements Factory {
 
     @Override
     public ParameterizedType newParameterizedType(TypeInfo typeInfo, List<ParameterizedType> newParameters) {
+        if (ParameterizedTypeInterner.ENABLED) {
+            return parameterizedTypeInterner.intern(typeInfo, null, newParameters, 0, null);
+        }
         return new ParameterizedTypeImpl(typeInfo, null, newParameters, 0, null);
     }
 
     @Override
     public ParameterizedType newParameterizedType(TypeInfo typeInfo, int arrays) {
+        if (ParameterizedTypeInterner.ENABLED) {
+            return parameterizedTypeInterner.intern(typeInfo, null, List.of(), arrays, null);
+        }
         return new ParameterizedTypeImpl(typeInfo, null, List.of(), arrays, null);
     }
 
     @Override
     public ParameterizedType newParameterizedType(TypeParameter typeParameter, int arrays, Wildcard wildCard) {
+        if (ParameterizedTypeInterner.ENABLED && wildCard != WildcardEnum.EXTENDS_INTERSECTION) {
+            return parameterizedTypeInterner.intern(null, typeParameter, List.of(), arrays, wildCard);
+        }
         return new ParameterizedTypeImpl(null, typeParameter, List.of(), arrays, wildCard);
     }
 
@@ -906,6 +916,9 @@ public class FactoryImpl extends PredefinedImpl implements Factory {
                                                   int arrays,
                                                   Wildcard wildCard,
                                                   List<ParameterizedType> parameters) {
+        if (ParameterizedTypeInterner.ENABLED && wildCard != WildcardEnum.EXTENDS_INTERSECTION) {
+            return parameterizedTypeInterner.intern(typeInfo, null, parameters, arrays, wildCard);
+        }
         return new ParameterizedTypeImpl(typeInfo, null, parameters, arrays, wildCard);
     }
 
@@ -1457,5 +1470,15 @@ public class FactoryImpl extends PredefinedImpl implements Factory {
                                   TextBlockFormatting textBlockFormatting) {
         return new TextBlockImpl(comments, source, stringParameterizedType(), content, textBlockFormatting);
     }
-}
 
+    public ParameterizedTypeInterner parameterizedTypeInterner() {
+        return parameterizedTypeInterner;
+    }
+
+    // the invalidation hook of the inspectors; the interned types of replaced TypeInfos must not be kept alive
+    @Override
+    public void clearAssignabilityCache() {
+        super.clearAssignabilityCache();
+        parameterizedTypeInterner.clear();
+    }
+}
@@ -29,6 +29,7 @@ import io.codelaser.maddi.cst.impl.info.InspectionImpl;
 import io.codelaser.maddi.cst.impl.info.MethodInfoImpl;
 import io.codelaser.maddi.cst.impl.info.TypeInfoImpl;
 import io.codelaser.maddi.cst.impl.info.TypeNatureEnum;
+import io.codelaser.maddi.cst.impl.type.AssignabilityCache;
 import io.codelaser.maddi.cst.impl.type.IsAssignableFrom2;
 import io.codelaser.maddi.cst.impl.type.ParameterizedTypeImpl;
 
@@ -138,6 +139,7 @@ public class PredefinedImpl implements Predefined {
     private final ParameterizedType stringParameterizedType = stringTypeInfo.asSimpleParameterizedType();
 
     private final IsAssignableFrom2 isAssignableFrom2;
+    private final AssignabilityCache assignabilityCache = new AssignabilityCache();
 
     public ParameterizedType stringParameterizedType() {
         return stringParameterizedType;
@@ -860,4 +862,14 @@ public class PredefinedImpl implements Predefined {
         return isAssignableFrom2.test(target, from);
     }
 
+    // the scores of IsAssignableFrom queries, shared across queries and threads
+    public AssignabilityCache assignabilityCache() {
+        return assignabilityCache;
+    }
+
+    @Override
+    public void clearAssignabilityCache() {
+        assignabilityCache.clear();
+    }
+
 }
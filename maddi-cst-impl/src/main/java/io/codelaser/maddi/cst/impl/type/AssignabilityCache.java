@@ -0,0 +1,152 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.impl.type;
+
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+The runtime-wide memory of IsAssignableFrom: the scores of completed top-level queries, shared by all threads.
+Keyed structurally (ParameterizedType equality) with the hash computed once per key, instead of the two toString()
+calls per query of the per-query cache.
+
+Bounded by two generations: entries go into 'young'; when it is full, it becomes 'old' and the previous 'old' is
+dropped. A hit in 'old' is copied back into 'young', so what is in use survives; at most 2 x capacity entries.
+
+Only queries of which both types are cacheable() are kept. A type parameter is equal to another by owner and index,
+not by bounds, and a method owner's hash changes while its signature is being built, after the key's hash has been
+computed. A type that is not yet inspected can still gain the supertypes the score depends on.
+TypeInfo equality is by fully qualified name, so after a re-parse replaced types, a cached score could describe the
+old hierarchy: the inspectors clear the cache when they invalidate sources.
+Env ASSIGNABILITY_CACHE=<entries per generation>, default 65536; 0 switches the cache off. The tests compare with
+and without through the package-private constructor of IsAssignableFrom that takes the cache.
+ */
+public class AssignabilityCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssignabilityCache.class);
+
+    static final int DEFAULT_CAPACITY = capacityFromEnv();
+
+    public static final boolean ENABLED = DEFAULT_CAPACITY > 0;
+
+    private static int capacityFromEnv() {
+        String env = System.getenv("ASSIGNABILITY_CACHE");
+        if (env == null) return 1 << 16;
+        try {
+            return Math.max(0, Integer.parseInt(env.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ignoring ASSIGNABILITY_CACHE={}, not a number", env);
+            return 1 << 16;
+        }
+    }
+
+    // no type parameter anywhere, and every type inspected (primitives need not be)
+    static boolean cacheable(ParameterizedType pt) {
+        if (pt.typeParameter() != null) return false;
+        TypeInfo typeInfo = pt.typeInfo();
+        if (typeInfo != null && !typeInfo.isPrimitive() && !typeInfo.hasBeenInspected()) return false;
+        for (ParameterizedType parameter : pt.parameters()) {
+            if (!cacheable(parameter)) return false;
+        }
+        return true;
+    }
+
+    static final class Key {
+        private final ParameterizedType target;
+        private final ParameterizedType from;
+        private final int flags;
+        private final int hash;
+
+        Key(ParameterizedType target, ParameterizedType from, IsAssignableFrom.Mode mode, boolean ignoreArrays,
+            boolean strictTypeParameterTargets) {
+            this.target = target;
+            this.from = from;
+            this.flags = mode.ordinal() << 2 | (ignoreArrays ? 2 : 0) | (strictTypeParameterTargets ? 1 : 0);
+            this.hash = 31 * (31 * target.hashCode() + from.hashCode()) + flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && hash == key.hash && flags == key.flags
+                   && target.equals(key.target) && from.equals(key.from);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int capacity;
+    private volatile Map<Key, Integer> young = new ConcurrentHashMap<>();
+    private volatile Map<Key, Integer> old = Map.of();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public AssignabilityCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AssignabilityCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // null when not present
+    Integer get(Key key) {
+        Integer value = young.get(key);
+        if (value == null) {
+            value = old.get(key);
+            if (value != null) put(key, value);
+        }
+        if (value == null) misses.increment();
+        else hits.increment();
+        return value;
+    }
+
+    void put(Key key, int value) {
+        Map<Key, Integer> y = young;
+        y.put(key, value);
+        if (y.size() > capacity) {
+            synchronized (this) {
+                if (young == y) {
+                    old = y;
+                    young = new ConcurrentHashMap<>();
+                }
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        old = Map.of();
+        young = new ConcurrentHashMap<>();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return young.size() + old.size();
+    }
+}
@@ -21,6 +21,7 @@ import io.codelaser.maddi.cst.api.info.TypeParameter;
 import io.codelaser.maddi.cst.api.runtime.Predefined;
 import io.codelaser.maddi.cst.api.type.ParameterizedType;
 import io.codelaser.maddi.cst.api.type.Wildcard;
+import io.codelaser.maddi.cst.impl.runtime.PredefinedImpl;
 import io.codelaser.maddi.util.ListUtil;
 
 import java.util.HashMap;
@@ -34,21 +35,41 @@ public class IsAssignableFrom {
     private final ParameterizedType target;
     private final ParameterizedType from;
     private final Map<String, Integer> cache;
+    private final AssignabilityCache shared;
 
     public IsAssignableFrom(Predefined runtime,
                             ParameterizedType target,
                             ParameterizedType from) {
-        this(runtime, target, from, new HashMap<>());
+        this(runtime, target, from, new HashMap<>(), AssignabilityCache.ENABLED
+                                                     && runtime instanceof PredefinedImpl p
+                ? p.assignabilityCache() : null);
+    }
+
+    // test hook: with the given shared cache, or without one (null), whatever ASSIGNABILITY_CACHE says
+    IsAssignableFrom(Predefined runtime,
+                     ParameterizedType target,
+                     ParameterizedType from,
+                     AssignabilityCache shared) {
+        this(runtime, target, from, new HashMap<>(), shared);
     }
 
     private IsAssignableFrom(Predefined runtime,
                              ParameterizedType target,
                              ParameterizedType from,
                              Map<String, Integer> cache) {
+        this(runtime, target, from, cache, null);
+    }
+
+    private IsAssignableFrom(Predefined runtime,
+                             ParameterizedType target,
+                             ParameterizedType from,
+                             Map<String, Integer> cache,
+                             AssignabilityCache shared) {
         this.runtime = Objects.requireNonNull(runtime);
         this.target = Objects.requireNonNull(target);
         this.from = Objects.requireNonNull(from);
         this.cache = cache;
+        this.shared = shared;
     }
 
     public boolean execute() {
@@ -94,6 +115,15 @@ public class IsAssignableFrom {
      */
 
     public int execute(boolean ignoreArrays, boolean strictTypeParameterTargets, Mode mode) {
+        // only the outermost call of a query (empty per-query cache) consults the shared cache: its score is final,
+        // while a score computed deeper down may rest on an IN_RECURSION assumption of the query that asked for it
+        AssignabilityCache.Key sharedKey = shared != null && cache.isEmpty()
+                                           && AssignabilityCache.cacheable(target) && AssignabilityCache.cacheable(from)
+                ? new AssignabilityCache.Key(target, from, mode, ignoreArrays, strictTypeParameterTargets) : null;
+        if (sharedKey != null) {
+            Integer sharedValue = shared.get(sharedKey);
+            if (sharedValue != null) return sharedValue;
+        }
         String visitedString = from + "|" + target + "|" + mode + "|" + ignoreArrays + "|" + strictTypeParameterTargets;
         Integer cachedValue = cache.get(visitedString);
         if (cachedValue != null) return cachedValue;
@@ -101,7 +131,9 @@ public class IsAssignableFrom {
         int value = internalExecute(ignoreArrays, strictTypeParameterTargets, mode);
         assert value != IN_RECURSION;
         cache.put(visitedString, value);
-        return value >= MAX ? MAX - 1 : value;
+        int result = value >= MAX ? MAX - 1 : value;
+        if (sharedKey != null) shared.put(sharedKey, result);
+        return result;
     }
 
     private int internalExecute(boolean ignoreArrays, boolean strictTypeParameterTargets, Mode mode) {
@@ -62,6 +62,24 @@ public class ParameterizedTypeImpl implements ParameterizedType {
     private final Wildcard wildcard;
     private final List<ParameterizedType> parameters;
     private final NullableState nullable;
+    /*
+    Set on the canonical instances of ParameterizedTypeInterner, null otherwise. One reference keeps the object at
+    its 40 bytes (compressed oops); the cached state lives in the holder, which only canonical instances pay for.
+     */
+    private Interned interned;
+
+    static final class Interned {
+        // hash() of a type without a method's type parameter inside: MethodInfo's hash changes while it is built
+        final boolean stableHash;
+        final int hash;
+        volatile Map<NamedType, ParameterizedType> initialTypeParameterMap;
+        volatile Map<NamedType, ParameterizedType> forwardTypeParameterMap;
+
+        Interned(boolean stableHash, int hash) {
+            this.stableHash = stableHash;
+            this.hash = hash;
+        }
+    }
 
     public ParameterizedTypeImpl(TypeParameter typeParameter, int arrays) {
         this(null, typeParameter, List.of(), arrays, null);
@@ -134,6 +152,10 @@ public class ParameterizedTypeImpl implements ParameterizedType {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ParameterizedTypeImpl that = (ParameterizedTypeImpl) o;
+        if (interned != null && that.interned != null && interned.stableHash && that.interned.stableHash
+            && interned.hash != that.interned.hash) {
+            return false;
+        }
         return arrays == that.arrays
                && Objects.equals(typeParameter, that.typeParameter)
                && Objects.equals(typeInfo, that.typeInfo)
@@ -156,6 +178,12 @@ public class ParameterizedTypeImpl implements ParameterizedType {
 
     @Override
     public int hashCode() {
+        Interned i = interned;
+        if (i != null && i.stableHash) return i.hash;
+        return computeHashCode();
+    }
+
+    private int computeHashCode() {
         // nullable is intentionally excluded: the equals/hashCode contract only requires equal->same
         // hash. Keeping it out leaves every type's hash unchanged from before nullability existed, so
         // hash-ordered collections across the analyzer keep their iteration order (Java types are all
@@ -181,6 +209,25 @@ public class ParameterizedTypeImpl implements ParameterizedType {
         return 4; // unbound
     }
 
+    // called by the interner before the instance is published
+    void markInterned() {
+        interned = new Interned(!containsMethodTypeParameter(), computeHashCode());
+    }
+
+    boolean isInterned() {
+        return interned != null;
+    }
+
+    private boolean containsMethodTypeParameter() {
+        if (typeParameter != null && typeParameter.getOwner() != null && typeParameter.getOwner().isRight()) {
+            return true;
+        }
+        for (ParameterizedType p : parameters) {
+            if (!(p instanceof ParameterizedTypeImpl pti) || pti.containsMethodTypeParameter()) return true;
+        }
+        return false;
+    }
+
     public OutputBuilder print(Qualification qualification) {
         return ParameterizedTypePrinter.print(qualification, this,
                 false, DiamondEnum.SHOW_ALL, false);
@@ -572,7 +619,22 @@ public class ParameterizedTypeImpl implements ParameterizedType {
     public Map<NamedType, ParameterizedType> initialTypeParameterMap() {
         if (!isType()) return Map.of();
         if (parameters.isEmpty()) return Map.of();
-        return initialTypeParameterMap(new HashSet<>());
+        Interned i = interned;
+        if (i == null) return initialTypeParameterMap(new HashSet<>());
+        Map<NamedType, ParameterizedType> memo = i.initialTypeParameterMap;
+        if (memo == null) {
+            Set<TypeInfo> visited = new HashSet<>();
+            memo = initialTypeParameterMap(visited);
+            if (!visited.stream().allMatch(ParameterizedTypeImpl::hierarchyFinal)) return memo;
+            i.initialTypeParameterMap = memo;
+        }
+        // callers are free to modify the result
+        return new LinkedHashMap<>(memo);
+    }
+
+    // the type parameter maps only depend on the type parameters of these types and their bounds
+    private static boolean hierarchyFinal(TypeInfo typeInfo) {
+        return typeInfo.hasBeenInspected() && typeInfo.asParameterizedType().typeBoundsAreSet(new HashSet<>());
     }
 
     private Map<NamedType, ParameterizedType> initialTypeParameterMap(Set<TypeInfo> visited) {
@@ -694,6 +756,17 @@ public class ParameterizedTypeImpl implements ParameterizedType {
     public Map<NamedType, ParameterizedType> forwardTypeParameterMap() {
         if (!isType()) return Map.of();
         if (parameters.isEmpty()) return Map.of();
+        Interned i = interned;
+        if (i == null || !typeInfo.hasBeenInspected()) return computeForwardTypeParameterMap();
+        Map<NamedType, ParameterizedType> memo = i.forwardTypeParameterMap;
+        if (memo == null) {
+            memo = computeForwardTypeParameterMap();
+            i.forwardTypeParameterMap = memo;
+        }
+        return new LinkedHashMap<>(memo);
+    }
+
+    private Map<NamedType, ParameterizedType> computeForwardTypeParameterMap() {
         ParameterizedType originalType = typeInfo.asParameterizedType(); // Map:K, Map:V
         assert originalType.parameters().size() == parameters.size();
         int i = 0;
@@ -0,0 +1,162 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.impl.type;
+
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.info.TypeParameter;
+import io.codelaser.maddi.cst.api.type.NullableState;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+import io.codelaser.maddi.cst.api.type.Wildcard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Hash-consing of the ParameterizedType instances created by the factory: one canonical instance per shape, so that a
+type like Map<String, List<Integer>>, written in thousands of signatures, exists once. Children are interned first,
+bottom-up, so that the key can compare them by identity.
+
+The key is identity-structural: the TypeInfo, TypeParameter and parameters are compared with ==, not with equals().
+Structural equality would be wrong here: TypeInfo equality is by fully qualified name, so after a re-parse a type
+built on the replaced TypeInfo would be handed out; and a MethodInfo's hash changes while it is being built, which
+moves the key of a method type parameter in the table. Equal-but-not-identical types simply get two canonical
+instances; ParameterizedType.equals() remains structural.
+
+The canonical instance caches its hash (when stable) and its type parameter maps, see ParameterizedTypeImpl.Interned.
+Marker constants (NULL_CONSTANT, ...), intersection types and nullable-annotated types are never interned.
+
+Opt-in, env INTERNTYPES, read once per JVM: the benchmark runs each configuration in a JVM of its own. The table is
+emptied when the inspector invalidates sources, so that it does not keep the replaced types alive.
+ */
+public class ParameterizedTypeInterner {
+
+    public static final boolean ENABLED = System.getenv("INTERNTYPES") != null;
+
+    private final Map<Key, ParameterizedTypeImpl> table = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private static final class Key {
+        private final TypeInfo typeInfo;
+        private final TypeParameter typeParameter;
+        private final List<ParameterizedType> parameters;
+        private final int arrays;
+        private final Wildcard wildcard;
+        private final int hash;
+
+        private Key(TypeInfo typeInfo, TypeParameter typeParameter, List<ParameterizedType> parameters, int arrays,
+                    Wildcard wildcard) {
+            this.typeInfo = typeInfo;
+            this.typeParameter = typeParameter;
+            this.parameters = parameters;
+            this.arrays = arrays;
+            this.wildcard = wildcard;
+            int h = 31 * System.identityHashCode(typeInfo) + System.identityHashCode(typeParameter);
+            for (ParameterizedType p : parameters) {
+                h = 31 * h + System.identityHashCode(p);
+            }
+            this.hash = 31 * (31 * h + arrays) + System.identityHashCode(wildcard);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key key) || hash != key.hash) return false;
+            if (typeInfo != key.typeInfo || typeParameter != key.typeParameter || arrays != key.arrays
+                || wildcard != key.wildcard || parameters.size() != key.parameters.size()) return false;
+            for (int i = 0; i < parameters.size(); i++) {
+                if (parameters.get(i) != key.parameters.get(i)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    public ParameterizedType intern(TypeInfo typeInfo,
+                                    TypeParameter typeParameter,
+                                    List<ParameterizedType> parameters,
+                                    int arrays,
+                                    Wildcard wildcard) {
+        if (typeInfo == null && typeParameter == null) {
+            return new ParameterizedTypeImpl(null, null, parameters, arrays, wildcard);
+        }
+        List<ParameterizedType> canonicalParameters = canonicalParameters(parameters);
+        ParameterizedTypeImpl found = table.get(new Key(typeInfo, typeParameter, canonicalParameters, arrays,
+                wildcard));
+        if (found != null) {
+            hits.increment();
+            return found;
+        }
+        misses.increment();
+        ParameterizedTypeImpl pt = new ParameterizedTypeImpl(typeInfo, typeParameter, canonicalParameters, arrays,
+                wildcard);
+        pt.markInterned();
+        // the stored key holds the instance's own immutable copy of the parameters, not the caller's list
+        ParameterizedTypeImpl previous = table.putIfAbsent(new Key(typeInfo, typeParameter, pt.parameters(), arrays,
+                wildcard), pt);
+        return previous == null ? pt : previous;
+    }
+
+    private List<ParameterizedType> canonicalParameters(List<ParameterizedType> parameters) {
+        List<ParameterizedType> result = null;
+        for (int i = 0; i < parameters.size(); i++) {
+            ParameterizedType p = parameters.get(i);
+            ParameterizedType canonical = canonical(p);
+            if (canonical != p && result == null) {
+                result = new ArrayList<>(parameters.subList(0, i));
+            }
+            if (result != null) result.add(canonical);
+        }
+        return result == null ? parameters : result;
+    }
+
+    private ParameterizedType canonical(ParameterizedType p) {
+        if (p instanceof ParameterizedTypeImpl pti && internable(pti)) {
+            return intern(pti.typeInfo(), pti.typeParameter(), pti.parameters(), pti.arrays(), pti.wildcard());
+        }
+        return p;
+    }
+
+    // the marker constants have neither a type nor a type parameter; some of them are compared by identity
+    private static boolean internable(ParameterizedTypeImpl pti) {
+        return !pti.isInterned()
+               && pti.getClass() == ParameterizedTypeImpl.class
+               && (pti.typeInfo() != null || pti.typeParameter() != null)
+               && pti.wildcard() != WildcardEnum.EXTENDS_INTERSECTION
+               && pti.nullable() == NullableState.UNSPECIFIED;
+    }
+
+    public void clear() {
+        table.clear();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
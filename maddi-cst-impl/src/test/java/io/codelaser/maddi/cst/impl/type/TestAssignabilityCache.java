@@ -0,0 +1,90 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.impl.type;
+
+import io.codelaser.maddi.cst.api.runtime.Runtime;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+import io.codelaser.maddi.cst.impl.runtime.RuntimeImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link IsAssignableFrom} with and without a shared {@link AssignabilityCache}, on the predefined types: every
+ * query in every mode scores the same from a cold cache, from a warm one, and without one.
+ */
+public class TestAssignabilityCache {
+    // ANY is not a query mode: the hierarchy of two different types has no answer in it
+    private static final List<IsAssignableFrom.Mode> MODES = List.of(IsAssignableFrom.Mode.INVARIANT,
+            IsAssignableFrom.Mode.COVARIANT, IsAssignableFrom.Mode.CONTRAVARIANT,
+            IsAssignableFrom.Mode.COVARIANT_ERASURE);
+
+    private final Runtime r = new RuntimeImpl();
+
+    private List<ParameterizedType> types() {
+        List<ParameterizedType> base = List.of(r.objectParameterizedType(), r.stringParameterizedType(),
+                r.intParameterizedType(), r.longParameterizedType(), r.doubleParameterizedType(),
+                r.charParameterizedType(), r.booleanParameterizedType(), r.intParameterizedType().ensureBoxed(r),
+                r.doubleParameterizedType().ensureBoxed(r), r.voidParameterizedType());
+        List<ParameterizedType> types = new ArrayList<>(base);
+        for (ParameterizedType pt : base) {
+            if (!pt.isVoid()) types.add(pt.copyWithArrays(1));
+        }
+        return types;
+    }
+
+    private List<Integer> scores(AssignabilityCache cache) {
+        List<Integer> scores = new ArrayList<>();
+        for (ParameterizedType target : types()) {
+            for (ParameterizedType from : types()) {
+                for (IsAssignableFrom.Mode mode : MODES) {
+                    for (int flags = 0; flags < 4; flags++) {
+                        scores.add(new IsAssignableFrom(r, target, from, cache)
+                                .execute((flags & 2) != 0, (flags & 1) != 0, mode));
+                    }
+                }
+            }
+        }
+        return scores;
+    }
+
+    @DisplayName("same scores without, with a cold and with a warm cache")
+    @Test
+    public void test() {
+        List<Integer> without = scores(null);
+        AssignabilityCache cache = new AssignabilityCache(1 << 16);
+        assertEquals(without, scores(cache));
+        long misses = cache.misses();
+        assertTrue(cache.size() > 0);
+        assertEquals(without, scores(cache));
+        assertEquals(misses, cache.misses(), "the second round is answered from the cache");
+        assertTrue(cache.hits() > 0);
+    }
+
+    @DisplayName("two generations: a small cache drops entries, never changes a score")
+    @Test
+    public void small() {
+        List<Integer> without = scores(null);
+        AssignabilityCache cache = new AssignabilityCache(8);
+        assertEquals(without, scores(cache));
+        assertEquals(without, scores(cache));
+        assertTrue(cache.size() <= 2 * (8 + 1), "size " + cache.size());
+    }
+}
@@ -898,23 +898,18 @@ public class CodecImpl implements Codec {
                         writer.write(", \"sub\":");
                         ((E) sub0).write(writer, tab + 1, true);
                     }
-                } else {
-                    StringWriter sw = new StringWriter();
+                } else if (subs.stream().anyMatch(Objects::nonNull)) {
+                    // straight to the writer, no buffer per level: a non-null sub always writes something
+                    writer.write(", \"subs\":[");
                     boolean first = true;
-                    boolean wrote = false;
                     for (EncodedValue sub : subs) {
                         if (sub != null) {
                             if (first) first = false;
-                            else sw.append(",");
-                            ((E) sub).write(sw, tab + 1, true);
-                            wrote = true;
+                            else writer.write(",");
+                            ((E) sub).write(writer, tab + 1, true);
                         }
                     }
-                    if (wrote) {
-                        writer.write(", \"subs\":[");
-                        writer.write(sw.toString());
-                        writer.write("]");
-                    }
+                    writer.write("]");
                 }
             }
             if (surround) writer.write("}");
@@ -0,0 +1,1075 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.cst.io;
+
+import io.codelaser.maddi.cst.api.analysis.Value;
+import io.codelaser.maddi.cst.api.element.CompilationUnit;
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.expression.AnnotationExpression;
+import io.codelaser.maddi.cst.api.expression.ArrayInitializer;
+import io.codelaser.maddi.cst.api.expression.BooleanConstant;
+import io.codelaser.maddi.cst.api.expression.ByteConstant;
+import io.codelaser.maddi.cst.api.expression.CharConstant;
+import io.codelaser.maddi.cst.api.expression.ClassExpression;
+import io.codelaser.maddi.cst.api.expression.DoubleConstant;
+import io.codelaser.maddi.cst.api.expression.Expression;
+import io.codelaser.maddi.cst.api.expression.FloatConstant;
+import io.codelaser.maddi.cst.api.expression.IntConstant;
+import io.codelaser.maddi.cst.api.expression.LongConstant;
+import io.codelaser.maddi.cst.api.expression.ShortConstant;
+import io.codelaser.maddi.cst.api.expression.StringConstant;
+import io.codelaser.maddi.cst.api.expression.VariableExpression;
+import io.codelaser.maddi.cst.api.info.Access;
+import io.codelaser.maddi.cst.api.info.FieldInfo;
+import io.codelaser.maddi.cst.api.info.FieldModifier;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.MethodModifier;
+import io.codelaser.maddi.cst.api.info.ParameterInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.info.TypeModifier;
+import io.codelaser.maddi.cst.api.info.TypeParameter;
+import io.codelaser.maddi.cst.api.runtime.Runtime;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+import io.codelaser.maddi.cst.api.type.TypeNature;
+import io.codelaser.maddi.cst.api.type.Wildcard;
+import io.codelaser.maddi.cst.api.variable.FieldReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * The compiled types an inspector has loaded — the JDK and the libraries — in one binary file, so that the next run
+ * with the same JDK, class path and options restores them instead of reading the class files again. Each type comes
+ * back with its header (nature, modifiers, access, type parameters and bounds, supertypes, annotations, subtypes)
+ * and its members with their signatures, overrides and GetSet fields, in the state it was written in: a type that
+ * was only loaded lazily comes back with an open builder, so that a later load completes it as it would have.
+ * Nothing of a member body is there to begin with: a method loaded from a class file has an empty block.
+ * <p>
+ * The file is keyed by a string the caller composes; its name is derived from that key ({@link #file}), and the
+ * key itself is stored and compared on read, so a snapshot of another JDK or class path is never used.
+ * <p>
+ * Layout, big-endian; a string is an int length followed by UTF-8 bytes:
+ * <pre>
+ *   int magic, int version, string key
+ *   int sourceSets, sourceSets × string name
+ *   int types, types × header, where an enclosing type precedes its nested types:
+ *     byte kind, then PRIMITIVE name | PREDEFINED fully qualified name
+ *                   | PRIMARY package, simple name, int source set (-1: a stub), string uri
+ *                   | NESTED int enclosing type, simple name
+ *     boolean root
+ *   four sections, each a sequence of per-type parts in type order, primitives excluded:
+ *     declarations   type parameter names, constructors and methods with their type parameter names
+ *     bounds         the bounds of those type parameters
+ *     signatures     fields with their types; per constructor and method its parameters and return type
+ *     details        everything else, and whether the type and each of its members was committed
+ *   int CRC-32 of all of the above
+ * </pre>
+ * The sections are read one after the other, because they refer to one another across types: a parameter type can
+ * name a method's type parameter (declarations), an override or an annotation value can name another type's method
+ * or enum constant, and a method is only hashable once its signature is known (signatures). That signature is
+ * erased, hence the bounds of its type parameters must be in place before it is computed. A type parameter is
+ * written as its owner (a type, or a method) plus its index, a method as its type, constructor-or-not, and its
+ * index in that list, and a field as its type and index.
+ * <p>
+ * Only compiled types can be held ({@link #canHold}); {@link #write} throws on anything else, before creating the
+ * file.
+ */
+public final class TypeSnapshot {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TypeSnapshot.class);
+
+    private static final int MAGIC = 0x4D54534E; // "MTSN"
+    private static final int VERSION = 1;
+
+    private static final byte PRIMITIVE = 0;
+    private static final byte PREDEFINED = 1;
+    private static final byte PRIMARY = 2;
+    private static final byte NESTED = 3;
+
+    private static final byte PT_NULL = 0;
+    private static final byte PT_TYPE = 1;
+    private static final byte PT_TYPE_PARAMETER = 2;
+    private static final byte PT_WILDCARD = 3;
+    private static final byte PT_RETURN_TYPE_OF_CONSTRUCTOR = 4;
+    private static final byte PT_NULL_CONSTANT = 5;
+
+    private static final byte E_BOOLEAN = 0;
+    private static final byte E_CHAR = 1;
+    private static final byte E_BYTE = 2;
+    private static final byte E_SHORT = 3;
+    private static final byte E_INT = 4;
+    private static final byte E_LONG = 5;
+    private static final byte E_FLOAT = 6;
+    private static final byte E_DOUBLE = 7;
+    private static final byte E_STRING = 8;
+    private static final byte E_ENUM_CONSTANT = 9;
+    private static final byte E_CLASS = 10;
+    private static final byte E_ARRAY = 11;
+    private static final byte E_ANNOTATION = 12;
+
+    private TypeSnapshot() {
+    }
+
+    /**
+     * The restored types, in the order they were written, primitives included; {@code roots} are the ones the
+     * writer was given, in practice the types registered with the compiled-types manager.
+     */
+    public record Restored(List<TypeInfo> types, List<TypeInfo> roots) {
+    }
+
+    /** The snapshot file for {@code key} in {@code directory}: one file per key, so that keys do not evict each other. */
+    public static Path file(Path directory, String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve("types-" + HexFormat.of().formatHex(digest, 0, 8) + ".bin");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether {@code typeInfo} is one a snapshot can hold: a primitive, or a member or primary type read from a class
+     * file (including a stub, which has no source set). A type parsed from source is not: it is rebuilt on every parse.
+     */
+    public static boolean canHold(TypeInfo typeInfo) {
+        if (typeInfo.isPrimitive()) return true;
+        if (typeInfo.compilationUnitOrEnclosingType().isRight()) {
+            return !typeInfo.isAnonymous() && typeInfo.enclosingMethod() == null
+                   && canHold(typeInfo.compilationUnitOrEnclosingType().getRight());
+        }
+        CompilationUnit cu = typeInfo.compilationUnit();
+        SourceSet sourceSet = cu.sourceSet();
+        if (sourceSet == null || sourceSet.externalLibrary()) return true;
+        // a class file attributed to the source set being scanned (a JDK module that is not on the class path)
+        URI uri = cu.uri();
+        return uri != null && ("jrt".equals(uri.getScheme()) || "jar".equals(uri.getScheme())
+                               || uri.getPath() != null && uri.getPath().endsWith(".class"));
+    }
+
+    /**
+     * Write {@code roots} and every type they refer to, recursively. The file is written next to its final name and
+     * moved in place, so that a concurrent reader never sees half of it.
+     *
+     * @return the number of types written
+     * @throws IllegalArgumentException when the closure of the roots contains a type that {@link #canHold} refuses,
+     *                                  or a construct this format has no encoding for; nothing is written then
+     */
+    public static int write(Runtime runtime, Path file, String key, Collection<TypeInfo> roots) throws IOException {
+        Writer writer = new Writer(runtime);
+        byte[] bytes = writer.write(key, roots);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "types-", ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                os.write(bytes);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        LOGGER.info("Wrote {} types, {} bytes, to {}", writer.types.size(), bytes.length, file);
+        return writer.types.size();
+    }
+
+    /**
+     * Restore the types of {@code file} into {@code runtime}, which must not have loaded any of them yet: the
+     * predefined types are completed in place, all others are created. Returns null, having changed nothing, when
+     * the file was written for another key, or names a source set that {@code sourceSetByName} does not know.
+     * The whole file is read before the first predefined type is touched: a file that cannot be read throws an
+     * {@link IOException}, and leaves the runtime as it was. A failure while completing the predefined types is a
+     * bug, and may leave them half-completed.
+     */
+    public static Restored read(Runtime runtime, Path file, String key, Function<String, SourceSet> sourceSetByName)
+            throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Reader reader;
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a type snapshot: " + file);
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                LOGGER.info("Ignoring {}: version {}, expected {}", file, version, VERSION);
+                return null;
+            }
+            if (!key.equals(readString(buffer))) {
+                LOGGER.info("Ignoring {}: written for another JDK, class path or options", file);
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate().position(0).limit(buffer.limit() - 4));
+            if ((int) crc.getValue() != buffer.getInt(buffer.limit() - 4)) {
+                throw new IOException("Corrupt type snapshot " + file + ": checksum mismatch");
+            }
+            int n = buffer.getInt();
+            SourceSet[] sourceSets = new SourceSet[n];
+            for (int i = 0; i < n; i++) {
+                String name = readString(buffer);
+                sourceSets[i] = sourceSetByName.apply(name);
+                if (sourceSets[i] == null) {
+                    LOGGER.info("Ignoring {}: unknown source set {}", file, name);
+                    return null;
+                }
+            }
+            reader = new Reader(runtime, buffer, sourceSets);
+            reader.read();
+        } catch (RuntimeException e) {
+            // an index or a tag out of range, a member added twice: only created types have been changed so far
+            throw new IOException("Corrupt type snapshot " + file, e);
+        }
+        Restored restored = reader.complete();
+        LOGGER.info("Restored {} types from {}", restored.types().size(), file);
+        return restored;
+    }
+
+    // the encodings of the singletons of the runtime: an index in these lists
+    private record Codes(List<TypeNature> natures,
+                         List<TypeModifier> typeModifiers,
+                         List<MethodModifier> methodModifiers,
+                         List<FieldModifier> fieldModifiers,
+                         List<MethodInfo.MethodType> methodTypes,
+                         List<Access> accesses) {
+        static Codes of(Runtime r) {
+            return new Codes(List.of(r.typeNatureAnnotation(), r.typeNatureClass(), r.typeNatureEnum(),
+                    r.typeNatureInterface(), r.typeNaturePackageInfo(), r.typeNatureRecord(), r.typeNatureStub()),
+                    List.of(r.typeModifierPublic(), r.typeModifierProtected(), r.typeModifierPrivate(),
+                            r.typeModifierStatic(), r.typeModifierAbstract(), r.typeModifierSealed(),
+                            r.typeModifierNonSealed(), r.typeModifierFinal(), r.typeModifierInternal()),
+                    List.of(r.methodModifierPublic(), r.methodModifierPrivate(), r.methodModifierProtected(),
+                            r.methodModifierFinal(), r.methodModifierSynchronized(), r.methodModifierStatic(),
+                            r.methodModifierAbstract(), r.methodModifierDefault(), r.methodModifierNative(),
+                            r.methodModifierInternal()),
+                    List.of(r.fieldModifierPublic(), r.fieldModifierProtected(), r.fieldModifierPrivate(),
+                            r.fieldModifierFinal(), r.fieldModifierStatic(), r.fieldModifierVolatile(),
+                            r.fieldModifierTransient(), r.fieldModifierInternal()),
+                    List.of(r.methodTypeConstructor(), r.methodTypeCompactConstructor(),
+                            r.methodTypeSyntheticConstructor(), r.methodTypeMethod(), r.methodTypeStaticMethod(),
+                            r.methodTypeAbstractMethod(), r.methodTypeDefaultMethod(), r.methodTypeStaticInitializer(),
+                            r.methodTypeInstanceInitializer(), r.methodTypeSyntheticArrayConstructor()),
+                    List.of(r.accessPublic(), r.accessProtected(), r.accessPackage(), r.accessPrivate(),
+                            r.accessInternal()));
+        }
+
+        static <T> int code(List<T> codes, T value) {
+            int i = codes.indexOf(value);
+            if (i < 0) throw new IllegalArgumentException("No snapshot encoding for " + value);
+            return i;
+        }
+    }
+
+    // the members of a type in a fixed order, committed or not
+    private record Members(List<MethodInfo> constructors, List<MethodInfo> methods, List<FieldInfo> fields,
+                           Map<MethodInfo, Integer> constructorIndex, Map<MethodInfo, Integer> methodIndex,
+                           Map<FieldInfo, Integer> fieldIndex) {
+        static Members of(TypeInfo typeInfo) {
+            List<MethodInfo> constructors = List.copyOf(typeInfo.constructors());
+            List<MethodInfo> methods = typeInfo.methodStream().toList();
+            List<FieldInfo> fields = List.copyOf(typeInfo.fields());
+            return new Members(constructors, methods, fields, indices(constructors), indices(methods),
+                    indices(fields));
+        }
+
+        private static <T> Map<T, Integer> indices(List<T> list) {
+            Map<T, Integer> map = new IdentityHashMap<>();
+            for (int i = 0; i < list.size(); i++) map.put(list.get(i), i);
+            return map;
+        }
+    }
+
+    private static final class Writer {
+        private final Runtime runtime;
+        private final Codes codes;
+        private final Map<String, TypeInfo> predefined = new HashMap<>();
+        private final List<TypeInfo> types = new ArrayList<>();
+        private final Map<TypeInfo, Integer> indices = new IdentityHashMap<>();
+        private final Map<TypeInfo, Members> members = new IdentityHashMap<>();
+
+        Writer(Runtime runtime) {
+            this.runtime = runtime;
+            this.codes = Codes.of(runtime);
+            runtime.predefinedObjects().forEach(ti -> predefined.put(ti.fullyQualifiedName(), ti));
+        }
+
+        byte[] write(String key, Collection<TypeInfo> roots) throws IOException {
+            Set<TypeInfo> rootSet = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (TypeInfo root : roots) {
+                index(root);
+                rootSet.add(root);
+            }
+            ByteArrayOutputStream declarations = new ByteArrayOutputStream();
+            ByteArrayOutputStream bounds = new ByteArrayOutputStream();
+            ByteArrayOutputStream signatures = new ByteArrayOutputStream();
+            ByteArrayOutputStream details = new ByteArrayOutputStream();
+            DataOutputStream b = new DataOutputStream(declarations);
+            DataOutputStream tb = new DataOutputStream(bounds);
+            DataOutputStream c = new DataOutputStream(signatures);
+            DataOutputStream d = new DataOutputStream(details);
+            // writing a part can add types: the loop runs until the closure is complete
+            for (int t = 0; t < types.size(); t++) {
+                TypeInfo typeInfo = types.get(t);
+                if (typeInfo.isPrimitive()) continue;
+                writeDeclarations(b, typeInfo);
+                writeBounds(tb, typeInfo);
+                writeSignatures(c, typeInfo);
+                writeDetails(d, typeInfo);
+            }
+
+            List<String> sourceSetNames = new ArrayList<>();
+            Map<String, Integer> sourceSetIndex = new HashMap<>();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(bytes);
+            ByteArrayOutputStream typeTable = new ByteArrayOutputStream();
+            DataOutputStream tt = new DataOutputStream(typeTable);
+            tt.writeInt(types.size());
+            for (TypeInfo typeInfo : types) {
+                if (typeInfo.isPrimitive()) {
+                    tt.writeByte(PRIMITIVE);
+                    writeString(tt, typeInfo.simpleName());
+                } else if (predefined.get(typeInfo.fullyQualifiedName()) == typeInfo) {
+                    tt.writeByte(PREDEFINED);
+                    writeString(tt, typeInfo.fullyQualifiedName());
+                } else if (typeInfo.compilationUnitOrEnclosingType().isRight()) {
+                    tt.writeByte(NESTED);
+                    tt.writeInt(indices.get(typeInfo.compilationUnitOrEnclosingType().getRight()));
+                    writeString(tt, typeInfo.simpleName());
+                } else {
+                    CompilationUnit cu = typeInfo.compilationUnit();
+                    tt.writeByte(PRIMARY);
+                    writeString(tt, cu.packageName());
+                    writeString(tt, typeInfo.simpleName());
+                    SourceSet sourceSet = cu.sourceSet();
+                    if (sourceSet == null) {
+                        tt.writeInt(-1);
+                    } else {
+                        tt.writeInt(sourceSetIndex.computeIfAbsent(sourceSet.name(), name -> {
+                            sourceSetNames.add(name);
+                            return sourceSetNames.size() - 1;
+                        }));
+                    }
+                    writeString(tt, cu.uri() == null ? "" : cu.uri().toString());
+                }
+                tt.writeBoolean(rootSet.contains(typeInfo));
+            }
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            writeString(header, key);
+            header.writeInt(sourceSetNames.size());
+            for (String name : sourceSetNames) writeString(header, name);
+            typeTable.writeTo(header);
+            declarations.writeTo(header);
+            bounds.writeTo(header);
+            signatures.writeTo(header);
+            details.writeTo(header);
+            header.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            header.writeInt((int) crc.getValue());
+            header.flush();
+            return bytes.toByteArray();
+        }
+
+        private int index(TypeInfo typeInfo) {
+            Integer index = indices.get(typeInfo);
+            if (index != null) return index;
+            if (!canHold(typeInfo)) {
+                throw new IllegalArgumentException("A type snapshot cannot hold " + typeInfo
+                                                   + ": not compiled, or local");
+            }
+            if (typeInfo.compilationUnitOrEnclosingType().isRight()) {
+                index(typeInfo.compilationUnitOrEnclosingType().getRight());
+            }
+            int i = types.size();
+            types.add(typeInfo);
+            indices.put(typeInfo, i);
+            return i;
+        }
+
+        private Members members(TypeInfo typeInfo) {
+            return members.computeIfAbsent(typeInfo, Members::of);
+        }
+
+        private void writeDeclarations(DataOutputStream out, TypeInfo typeInfo) throws IOException {
+            out.writeShort(typeInfo.typeParameters().size());
+            for (TypeParameter tp : typeInfo.typeParameters()) writeString(out, tp.simpleName());
+            Members m = members(typeInfo);
+            out.writeInt(m.constructors.size());
+            for (MethodInfo constructor : m.constructors) writeMethodDeclaration(out, constructor);
+            out.writeInt(m.methods.size());
+            for (MethodInfo method : m.methods) {
+                writeString(out, method.name());
+                writeMethodDeclaration(out, method);
+            }
+        }
+
+        private void writeMethodDeclaration(DataOutputStream out, MethodInfo methodInfo) throws IOException {
+            out.writeByte(Codes.code(codes.methodTypes, methodInfo.methodType()));
+            out.writeShort(methodInfo.typeParameters().size());
+            for (TypeParameter tp : methodInfo.typeParameters()) writeString(out, tp.simpleName());
+        }
+
+        private void writeBounds(DataOutputStream out, TypeInfo typeInfo) throws IOException {
+            for (TypeParameter tp : typeInfo.typeParameters()) writeTypes(out, tp.typeBounds());
+            Members m = members(typeInfo);
+            for (MethodInfo constructor : m.constructors) {
+                for (TypeParameter tp : constructor.typeParameters()) writeTypes(out, tp.typeBounds());
+            }
+            for (MethodInfo method : m.methods) {
+                for (TypeParameter tp : method.typeParameters()) writeTypes(out, tp.typeBounds());
+            }
+        }
+
+        private void writeSignatures(DataOutputStream out, TypeInfo typeInfo) throws IOException {
+            Members m = members(typeInfo);
+            out.writeInt(m.fields.size());
+            for (FieldInfo fieldInfo : m.fields) {
+                writeString(out, fieldInfo.name());
+                out.writeBoolean(fieldInfo.isStatic());
+                writeType(out, fieldInfo.type());
+            }
+            for (MethodInfo constructor : m.constructors) writeMethodSignature(out, constructor);
+            for (MethodInfo method : m.methods) writeMethodSignature(out, method);
+        }
+
+        private void writeMethodSignature(DataOutputStream out, MethodInfo methodInfo) throws IOException {
+            out.writeShort(methodInfo.parameters().size());
+            for (ParameterInfo pi : methodInfo.parameters()) {
+                writeString(out, pi.name());
+                writeType(out, pi.parameterizedType());
+                out.writeBoolean(pi.isVarArgs());
+                out.writeBoolean(pi.isFinal());
+            }
+            writeType(out, methodInfo.returnType());
+        }
+
+        private void writeDetails(DataOutputStream out, TypeInfo typeInfo) throws IOException {
+            out.writeBoolean(typeInfo.hasBeenInspected());
+            out.writeByte(typeInfo.typeNature() == null ? -1 : Codes.code(codes.natures, typeInfo.typeNature()));
+            writeModifiers(out, typeInfo.typeModifiers(), codes.typeModifiers);
+            writeAccess(out, typeInfo.access());
+            out.writeBoolean(typeInfo.isSynthetic());
+            writeType(out, typeInfo.parentClass());
+            writeTypes(out, typeInfo.interfacesImplemented());
+            writeAnnotations(out, typeInfo.annotations());
+            for (TypeParameter tp : typeInfo.typeParameters()) writeTypeParameterDetails(out, tp);
+            out.writeShort(typeInfo.subTypes().size());
+            for (TypeInfo subType : typeInfo.subTypes()) out.writeInt(index(subType));
+            Members m = members(typeInfo);
+            for (MethodInfo constructor : m.constructors) writeMethodDetails(out, constructor);
+            for (MethodInfo method : m.methods) writeMethodDetails(out, method);
+            for (FieldInfo fieldInfo : m.fields) {
+                out.writeBoolean(fieldInfo.hasBeenInspected());
+                writeModifiers(out, fieldInfo.modifiers(), codes.fieldModifiers);
+                writeAnnotations(out, fieldInfo.annotations());
+                out.writeBoolean(fieldInfo.isSynthetic());
+                writeAccess(out, fieldInfo.access());
+            }
+            MethodInfo sam = typeInfo.singleAbstractMethod();
+            out.writeBoolean(sam != null);
+            if (sam != null) writeMethodReference(out, sam);
+        }
+
+        private void writeTypeParameterDetails(DataOutputStream out, TypeParameter tp) throws IOException {
+            out.writeBoolean(tp.hasBeenInspected());
+            writeAnnotations(out, tp.annotations());
+        }
+
+        private void writeMethodDetails(DataOutputStream out, MethodInfo methodInfo) throws IOException {
+            out.writeBoolean(methodInfo.hasBeenInspected());
+            for (TypeParameter tp : methodInfo.typeParameters()) writeTypeParameterDetails(out, tp);
+            writeModifiers(out, methodInfo.methodModifiers(), codes.methodModifiers);
+            writeAnnotations(out, methodInfo.annotations());
+            out.writeBoolean(methodInfo.isSynthetic());
+            writeTypes(out, methodInfo.exceptionTypes());
+            for (ParameterInfo pi : methodInfo.parameters()) {
+                out.writeBoolean(pi.hasBeenInspected());
+                writeAnnotations(out, pi.annotations());
+            }
+            writeAccess(out, methodInfo.access());
+            out.writeShort(methodInfo.overrides().size());
+            for (MethodInfo override : methodInfo.overrides()) writeMethodReference(out, override);
+            Value.FieldValue getSet = methodInfo.getSetField();
+            out.writeBoolean(getSet.field() != null);
+            if (getSet.field() != null) {
+                writeFieldReference(out, getSet.field());
+                out.writeBoolean(getSet.setter());
+                out.writeInt(getSet.parameterIndexOfIndex());
+                out.writeBoolean(getSet.list());
+            }
+        }
+
+        private <T> void writeModifiers(DataOutputStream out, Set<T> modifiers, List<T> codeList) throws IOException {
+            out.writeByte(modifiers.size());
+            for (T modifier : modifiers) out.writeByte(Codes.code(codeList, modifier));
+        }
+
+        private void writeAccess(DataOutputStream out, Access access) throws IOException {
+            out.writeByte(access == null ? -1 : Codes.code(codes.accesses, access));
+        }
+
+        private void writeMethodReference(DataOutputStream out, MethodInfo methodInfo) throws IOException {
+            TypeInfo owner = methodInfo.typeInfo();
+            out.writeInt(index(owner));
+            Members m = members(owner);
+            Integer i = methodInfo.isConstructor() ? m.constructorIndex.get(methodInfo) : m.methodIndex.get(methodInfo);
+            if (i == null) {
+                throw new IllegalArgumentException("Method " + methodInfo + " is not a member of " + owner);
+            }
+            out.writeBoolean(methodInfo.isConstructor());
+            out.writeInt(i);
+        }
+
+        private void writeFieldReference(DataOutputStream out, FieldInfo fieldInfo) throws IOException {
+            out.writeInt(index(fieldInfo.owner()));
+            Integer i = members(fieldInfo.owner()).fieldIndex.get(fieldInfo);
+            if (i == null) {
+                throw new IllegalArgumentException("Field " + fieldInfo + " is not a member of " + fieldInfo.owner());
+            }
+            out.writeInt(i);
+        }
+
+        private void writeTypes(DataOutputStream out, List<ParameterizedType> list) throws IOException {
+            out.writeShort(list.size());
+            for (ParameterizedType pt : list) writeType(out, pt);
+        }
+
+        private void writeType(DataOutputStream out, ParameterizedType pt) throws IOException {
+            if (pt == null) {
+                out.writeByte(PT_NULL);
+            } else if (pt.isIntersectionType()) {
+                throw new IllegalArgumentException("No snapshot encoding for intersection type " + pt);
+            } else if (pt.typeInfo() != null) {
+                out.writeByte(PT_TYPE);
+                out.writeInt(index(pt.typeInfo()));
+                out.writeByte(pt.arrays());
+                writeWildcard(out, pt.wildcard());
+                writeTypes(out, pt.parameters());
+            } else if (pt.typeParameter() != null) {
+                TypeParameter tp = pt.typeParameter();
+                out.writeByte(PT_TYPE_PARAMETER);
+                if (tp.getOwner().isLeft()) {
+                    out.writeBoolean(true);
+                    out.writeInt(index(tp.getOwner().getLeft()));
+                } else {
+                    out.writeBoolean(false);
+                    writeMethodReference(out, tp.getOwner().getRight());
+                }
+                out.writeShort(tp.getIndex());
+                out.writeByte(pt.arrays());
+                writeWildcard(out, pt.wildcard());
+            } else if (pt.isReturnTypeOfConstructor()) {
+                out.writeByte(PT_RETURN_TYPE_OF_CONSTRUCTOR);
+            } else if (pt.isTypeOfNullConstant()) {
+                out.writeByte(PT_NULL_CONSTANT);
+            } else if (pt.isUnboundWildcard()) {
+                out.writeByte(PT_WILDCARD);
+            } else {
+                throw new IllegalArgumentException("No snapshot encoding for type " + pt);
+            }
+        }
+
+        private void writeWildcard(DataOutputStream out, Wildcard wildcard) throws IOException {
+            if (wildcard == null) {
+                out.writeByte(0);
+            } else if (wildcard.isExtendsNoIntersection()) {
+                out.writeByte(1);
+            } else if (wildcard.isSuper()) {
+                out.writeByte(2);
+            } else if (wildcard.isUnbound()) {
+                out.writeByte(3);
+            } else {
+                throw new IllegalArgumentException("No snapshot encoding for wildcard " + wildcard);
+            }
+        }
+
+        private void writeAnnotations(DataOutputStream out, List<AnnotationExpression> annotations) throws IOException {
+            out.writeShort(annotations.size());
+            for (AnnotationExpression ae : annotations) writeAnnotation(out, ae);
+        }
+
+        private void writeAnnotation(DataOutputStream out, AnnotationExpression ae) throws IOException {
+            out.writeInt(index(ae.typeInfo()));
+            out.writeShort(ae.keyValuePairs().size());
+            for (AnnotationExpression.KV kv : ae.keyValuePairs()) {
+                writeString(out, kv.key());
+                writeExpression(out, kv.value());
+            }
+        }
+
+        private void writeExpression(DataOutputStream out, Expression expression) throws IOException {
+            switch (expression) {
+                case BooleanConstant bc -> {
+                    out.writeByte(E_BOOLEAN);
+                    out.writeBoolean(bc.constant());
+                }
+                case CharConstant cc -> {
+                    out.writeByte(E_CHAR);
+                    out.writeChar(cc.constant());
+                }
+                case ByteConstant bc -> {
+                    out.writeByte(E_BYTE);
+                    out.writeByte(bc.constant());
+                }
+                case ShortConstant sc -> {
+                    out.writeByte(E_SHORT);
+                    out.writeShort(sc.constant());
+                }
+                case IntConstant ic -> {
+                    out.writeByte(E_INT);
+                    out.writeInt(ic.constant());
+                }
+                case LongConstant lc -> {
+                    out.writeByte(E_LONG);
+                    out.writeLong(lc.constant());
+                }
+                case FloatConstant fc -> {
+                    out.writeByte(E_FLOAT);
+                    out.writeFloat(fc.constant());
+                }
+                case DoubleConstant dc -> {
+                    out.writeByte(E_DOUBLE);
+                    out.writeDouble(dc.constant());
+                }
+                case StringConstant sc -> {
+                    out.writeByte(E_STRING);
+                    writeString(out, sc.constant());
+                }
+                case VariableExpression ve when ve.variable() instanceof FieldReference fr -> {
+                    out.writeByte(E_ENUM_CONSTANT);
+                    writeFieldReference(out, fr.fieldInfo());
+                }
+                case ClassExpression ce -> {
+                    out.writeByte(E_CLASS);
+                    writeType(out, ce.type());
+                }
+                case ArrayInitializer ai -> {
+                    out.writeByte(E_ARRAY);
+                    writeType(out, ai.parameterizedType().copyWithOneFewerArrays());
+                    out.writeShort(ai.expressions().size());
+                    for (Expression e : ai.expressions()) writeExpression(out, e);
+                }
+                case AnnotationExpression ae -> {
+                    out.writeByte(E_ANNOTATION);
+                    writeAnnotation(out, ae);
+                }
+                default -> throw new IllegalArgumentException("No snapshot encoding for annotation value "
+                                                              + expression);
+            }
+        }
+    }
+
+    /*
+    Reads in two steps. read() consumes the whole file, creating types, members and type parameters, and changing
+    only what it created: what goes into the builder of a predefined type, which the runtime owns, is queued, and
+    type parameters are looked up in this reader rather than in their type. complete() then applies the queue and
+    commits the types, and cannot fail on the content of the file.
+     */
+    private static final class Reader {
+        private final Runtime runtime;
+        private final Codes codes;
+        private final ByteBuffer in;
+        private final SourceSet[] sourceSets;
+        private final List<Runnable> predefinedUpdates = new ArrayList<>();
+        private TypeInfo[] types;
+        private boolean[] predefined;
+        private List<TypeParameter>[] typeParameters;
+        private List<MethodInfo>[] constructors;
+        private List<MethodInfo>[] methods;
+        private List<FieldInfo>[] fields;
+        private final List<TypeInfo> roots = new ArrayList<>();
+        private final List<TypeInfo> committed = new ArrayList<>();
+
+        Reader(Runtime runtime, ByteBuffer in, SourceSet[] sourceSets) {
+            this.runtime = runtime;
+            this.codes = Codes.of(runtime);
+            this.in = in;
+            this.sourceSets = sourceSets;
+        }
+
+        @SuppressWarnings("unchecked")
+        void read() throws IOException {
+            Map<String, TypeInfo> predefinedByName = new HashMap<>();
+            runtime.predefinedObjects().forEach(ti -> predefinedByName.put(ti.fullyQualifiedName(), ti));
+            int n = in.getInt();
+            types = new TypeInfo[n];
+            predefined = new boolean[n];
+            typeParameters = new List[n];
+            constructors = new List[n];
+            methods = new List[n];
+            fields = new List[n];
+            for (int t = 0; t < n; t++) {
+                byte kind = in.get();
+                predefined[t] = kind == PREDEFINED;
+                types[t] = switch (kind) {
+                    case PRIMITIVE -> runtime.primitiveByName(readString(in));
+                    case PREDEFINED -> {
+                        String fqn = readString(in);
+                        TypeInfo ti = predefinedByName.get(fqn);
+                        if (ti == null) throw new IOException("Not a predefined type: " + fqn);
+                        if (ti.hasBeenInspected()) throw new IOException("Predefined type already loaded: " + fqn);
+                        yield ti;
+                    }
+                    case NESTED -> {
+                        TypeInfo enclosing = types[in.getInt()];
+                        yield runtime.newTypeInfo(enclosing, readString(in));
+                    }
+                    case PRIMARY -> {
+                        String packageName = readString(in);
+                        String simpleName = readString(in);
+                        int sourceSet = in.getInt();
+                        String uri = readString(in);
+                        CompilationUnit cu = sourceSet < 0 ? runtime.newCompilationUnitStub(packageName)
+                                : runtime.newCompilationUnitBuilder()
+                                        .setPackageName(packageName)
+                                        .setSourceSet(sourceSets[sourceSet])
+                                        .setURI(uri.isEmpty() ? null : URI.create(uri))
+                                        .build();
+                        yield runtime.newTypeInfo(cu, simpleName);
+                    }
+                    default -> throw new IOException("Unknown type kind " + kind);
+                };
+                if (in.get() != 0) roots.add(types[t]);
+            }
+            for (int t = 0; t < n; t++) if (!types[t].isPrimitive()) readDeclarations(t);
+            for (int t = 0; t < n; t++) if (!types[t].isPrimitive()) readBounds(t);
+            for (int t = 0; t < n; t++) if (!types[t].isPrimitive()) readSignatures(t);
+            for (int t = 0; t < n; t++) {
+                if (!types[t].isPrimitive() && readDetails(t)) committed.add(types[t]);
+            }
+        }
+
+        Restored complete() {
+            predefinedUpdates.forEach(Runnable::run);
+            // nested types before their enclosing types, as the class scanner completes them
+            for (int i = committed.size() - 1; i >= 0; i--) {
+                TypeInfo typeInfo = committed.get(i);
+                if (!typeInfo.hasBeenInspected()) typeInfo.builder().commit();
+            }
+            return new Restored(List.of(types), List.copyOf(roots));
+        }
+
+        // now for a created type, once the file has been read for a predefined one
+        private void update(int t, Consumer<TypeInfo.Builder> update) {
+            TypeInfo typeInfo = types[t];
+            if (predefined[t]) {
+                predefinedUpdates.add(() -> update.accept(typeInfo.builder()));
+            } else {
+                update.accept(typeInfo.builder());
+            }
+        }
+
+        private void readDeclarations(int t) {
+            TypeInfo typeInfo = types[t];
+            int ntp = in.getShort();
+            List<TypeParameter> tps = new ArrayList<>(ntp);
+            for (int i = 0; i < ntp; i++) {
+                tps.add(runtime.newTypeParameter(i, readString(in), typeInfo));
+            }
+            int nc = in.getInt();
+            List<MethodInfo> cs = new ArrayList<>(nc);
+            for (int i = 0; i < nc; i++) {
+                MethodInfo constructor = runtime.newConstructor(typeInfo, codes.methodTypes.get(in.get()));
+                readMethodTypeParameters(constructor);
+                cs.add(constructor);
+            }
+            int nm = in.getInt();
+            List<MethodInfo> ms = new ArrayList<>(nm);
+            for (int i = 0; i < nm; i++) {
+                String name = readString(in);
+                MethodInfo method = runtime.newMethod(typeInfo, name, codes.methodTypes.get(in.get()));
+                readMethodTypeParameters(method);
+                ms.add(method);
+            }
+            typeParameters[t] = tps;
+            constructors[t] = cs;
+            methods[t] = ms;
+            update(t, builder -> {
+                tps.forEach(builder::addOrSetTypeParameter);
+                cs.forEach(builder::addConstructor);
+                ms.forEach(builder::addMethod);
+            });
+        }
+
+        private void readMethodTypeParameters(MethodInfo methodInfo) {
+            int tps = in.getShort();
+            for (int i = 0; i < tps; i++) {
+                methodInfo.builder().addTypeParameter(runtime.newTypeParameter(i, readString(in), methodInfo));
+            }
+        }
+
+        private void readBounds(int t) {
+            for (TypeParameter tp : typeParameters[t]) tp.builder().setTypeBounds(readTypes());
+            for (MethodInfo constructor : constructors[t]) {
+                for (TypeParameter tp : constructor.typeParameters()) tp.builder().setTypeBounds(readTypes());
+            }
+            for (MethodInfo method : methods[t]) {
+                for (TypeParameter tp : method.typeParameters()) tp.builder().setTypeBounds(readTypes());
+            }
+        }
+
+        private void readSignatures(int t) {
+            TypeInfo typeInfo = types[t];
+            int nf = in.getInt();
+            List<FieldInfo> fs = new ArrayList<>(nf);
+            for (int i = 0; i < nf; i++) {
+                String name = readString(in);
+                boolean isStatic = in.get() != 0;
+                FieldInfo fieldInfo = runtime.newFieldInfo(name, isStatic, readType(), typeInfo);
+                fieldInfo.builder().setInitializer(runtime.newEmptyExpression());
+                fs.add(fieldInfo);
+            }
+            fields[t] = fs;
+            update(t, builder -> fs.forEach(builder::addField));
+            for (MethodInfo constructor : constructors[t]) readMethodSignature(constructor);
+            for (MethodInfo method : methods[t]) readMethodSignature(method);
+        }
+
+        private void readMethodSignature(MethodInfo methodInfo) {
+            MethodInfo.Builder builder = methodInfo.builder();
+            int np = in.getShort();
+            for (int i = 0; i < np; i++) {
+                String name = readString(in);
+                ParameterInfo pi = builder.addParameter(name, readType());
+                pi.builder().setVarArgs(in.get() != 0).setIsFinal(in.get() != 0);
+            }
+            builder.setReturnType(readType()).commitParameters();
+        }
+
+        private boolean readDetails(int t) {
+            boolean committed = in.get() != 0;
+            byte nature = in.get();
+            TypeNature typeNature = nature >= 0 ? codes.natures.get(nature) : null;
+            int nm = in.get();
+            List<TypeModifier> typeModifiers = new ArrayList<>(nm);
+            for (int i = 0; i < nm; i++) typeModifiers.add(codes.typeModifiers.get(in.get()));
+            Access access = readAccess();
+            boolean synthetic = in.get() != 0;
+            ParameterizedType parentClass = readType();
+            List<ParameterizedType> interfaces = readTypes();
+            List<AnnotationExpression> annotations = readAnnotations();
+            for (TypeParameter tp : typeParameters[t]) readTypeParameterDetails(tp);
+            int ns = in.getShort();
+            List<TypeInfo> subTypes = new ArrayList<>(ns);
+            for (int i = 0; i < ns; i++) subTypes.add(types[in.getInt()]);
+            for (MethodInfo constructor : constructors[t]) readMethodDetails(constructor);
+            for (MethodInfo method : methods[t]) readMethodDetails(method);
+            for (FieldInfo fieldInfo : fields[t]) {
+                boolean fieldCommitted = in.get() != 0;
+                FieldInfo.Builder fb = fieldInfo.builder();
+                int nfm = in.get();
+                for (int i = 0; i < nfm; i++) fb.addFieldModifier(codes.fieldModifiers.get(in.get()));
+                fb.addAnnotations(readAnnotations());
+                fb.setSynthetic(in.get() != 0);
+                Access fieldAccess = readAccess();
+                if (fieldAccess != null) fb.setAccess(fieldAccess);
+                if (fieldCommitted) fb.commit();
+            }
+            MethodInfo singleAbstractMethod = in.get() != 0 ? readMethodReference() : null;
+            update(t, builder -> {
+                if (typeNature != null) builder.setTypeNature(typeNature);
+                typeModifiers.forEach(builder::addTypeModifier);
+                if (access != null) builder.setAccess(access);
+                builder.setSynthetic(synthetic);
+                if (parentClass != null) builder.setParentClass(parentClass);
+                interfaces.forEach(builder::addInterfaceImplemented);
+                builder.addAnnotations(annotations);
+                subTypes.forEach(builder::addSubType);
+                if (singleAbstractMethod != null) builder.setSingleAbstractMethod(singleAbstractMethod);
+            });
+            return committed;
+        }
+
+        private void readTypeParameterDetails(TypeParameter tp) {
+            boolean committed = in.get() != 0;
+            tp.builder().addAnnotations(readAnnotations());
+            if (committed) tp.builder().commit();
+        }
+
+        private void readMethodDetails(MethodInfo methodInfo) {
+            MethodInfo.Builder builder = methodInfo.builder();
+            boolean committed = in.get() != 0;
+            for (TypeParameter tp : methodInfo.typeParameters()) readTypeParameterDetails(tp);
+            int nm = in.get();
+            for (int i = 0; i < nm; i++) builder.addMethodModifier(codes.methodModifiers.get(in.get()));
+            builder.addAnnotations(readAnnotations());
+            builder.setSynthetic(in.get() != 0);
+            for (ParameterizedType exceptionType : readTypes()) builder.addExceptionType(exceptionType);
+            for (ParameterInfo pi : methodInfo.parameters()) {
+                boolean parameterCommitted = in.get() != 0;
+                pi.builder().addAnnotations(readAnnotations());
+                if (parameterCommitted) pi.builder().commit();
+            }
+            Access access = readAccess();
+            if (access != null) builder.setAccess(access);
+            int no = in.getShort();
+            Set<MethodInfo> overrides = new HashSet<>();
+            for (int i = 0; i < no; i++) overrides.add(readMethodReference());
+            builder.setSource(runtime.noSource()).setMethodBody(runtime.emptyBlock()).addOverrides(overrides);
+            if (in.get() != 0) {
+                FieldInfo field = readFieldReference();
+                boolean setter = in.get() != 0;
+                int parameterIndexOfIndex = in.getInt();
+                boolean list = in.get() != 0;
+                runtime.setGetSetField(methodInfo, field, setter, parameterIndexOfIndex, list);
+            }
+            if (committed) builder.commit();
+        }
+
+        private Access readAccess() {
+            byte code = in.get();
+            return code < 0 ? null : codes.accesses.get(code);
+        }
+
+        private MethodInfo readMethodReference() {
+            int t = in.getInt();
+            boolean constructor = in.get() != 0;
+            return (constructor ? constructors[t] : methods[t]).get(in.getInt());
+        }
+
+        private FieldInfo readFieldReference() {
+            int t = in.getInt();
+            return fields[t].get(in.getInt());
+        }
+
+        private List<ParameterizedType> readTypes() {
+            int n = in.getShort();
+            List<ParameterizedType> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) list.add(readType());
+            return list;
+        }
+
+        private ParameterizedType readType() {
+            byte tag = in.get();
+            return switch (tag) {
+                case PT_NULL -> null;
+                case PT_TYPE -> {
+                    TypeInfo typeInfo = types[in.getInt()];
+                    int arrays = in.get();
+                    Wildcard wildcard = readWildcard();
+                    yield runtime.newParameterizedType(typeInfo, arrays, wildcard, readTypes());
+                }
+                case PT_TYPE_PARAMETER -> {
+                    boolean ownerIsType = in.get() != 0;
+                    List<TypeParameter> tps = ownerIsType ? typeParameters[in.getInt()]
+                            : readMethodReference().typeParameters();
+                    TypeParameter tp = tps.get(in.getShort());
+                    int arrays = in.get();
+                    yield runtime.newParameterizedType(tp, arrays, readWildcard());
+                }
+                case PT_WILDCARD -> runtime.parameterizedTypeWildcard();
+                case PT_RETURN_TYPE_OF_CONSTRUCTOR -> runtime.parameterizedTypeReturnTypeOfConstructor();
+                case PT_NULL_CONSTANT -> runtime.parameterizedTypeNullConstant();
+                default -> throw new IllegalStateException("Unknown type tag " + tag);
+            };
+        }
+
+        private Wildcard readWildcard() {
+            byte code = in.get();
+            return switch (code) {
+                case 0 -> null;
+                case 1 -> runtime.wildcardExtends();
+                case 2 -> runtime.wildcardSuper();
+                case 3 -> runtime.parameterizedTypeWildcard().wildcard();
+                default -> throw new IllegalStateException("Unknown wildcard " + code);
+            };
+        }
+
+        private List<AnnotationExpression> readAnnotations() {
+            int n = in.getShort();
+            List<AnnotationExpression> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) list.add(readAnnotation());
+            return list;
+        }
+
+        private AnnotationExpression readAnnotation() {
+            TypeInfo typeInfo = types[in.getInt()];
+            int n = in.getShort();
+            List<AnnotationExpression.KV> kvs = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                String key = readString(in);
+                kvs.add(runtime.newAnnotationExpressionKeyValuePair(key, readExpression()));
+            }
+            return runtime.newAnnotationExpressionBuilder().setTypeInfo(typeInfo).setKeyValuesPairs(kvs).build();
+        }
+
+        private Expression readExpression() {
+            byte tag = in.get();
+            return switch (tag) {
+                case E_BOOLEAN -> runtime.newBoolean(in.get() != 0);
+                case E_CHAR -> runtime.newChar(in.getChar());
+                case E_BYTE -> runtime.newByte(in.get());
+                case E_SHORT -> runtime.newShort(in.getShort());
+                case E_INT -> runtime.newInt(in.getInt());
+                case E_LONG -> runtime.newLong(in.getLong());
+                case E_FLOAT -> runtime.newFloat(in.getFloat());
+                case E_DOUBLE -> runtime.newDouble(in.getDouble());
+                case E_STRING -> runtime.newStringConstant(readString(in));
+                case E_ENUM_CONSTANT -> runtime.newVariableExpressionBuilder()
+                        .setSource(runtime.noSource())
+                        .setVariable(runtime.newFieldReference(readFieldReference()))
+                        .build();
+                case E_CLASS -> runtime.newClassExpressionBuilder(readType()).build();
+                case E_ARRAY -> {
+                    ParameterizedType commonType = readType();
+                    int n = in.getShort();
+                    List<Expression> expressions = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) expressions.add(readExpression());
+                    yield runtime.newArrayInitializerBuilder().setExpressions(expressions).setCommonType(commonType)
+                            .build();
+                }
+                case E_ANNOTATION -> readAnnotation();
+                default -> throw new IllegalStateException("Unknown expression tag " + tag);
+            };
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
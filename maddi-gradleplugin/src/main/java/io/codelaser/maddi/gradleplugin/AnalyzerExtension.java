@@ -30,6 +30,15 @@ public class AnalyzerExtension {
     public static final String SOURCE_ELEMENTS_CONFIGURATION_NAME = "maddiSourceElements";
     public static final String SOURCES_CATEGORY = "maddi-sources";
 
+    /**
+     * The consumable configuration each analyzed project publishes its analysis results directory on, built by its
+     * {@code maddi-analyzer} task, and the {@code Category} value that identifies it. A depending project with
+     * {@link #consumeUpstreamResults} reselects this variant and preloads the results, instead of co-analyzing the
+     * sources.
+     */
+    public static final String ANALYSIS_RESULTS_ELEMENTS_CONFIGURATION_NAME = "maddiAnalysisResultsElements";
+    public static final String ANALYSIS_RESULTS_CATEGORY = "maddi-analysis-results";
+
     /*
      ⛔⛔ DO NOT ADD A COMPANION VARIANT CARRYING THE PRODUCER'S COMPILE CLASS PATH. It was built and measured on
      2026-08-19, and Gradle 9 refuses it:
@@ -66,6 +75,13 @@ public class AnalyzerExtension {
     public boolean quiet;
     public boolean warnNearMisses;
     public String debugTargets;
+    /**
+     * Read the projects this one depends on as class files, with the analysis results their own {@code
+     * maddi-analyzer} task published as preloaded hints, rather than co-analyzing their sources. Each project is
+     * then analyzed once per build, by its own task, at the price of what co-analysis offers: nothing a dependent
+     * project computes travels back up to the types it implements. Read when the analyzer task is configured.
+     */
+    public boolean consumeUpstreamResults;
 
     /* InputConfiguration */
     /**
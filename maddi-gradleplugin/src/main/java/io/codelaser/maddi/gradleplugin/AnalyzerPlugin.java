@@ -31,6 +31,7 @@ import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskProvider;
 
 import java.io.File;
 import java.util.HashMap;
@@ -73,16 +74,20 @@ public class AnalyzerPlugin implements Plugin<Project> {
         publishSourceElements(project);
 
         LOGGER.debug("Adding {} task to {}", AnalyzerExtension.ANALYZER_TASK_NAME, project);
-        project.getTasks().register(AnalyzerExtension.ANALYZER_TASK_NAME, AnalyzerTask.class, task -> {
+        TaskProvider<AnalyzerTask> analyzerTask = project.getTasks()
+                .register(AnalyzerExtension.ANALYZER_TASK_NAME, AnalyzerTask.class, task -> {
             task.setGroup("maddi");
             task.setDescription("Analyses " + project + " with the maddi analyzer.");
             task.getConfigurationJson().set(configurationJson);
             // the forked analyzer resolves relative source-set paths against this directory
             task.getWorkingDirectory().fileProvider(project.provider(() -> workingDirectory(project)));
             task.getAnalysisResultsDir().fileProvider(project.provider(() -> analysisResultsDir(project)));
+            task.getIncrementalStateDir().fileProvider(project.provider(() -> incrementalStateDir(project)));
             wireAnalyzedInputs(task, project);
+            wireUpstreamAnalysisResults(task, project);
             dependOnCompileTasks(task, project);
         });
+        publishAnalysisResultsElements(project, analyzerTask);
 
         LOGGER.debug("Adding {} task to {}", AnalyzerExtension.WRITE_INPUT_CONFIGURATION_TASK_NAME, project);
         project.getTasks().register(AnalyzerExtension.WRITE_INPUT_CONFIGURATION_TASK_NAME,
@@ -118,6 +123,47 @@ public class AnalyzerPlugin implements Plugin<Project> {
                 }));
     }
 
+    /**
+     * Publish this project's analysis results directory as a consumable variant, built by its analyzer task, so a
+     * depending project with {@code consumeUpstreamResults} can preload the results rather than analyze the same
+     * sources again. Selected by {@code Category}, like {@link #publishSourceElements}; the artifact is the task's
+     * output property, which carries the task dependency to the consumer.
+     */
+    private void publishAnalysisResultsElements(Project project, TaskProvider<AnalyzerTask> analyzerTask) {
+        project.getPlugins().withType(JavaPlugin.class, jp ->
+                project.getConfigurations().consumable(AnalyzerExtension.ANALYSIS_RESULTS_ELEMENTS_CONFIGURATION_NAME,
+                        conf -> {
+                    conf.setDescription("Analysis results of " + project + ", for preloading by the maddi analyzer.");
+                    conf.getAttributes().attribute(Category.CATEGORY_ATTRIBUTE,
+                            project.getObjects().named(Category.class, AnalyzerExtension.ANALYSIS_RESULTS_CATEGORY));
+                    conf.getOutgoing().artifact(analyzerTask.flatMap(AnalyzerTask::getAnalysisResultsDir),
+                            a -> a.builtBy(analyzerTask));
+                }));
+    }
+
+    /**
+     * With {@code consumeUpstreamResults}, the analysis results the projects on the main compile class path
+     * published: an artifact view with variant reselection, as {@code ComputeSourceSets} uses for their sources,
+     * lenient because an external jar, or a project without the plugin, has no such variant. Its files carry the
+     * dependency on the upstream analyzer tasks; nothing is resolved before the task runs.
+     */
+    private void wireUpstreamAnalysisResults(AnalyzerTask task, Project project) {
+        project.getPlugins().withType(JavaPlugin.class, jp -> {
+            if (!project.getExtensions().getByType(AnalyzerExtension.class).consumeUpstreamResults) return;
+            JavaPluginExtension javaPluginExtension = project.getExtensions().getByType(JavaPluginExtension.class);
+            SourceSet main = javaPluginExtension.getSourceSets().findByName(SourceSet.MAIN_SOURCE_SET_NAME);
+            if (main == null) return;
+            Category resultsCategory = project.getObjects()
+                    .named(Category.class, AnalyzerExtension.ANALYSIS_RESULTS_CATEGORY);
+            task.getUpstreamAnalysisResults().from(project.getConfigurations()
+                    .getByName(main.getCompileClasspathConfigurationName()).getIncoming().artifactView(v -> {
+                        v.withVariantReselection();
+                        v.lenient(true);
+                        v.getAttributes().attribute(Category.CATEGORY_ATTRIBUTE, resultsCategory);
+                    }).getFiles());
+        });
+    }
+
     /** The existing, readable source directories of the main source set: Java, plus Kotlin when that plugin is on. */
     private static List<File> mainSourceDirectories(Project project) {
         JavaPluginExtension javaPluginExtension = project.getExtensions().findByType(JavaPluginExtension.class);
@@ -142,6 +188,7 @@ public class AnalyzerPlugin implements Plugin<Project> {
             for (SourceSet sourceSet : javaPluginExtension.getSourceSets()) {
                 task.getAnalyzedInputs().from(sourceSet.getAllSource());
                 task.getAnalyzedInputs().from(sourceSet.getCompileClasspath());
+                task.getOwnOutputs().from(sourceSet.getOutput());
             }
         });
     }
@@ -185,6 +232,15 @@ public class AnalyzerPlugin implements Plugin<Project> {
         return new File(buildDir, "maddi");
     }
 
+    /**
+     * Where an incremental analysis keeps the state its next run starts from; absent without {@code
+     * incrementalAnalysis}. Not inside the results directory: that one is published, and preloaded downstream.
+     */
+    private static File incrementalStateDir(Project project) {
+        if (!project.getExtensions().getByType(AnalyzerExtension.class).incrementalAnalysis) return null;
+        return new File(project.getLayout().getBuildDirectory().get().getAsFile(), "maddi-incremental");
+    }
+
     private static String toJson(Configuration configuration) {
         try {
             return JsonStreaming.objectMapper().writeValueAsString(configuration);
@@ -150,7 +150,8 @@ public record AnalyzerPropertyComputer(
         Path absoluteWorkingDirectory = workingDirectory.toAbsolutePath();
 
         Set<String> excludeFromClasspath = PluginOptions.splitToSet(extension.excludeFromClasspath);
-        ComputeSourceSets computeSourceSets = new ComputeSourceSets(absoluteWorkingDirectory);
+        ComputeSourceSets computeSourceSets = new ComputeSourceSets(absoluteWorkingDirectory,
+                !extension.consumeUpstreamResults);
         ComputeSourceSets.Result result = computeSourceSets.compute(project, extension.sourcePackages,
                 extension.testSourcePackages, excludeFromClasspath);
         List<SourceSet> javaModules = JavaModules.javaModuleSourceSets(extension.jmods);
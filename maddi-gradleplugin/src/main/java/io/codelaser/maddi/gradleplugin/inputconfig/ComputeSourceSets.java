@@ -127,9 +127,19 @@ public class ComputeSourceSets {
     all paths will be relative to this one
      */
     private final Path workingDirectory;
+    /*
+    false: siblings are read as class-path parts even when they publish their sources, because their analysis
+    results are preloaded instead (AnalyzerExtension.consumeUpstreamResults)
+     */
+    private final boolean coAnalyzeProjectSources;
 
     public ComputeSourceSets(Path workingDirectory) {
+        this(workingDirectory, true);
+    }
+
+    public ComputeSourceSets(Path workingDirectory, boolean coAnalyzeProjectSources) {
         this.workingDirectory = workingDirectory;
+        this.coAnalyzeProjectSources = coAnalyzeProjectSources;
         assert this.workingDirectory.isAbsolute();
         LOGGER.info("Working directory is {}", this.workingDirectory);
     }
@@ -159,7 +169,8 @@ public class ComputeSourceSets {
         List<Configuration> configurations = sortConfigurations(project);
         // sibling projects that publish their sources come first: their artifacts must NOT also be recorded as
         // jar classpath parts, or the same types arrive twice, once parsed and once shallow
-        ProjectSources projectSources = collectProjectSources(project, configurations);
+        ProjectSources projectSources = coAnalyzeProjectSources ? collectProjectSources(project, configurations)
+                : new ProjectSources(Map.of(), Map.of());
         Map<String, List<Path>> sourcesByProject = projectSources.sourcesByName();
         // ...and the artifact each of them WOULD have contributed is exactly the class output their source set
         // needs, so inspectConfigurations hands it back rather than dropping it on the floor.
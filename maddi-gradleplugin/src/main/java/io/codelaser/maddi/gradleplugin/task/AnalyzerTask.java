@@ -14,9 +14,12 @@
 
 package io.codelaser.maddi.gradleplugin.task;
 
+import io.codelaser.maddi.modification.prepwork.io.IncrementalState;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.FileType;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.provider.Property;
@@ -24,15 +27,20 @@ import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
 import org.gradle.workers.WorkQueue;
 import org.gradle.workers.WorkerExecutor;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -48,6 +56,12 @@ import java.util.List;
  * <p>
  * The task holds no {@code Project} reference at execution time and uses lazy managed properties, so it is
  * configuration-cache compatible and declares its inputs/outputs for up-to-date checking and build caching.
+ * <p>
+ * In a multi-project build, each project's results are published ({@code maddiAnalysisResultsElements}); with
+ * {@code consumeUpstreamResults} a depending project's task preloads them ({@link #getUpstreamAnalysisResults()})
+ * instead of co-analyzing those sources. With {@code incrementalAnalysis}, a run whose only changes are this
+ * project's source files starts from the previous run's state, and re-analyzes the changed types and what consumed
+ * them ({@link #run(InputChanges)}).
  */
 @CacheableTask
 public abstract class AnalyzerTask extends DefaultTask {
@@ -66,6 +80,7 @@ public abstract class AnalyzerTask extends DefaultTask {
     public abstract Property<String> getConfigurationJson();
 
     /** The source directories and classpath the analysis reads, for up-to-date checking. */
+    @Incremental
     @InputFiles
     @PathSensitive(PathSensitivity.RELATIVE)
     public abstract ConfigurableFileCollection getAnalyzedInputs();
@@ -74,6 +89,30 @@ public abstract class AnalyzerTask extends DefaultTask {
     @OutputDirectory
     public abstract DirectoryProperty getAnalysisResultsDir();
 
+    /**
+     * The analysis results directories published by the projects this one depends on, preloaded as hints; empty
+     * without {@code consumeUpstreamResults}. Not incremental: which of this project's types read a changed upstream
+     * value is not recorded, so a change re-runs the analysis cold.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getUpstreamAnalysisResults();
+
+    /**
+     * The checkpoint and {@code IncrementalState} of the previous run, which an incremental run restores and
+     * updates; absent without {@code incrementalAnalysis}.
+     */
+    @Optional
+    @OutputDirectory
+    public abstract DirectoryProperty getIncrementalStateDir();
+
+    /**
+     * This project's own compile outputs: they are on the test class path, so they change with every source edit,
+     * and that change is the edit itself rather than a class-path change that would force a cold run.
+     */
+    @Internal
+    public abstract ConfigurableFileCollection getOwnOutputs();
+
     /** Working directory of the forked analyzer; the analyzer resolves relative source-set paths against it. */
     @Internal
     public abstract DirectoryProperty getWorkingDirectory();
@@ -81,17 +120,67 @@ public abstract class AnalyzerTask extends DefaultTask {
     @Inject
     public abstract WorkerExecutor getWorkerExecutor();
 
+    @Inject
+    public abstract FileSystemOperations getFileSystemOperations();
+
+    /**
+     * With an incremental state directory, the run is armed with the analyzer's {@code CHECKPOINT} gate on that
+     * directory, which leaves the values and the {@code IncrementalState} behind; and, when Gradle reports that only
+     * source files changed since that run, with its {@code INCREMENTAL} gate on the same directory, which restores
+     * them and re-analyzes the types whose source fingerprint changed, waking their recorded consumers. Any other
+     * change (class path, upstream results, configuration, a first run) runs cold, on an emptied directory.
+     */
     @TaskAction
-    public void run() {
+    public void run(InputChanges inputChanges) {
         String configurationJson = getConfigurationJson().get();
         File workingDir = getWorkingDirectory().getAsFile().getOrNull();
+        File stateDir = getIncrementalStateDir().getAsFile().getOrNull();
+        boolean resume = stateDir != null && resumable(inputChanges, stateDir);
+        if (stateDir != null && !resume) {
+            getFileSystemOperations().delete(spec -> spec.delete(stateDir));
+        }
+        List<String> upstreamResults = getUpstreamAnalysisResults().getFiles().stream()
+                .filter(File::isDirectory).map(File::getAbsolutePath).toList();
         LOGGER.info("Running the e2immu analyzer in a forked worker, working directory {}", workingDir);
         WorkQueue workQueue = getWorkerExecutor().processIsolation(spec -> {
             spec.getForkOptions().jvmArgs(ADD_EXPORTS);
             // the analyzer resolves the (relative) source-set paths against the process working directory
             if (workingDir != null) spec.getForkOptions().setWorkingDir(workingDir);
+            if (stateDir != null) {
+                spec.getForkOptions().environment("CHECKPOINT", stateDir.getAbsolutePath());
+                if (resume) spec.getForkOptions().environment("INCREMENTAL", stateDir.getAbsolutePath());
+            }
+        });
+        workQueue.submit(AnalyzerWorkAction.class, params -> {
+            params.getConfigurationJson().set(configurationJson);
+            params.getPreloadAnalysisResultsDirs().set(upstreamResults);
         });
-        workQueue.submit(AnalyzerWorkAction.class, params -> params.getConfigurationJson().set(configurationJson));
         workQueue.await(); // surface analyzer failures as a build failure of this task
     }
+
+    private boolean resumable(InputChanges inputChanges, File stateDir) {
+        if (!inputChanges.isIncremental()) {
+            LOGGER.info("Full analysis: no incremental state to start from, or a non-incremental input changed");
+            return false;
+        }
+        if (!new File(stateDir, IncrementalState.FILE_NAME).canRead()) {
+            LOGGER.info("Full analysis: no {} in {}", IncrementalState.FILE_NAME, stateDir);
+            return false;
+        }
+        List<Path> ownOutputs = getOwnOutputs().getFiles().stream().map(File::toPath).toList();
+        int sources = 0;
+        for (FileChange change : inputChanges.getFileChanges(getAnalyzedInputs())) {
+            if (change.getFileType() == FileType.DIRECTORY) continue;
+            Path path = change.getFile().toPath();
+            if (ownOutputs.stream().anyMatch(path::startsWith)) continue;
+            String name = path.getFileName().toString();
+            if (!name.endsWith(".java") && !name.endsWith(".kt")) {
+                LOGGER.info("Full analysis: {} is not a source file", change.getFile());
+                return false;
+            }
+            sources++;
+        }
+        LOGGER.info("Incremental analysis: {} changed source file(s), state in {}", sources, stateDir);
+        return true;
+    }
 }
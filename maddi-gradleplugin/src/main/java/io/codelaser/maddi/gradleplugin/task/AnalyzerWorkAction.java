@@ -15,16 +15,20 @@
 package io.codelaser.maddi.gradleplugin.task;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.codelaser.maddi.aapi.parser.AnalysisHintsConfiguration;
+import io.codelaser.maddi.aapi.parser.AnalysisHintsConfigurationImpl;
 import io.codelaser.maddi.run.config.Configuration;
 import io.codelaser.maddi.run.config.util.JsonStreaming;
 import io.codelaser.maddi.run.main.Main;
 import io.codelaser.maddi.run.openjdkmain.RunAnalyzer;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.workers.WorkAction;
 import org.gradle.workers.WorkParameters;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * The actual analysis, run in a forked worker JVM (see {@link AnalyzerTask}) so the openjdk front-end's required
@@ -36,6 +40,9 @@ public abstract class AnalyzerWorkAction implements WorkAction<AnalyzerWorkActio
 
     public interface Parameters extends WorkParameters {
         Property<String> getConfigurationJson();
+
+        /** Added to the configuration's {@code preloadAnalysisResultsDirs}: known only when the task runs. */
+        ListProperty<String> getPreloadAnalysisResultsDirs();
     }
 
     @Override
@@ -48,6 +55,10 @@ public abstract class AnalyzerWorkAction implements WorkAction<AnalyzerWorkActio
         } catch (IOException ioException) {
             throw new UncheckedIOException("Cannot read the e2immu configuration", ioException);
         }
+        List<String> preloadDirs = getParameters().getPreloadAnalysisResultsDirs().getOrElse(List.of());
+        if (!preloadDirs.isEmpty()) {
+            configuration = withPreloadAnalysisResultsDirs(configuration, preloadDirs);
+        }
         RunAnalyzer runAnalyzer = new RunAnalyzer(configuration);
         runAnalyzer.run();
         int exitValue = runAnalyzer.exitValue();
@@ -55,4 +66,22 @@ public abstract class AnalyzerWorkAction implements WorkAction<AnalyzerWorkActio
             throw new RuntimeException("e2immu analyzer failed (exit " + exitValue + "): " + Main.exitMessage(exitValue));
         }
     }
+
+    private static Configuration withPreloadAnalysisResultsDirs(Configuration configuration, List<String> dirs) {
+        AnalysisHintsConfiguration ac = configuration.analysisHintsConfiguration();
+        AnalysisHintsConfiguration withDirs = new AnalysisHintsConfigurationImpl.Builder()
+                .addPreloadAnalysisResultsDirs(ac.preloadAnalysisResultsDirs().toArray(String[]::new))
+                .addPreloadAnalysisResultsDirs(dirs.toArray(String[]::new))
+                .setAnalysisResultsTargetDir(ac.analysisResultsTargetDir())
+                .setUpdatedHintsDir(ac.updatedHintsDir())
+                .setUpdatedHintsPackage(ac.updatedHintsPackage())
+                .addHintsPackages(ac.hintsPackages().toArray(String[]::new))
+                .build();
+        return new Configuration.Builder()
+                .setGeneralConfiguration(configuration.generalConfiguration())
+                .setInputConfiguration(configuration.inputConfiguration())
+                .setLanguageConfiguration(configuration.languageConfiguration())
+                .setAnalysisHintsConfiguration(withDirs)
+                .build();
+    }
 }
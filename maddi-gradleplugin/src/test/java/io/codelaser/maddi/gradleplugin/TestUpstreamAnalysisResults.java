@@ -0,0 +1,104 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.gradleplugin;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@code consumeUpstreamResults} and {@code incrementalAnalysis} in a multi-project build: the consumer's analyzer
+ * task pulls in the producer's, through the published results variant, rather than analyzing its sources; an edit
+ * to the consumer re-runs the consumer only, from its incremental state.
+ */
+public class TestUpstreamAnalysisResults {
+
+    @Test
+    public void consumerPreloadsProducerResults(@TempDir Path dir) throws IOException {
+        writeMultiProject(dir);
+        GradleRunner runner = GradleRunner.create()
+                .withProjectDir(dir.toFile())
+                .withPluginClasspath()
+                .withArguments(":consumer:maddi-analyzer", "--stacktrace", "--info")
+                .forwardOutput();
+
+        BuildResult first = runner.build();
+        assertEquals(TaskOutcome.SUCCESS, first.task(":alpha:maddi-analyzer").getOutcome(),
+                "the producer's results are built for the consumer");
+        assertEquals(TaskOutcome.SUCCESS, first.task(":consumer:maddi-analyzer").getOutcome());
+        try (var stream = Files.walk(dir.resolve("alpha/build/maddi"))) {
+            assertTrue(stream.anyMatch(p -> p.getFileName().toString().endsWith(".json")));
+        }
+        Path state = dir.resolve("consumer/build/maddi-incremental/incremental-state.json");
+        assertTrue(Files.isRegularFile(state), "expected the incremental state " + state);
+        assertTrue(first.getOutput().contains("Full analysis"), "a first run is cold");
+
+        Files.writeString(dir.resolve("consumer/src/main/java/consumer/C.java"), C.replace("a.i + 1", "a.i + 2"));
+        BuildResult second = runner.build();
+        assertEquals(TaskOutcome.UP_TO_DATE, second.task(":alpha:maddi-analyzer").getOutcome());
+        assertEquals(TaskOutcome.SUCCESS, second.task(":consumer:maddi-analyzer").getOutcome());
+        assertTrue(second.getOutput().contains("Incremental analysis: 1 changed source file(s)"),
+                "only a source file changed: the run starts from the state of the first");
+    }
+
+    private static final String C = """
+            package consumer;
+            public class C {
+                public int next(alpha.T a) { return a.i + 1; }
+            }
+            """;
+
+    private static void writeMultiProject(Path dir) throws IOException {
+        Files.writeString(dir.resolve("settings.gradle.kts"), """
+                rootProject.name = "mp"
+                include("alpha", "consumer")
+                """);
+        Files.writeString(dir.resolve("build.gradle.kts"), """
+                subprojects {
+                    apply(plugin = "java-library")
+                    repositories { mavenCentral() }
+                }
+                """);
+        Path alpha = Files.createDirectories(dir.resolve("alpha/src/main/java/alpha"));
+        Files.writeString(alpha.resolve("T.java"), "package alpha;\npublic class T { public int i; }\n");
+        Files.writeString(dir.resolve("alpha/build.gradle.kts"), """
+                plugins { id("io.codelaser.maddi.analyzer") }
+                maddi {
+                    jmods = "java.base"
+                }
+                """);
+        Path consumer = Files.createDirectories(dir.resolve("consumer/src/main/java/consumer"));
+        Files.writeString(consumer.resolve("C.java"), C);
+        Files.writeString(dir.resolve("consumer/build.gradle.kts"), """
+                plugins { id("io.codelaser.maddi.analyzer") }
+                dependencies {
+                    implementation(project(":alpha"))
+                }
+                maddi {
+                    jmods = "java.base"
+                    consumeUpstreamResults = true
+                    incrementalAnalysis = true
+                }
+                """);
+    }
+}
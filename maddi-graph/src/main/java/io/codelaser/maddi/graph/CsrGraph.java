@@ -0,0 +1,589 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.codelaser.maddi.graph;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/*
+Immutable graph in compressed sparse rows: vertices are numbered in insertion order, the edges of vertex i are
+target[start[i]..start[i+1]) with weight[..] in a long[]. No map entry or boxed Long per edge, which matters for the
+call graph of a large project (millions of edges).
+
+subGraph, reverse and mutableReverseSubGraph return views on the same rows: a vertex mask, a mask on the sources and
+one on the targets of the visible edges, and an optional weight predicate. The reverse rows are built once, on first
+use. withFewerEdges copies. Within a row, edges keep their insertion order; edges(v) is null for a vertex without
+(visible) edges, as in GraphImpl. Equality is that of GraphImpl: on edgeMap().
+ */
+public class CsrGraph<T> implements G<T> {
+
+    private static final String IMMUTABLE_GRAPH = ImmutableGraph.IMMUTABLE_GRAPH;
+
+    private final Rows<T> rows;
+    private final boolean reversed;
+    // null: all vertices
+    private final boolean[] vertexMask;
+    private final boolean[] sourceMask;
+    private final boolean[] targetMask;
+    private final Predicate<Long> acceptEdge;
+    private final List<V<T>> vertexList;
+
+    private static final class Rows<T> {
+        private final V<T>[] vertices;
+        private final Map<T, Integer> index;
+        private final int[] start;
+        private final int[] target;
+        private final long[] weight;
+        private int[] reverseStart;
+        private int[] reverseTarget;
+        private long[] reverseWeight;
+
+        private Rows(V<T>[] vertices, Map<T, Integer> index, int[] start, int[] target, long[] weight) {
+            this.vertices = vertices;
+            this.index = index;
+            this.start = start;
+            this.target = target;
+            this.weight = weight;
+        }
+
+        private synchronized void ensureReverse() {
+            if (reverseStart != null) return;
+            int n = vertices.length;
+            int[] rStart = new int[n + 1];
+            for (int t : target) ++rStart[t + 1];
+            for (int i = 0; i < n; i++) rStart[i + 1] += rStart[i];
+            int[] fill = Arrays.copyOf(rStart, n);
+            int[] rTarget = new int[target.length];
+            long[] rWeight = new long[target.length];
+            for (int i = 0; i < n; i++) {
+                for (int k = start[i]; k < start[i + 1]; k++) {
+                    int slot = fill[target[k]]++;
+                    rTarget[slot] = i;
+                    rWeight[slot] = weight[k];
+                }
+            }
+            reverseTarget = rTarget;
+            reverseWeight = rWeight;
+            reverseStart = rStart;
+        }
+    }
+
+    private CsrGraph(Rows<T> rows, boolean reversed, boolean[] vertexMask, boolean[] sourceMask,
+                     boolean[] targetMask, Predicate<Long> acceptEdge) {
+        this.rows = rows;
+        this.reversed = reversed;
+        this.vertexMask = vertexMask;
+        this.sourceMask = sourceMask;
+        this.targetMask = targetMask;
+        this.acceptEdge = acceptEdge;
+        if (reversed) rows.ensureReverse();
+        if (vertexMask == null) {
+            vertexList = Collections.unmodifiableList(Arrays.asList(rows.vertices));
+        } else {
+            List<V<T>> list = new ArrayList<>();
+            for (int i = 0; i < vertexMask.length; i++) if (vertexMask[i]) list.add(rows.vertices[i]);
+            vertexList = Collections.unmodifiableList(list);
+        }
+    }
+
+    public static <T> CsrGraph<T> copyOf(G<T> g) {
+        Builder<T> builder = new Builder<>(Long::sum);
+        for (V<T> v : g.vertices()) builder.addVertex(v.t());
+        for (Map.Entry<V<T>, Map<V<T>, Long>> entry : g.edges()) {
+            T from = entry.getKey().t();
+            entry.getValue().forEach((to, w) -> builder.mergeEdge(from, to.t(), w));
+        }
+        return builder.build();
+    }
+
+    // rows and weights of this view's direction
+
+    private int[] start() {
+        return reversed ? rows.reverseStart : rows.start;
+    }
+
+    private int[] target() {
+        return reversed ? rows.reverseTarget : rows.target;
+    }
+
+    private long[] weight() {
+        return reversed ? rows.reverseWeight : rows.weight;
+    }
+
+    private boolean visible(int k, int[] target, long[] weight) {
+        return (targetMask == null || targetMask[target[k]])
+               && (acceptEdge == null || acceptEdge.test(weight[k]));
+    }
+
+    private boolean hasEdges(int i) {
+        if (sourceMask != null && !sourceMask[i]) return false;
+        int[] start = start();
+        int[] target = target();
+        long[] weight = weight();
+        for (int k = start[i]; k < start[i + 1]; k++) {
+            if (visible(k, target, weight)) return true;
+        }
+        return false;
+    }
+
+    private Integer indexOf(Object t) {
+        return rows.index.get(t);
+    }
+
+    private static boolean[] and(boolean[] m1, boolean[] m2) {
+        if (m1 == null) return m2;
+        if (m2 == null) return m1;
+        boolean[] result = new boolean[m1.length];
+        for (int i = 0; i < m1.length; i++) result[i] = m1[i] && m2[i];
+        return result;
+    }
+
+    private boolean[] mask(Set<V<T>> subSet) {
+        boolean[] mask = new boolean[rows.vertices.length];
+        for (V<T> v : subSet) {
+            Integer i = indexOf(v.t());
+            if (i != null) mask[i] = true;
+        }
+        return mask;
+    }
+
+    // the edges of one vertex, as a read-only map
+
+    private final class Row extends AbstractMap<V<T>, Long> {
+        private final int i;
+
+        private Row(int i) {
+            this.i = i;
+        }
+
+        @Override
+        public Long get(Object key) {
+            if (!(key instanceof V<?> v)) return null;
+            Integer j = indexOf(v.t());
+            if (j == null) return null;
+            int[] start = start();
+            int[] target = target();
+            long[] weight = weight();
+            for (int k = start[i]; k < start[i + 1]; k++) {
+                if (target[k] == j && visible(k, target, weight)) return weight[k];
+            }
+            return null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            int[] start = start();
+            int[] target = target();
+            long[] weight = weight();
+            int count = 0;
+            for (int k = start[i]; k < start[i + 1]; k++) {
+                if (visible(k, target, weight)) ++count;
+            }
+            return count;
+        }
+
+        @Override
+        public Set<Entry<V<T>, Long>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<V<T>, Long>> iterator() {
+                    return new Iterator<>() {
+                        private final int[] target = target();
+                        private final long[] weight = weight();
+                        private final int end = start()[i + 1];
+                        private int k = advance(start()[i]);
+
+                        private int advance(int from) {
+                            int k = from;
+                            while (k < end && !visible(k, target, weight)) ++k;
+                            return k;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return k < end;
+                        }
+
+                        @Override
+                        public Entry<V<T>, Long> next() {
+                            if (k >= end) throw new NoSuchElementException();
+                            Entry<V<T>, Long> entry = new SimpleImmutableEntry<>(rows.vertices[target[k]], weight[k]);
+                            k = advance(k + 1);
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return Row.this.size();
+                }
+            };
+        }
+    }
+
+    @Override
+    public Map<V<T>, Long> edges(V<T> v) {
+        assert v != null;
+        Integer i = indexOf(v.t());
+        return i == null || !hasEdges(i) ? null : new Row(i);
+    }
+
+    @Override
+    public Iterable<Map.Entry<V<T>, Map<V<T>, Long>>> edges() {
+        return () -> IntStream.range(0, rows.vertices.length)
+                .filter(this::hasEdges)
+                .mapToObj(this::rowEntry)
+                .iterator();
+    }
+
+    private Map.Entry<V<T>, Map<V<T>, Long>> rowEntry(int i) {
+        return new AbstractMap.SimpleImmutableEntry<>(rows.vertices[i], new Row(i));
+    }
+
+    @Override
+    public Map<V<T>, Map<V<T>, Long>> edgeMap() {
+        Map<V<T>, Map<V<T>, Long>> map = new LinkedHashMap<>();
+        for (Map.Entry<V<T>, Map<V<T>, Long>> entry : edges()) {
+            map.put(entry.getKey(), new LinkedHashMap<>(entry.getValue()));
+        }
+        return map;
+    }
+
+    @Override
+    public Stream<E<T>> edgeStream() {
+        int[] start = start();
+        int[] target = target();
+        long[] weight = weight();
+        return IntStream.range(0, rows.vertices.length)
+                .filter(i -> sourceMask == null || sourceMask[i])
+                .boxed()
+                .flatMap(i -> IntStream.range(start[i], start[i + 1])
+                        .filter(k -> visible(k, target, weight))
+                        .mapToObj(k -> new E<>(rows.vertices[i], rows.vertices[target[k]], weight[k])));
+    }
+
+    @Override
+    public Collection<V<T>> vertices() {
+        return vertexList;
+    }
+
+    @Override
+    public int size() {
+        return vertexList.size();
+    }
+
+    @Override
+    public V<T> vertex(T t) {
+        Integer i = indexOf(t);
+        return i == null || vertexMask != null && !vertexMask[i] ? null : rows.vertices[i];
+    }
+
+    // views
+
+    @Override
+    public G<T> subGraph(Set<V<T>> subSet) {
+        return subGraph(subSet, null);
+    }
+
+    @Override
+    public G<T> subGraph(Set<V<T>> subSet, Predicate<Long> acceptEdgePredicate) {
+        boolean[] mask = and(vertexMask, mask(subSet));
+        Predicate<Long> accept = acceptEdge == null ? acceptEdgePredicate
+                : acceptEdgePredicate == null ? acceptEdge : acceptEdge.and(acceptEdgePredicate);
+        return new CsrGraph<>(rows, reversed, mask, and(sourceMask, mask), and(targetMask, mask), accept);
+    }
+
+    @Override
+    public G<T> reverse(Predicate<T> predicate) {
+        // an edge from -> to becomes to -> from when predicate accepts 'to'
+        boolean[] accepted = new boolean[rows.vertices.length];
+        for (int i = 0; i < accepted.length; i++) accepted[i] = predicate.test(rows.vertices[i].t());
+        return new CsrGraph<>(rows, !reversed, vertexMask, and(targetMask, accepted), sourceMask, acceptEdge);
+    }
+
+    @Override
+    public G<T> mutableReverseSubGraph(Set<V<T>> subSet, LongBinaryOperator sum) {
+        // as GraphImpl: the vertices of subSet, with the reverse of their outgoing edges; the rows of the edge
+        // targets outside subSet are reachable through edges(v), but not through vertices()
+        boolean[] mask = mask(subSet);
+        return new CsrGraph<>(rows, !reversed, and(vertexMask, mask), targetMask, and(sourceMask, mask), acceptEdge);
+    }
+
+    @Override
+    public G<T> immutableCopy() {
+        return this;
+    }
+
+    // copies
+
+    @Override
+    public G<T> withFewerEdges(Map<V<T>, Set<V<T>>> edgesToRemove) {
+        return withFewerEdges(v -> edgesToRemove.get(v));
+    }
+
+    @Override
+    public G<T> withFewerEdgesMap(Map<V<T>, Map<V<T>, Long>> edgesToRemove) {
+        return withFewerEdges(v -> edgesToRemove.getOrDefault(v, Map.of()).keySet());
+    }
+
+    private G<T> withFewerEdges(Function<V<T>, Set<V<T>>> edgesToRemove) {
+        Builder<T> builder = new Builder<>(Long::sum);
+        for (V<T> v : vertexList) builder.addVertex(v.t());
+        for (Map.Entry<V<T>, Map<V<T>, Long>> entry : edges()) {
+            V<T> from = entry.getKey();
+            Set<V<T>> toRemove = edgesToRemove.apply(from);
+            entry.getValue().forEach((to, w) -> {
+                if (toRemove == null || !toRemove.contains(to)) builder.mergeEdge(from.t(), to.t(), w);
+            });
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Map<V<T>, Long> incomingVertexWeight(LongBinaryOperator sum) {
+        Map<V<T>, Long> map = new HashMap<>();
+        edgeStream().forEach(e -> map.merge(e.to(), e.weight(), sum::applyAsLong));
+        return map;
+    }
+
+    @Override
+    public Iterator<Map<V<T>, Map<V<T>, Long>>> edgeIterator(Comparator<Long> comparator, Long limit) {
+        List<E<T>> edges = edgeStream()
+                .filter(e -> limit == null || e.weight() < limit)
+                .sorted((e1, e2) -> comparator.compare(e1.weight(), e2.weight()))
+                .toList();
+        return edges.stream().map(e -> Map.of(e.from(), Map.of(e.to(), e.weight()))).iterator();
+    }
+
+    @Override
+    public Map<V<T>, Long> removeVertex(T t) {
+        throw new UnsupportedOperationException(IMMUTABLE_GRAPH);
+    }
+
+    @Override
+    public Map<V<T>, Long> ensureVertex(T t) {
+        throw new UnsupportedOperationException(IMMUTABLE_GRAPH);
+    }
+
+    @Override
+    public void mergeEdge(T from, T to, long weight) {
+        throw new UnsupportedOperationException(IMMUTABLE_GRAPH);
+    }
+
+    @Override
+    public int hashCode() {
+        return edgeMap().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof G<?> g && edgeMap().equals(g.edgeMap());
+    }
+
+    @Override
+    public String toString() {
+        return toString(", ");
+    }
+
+    @Override
+    public String toString(String delimiter) {
+        return toString(delimiter, l -> "" + l);
+    }
+
+    @Override
+    public String toString(String delimiter, Function<Long, String> edgeValuePrinter) {
+        return edgeStream().map(e -> e.toString(edgeValuePrinter)).sorted().collect(Collectors.joining(delimiter));
+    }
+
+    /*
+    Vertices in order of first appearance; in mergeEdge, 'to' before 'from', as in ImmutableGraph.Builder.
+    Edges are appended to a log, with an open-addressing table on (from, to) to merge repeated edges. build() sorts
+    the log into rows, keeping the order of first appearance within a row.
+     */
+    public static class Builder<T> implements G.Builder<T> {
+        private final LongBinaryOperator sum;
+        private final Map<T, Integer> index = new HashMap<>();
+        private final List<T> vertices = new ArrayList<>();
+        private int[] from = new int[64];
+        private int[] to = new int[64];
+        private long[] weight = new long[64];
+        private int edgeCount;
+        // (from, to) + 1 -> slot in the log, 0 = free
+        private long[] keys = new long[128];
+        private int[] slots = new int[128];
+
+        public Builder(LongBinaryOperator sum) {
+            this.sum = sum;
+        }
+
+        private int id(T t) {
+            assert t != null;
+            Integer i = index.get(t);
+            if (i != null) return i;
+            int id = vertices.size();
+            index.put(t, id);
+            vertices.add(t);
+            return id;
+        }
+
+        @Override
+        public void addVertex(T t) {
+            id(t);
+        }
+
+        @Override
+        public void mergeEdge(T from, T to, long weight) {
+            int t = id(to);
+            int f = id(from);
+            long key = (((long) f << 32) | (t & 0xFFFFFFFFL)) + 1;
+            int mask = keys.length - 1;
+            int h = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[h] != 0) {
+                if (keys[h] == key) {
+                    int slot = slots[h];
+                    this.weight[slot] = sum.applyAsLong(this.weight[slot], weight);
+                    return;
+                }
+                h = (h + 1) & mask;
+            }
+            if (edgeCount == this.from.length) {
+                this.from = Arrays.copyOf(this.from, 2 * edgeCount);
+                this.to = Arrays.copyOf(this.to, 2 * edgeCount);
+                this.weight = Arrays.copyOf(this.weight, 2 * edgeCount);
+            }
+            this.from[edgeCount] = f;
+            this.to[edgeCount] = t;
+            this.weight[edgeCount] = weight;
+            keys[h] = key;
+            slots[h] = edgeCount++;
+            if (2 * edgeCount > keys.length) rehash();
+        }
+
+        private void rehash() {
+            long[] newKeys = new long[2 * keys.length];
+            int[] newSlots = new int[newKeys.length];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0) {
+                    int h = Long.hashCode(keys[i] * 0x9E3779B97F4A7C15L) & mask;
+                    while (newKeys[h] != 0) h = (h + 1) & mask;
+                    newKeys[h] = keys[i];
+                    newSlots[h] = slots[i];
+                }
+            }
+            keys = newKeys;
+            slots = newSlots;
+        }
+
+        @Override
+        public void add(T from, Iterable<? extends T> tos) {
+            addVertex(from);
+            tos.forEach(to -> mergeEdge(from, Objects.requireNonNull(to), 1L));
+        }
+
+        @Override
+        public void addAll(G.Builder<T> other) {
+            // vertices first: the order of the other builder's vertices, not that of its edge targets
+            for (Map.Entry<T, Map<T, Long>> entry : other.edges()) addVertex(entry.getKey());
+            for (Map.Entry<T, Map<T, Long>> entry : other.edges()) {
+                entry.getValue().forEach((to, w) -> mergeEdge(entry.getKey(), to, w));
+            }
+        }
+
+        @Override
+        public int size() {
+            return vertices.size();
+        }
+
+        @Override
+        public Set<T> vertices() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<T> iterator() {
+                    return Collections.unmodifiableList(vertices).iterator();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return index.containsKey(o);
+                }
+
+                @Override
+                public int size() {
+                    return vertices.size();
+                }
+            };
+        }
+
+        // a copy: the log is not a map that can be modified in place
+        @Override
+        public Map<T, Long> edges(T t) {
+            Integer f = index.get(t);
+            if (f == null) return null;
+            Map<T, Long> map = new LinkedHashMap<>();
+            for (int k = 0; k < edgeCount; k++) {
+                if (from[k] == f) map.put(vertices.get(to[k]), weight[k]);
+            }
+            return map;
+        }
+
+        @Override
+        public Map<T, Long> ensureVertex(T t) {
+            throw new UnsupportedOperationException("CsrGraph.Builder: use addVertex and mergeEdge");
+        }
+
+        @Override
+        public Iterable<Map.Entry<T, Map<T, Long>>> edges() {
+            Map<T, Map<T, Long>> map = new LinkedHashMap<>();
+            for (T t : vertices) map.put(t, new LinkedHashMap<>());
+            for (int k = 0; k < edgeCount; k++) {
+                map.get(vertices.get(from[k])).put(vertices.get(to[k]), weight[k]);
+            }
+            return map.entrySet();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CsrGraph<T> build() {
+            int n = vertices.size();
+            V<T>[] vs = new V[n];
+            for (int i = 0; i < n; i++) vs[i] = new V<>(vertices.get(i));
+            int[] start = new int[n + 1];
+            for (int k = 0; k < edgeCount; k++) ++start[from[k] + 1];
+            for (int i = 0; i < n; i++) start[i + 1] += start[i];
+            int[] fill = Arrays.copyOf(start, n);
+            int[] target = new int[edgeCount];
+            long[] w = new long[edgeCount];
+            for (int k = 0; k < edgeCount; k++) {
+                int slot = fill[from[k]]++;
+                target[slot] = to[k];
+                w[slot] = weight[k];
+            }
+            Rows<T> rows = new Rows<>(vs, new HashMap<>(index), start, target, w);
+            return new CsrGraph<>(rows, false, null, null, null, null);
+        }
+    }
+}
@@ -72,7 +72,170 @@ public class Linearize {
         ONLY_LINEAR, ONLY_REVERSE_GRAPH, ALL
     }
 
+    /*
+    O(V+E). A vertex's stratum is the round in which the last of its dependencies (edges, self-loops excluded) got
+    linearized; a countdown over the reverse adjacency releases each vertex exactly when the round-based algorithm
+    (linearizeByRounds) would have found it safe. Within a stratum, vertices keep the order of g.vertices().
+    What is left (cycles, and vertices depending on them) is pruned with the same countdown on the reverse sub-graph;
+    the remaining cycles are the weakly connected components of the rest, which is what findConnectedSubSets +
+    tryToMergeResultSets computes: every edge u->w puts w in follow(u), and the merged follow-sets are connected.
+     */
     public static <T> Result<T> linearize(G<T> g, LinearizationMode mode) {
+        List<V<T>> vertices = new ArrayList<>(g.vertices());
+        int n = vertices.size();
+        Map<V<T>, Integer> index = HashMap.newHashMap(n);
+        for (int i = 0; i < n; i++) index.put(vertices.get(i), i);
+
+        // successors as compressed rows; edges to unknown vertices are never released, as in linearizeByRounds
+        int[] pending = new int[n];
+        int[] succStart = new int[n + 1];
+        int[] succ = new int[Math.max(16, n)];
+        int[] predCount = new int[n + 1];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            V<T> v = vertices.get(i);
+            Map<V<T>, Long> edgeMap = g.edges(v);
+            if (edgeMap != null) {
+                for (V<T> w : edgeMap.keySet()) {
+                    if (w.equals(v)) continue;
+                    ++pending[i];
+                    Integer j = index.get(w);
+                    if (j != null) {
+                        if (m == succ.length) succ = Arrays.copyOf(succ, 2 * m);
+                        succ[m++] = j;
+                        ++predCount[j + 1];
+                    }
+                }
+            }
+            succStart[i + 1] = m;
+        }
+        int[] predStart = new int[n + 1];
+        for (int i = 0; i < n; i++) predStart[i + 1] = predStart[i] + predCount[i + 1];
+        int[] pred = new int[m];
+        int[] fill = Arrays.copyOf(predStart, n);
+        for (int i = 0; i < n; i++) {
+            for (int k = succStart[i]; k < succStart[i + 1]; k++) pred[fill[succ[k]]++] = i;
+        }
+
+        boolean[] done = new boolean[n];
+        int[] ready = new int[n];
+        int readyCount = 0;
+        for (int i = 0; i < n; i++) if (pending[i] == 0) ready[readyCount++] = i;
+        List<Set<V<T>>> linearResult = countDown(vertices, ready, readyCount, pending, done, predStart, pred);
+
+        Set<Cycle<T>> cycleSet = new LinkedHashSet<>();
+        Hierarchy<T> attachedToCycles = new Hierarchy<>(new ArrayList<>());
+        if (mode != LinearizationMode.ONLY_LINEAR) {
+            // prune the remaining vertices through the reverse graph: the dependency count now runs over the
+            // predecessors that are still pending
+            boolean[] remaining = new boolean[n];
+            boolean any = false;
+            for (int i = 0; i < n; i++) {
+                if (!done[i]) {
+                    remaining[i] = true;
+                    any = true;
+                }
+            }
+            if (any) {
+                int[] pendingReverse = new int[n];
+                readyCount = 0;
+                for (int i = 0; i < n; i++) {
+                    if (remaining[i]) {
+                        for (int k = predStart[i]; k < predStart[i + 1]; k++) {
+                            if (remaining[pred[k]]) ++pendingReverse[i];
+                        }
+                        if (pendingReverse[i] == 0) ready[readyCount++] = i;
+                    }
+                }
+                List<Set<V<T>>> reverse = countDown(vertices, ready, readyCount, pendingReverse, done, succStart,
+                        succ);
+                attachedToCycles.append(new Hierarchy<>(reverse).reversed());
+
+                if (mode == LinearizationMode.ONLY_REVERSE_GRAPH) {
+                    Set<V<T>> cycle = new LinkedHashSet<>();
+                    for (int i = 0; i < n; i++) if (!done[i]) cycle.add(vertices.get(i));
+                    cycleSet.add(new Cycle<>(cycle));
+                } else {
+                    cycleSet.addAll(weaklyConnectedComponents(vertices, done, succStart, succ, predStart, pred));
+                }
+            }
+        }
+        return new Result<>(new Hierarchy<>(linearResult), attachedToCycles, new Cycles<>(cycleSet));
+    }
+
+    /*
+    Kahn's algorithm, one stratum per round. 'ready' holds the first stratum, in index order, and is reused as the
+    work array. Releasing a vertex decrements 'pending' of the vertices in its row of 'release'.
+     */
+    private static <T> List<Set<V<T>>> countDown(List<V<T>> vertices, int[] ready, int readyCount, int[] pending,
+                                                 boolean[] done, int[] releaseStart, int[] release) {
+        List<Set<V<T>>> strata = new ArrayList<>();
+        int from = 0;
+        int to = readyCount;
+        while (from < to) {
+            Set<V<T>> stratum = new LinkedHashSet<>();
+            for (int r = from; r < to; r++) {
+                int i = ready[r];
+                done[i] = true;
+                stratum.add(vertices.get(i));
+            }
+            strata.add(stratum);
+            int next = to;
+            for (int r = from; r < to; r++) {
+                int i = ready[r];
+                for (int k = releaseStart[i]; k < releaseStart[i + 1]; k++) {
+                    int j = release[k];
+                    if (!done[j] && --pending[j] == 0) ready[next++] = j;
+                }
+            }
+            Arrays.sort(ready, to, next);
+            from = to;
+            to = next;
+        }
+        return strata;
+    }
+
+    private static <T> List<Cycle<T>> weaklyConnectedComponents(List<V<T>> vertices, boolean[] done,
+                                                                int[] succStart, int[] succ,
+                                                                int[] predStart, int[] pred) {
+        int n = vertices.size();
+        boolean[] seen = Arrays.copyOf(done, n);
+        int[] stack = new int[n];
+        List<Cycle<T>> result = new ArrayList<>();
+        for (int start = 0; start < n; start++) {
+            if (seen[start]) continue;
+            Set<V<T>> component = new LinkedHashSet<>();
+            int top = 0;
+            stack[top++] = start;
+            seen[start] = true;
+            while (top > 0) {
+                int i = stack[--top];
+                component.add(vertices.get(i));
+                for (int k = succStart[i]; k < succStart[i + 1]; k++) {
+                    int j = succ[k];
+                    if (!seen[j]) {
+                        seen[j] = true;
+                        stack[top++] = j;
+                    }
+                }
+                for (int k = predStart[i]; k < predStart[i + 1]; k++) {
+                    int j = pred[k];
+                    if (!seen[j]) {
+                        seen[j] = true;
+                        stack[top++] = j;
+                    }
+                }
+            }
+            result.add(new Cycle<>(component));
+        }
+        return result;
+    }
+
+    /*
+    The original algorithm, which rescans all remaining vertices every round: quadratic in the number of strata.
+    Kept as the reference for linearize(g, mode), which must produce an equal Result.
+     */
+    public static <T> Result<T> linearizeByRounds(G<T> g, LinearizationMode mode) {
         Set<V<T>> toDo = new LinkedHashSet<>(g.vertices());
         Set<V<T>> done = new LinkedHashSet<>();
         List<Set<V<T>>> linearResult = new ArrayList<>();
@@ -125,7 +288,7 @@ public class Linearize {
 
     private static <T> Hierarchy<T> removeAsManyAsPossible(G<T> g, Set<V<T>> toDo) {
         G<T> reverseSub = g.mutableReverseSubGraph(toDo, Long::sum);
-        Result<T> r = linearize(reverseSub, LinearizationMode.ONLY_LINEAR);
+        Result<T> r = linearizeByRounds(reverseSub, LinearizationMode.ONLY_LINEAR);
         return r.linearized.reversed();
     }
 
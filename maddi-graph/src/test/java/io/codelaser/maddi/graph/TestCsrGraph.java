@@ -0,0 +1,153 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.codelaser.maddi.graph;
+
+import io.codelaser.maddi.graph.op.Linearize;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link CsrGraph} against {@link ImmutableGraph}, built from the same sequence of {@code mergeEdge} calls: the same
+ * vertices, edges and weights, also through subgraph and reverse views. The last test prints the retained heap of
+ * both on a call-graph-sized input (PROBE line; a before/after of used heap, only its order of magnitude counts).
+ */
+public class TestCsrGraph {
+
+    private record Pair(G<Integer> reference, G<Integer> csr) {
+    }
+
+    private static Pair build(int n, int edges, long seed) {
+        Random random = new Random(seed);
+        G.Builder<Integer> b1 = new ImmutableGraph.Builder<>(Long::sum);
+        G.Builder<Integer> b2 = new CsrGraph.Builder<>(Long::sum);
+        for (int i = 0; i < n; i += 3) {
+            b1.addVertex(i);
+            b2.addVertex(i);
+        }
+        for (int e = 0; e < edges; e++) {
+            int from = random.nextInt(n);
+            int to = random.nextInt(n);
+            long weight = 1L << random.nextInt(20);
+            b1.mergeEdge(from, to, weight);
+            b2.mergeEdge(from, to, weight);
+        }
+        assertEquals(b1.size(), b2.size());
+        assertEquals(List.copyOf(b1.vertices()), List.copyOf(b2.vertices()));
+        return new Pair(b1.build(), b2.build());
+    }
+
+    private static void assertSame(G<Integer> expected, G<Integer> actual) {
+        assertEquals(List.copyOf(expected.vertices()).stream().map(V::t).sorted().toList(),
+                List.copyOf(actual.vertices()).stream().map(V::t).sorted().toList());
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expected.edgeMap(), actual.edgeMap());
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        for (V<Integer> v : expected.vertices()) {
+            assertEquals(expected.edges(v), actual.edges(v), "edges of " + v);
+            assertEquals(v, actual.vertex(v.t()));
+        }
+        assertEquals(expected.incomingVertexWeight(Long::sum), actual.incomingVertexWeight(Long::sum));
+        assertEquals(expected.edgeStream().count(), actual.edgeStream().count());
+    }
+
+    @DisplayName("random graphs: same graph as ImmutableGraph, directly and through views")
+    @Test
+    public void sameAsImmutableGraph() {
+        for (int seed = 0; seed < 100; seed++) {
+            int n = 2 + seed % 30;
+            Pair p = build(n, seed % 4 * n, seed);
+            assertSame(p.reference, p.csr);
+            assertEquals(List.copyOf(p.reference.vertices()), List.copyOf(p.csr.vertices()));
+
+            Random random = new Random(seed);
+            Set<V<Integer>> subSet = new HashSet<>();
+            for (V<Integer> v : p.reference.vertices()) if (random.nextBoolean()) subSet.add(v);
+            Predicate<Long> heavy = w -> w >= 1L << 10;
+            Predicate<Integer> even = i -> i % 2 == 0;
+
+            assertSame(p.reference.subGraph(subSet), p.csr.subGraph(subSet));
+            assertSame(p.reference.subGraph(subSet, heavy), p.csr.subGraph(subSet, heavy));
+            assertSame(p.reference.reverse(even), p.csr.reverse(even));
+            assertSame(p.reference.subGraph(subSet, heavy).reverse(even),
+                    p.csr.subGraph(subSet, heavy).reverse(even));
+            assertSame(p.reference.reverse(even).reverse(i -> true), p.csr.reverse(even).reverse(i -> true));
+            assertSame(p.reference.mutableReverseSubGraph(subSet, Long::sum),
+                    p.csr.mutableReverseSubGraph(subSet, Long::sum));
+
+            Map<V<Integer>, Set<V<Integer>>> toRemove = new HashMap<>();
+            p.reference.edgeStream().filter(e -> random.nextInt(3) == 0)
+                    .forEach(e -> toRemove.computeIfAbsent(e.from(), _ -> new HashSet<>()).add(e.to()));
+            assertSame(p.reference.withFewerEdges(toRemove), p.csr.withFewerEdges(toRemove));
+
+            for (Linearize.LinearizationMode mode : Linearize.LinearizationMode.values()) {
+                assertEquals(Linearize.linearizeByRounds(p.reference, mode), Linearize.linearize(p.csr, mode));
+                assertEquals(Linearize.linearize(p.reference.subGraph(subSet, heavy), mode),
+                        Linearize.linearize(p.csr.subGraph(subSet, heavy), mode));
+            }
+        }
+    }
+
+    @DisplayName("a view does not copy, and is immutable")
+    @Test
+    public void views() {
+        Pair p = build(10, 30, 1);
+        G<Integer> sub = p.csr.subGraph(Set.copyOf(p.csr.vertices()));
+        assertInstanceOf(CsrGraph.class, sub);
+        assertSame(p.csr, sub);
+        assertSame(p.csr, p.csr.immutableCopy());
+        assertThrows(UnsupportedOperationException.class, () -> sub.mergeEdge(1, 2, 1L));
+        assertNull(p.csr.vertex(12345));
+        assertEquals(p.csr, CsrGraph.copyOf(p.reference));
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    @DisplayName("heap of a 100k-vertex, 1M-edge graph")
+    @Test
+    public void heap() {
+        int n = 100_000;
+        int edges = 1_000_000;
+        long used0 = usedHeap();
+        G<Integer> csr = build(new CsrGraph.Builder<>(Long::sum), n, edges);
+        long used1 = usedHeap();
+        G<Integer> reference = build(new ImmutableGraph.Builder<>(Long::sum), n, edges);
+        long used2 = usedHeap();
+        assertEquals(reference.edgeStream().count(), csr.edgeStream().count());
+        long csrBytes = used1 - used0;
+        long referenceBytes = used2 - used1;
+        System.out.printf("PROBE graph n=%d edges=%d  ImmutableGraph: %d MB  CsrGraph: %d MB%n", n, edges,
+                referenceBytes >> 20, csrBytes >> 20);
+        assertTrue(2 * csrBytes < referenceBytes, "CSR must be much smaller: " + csrBytes + " vs "
+                                                  + referenceBytes);
+    }
+
+    private static G<Integer> build(G.Builder<Integer> builder, int n, int edges) {
+        Random random = new Random(7);
+        for (int e = 0; e < edges; e++) {
+            builder.mergeEdge(random.nextInt(n), random.nextInt(n), 1L << 16);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.graph.op;
+
+import io.codelaser.maddi.graph.G;
+import io.codelaser.maddi.graph.ImmutableGraph;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link Linearize#linearize(G, Linearize.LinearizationMode)} (one countdown over the reverse adjacency) against the
+ * round-based {@link Linearize#linearizeByRounds(G, Linearize.LinearizationMode)}: equal results on random graphs,
+ * and both times on a synthetic 20k-vertex call graph, printed on a PROBE line. The rounds re-scan the remaining
+ * vertices once per stratum; at 200k vertices they take tens of seconds, too long for a unit test.
+ */
+public class TestLinearizeBench {
+
+    /*
+    A call graph: every method calls up to 'calls' methods defined before it, one in four nearby (same class, same
+    package); 'recursion' in 1000 methods also call a method defined shortly after, which may close a cycle.
+     */
+    private static G<Integer> callGraph(int n, int calls, int recursion, long seed) {
+        Random random = new Random(seed);
+        G.Builder<Integer> builder = new ImmutableGraph.Builder<>(Long::sum);
+        for (int i = 0; i < n; i++) {
+            builder.addVertex(i);
+            if (i == 0) continue;
+            int k = random.nextInt(calls + 1);
+            for (int c = 0; c < k; c++) {
+                int window = random.nextInt(4) == 0 ? Math.min(i, 200) : i;
+                builder.mergeEdge(i, i - 1 - random.nextInt(window), 1L);
+            }
+            if (random.nextInt(1000) < recursion && i + 1 < n) {
+                builder.mergeEdge(i, i + 1 + random.nextInt(Math.min(n - i - 1, 20)), 1L);
+            }
+        }
+        return builder.build();
+    }
+
+    private static G<Integer> randomGraph(int n, int edges, long seed) {
+        Random random = new Random(seed);
+        G.Builder<Integer> builder = new ImmutableGraph.Builder<>(Long::sum);
+        for (int i = 0; i < n; i++) builder.addVertex(i);
+        for (int e = 0; e < edges; e++) {
+            builder.mergeEdge(random.nextInt(n), random.nextInt(n), 1L);
+        }
+        return builder.build();
+    }
+
+    @DisplayName("random graphs: the same result as the round-based algorithm, in every mode")
+    @Test
+    public void sameAsByRounds() {
+        for (int seed = 0; seed < 300; seed++) {
+            int n = 1 + seed % 40;
+            G<Integer> g = seed % 2 == 0 ? randomGraph(n, seed % 3 * n / 2 + seed % 5, seed)
+                    : callGraph(n, 3, 100 * (seed % 4), seed);
+            for (Linearize.LinearizationMode mode : Linearize.LinearizationMode.values()) {
+                Linearize.Result<Integer> expected = Linearize.linearizeByRounds(g, mode);
+                Linearize.Result<Integer> actual = Linearize.linearize(g, mode);
+                assertEquals(expected, actual, "seed " + seed + ", mode " + mode + ": " + g);
+                assertEquals(expected.toString(), actual.toString());
+                assertEquals(expected.asList(Integer::compareTo), actual.asList(Integer::compareTo));
+            }
+        }
+    }
+
+    @DisplayName("synthetic call graph of 20k vertices: countdown vs rounds")
+    @Test
+    public void callGraph20k() {
+        int n = 20_000;
+        G<Integer> g = callGraph(n, 6, 1, 42);
+        long best = Long.MAX_VALUE;
+        Linearize.Result<Integer> actual = null;
+        for (int i = 0; i < 3; i++) {
+            long t0 = System.nanoTime();
+            actual = Linearize.linearize(g, Linearize.LinearizationMode.ALL);
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        // once: the rounds are the slow part
+        long t0 = System.nanoTime();
+        Linearize.Result<Integer> expected = Linearize.linearizeByRounds(g, Linearize.LinearizationMode.ALL);
+        long rounds = System.nanoTime() - t0;
+        assertEquals(expected, actual);
+        System.out.printf("PROBE linearize n=%d edges=%d strata=%d attached=%d cycles=%d (max %d)  rounds: %d ms  "
+                          + "countdown: %d ms (best of 3)%n", n, g.edgeStream().count(), actual.linearized().size(),
+                actual.attachedToCycles().size(), actual.remainingCycles().size(),
+                actual.remainingCycles().maxCycleSize(), rounds / 1_000_000, best / 1_000_000);
+    }
+}
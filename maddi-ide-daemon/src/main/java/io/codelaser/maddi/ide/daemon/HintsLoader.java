@@ -14,6 +14,7 @@
 
 package io.codelaser.maddi.ide.daemon;
 
+import io.codelaser.maddi.modification.prepwork.io.HintsArchive;
 import io.codelaser.maddi.modification.prepwork.io.LoadAnalysisResults;
 import io.codelaser.maddi.modification.prepwork.io.PrepWorkCodec;
 import io.codelaser.maddi.cst.api.analysis.Codec;
@@ -26,6 +27,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -41,7 +43,9 @@ import java.util.jar.JarFile;
  * <p>
  * Two sets are loaded: the JDK hints (loose {@code jdk/*.json}) and {@code libs.jar} (slf4j, junit).
  * Works whether the archive is on the classpath as a jar (installed daemon) or as a resources
- * directory (running from the repo). Best-effort: a failure is logged and analysis proceeds.
+ * directory (running from the repo). When the JDK hints come with their {@link HintsArchive}, the types are only
+ * registered, and each is decoded when the analysis first asks for it. Best-effort: a failure is logged and
+ * analysis proceeds.
  */
 public class HintsLoader {
     private static final Logger LOGGER = LoggerFactory.getLogger(HintsLoader.class);
@@ -128,6 +132,8 @@ public class HintsLoader {
     private int loadJdkFromDir(LoadAnalysisResults loader, Codec codec, URL libsJar) throws Exception {
         File libsFile = new File(libsJar.toURI());
         File jdkDir = new File(libsFile.getParentFile(), "jdk");
+        Path archive = jdkDir.isDirectory() ? HintsArchive.currentArchive(jdkDir.toPath()) : null;
+        if (archive != null) return loader.goArchive(codec, HintsArchive.map(archive));
         File[] jsons = jdkDir.listFiles((d, n) -> n.endsWith(".json"));
         if (jsons == null) {
             LOGGER.warn("JDK hints directory not found: {}", jdkDir);
@@ -146,6 +152,23 @@ public class HintsLoader {
         File archiveJar = new File(conn.getJarFileURL().toURI()); // our own handle; safe to close
         int count = 0;
         try (JarFile jar = new JarFile(archiveJar)) {
+            // read, not mapped; used when the jar's JSON entries are the files it was built from, by their CRC-32
+            JarEntry archiveEntry = jar.getJarEntry(JDK_ENTRY_PREFIX + HintsArchive.FILE_NAME);
+            if (archiveEntry != null) {
+                HintsArchive archive;
+                try (InputStream is = jar.getInputStream(archiveEntry)) {
+                    archive = HintsArchive.of(is.readAllBytes());
+                }
+                List<HintsArchive.JsonFile> jsonFiles = jar.stream()
+                        .filter(e -> !e.isDirectory() && e.getName().startsWith(JDK_ENTRY_PREFIX)
+                                     && e.getName().endsWith(".json"))
+                        .map(e -> new HintsArchive.JsonFile(e.getName().substring(JDK_ENTRY_PREFIX.length()),
+                                e.getSize(), e.getCrc()))
+                        .toList();
+                if (archive.builtFrom(jsonFiles)) return loader.goArchive(codec, archive);
+                LOGGER.info("Ignoring stale {} in {}: the JSON entries changed since it was built",
+                        archiveEntry.getName(), archiveJar);
+            }
             Enumeration<JarEntry> entries = jar.entries();
             while (entries.hasMoreElements()) {
                 JarEntry entry = entries.nextElement();
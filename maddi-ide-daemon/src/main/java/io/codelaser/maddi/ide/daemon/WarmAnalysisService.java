@@ -30,25 +30,50 @@ import io.codelaser.maddi.inspection.openjdk.JavaInspectorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
 
 /**
- * Runs a whole-project maddi analysis per request, on a warm JVM. A <b>fresh</b> {@code JavaInspector}
- * is built each request so analysis state is clean (the process, not the inspector, is what stays
- * warm — no spawn / JIT cost). Ports {@code RunAnalyzer.runAnalyzer()} (parse → prep → order →
- * analyze), with two IDE-oriented differences: {@code failFast=false} (partial projects still yield
- * findings) and results collected into plain JSON rather than written to disk.
+ * Runs a whole-project maddi analysis per request, on a warm JVM. Ports {@code RunAnalyzer.runAnalyzer()}
+ * (parse → prep → order → analyze), with two IDE-oriented differences: {@code failFast=false} (partial projects
+ * still yield findings) and results collected into plain JSON rather than written to disk.
+ * <p>
+ * The first request for a project builds a {@code JavaInspector}, preloads the JDK and the hints, and analyses
+ * everything. Its state is then kept as a {@link WorkspaceSession}: a follow-up request with the same
+ * configuration re-parses the changed compilation units only and re-analyses from there, stopping where the
+ * output stops changing. Any other configuration, a re-parse with errors, or a failure of the warm path, I/O
+ * included, discards the session and starts cold again. Only the most recent workspace is kept: a second one would double the resident heap. Env
+ * NOWARMSESSION: every request cold, a fresh inspector each time, as before.
  */
 public class WarmAnalysisService implements AnalyzeHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(WarmAnalysisService.class);
 
+    static final boolean WARM_SESSIONS = System.getenv("NOWARMSESSION") == null;
+
     private final InputConfigurationAssembler assembler = new InputConfigurationAssembler();
+    private WorkspaceSession session;
+
+    // the kept workspace, null when the next request starts cold (tests)
+    WorkspaceSession session() {
+        return session;
+    }
 
     @Override
     public DaemonProtocol.Result analyze(DaemonProtocol.AnalyzeProject request, StatusSink status) throws Exception {
         long start = System.currentTimeMillis();
         String requestId = request.requestId();
+        if (session != null && session.serves(request.config())) {
+            try {
+                DaemonProtocol.Result result = session.reanalyze(requestId, status, start);
+                if (!session.usable()) session = null;
+                return result;
+            } catch (IOException | RuntimeException | AssertionError e) {
+                // the inspector may be half updated: the session is discarded, and rebuilt by the cold run
+                LOGGER.warn("warm re-analysis failed, discarding the warm session and starting cold", e);
+            }
+        }
+        session = null; // release the previous workspace before building the next one
         boolean parallel = request.config().parallel();
 
         emit(status, requestId, "initialize", "building inspector", null, null);
@@ -107,15 +132,8 @@ public class WarmAnalysisService implements AnalyzeHandler {
         List<Info> order = new ComputeAnalysisOrder().go(ccg.graph(), parallel);
 
         emit(status, requestId, "analyze", "modification analysis", 0, order.size());
-        IteratingAnalyzer.Configuration modConfig = new IteratingAnalyzerImpl.ConfigurationBuilder()
-                .setMaxIterations(10)
-                .setTrackObjectCreations(false)
-                .setFaultTolerant(true) // isolate a crash on one element into a finding; don't abort the run
-                // advisory "you are one member away from @Container/@Immutable/..." warnings; opt-in, as in
-                // RunAnalyzer, because they are noisy on a codebase that has not been curated for them
-                .setWarnNearMisses(request.config().warnNearMisses())
-                .build();
-        IteratingAnalyzer analyzer = new IteratingAnalyzerImpl(inspector, modConfig);
+        IteratingAnalyzer analyzer = new IteratingAnalyzerImpl(inspector,
+                analyzerConfiguration(request.config().warnNearMisses()));
         // Stream what each pass established, so the IDE can annotate the file on screen long before the run
         // ends: the first pass decides most of the output, and the tail is long but decides little.
         StreamingValueFeed valueFeed = new StreamingValueFeed(status, requestId, collector);
@@ -135,16 +153,31 @@ public class WarmAnalysisService implements AnalyzeHandler {
         String outcome = valueFeed.outcome();
         LOGGER.info("analysis complete in {} ms ({}): {} findings, {} element annotations",
                 elapsed, outcome, findings.size(), elementAnnotations.size());
+        if (WARM_SESSIONS) {
+            session = new WorkspaceSession(request.config(), inspector, inputConfiguration, sourceSet, initProblems,
+                    hints, summary, ccg.graph(), messages, outcome);
+        }
         return new DaemonProtocol.Result(requestId, findings, elementAnnotations, initProblems,
                 summary.parseExceptions().size(), hints, elapsed, outcome);
     }
 
+    static IteratingAnalyzer.Configuration analyzerConfiguration(boolean warnNearMisses) {
+        return new IteratingAnalyzerImpl.ConfigurationBuilder()
+                .setMaxIterations(10)
+                .setTrackObjectCreations(false)
+                .setFaultTolerant(true) // isolate a crash on one element into a finding; don't abort the run
+                // advisory "you are one member away from @Container/@Immutable/..." warnings; opt-in, as in
+                // RunAnalyzer, because they are noisy on a codebase that has not been curated for them
+                .setWarnNearMisses(warnNearMisses)
+                .build();
+    }
+
     /**
      * Run the (blocking, possibly long) analysis on the CURRENT thread — maddi's runtime type-cache is not
      * thread-safe, so all pipeline work must stay on one thread. A separate heartbeat thread only sends status
      * frames (socket I/O, never touches maddi state) so the client's read doesn't time out on a large project.
      */
-    private static void runWithHeartbeat(StatusSink status, String requestId, int total, Runnable analysis) {
+    static void runWithHeartbeat(StatusSink status, String requestId, int total, Runnable analysis) {
         Thread heartbeat = new Thread(() -> {
             try {
                 while (!Thread.currentThread().isInterrupted()) {
@@ -164,7 +197,7 @@ public class WarmAnalysisService implements AnalyzeHandler {
         }
     }
 
-    private static void emit(StatusSink status, String requestId, String phase, String message,
+    static void emit(StatusSink status, String requestId, String phase, String message,
                              Integer typesDone, Integer typesTotal) {
         if (status != null) {
             status.status(new DaemonProtocol.Status(requestId, phase, message, typesDone, typesTotal));
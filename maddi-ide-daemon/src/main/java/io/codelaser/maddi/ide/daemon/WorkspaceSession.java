@@ -0,0 +1,327 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.ide.daemon;
+
+import io.codelaser.maddi.cst.api.analysis.Message;
+import io.codelaser.maddi.cst.api.analysis.Property;
+import io.codelaser.maddi.cst.api.element.FingerPrint;
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.FieldInfo;
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.InfoMapView;
+import io.codelaser.maddi.cst.api.info.ParameterInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.graph.G;
+import io.codelaser.maddi.graph.V;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.parser.ParseResult;
+import io.codelaser.maddi.inspection.api.parser.Summary;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.modification.analyzer.IteratingAnalyzer;
+import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
+import io.codelaser.maddi.modification.prepwork.PrepAnalyzer;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeCallGraph;
+import io.codelaser.maddi.modification.prepwork.callgraph.EarlyCutoffWorklist;
+import io.codelaser.maddi.modification.prepwork.callgraph.PrimaryTypeUseGraph;
+import io.codelaser.maddi.modification.prepwork.io.AnalysisFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static io.codelaser.maddi.inspection.api.integration.JavaInspector.InvalidationState.INVALID;
+import static io.codelaser.maddi.inspection.api.integration.JavaInspector.InvalidationState.REWIRE;
+import static io.codelaser.maddi.inspection.api.integration.JavaInspector.InvalidationState.UNCHANGED;
+
+/**
+ * One project's analysed state, kept between requests with the same {@link DaemonProtocol.AnalyzeConfig}: the
+ * inspector with its preloaded JDK and hints, the last parse, its call graph, and the messages of the last run.
+ * <p>
+ * A follow-up request re-parses only the compilation units whose sources changed ({@code reloadSources}, then a
+ * parse with an {@link JavaInspector.Invalidated}), carries the cross-type-derived output of every type that
+ * survived the re-parse onto its rewired copy, and re-analyses type by type from the changed ones outward, stopping
+ * wherever a type's output fingerprint comes back unchanged ({@link EarlyCutoffWorklist}). The carry and its
+ * limits are described in docs/analysis-rewiring.md; {@code TestEarlyCutoffWorklistDriver} is the same loop
+ * outside the daemon.
+ * <p>
+ * Not thread-safe; like the cold pipeline, all work stays on the request thread.
+ */
+final class WorkspaceSession {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkspaceSession.class);
+
+    private static final Predicate<Property> CROSS_TYPE_DERIVED = AnalysisFingerprint.CROSS_TYPE_DERIVED_ONLY;
+
+    private final DaemonProtocol.AnalyzeConfig config;
+    private final JavaInspector inspector;
+    private final InputConfiguration inputConfiguration;
+    private final SourceSet sourceSet;
+    private final List<String> initProblems;
+    private final int hints;
+
+    // replaced by every successful re-analysis
+    private Summary summary;
+    private ParseResult parseResult;
+    private G<Info> callGraph;
+    private List<Message> messages;
+    private String outcome;
+    private boolean usable = true;
+    // non-null: thrown by the next re-analysis once the inspector has re-parsed (tests of a failed warm update)
+    private IOException failAfterReparse;
+
+    WorkspaceSession(DaemonProtocol.AnalyzeConfig config,
+                     JavaInspector inspector,
+                     InputConfiguration inputConfiguration,
+                     SourceSet sourceSet,
+                     List<String> initProblems,
+                     int hints,
+                     Summary summary,
+                     G<Info> callGraph,
+                     List<Message> messages,
+                     String outcome) {
+        this.config = config;
+        this.inspector = inspector;
+        this.inputConfiguration = inputConfiguration;
+        this.sourceSet = sourceSet;
+        this.initProblems = initProblems;
+        this.hints = hints;
+        this.summary = summary;
+        this.parseResult = summary.parseResult();
+        this.callGraph = callGraph;
+        this.messages = List.copyOf(messages);
+        this.outcome = outcome;
+    }
+
+    boolean serves(DaemonProtocol.AnalyzeConfig requested) {
+        return usable && config.equals(requested);
+    }
+
+    /**
+     * False once a re-parse came back with errors: the inspector's state is then partial, and the next request
+     * must start cold.
+     */
+    boolean usable() {
+        return usable;
+    }
+
+    void setFailAfterReparse(IOException failAfterReparse) {
+        this.failAfterReparse = failAfterReparse;
+    }
+
+    /**
+     * All or nothing: the state of this session is replaced only at the end of a successful update. The
+     * inspector's is not; it is updated in place by the reload and the re-parse. A failure therefore leaves the
+     * session unusable, and the caller starts cold.
+     */
+    DaemonProtocol.Result reanalyze(String requestId, AnalyzeHandler.StatusSink status, long start)
+            throws IOException {
+        try {
+            return update(requestId, status, start);
+        } catch (IOException | RuntimeException | Error e) {
+            usable = false;
+            throw e;
+        }
+    }
+
+    private DaemonProtocol.Result update(String requestId, AnalyzeHandler.StatusSink status, long start)
+            throws IOException {
+        WarmAnalysisService.emit(status, requestId, "reload", "detecting changed sources", null, null);
+        JavaInspector.ReloadResult reload = inspector.reloadSources(inputConfiguration, Map.of());
+        List<String> problems = reload.problems().isEmpty() ? initProblems
+                : concat(initProblems, reload.problems().stream().map(String::valueOf).toList());
+        Set<TypeInfo> changed = reload.sourceHasChanged();
+        ResultCollector collector = new ResultCollector(inspector.runtime(), sourceSet);
+        if (changed.isEmpty()) {
+            LOGGER.info("no source changed since the last analysis; answering from the warm session");
+            return result(requestId, collector, problems, start);
+        }
+
+        PrimaryTypeUseGraph useGraph = new PrimaryTypeUseGraph(callGraph);
+        Set<TypeInfo> dependents = useGraph.dependentsOf(changed);
+        JavaInspector.Invalidated invalidated = ti ->
+                changed.contains(ti) ? INVALID : dependents.contains(ti) ? REWIRE : UNCHANGED;
+        WarmAnalysisService.emit(status, requestId, "parse", "re-parsing " + changed.size() + " changed type(s)",
+                null, null);
+        Summary reparsed = inspector.parse(new JavaInspector.ParseOptions.Builder()
+                .setDetailedSources(true)
+                .setFailFast(false)
+                .setParallel(config.parallel())
+                .setLombok(inputConfiguration.containsLombok())
+                .setInvalidated(invalidated)
+                .build());
+        if (reparsed.haveErrors()) {
+            LOGGER.info("re-parse produced {} error(s); returning findings-only, dropping the warm session",
+                    reparsed.parseExceptions().size());
+            usable = false;
+            return new DaemonProtocol.Result(requestId, collector.parseFindings(reparsed), List.of(), problems,
+                    reparsed.parseExceptions().size(), hints, System.currentTimeMillis() - start,
+                    DaemonProtocol.OUTCOME_UNKNOWN);
+        }
+        if (failAfterReparse != null) throw failAfterReparse;
+        ParseResult previous = parseResult;
+        ParseResult current = reparsed.parseResult();
+
+        // Carry onto every type the re-parse rebuilt but did not invalidate, not only onto the REWIRE ones: the
+        // parser coarsens invalidation to whole source sets. A type with no rewired copy starts empty, so it is
+        // re-analysed along with the changed ones.
+        Set<TypeInfo> seed = new LinkedHashSet<>();
+        InfoMapView view = inspector.lastRewireInfoMap();
+        for (TypeInfo oldType : previous.primaryTypes()) {
+            TypeInfo newType = current.findType(oldType.fullyQualifiedName());
+            if (newType == null || newType == oldType) continue;
+            if (changed.contains(oldType) || view == null || view.typeInfoNullIfAbsent(oldType) != newType) {
+                seed.add(newType);
+            } else {
+                carryDerivedOutput(oldType, view);
+            }
+        }
+        // new compilation units
+        for (TypeInfo newType : current.primaryTypes()) {
+            if (previous.findType(newType.fullyQualifiedName()) == null) seed.add(newType);
+        }
+
+        // one-hop dependents over the new types, translated from the previous use graph (edge X -> Y: Y uses X)
+        Map<TypeInfo, Set<TypeInfo>> users = new HashMap<>();
+        useGraph.graph().vertices().forEach(v -> {
+            TypeInfo from = current.findType(v.t().fullyQualifiedName());
+            Map<V<TypeInfo>, Long> out = useGraph.graph().edges(v); // null for a sink
+            if (from != null && out != null) {
+                users.put(from, out.keySet().stream().map(u -> current.findType(u.t().fullyQualifiedName()))
+                        .filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet()));
+            }
+        });
+
+        // the prior output of a type is read off its previous object, which the re-parse left untouched
+        Function<TypeInfo, FingerPrint> priorFingerprint = t -> {
+            TypeInfo before = previous.findType(t.fullyQualifiedName());
+            return before == null ? null : fingerprint(before);
+        };
+        List<Message> newMessages = new ArrayList<>();
+        List<String> outcomes = new ArrayList<>();
+        IteratingAnalyzer.Configuration modConfig = WarmAnalysisService.analyzerConfiguration(config.warnNearMisses());
+        Function<TypeInfo, FingerPrint> recompute = t -> {
+            clearCrossTypeDerived(t);
+            List<Info> order = new PrepAnalyzer(inspector.runtime()).doPrimaryType(t);
+            IteratingAnalyzer analyzer = new IteratingAnalyzerImpl(inspector, modConfig);
+            StreamingValueFeed valueFeed = new StreamingValueFeed(status, requestId, collector);
+            analyzer.setValueFeed(valueFeed);
+            analyzer.analyze(order);
+            newMessages.addAll(analyzer.messages());
+            outcomes.add(valueFeed.outcome());
+            return fingerprint(t);
+        };
+        WarmAnalysisService.emit(status, requestId, "analyze", "incremental analysis", 0, seed.size());
+        AtomicReference<EarlyCutoffWorklist.Result<TypeInfo>> worklist = new AtomicReference<>();
+        WarmAnalysisService.runWithHeartbeat(status, requestId, seed.size(), () -> worklist.set(
+                EarlyCutoffWorklist.run(seed, t -> users.getOrDefault(t, Set.of()), priorFingerprint, recompute)));
+        EarlyCutoffWorklist.Result<TypeInfo> result = worklist.get();
+
+        // messages of the types not re-analysed stand; those of the re-analysed and the vanished ones are replaced
+        Set<String> recomputed = result.recomputed().stream().map(TypeInfo::fullyQualifiedName)
+                .collect(Collectors.toUnmodifiableSet());
+        List<Message> merged = new ArrayList<>();
+        for (Message m : messages) {
+            TypeInfo typeInfo = m.info() == null ? null : m.info().typeInfo();
+            TypeInfo primary = typeInfo == null ? null : typeInfo.primaryType();
+            if (primary != null && !recomputed.contains(primary.fullyQualifiedName())
+                && current.findType(primary.fullyQualifiedName()) != null) {
+                merged.add(m);
+            }
+        }
+        merged.addAll(newMessages);
+
+        WarmAnalysisService.emit(status, requestId, "prep", "call graph", null, null);
+        callGraph = new ComputeCallGraph(inspector.runtime(), current, _ -> false).go().graph();
+        summary = reparsed;
+        parseResult = current;
+        messages = List.copyOf(merged);
+        // the values of the spared types keep the certification of the run that computed them
+        outcome = outcomes.stream().filter(o -> !DaemonProtocol.OUTCOME_CERTIFIED.equals(o)).findFirst()
+                .orElse(outcome);
+
+        LOGGER.info("warm re-analysis: {} changed, {} seeded, {} of {} primary types re-analysed",
+                changed.size(), seed.size(), result.recomputeCount(), current.primaryTypes().size());
+        WarmAnalysisService.emit(status, requestId, "collect", "collecting results", null, null);
+        return result(requestId, collector, problems, start);
+    }
+
+    private DaemonProtocol.Result result(String requestId, ResultCollector collector, List<String> problems,
+                                         long start) {
+        List<DaemonProtocol.Finding> findings = collector.collectFindings(messages, summary);
+        List<DaemonProtocol.ElementAnnotation> elementAnnotations =
+                collector.collectElementAnnotations(parseResult.primaryTypes());
+        long elapsed = System.currentTimeMillis() - start;
+        LOGGER.info("warm analysis complete in {} ms ({}): {} findings, {} element annotations",
+                elapsed, outcome, findings.size(), elementAnnotations.size());
+        return new DaemonProtocol.Result(requestId, findings, elementAnnotations, problems,
+                summary.parseExceptions().size(), hints, elapsed, outcome);
+    }
+
+    private FingerPrint fingerprint(TypeInfo primaryType) {
+        try {
+            return AnalysisFingerprint.of(inspector.runtime(), primaryType);
+        } catch (RuntimeException e) {
+            // no fingerprint means "changed": the dependents are re-analysed, which is always safe
+            LOGGER.debug("cannot fingerprint {}: {}", primaryType, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drop the optimistically carried tier, so that the re-analysis of a dirtied type may write it again. Nested
+     * types are analysed as part of their primary type, so they are cleared with it.
+     */
+    private static void clearCrossTypeDerived(TypeInfo primaryType) {
+        primaryType.recursiveSubTypeStream().forEach(t -> {
+            t.analysis().removeIf(CROSS_TYPE_DERIVED);
+            t.constructorAndMethodStream().forEach(m -> {
+                m.analysis().removeIf(CROSS_TYPE_DERIVED);
+                m.parameters().forEach(p -> p.analysis().removeIf(CROSS_TYPE_DERIVED));
+            });
+            t.fields().forEach(f -> f.analysis().removeIf(CROSS_TYPE_DERIVED));
+        });
+    }
+
+    private static void carryDerivedOutput(TypeInfo oldPrimaryType, InfoMapView view) {
+        oldPrimaryType.recursiveSubTypeStream().forEach(oldType -> {
+            view.typeInfo(oldType).analysis().setAll(oldType.analysis().rewire(view, CROSS_TYPE_DERIVED));
+            oldType.constructorAndMethodStream().forEach(m -> {
+                view.methodInfo(m).analysis().setAll(m.analysis().rewire(view, CROSS_TYPE_DERIVED));
+                for (ParameterInfo p : m.parameters()) {
+                    view.parameterInfo(p).analysis().setAll(p.analysis().rewire(view, CROSS_TYPE_DERIVED));
+                }
+            });
+            for (FieldInfo f : oldType.fields()) {
+                view.fieldInfo(f).analysis().setAll(f.analysis().rewire(view, CROSS_TYPE_DERIVED));
+            }
+        });
+    }
+
+    private static List<String> concat(List<String> a, List<String> b) {
+        List<String> list = new ArrayList<>(a);
+        list.addAll(b);
+        return List.copyOf(list);
+    }
+}
@@ -49,7 +49,13 @@ public final class DaemonAnalysisFixture {
         Path file = projectDir.resolve("src").resolve(relativePath);
         Files.createDirectories(file.getParent());
         Files.writeString(file, source);
-        DaemonProtocol.AnalyzeConfig config = new DaemonProtocol.AnalyzeConfig(
+        return new WarmAnalysisService().analyze(new DaemonProtocol.AnalyzeProject("test",
+                config(projectDir, warnNearMisses)), sink);
+    }
+
+    /** The configuration of a temp project: one source root {@code src}, {@code java.base} only. */
+    public static DaemonProtocol.AnalyzeConfig config(Path projectDir, boolean warnNearMisses) {
+        return new DaemonProtocol.AnalyzeConfig(
                 projectDir.toAbsolutePath().toString(),
                 System.getProperty("java.home"),
                 "UTF-8",
@@ -59,7 +65,6 @@ public final class DaemonAnalysisFixture {
                 List.of(),
                 false,
                 warnNearMisses);
-        return new WarmAnalysisService().analyze(new DaemonProtocol.AnalyzeProject("test", config), sink);
     }
 
     /** The display annotations computed for the first element of {@code kind} whose fqn contains {@code fqnPart}. */
@@ -0,0 +1,200 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.ide.daemon;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.codelaser.maddi.ide.daemon.DaemonAnalysisFixture.config;
+import static io.codelaser.maddi.ide.daemon.DaemonAnalysisFixture.displayFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The warm workspace: a second request on the same service re-parses and re-analyses only what changed, and must
+ * produce what a cold analysis of the edited project produces.
+ */
+public class WarmSessionTest {
+
+    private static final String HOLDER = """
+            package x;
+            public class Holder {
+                private int value;
+                public void set(int v) { this.value = v; }
+                public int get() { return value; }
+            }
+            """;
+
+    private static final String HOLDER_IMMUTABLE = """
+            package x;
+            public class Holder {
+                private final int value;
+                public Holder(int v) { this.value = v; }
+                public int get() { return value; }
+            }
+            """;
+
+    private static final String USER = """
+            package x;
+            public class User {
+                private final Holder holder;
+                public User(Holder holder) { this.holder = holder; }
+                public int read() { return holder.get(); }
+            }
+            """;
+
+    // the user of Holder is a nested type: it is carried and cleared with its primary type
+    private static final String OUTER = """
+            package x;
+            public class Outer {
+                public static class Inner {
+                    private final Holder holder;
+                    public Inner(Holder holder) { this.holder = holder; }
+                    public int read() { return holder.get(); }
+                }
+                public int size() { return 0; }
+            }
+            """;
+
+    private static DaemonProtocol.Result analyze(WarmAnalysisService service, Path projectDir) throws Exception {
+        return service.analyze(new DaemonProtocol.AnalyzeProject("test", config(projectDir, false)), status -> { });
+    }
+
+    private static void write(Path projectDir, String relativePath, String source) throws Exception {
+        Path file = projectDir.resolve("src").resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+    }
+
+    private static Map<String, List<String>> display(DaemonProtocol.Result result) {
+        Map<String, List<String>> map = new TreeMap<>();
+        result.elementAnnotations().forEach(e -> map.put(e.kind() + " " + e.fqn(), e.displayAnnotations()));
+        return map;
+    }
+
+    @Test
+    public void editedTypeIsReanalysedLikeACold(@TempDir Path projectDir, @TempDir Path coldDir) throws Exception {
+        WarmAnalysisService service = new WarmAnalysisService();
+        write(projectDir, "x/Holder.java", HOLDER);
+        write(projectDir, "x/User.java", USER);
+        DaemonProtocol.Result first = analyze(service, projectDir);
+        assertEquals(0, first.parseErrorCount());
+
+        write(projectDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        DaemonProtocol.Result warm = analyze(service, projectDir);
+        assertEquals(0, warm.parseErrorCount());
+
+        write(coldDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        write(coldDir, "x/User.java", USER);
+        DaemonProtocol.Result cold = analyze(new WarmAnalysisService(), coldDir);
+
+        assertEquals(display(cold), display(warm));
+        assertEquals(displayFor(cold, "TYPE", "x.User"), displayFor(warm, "TYPE", "x.User"),
+                "User was carried or re-analysed, either way it sees the edited Holder");
+    }
+
+    @Test
+    public void nestedTypesAreCarriedAndCleared(@TempDir Path projectDir, @TempDir Path coldDir) throws Exception {
+        WarmAnalysisService service = new WarmAnalysisService();
+        write(projectDir, "x/Holder.java", HOLDER);
+        write(projectDir, "x/User.java", USER);
+        write(projectDir, "x/Outer.java", OUTER);
+        analyze(service, projectDir);
+
+        // Outer is re-analysed, its nested Inner must be too
+        write(projectDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        DaemonProtocol.Result warm = analyze(service, projectDir);
+        write(coldDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        write(coldDir, "x/User.java", USER);
+        write(coldDir, "x/Outer.java", OUTER);
+        DaemonProtocol.Result cold = analyze(new WarmAnalysisService(), coldDir);
+        assertEquals(display(cold), display(warm));
+        assertEquals(displayFor(cold, "TYPE", "x.Outer.Inner"), displayFor(warm, "TYPE", "x.Outer.Inner"));
+
+        // Outer is carried, its nested Inner must be too
+        write(projectDir, "x/User.java", USER.replace("holder.get()", "holder.get() + 1"));
+        write(coldDir, "x/User.java", USER.replace("holder.get()", "holder.get() + 1"));
+        DaemonProtocol.Result warm2 = analyze(service, projectDir);
+        DaemonProtocol.Result cold2 = analyze(new WarmAnalysisService(), coldDir);
+        assertEquals(display(cold2), display(warm2));
+    }
+
+    @Test
+    public void unchangedProjectIsAnsweredFromTheSession(@TempDir Path projectDir) throws Exception {
+        WarmAnalysisService service = new WarmAnalysisService();
+        write(projectDir, "x/Holder.java", HOLDER);
+        write(projectDir, "x/User.java", USER);
+        DaemonProtocol.Result first = analyze(service, projectDir);
+        DaemonProtocol.Result second = analyze(service, projectDir);
+        assertEquals(display(first), display(second));
+        assertEquals(first.findings(), second.findings());
+        assertEquals(first.outcome(), second.outcome());
+    }
+
+    @Test
+    public void parseErrorDropsTheSession(@TempDir Path projectDir) throws Exception {
+        WarmAnalysisService service = new WarmAnalysisService();
+        write(projectDir, "x/Holder.java", HOLDER);
+        write(projectDir, "x/User.java", USER);
+        analyze(service, projectDir);
+
+        write(projectDir, "x/Holder.java", HOLDER.replace("return value;", "return value"));
+        DaemonProtocol.Result broken = analyze(service, projectDir);
+        assertTrue(broken.parseErrorCount() > 0);
+        assertTrue(broken.elementAnnotations().isEmpty(), "findings-only");
+
+        write(projectDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        DaemonProtocol.Result fixed = analyze(service, projectDir);
+        assertEquals(0, fixed.parseErrorCount());
+        assertFalse(fixed.elementAnnotations().isEmpty(), "a cold run again");
+    }
+
+    @Test
+    public void failedUpdateStartsCold(@TempDir Path projectDir, @TempDir Path coldDir) throws Exception {
+        WarmAnalysisService service = new WarmAnalysisService();
+        write(projectDir, "x/Holder.java", HOLDER);
+        write(projectDir, "x/User.java", USER);
+        analyze(service, projectDir);
+        WorkspaceSession first = service.session();
+        assertNotNull(first);
+
+        // the inspector has re-parsed when the update fails: the session is dropped, the request is answered cold
+        write(projectDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        first.setFailAfterReparse(new IOException("injected"));
+        DaemonProtocol.Result recovered = analyze(service, projectDir);
+        assertFalse(first.usable());
+        assertNotSame(first, service.session(), "a new session, built by the cold run");
+
+        write(coldDir, "x/Holder.java", HOLDER_IMMUTABLE);
+        write(coldDir, "x/User.java", USER);
+        DaemonProtocol.Result cold = analyze(new WarmAnalysisService(), coldDir);
+        assertEquals(display(cold), display(recovered));
+
+        // and the rebuilt session serves the next edit
+        write(projectDir, "x/User.java", USER.replace("holder.get()", "holder.get() + 1"));
+        write(coldDir, "x/User.java", USER.replace("holder.get()", "holder.get() + 1"));
+        assertEquals(display(analyze(new WarmAnalysisService(), coldDir)), display(analyze(service, projectDir)));
+    }
+}
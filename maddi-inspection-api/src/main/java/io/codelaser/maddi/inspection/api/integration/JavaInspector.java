@@ -223,6 +223,17 @@ public interface JavaInspector {
     default void setGeneratedClassesDirectory(Path directory) {
     }
 
+    /**
+     * Keep a snapshot of the compiled types (the JDK, the libraries) in {@code directory}: the first parse restores
+     * them from it instead of reading their class files, and when there is none yet, writes one after its scan. A
+     * snapshot is keyed by everything the types are built from (the JDK and its module image, the class path and
+     * its files, the preloads and loader options), so a change to any of them makes the next run write a new one.
+     * {@code null} (the default) leaves the feature off. Must be set before the first parse. Default no-op for front
+     * ends that do not load class files.
+     */
+    default void setTypeSnapshotDirectory(Path directory) {
+    }
+
     default ImportComputer importComputer(int minStar, SourceSet sourceSetOfRequest) {
         return runtime().newImportComputer(minStar, packageName ->
                 compiledTypesManager().primaryTypesInPackageEnsureLoaded(packageName, sourceSetOfRequest));
@@ -247,6 +258,22 @@ public interface JavaInspector {
     // only for testing
     Summary parse(Map<String, String> sourcesByTestProtocolURIString, ParseOptions parseOptions);
 
+    /**
+     * The re-parse after an edit, as {@link #parse(ParseOptions)} with an {@link ParseOptions#invalidated()}, but at
+     * the granularity of the compilation unit rather than of the source set: only the files of the INVALID and
+     * REMOVED types, the files {@link #reloadSources} found new, and the files that use a type whose public API
+     * changed are re-parsed. The other types of their source set are kept, or rewired when the {@code Invalidated}
+     * says REWIRE, exactly as the types of an untouched source set are.
+     * <p>
+     * This needs the class files of the previous parse, to resolve the files that are not re-parsed: it applies to the
+     * source sets read from disk whose class files this inspector generated ({@link #setGeneratedClassesDirectory}).
+     * Any other source set is re-parsed in full, as by {@link #parse(ParseOptions)}, which is also what the default
+     * implementation does.
+     */
+    default Summary parseChangedFiles(ParseOptions parseOptions) {
+        return parse(parseOptions);
+    }
+
     // only for testing (openjdk)
     Summary parseMultiSourceSet(Map<SourceSet, Map<String, String>> sourcesByFqnBySourceSet, ParseOptions parseOptions);
 
@@ -25,6 +25,21 @@ public interface ByteCodeInspector {
 
     TypeInfo load(CompiledTypesManager.TypeData typeData, SourceSet sourceSetOfRequest);
 
+    /**
+     * Read the class file of {@code typeData} ahead of {@link #load}, without holding the lock that serializes
+     * loads; the next load of the type uses it. Returns {@code false} when there is nothing to read, or when another
+     * thread is already reading it.
+     */
+    default boolean prefetch(CompiledTypesManager.TypeData typeData) {
+        return false;
+    }
+
+    /**
+     * Forget what {@link #prefetch} read, when no load consumed it.
+     */
+    default void discardPrefetched(CompiledTypesManager.TypeData typeData) {
+    }
+
     interface TypeParameterContext {
         void add(TypeParameter typeParameter);
 
@@ -309,12 +309,21 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
         }
     }
 
+    /*
+    The class file is read before the lock is taken, so that concurrent loads of different types read in parallel;
+    a concurrent load of the same type waits for that read. The lock is the inspector itself, which is also what its
+    on-demand loads synchronize on (this used to lock the SetOnce holder, so the two did not exclude each other).
+     */
     private TypeInfo load(TypeData typeData, SourceSet sourceSetOfRequest) {
-        TypeInfo typeInfo;
-        synchronized (byteCodeInspector) {
-            typeInfo = byteCodeInspector.get().load(typeData, sourceSetOfRequest);
+        ByteCodeInspector inspector = byteCodeInspector.get();
+        boolean prefetched = inspector.prefetch(typeData);
+        try {
+            synchronized (inspector) {
+                return inspector.load(typeData, sourceSetOfRequest);
+            }
+        } finally {
+            if (prefetched) inspector.discardPrefetched(typeData);
         }
-        return typeInfo;
     }
 
     public void setByteCodeInspector(ByteCodeInspector byteCodeInspector) {
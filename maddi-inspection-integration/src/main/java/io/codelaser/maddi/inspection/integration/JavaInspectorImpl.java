@@ -547,6 +547,7 @@ public class JavaInspectorImpl implements JavaInspector {
         // PHASE 1: scanning all the types, call CongoCC parser
 
         Invalidated invalidated = parseOptions.invalidated();
+        if (invalidated != NOT_INVALIDATED) runtime.clearAssignabilityCache();
 
         Map<SourceFile, String> sourceFilesToParse = new ConcurrentHashMap<>();
         Map<TypeInfo, Integer> typesToRewire = new ConcurrentHashMap<>();
@@ -882,6 +883,7 @@ public class JavaInspectorImpl implements JavaInspector {
     public void invalidateAllSources() {
         sourceFiles.values().stream().flatMap(Collection::stream).forEach(ti ->
                 compiledTypesManager.invalidate(ti));
+        runtime.clearAssignabilityCache();
     }
 
     @Override
@@ -0,0 +1,135 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.inspection.integration.java.type;
+
+import io.codelaser.maddi.cst.api.expression.MethodCall;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.impl.runtime.PredefinedImpl;
+import io.codelaser.maddi.cst.impl.type.AssignabilityCache;
+import io.codelaser.maddi.inspection.integration.java.CommonTest;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The runtime-wide {@link AssignabilityCache} on overload-heavy sources: {@code java.util.stream} call chains,
+ * collectors, and the overloads of {@code StringBuilder.append} and {@code Math}.
+ * <ol>
+ *   <li>the resolved method of every call is the same with a cleared cache and with the one the previous parse
+ *       left behind; and most queries of a parse are repeats;</li>
+ *   <li>PROBE: the hit rate of one parse, and the time of a parse with a cleared cache and with a warm one.</li>
+ * </ol>
+ * The cache is an env gate (ASSIGNABILITY_CACHE), fixed for the JVM: the scores with and without it are compared
+ * in {@code TestAssignabilityCache} of maddi-cst-impl.
+ */
+public class TestAssignabilityCacheBench extends CommonTest {
+
+    @Language("java")
+    private static final String METHODS = """
+                static Map<String, List<Integer>> m1$(List<String> in) {
+                    return in.stream().filter(s -> !s.isEmpty()).map(String::trim)
+                            .collect(Collectors.groupingBy(s -> s.substring(0, 1), TreeMap::new,
+                                    Collectors.mapping(String::length, Collectors.toList())));
+                }
+                static int m2$(List<String> in) {
+                    return in.stream().mapToInt(String::length).map(i -> i * 2).boxed().reduce(0, Integer::sum);
+                }
+                static String m3$(Set<Integer> in) {
+                    return in.stream().sorted(Comparator.reverseOrder()).map(String::valueOf)
+                            .collect(Collectors.joining(", ", "[", "]"));
+                }
+                static Optional<Double> m4$(Collection<Double> in) {
+                    return in.stream().filter(Objects::nonNull).max(Comparator.naturalOrder());
+                }
+                static long m5$(int[] a) {
+                    return IntStream.of(a).filter(i -> i > 0).asLongStream().sum() + Stream.of("a", "b").count();
+                }
+                static List<String> m6$(Map<String, Integer> map) {
+                    return map.entrySet().stream().sorted(Map.Entry.comparingByValue()).map(Map.Entry::getKey)
+                            .collect(Collectors.toList());
+                }
+                static StringBuilder m7$(StringBuilder sb, Object o, char c, int i, long l, double d, String s) {
+                    return sb.append(o).append(c).append(i).append(l).append(d).append(s).append(String.valueOf(c))
+                            .append(Math.max(i, l)).append(Math.abs(d)).append(Math.min(d, i));
+                }
+            """;
+
+    private static final int COPIES = 20;
+
+    private int parses;
+
+    private String source(String name) {
+        StringBuilder sb = new StringBuilder("""
+                package a.b;
+                import java.util.*;
+                import java.util.stream.*;
+                class\s""").append(name).append(" {\n");
+        for (int i = 0; i < COPIES; i++) sb.append(METHODS.replace("$", "_" + i));
+        return sb.append("}\n").toString();
+    }
+
+    // the resolved method of every call, in visiting order
+    private List<String> parse() {
+        // a fresh type name per parse: an inspection can only be committed once per JavaInspector instance
+        TypeInfo typeInfo = javaInspector.parse(source("X" + (++parses)));
+        List<String> calls = new ArrayList<>();
+        typeInfo.methodStream().forEach(mi -> mi.methodBody().visit(e -> {
+            if (e instanceof MethodCall mc) calls.add(mc.methodInfo().fullyQualifiedName());
+            return true;
+        }));
+        return calls;
+    }
+
+    private long time(boolean clear) {
+        if (clear) runtime.clearAssignabilityCache();
+        long t0 = System.nanoTime();
+        parse();
+        return System.nanoTime() - t0;
+    }
+
+    @DisplayName("stream call chains: same overloads, hit rate and time with the shared cache")
+    @Test
+    public void streams() {
+        assumeTrue(AssignabilityCache.ENABLED, "ASSIGNABILITY_CACHE=0");
+        AssignabilityCache cache = ((PredefinedImpl) runtime).assignabilityCache();
+        runtime.clearAssignabilityCache();
+        long hits0 = cache.hits();
+        long misses0 = cache.misses();
+        List<String> cleared = parse();
+        long hits = cache.hits() - hits0;
+        long misses = cache.misses() - misses0;
+        assertEquals(cleared, parse(), "with the cache the previous parse left behind");
+        assertTrue(cleared.size() > 50 * COPIES, "calls: " + cleared.size());
+        assertTrue(hits > misses, "overload resolution asks the same questions over and over: " + hits + " vs "
+                                  + misses);
+
+        long cold = Long.MAX_VALUE;
+        long warm = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            cold = Math.min(cold, time(true));
+            warm = Math.min(warm, time(false));
+        }
+        System.out.printf("PROBE assignability %d calls: %d queries, hit rate %.1f%%, %d entries;  parse"
+                          + " cleared=%d ms  warm=%d ms (best of 5)%n", cleared.size(), hits + misses,
+                100.0 * hits / Math.max(1, hits + misses), cache.size(), cold / 1_000_000, warm / 1_000_000);
+    }
+}
@@ -37,6 +37,8 @@ dependencies {
     implementation(project(":maddi-inspection-resource"))
 
     testImplementation(project(":maddi-cst-impl"))
+    // for TestByteCodeVersusJavac: the javac-free (ASM) front end, as the reference for compiled types
+    testImplementation(project(":maddi-inspection-integration"))
     // for TestLombok: the lombok jar goes on the parsed classpath so javac can run the real Lombok processor
     testImplementation("org.projectlombok:lombok:1.18.46")
 }
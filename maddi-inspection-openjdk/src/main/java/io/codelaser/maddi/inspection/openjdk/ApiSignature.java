@@ -0,0 +1,89 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.inspection.openjdk;
+
+import io.codelaser.maddi.cst.api.info.FieldInfo;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.info.TypeParameter;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * What another compilation unit can see of a primary type: everything javac resolves a reference against, and
+ * nothing it does not. Two parses of a type with the same signature are interchangeable to the code that uses it, so
+ * that code need not be re-parsed when only the type's bodies changed (see {@code JavaInspectorImpl.reparseFiles}).
+ * <p>
+ * Private members are left out, nested types are included. Deliberately conservative the other way: a change in a
+ * member's modifiers, bounds or thrown types counts, even where no user could notice it.
+ */
+final class ApiSignature {
+
+    private ApiSignature() {
+    }
+
+    static String of(TypeInfo typeInfo) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, typeInfo);
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, TypeInfo typeInfo) {
+        sb.append(typeInfo.typeNature()).append(' ').append(typeInfo.access().level()).append(' ')
+                .append(typeInfo.isStatic() ? "static " : "").append(typeInfo.isAbstract() ? "abstract " : "")
+                .append(typeInfo.isFinal() ? "final " : "")
+                .append(typeInfo.fullyQualifiedName()).append(typeParameters(typeInfo.typeParameters()));
+        ParameterizedType parent = typeInfo.parentClass();
+        if (parent != null) sb.append(" extends ").append(parent.detailedString());
+        sb.append(" implements ").append(types(typeInfo.interfacesImplemented())).append('\n');
+        for (FieldInfo fieldInfo : typeInfo.fields()) {
+            if (fieldInfo.access().isPrivate()) continue;
+            sb.append("  field ").append(fieldInfo.access().level()).append(fieldInfo.isStatic() ? " static" : "")
+                    .append(fieldInfo.isFinal() ? " final " : " ").append(fieldInfo.type().detailedString())
+                    .append(' ').append(fieldInfo.name()).append('\n');
+        }
+        typeInfo.constructorAndMethodStream().forEach(methodInfo -> {
+            if (!methodInfo.access().isPrivate()) append(sb, methodInfo);
+        });
+        for (TypeInfo subType : typeInfo.subTypes()) {
+            if (!subType.access().isPrivate()) append(sb, subType);
+        }
+    }
+
+    private static void append(StringBuilder sb, MethodInfo methodInfo) {
+        sb.append("  method ").append(methodInfo.access().level()).append(methodInfo.isStatic() ? " static" : "")
+                .append(methodInfo.isAbstract() ? " abstract" : "").append(methodInfo.isDefault() ? " default" : "")
+                .append(methodInfo.isFinal() ? " final " : " ")
+                .append(typeParameters(methodInfo.typeParameters()))
+                .append(methodInfo.isConstructor() ? "" : methodInfo.returnType().detailedString())
+                .append(' ').append(methodInfo.name()).append('(')
+                .append(methodInfo.parameters().stream()
+                        .map(pi -> pi.parameterizedType().detailedString() + (pi.isVarArgs() ? "..." : ""))
+                        .collect(Collectors.joining(", ")))
+                .append(") throws ").append(types(methodInfo.exceptionTypes())).append('\n');
+    }
+
+    private static String typeParameters(List<TypeParameter> typeParameters) {
+        if (typeParameters.isEmpty()) return "";
+        return typeParameters.stream().map(TypeParameter::toStringWithTypeBounds)
+                .collect(Collectors.joining(", ", "<", ">"));
+    }
+
+    private static String types(List<ParameterizedType> types) {
+        return types.stream().map(ParameterizedType::detailedString).collect(Collectors.joining(", "));
+    }
+}
@@ -11,6 +11,8 @@ import org.slf4j.LoggerFactory;
 
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.LongAdder;
 
 // important: this class should not retain any references to OpenJDK structures
@@ -23,6 +25,10 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
     // to the (thread-hostile) javac task behind the loader
     private final Map<String, TypeInfo> typesLoaded = new java.util.concurrent.ConcurrentHashMap<>();
     private final Set<String> packageParts = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    // package name -> (fqn -> primary type), the primary types of typesLoaded per package, so that star imports and
+    // primaryTypesInPackageEnsureLoaded need not scan all of typesLoaded (the JDK, the libraries and the sources)
+    private final Map<String, Map<String, TypeInfo>> primaryTypesByPackage =
+            new java.util.concurrent.ConcurrentHashMap<>();
     // the scan's own registry. This class is a second, flatter cache of the same types, so invalidating or rewiring
     // a type has to reach both: leaving the type in InfoByFqn would have the next scan resolve references to the
     // stale object.
@@ -34,6 +40,22 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
     // have a javac task for -- in practice the one scanned last -- so in a multi-source-set configuration the
     // answer depended on scan order (see JavaInspectorImpl.unitsForCompiledTypeLoading).
     private java.util.function.BiFunction<String, SourceSet, TypeInfo> lazyLoader;
+    // the same, for all compiled primary types of a package ("module::package", or a class-path package), which
+    // is what preload() warms
+    private java.util.function.Function<String, List<TypeInfo>> packageLoader;
+    // (fqn, source set) pairs the lazy loader has failed to resolve since the last scan: a repeated miss answers null
+    // without queueing on the monitor. A scan can change what the loader resolves, see setLazyLoaderDisabled.
+    private final Set<LazyLoadMiss> lazyLoadMisses = java.util.concurrent.ConcurrentHashMap.newKeySet();
+
+    // the lazy loads under way, per (fqn, source set): a concurrent request for the same type joins the load instead
+    // of queueing on the monitor, and is answered as soon as that load completes. Loads of DIFFERENT types stay
+    // serialized: the loader builds the TypeInfo on the scan's javac task, see lazyLoad().
+    private final Map<LazyLoadMiss, CompletableFuture<TypeInfo>> lazyLoadsInFlight =
+            new java.util.concurrent.ConcurrentHashMap<>();
+
+    // the key of both lazyLoadMisses and lazyLoadsInFlight
+    private record LazyLoadMiss(String fullyQualifiedName, SourceSet sourceSetOfRequest) {
+    }
 
     // Once the javac AST is dropped (JavaInspectorImpl.invalidateAllSources on a heavy-analysis run, DROP_AST),
     // the lazy loader can no longer serve any compiled type it had not already cached. A getOrLoad miss then
@@ -52,11 +74,20 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
 
     public void setLazyLoader(java.util.function.BiFunction<String, SourceSet, TypeInfo> lazyLoader) {
         this.lazyLoader = lazyLoader;
+        lazyLoadMisses.clear();
     }
 
-    /** Flipped by the inspector: {@code true} after the javac AST is dropped, {@code false} once a scan revives it. */
+    public void setPackageLoader(java.util.function.Function<String, List<TypeInfo>> packageLoader) {
+        this.packageLoader = packageLoader;
+    }
+
+    /**
+     * Flipped by the inspector: {@code true} after the javac AST is dropped, {@code false} once a scan revives it.
+     * Either way the loader's reach changes, so the remembered misses are forgotten.
+     */
     public void setLazyLoaderDisabled(boolean lazyLoaderDisabled) {
         this.lazyLoaderDisabled = lazyLoaderDisabled;
+        lazyLoadMisses.clear();
     }
 
     /** When the loader is disabled, throw on a miss (fail loud) instead of logging and returning null. */
@@ -93,6 +124,15 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
     public void addTypeInfo(SourceFile sourceFile, TypeInfo typeInfo) {
         typesLoaded.put(typeInfo.fullyQualifiedName(), typeInfo);
         packageParts.addAll(Arrays.asList(typeInfo.packageName().split("\\.")));
+        indexPrimaryType(typeInfo);
+    }
+
+    private void indexPrimaryType(TypeInfo typeInfo) {
+        if (typeInfo.isPrimaryType()) {
+            primaryTypesByPackage.computeIfAbsent(typeInfo.packageName(),
+                            _ -> new java.util.concurrent.ConcurrentHashMap<>())
+                    .put(typeInfo.fullyQualifiedName(), typeInfo);
+        }
     }
 
     /**
@@ -107,6 +147,8 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
         // methods, so it also claims the anonymous types a compilation unit registers (a.b.C.$0), which
         // recursiveSubTypeStream() does not list. One left behind makes the re-scan throw "Duplicating type".
         typesLoaded.values().removeIf(ti -> typeInfo.equals(ti.primaryType()));
+        Map<String, TypeInfo> inPackage = primaryTypesByPackage.get(typeInfo.packageName());
+        if (inPackage != null) inPackage.values().removeIf(typeInfo::equals);
         infoByFqn.removeType(typeInfo);
     }
 
@@ -119,6 +161,7 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
     @Override
     public void setRewiredType(TypeInfo typeInfo) {
         typesLoaded.put(typeInfo.fullyQualifiedName(), typeInfo);
+        indexPrimaryType(typeInfo);
         infoByFqn.replaceType(typeInfo);
     }
 
@@ -168,19 +211,14 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
     public TypeInfo type(String fullyQualifiedName, SourceSet sourceSetOfRequest) {
         TypeInfo typeInfo = typeIfLoaded(fullyQualifiedName, sourceSetOfRequest);
         if (typeInfo != null) return typeInfo;
-        if (lazyLoader != null) {
-            // the loader runs on the scan's live JavacTask, and javac is not thread-safe: unsynchronized
-            // concurrent loads from PARALLEL analyzer threads corrupted javac's process-wide state, surfacing
-            // as the intermittent StarImportScope NPE / CompilationProblems in LATER parses of the same JVM
-            synchronized (this) {
-                TypeInfo raced = typeIfLoaded(fullyQualifiedName, sourceSetOfRequest);
-                if (raced != null) return raced;
-                TypeInfo loaded = lazyLoader.apply(fullyQualifiedName, sourceSetOfRequest);
-                if (loaded != null) {
-                    addTypeInfo(null, loaded); // cache; the loader already registered it in InfoByFqn
-                    return loaded;
-                }
-            }
+        LazyLoadMiss miss = new LazyLoadMiss(fullyQualifiedName, sourceSetOfRequest);
+        if (lazyLoader != null && !lazyLoadMisses.contains(miss)) {
+            TypeInfo loaded = Thread.holdsLock(this)
+                    // a load requested from within a load: the thread already owns the task, and must not wait
+                    // for a future it may itself be about to complete
+                    ? lazyLoad(miss)
+                    : lazyLoadOnce(miss);
+            if (loaded != null) return loaded;
         }
         // A miss. Normally benign — the type is simply not on the (deliberately partial) classpath, and callers
         // handle null. But once the AST has been dropped the loader is dead, so a miss here means a type the
@@ -189,6 +227,53 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
         return null;
     }
 
+    private TypeInfo lazyLoadOnce(LazyLoadMiss miss) {
+        CompletableFuture<TypeInfo> mine = new CompletableFuture<>();
+        CompletableFuture<TypeInfo> inFlight = lazyLoadsInFlight.putIfAbsent(miss, mine);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+        try {
+            TypeInfo loaded = lazyLoad(miss);
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            // from now on the registry, or the negative cache, answers
+            lazyLoadsInFlight.remove(miss, mine);
+        }
+    }
+
+    /*
+    The loader runs on the scan's live JavacTask, and javac is not thread-safe: unsynchronized concurrent loads
+    from PARALLEL analyzer threads corrupted javac's process-wide state, surfacing as the intermittent
+    StarImportScope NPE / CompilationProblems in LATER parses of the same JVM. So the TypeInfo is built under the
+    monitor, and this front end does not load in parallel: concurrent requests for one type share a single load
+    (lazyLoadOnce), loads of different types still run one at a time. The javac-free alternative, which reads class
+    files outside its lock, is the bytecode front end (maddi-inspection-integration).
+     */
+    private TypeInfo lazyLoad(LazyLoadMiss miss) {
+        synchronized (this) {
+            TypeInfo raced = typeIfLoaded(miss.fullyQualifiedName, miss.sourceSetOfRequest);
+            if (raced != null) return raced;
+            if (lazyLoadMisses.contains(miss)) return null;
+            TypeInfo loaded = lazyLoader.apply(miss.fullyQualifiedName, miss.sourceSetOfRequest);
+            if (loaded != null) {
+                addTypeInfo(null, loaded); // cache; the loader already registered it in InfoByFqn
+                return loaded;
+            }
+            lazyLoadMisses.add(miss);
+            return null;
+        }
+    }
+
     /** @deprecated renamed to {@link #type(String, SourceSet)}; kept so existing callers keep compiling. */
     @Deprecated
     @Override
@@ -209,9 +294,26 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
         }
     }
 
+    /** How many (fqn, source set) pairs are currently known to be out of the lazy loader's reach. */
+    public int lazyLoadMisses() {
+        return lazyLoadMisses.size();
+    }
+
+    /**
+     * Load all compiled primary types of a package ({@code java.base::java.util}, or a class-path package; a
+     * trailing dot includes the subpackages) and register them, so that later lookups and star imports in that
+     * package are served from the registry. Before the first scan there is no javac task to load with, and
+     * {@link io.codelaser.maddi.inspection.api.integration.JavaInspector#preload(String)} is the way in.
+     */
     @Override
     public void preload(String thePackage) {
-        // TODO
+        if (packageLoader == null) return;
+        List<TypeInfo> types;
+        synchronized (this) { // same javac task as the lazy loader
+            types = packageLoader.apply(thePackage);
+        }
+        types.forEach(ti -> addTypeInfo(null, ti));
+        LOGGER.debug("Preloaded {}: {} types", thePackage, types.size());
     }
 
     @Override
@@ -222,9 +324,10 @@ public class CompiledTypesManagerImpl implements CompiledTypesManager {
     // FIXME direct dependencies here!
     @Override
     public List<TypeInfo> primaryTypesInPackageEnsureLoaded(String packageName, SourceSet sourceSetOfRequest) {
-        return typesLoaded.values().stream()
-                .filter(ti -> ti.isPrimaryType() && ti.packageName().equals(packageName)
-                              && sourceSetOfRequest.dependencies().contains(ti.compilationUnit().sourceSet()))
+        Map<String, TypeInfo> inPackage = primaryTypesByPackage.get(packageName);
+        if (inPackage == null) return List.of();
+        return inPackage.values().stream()
+                .filter(ti -> sourceSetOfRequest.dependencies().contains(ti.compilationUnit().sourceSet()))
                 .toList();
     }
 
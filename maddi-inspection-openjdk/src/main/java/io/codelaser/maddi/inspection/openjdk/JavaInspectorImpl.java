@@ -21,6 +21,7 @@ import io.codelaser.maddi.cst.api.output.FormattingOptions;
 import io.codelaser.maddi.cst.api.output.OutputBuilder;
 import io.codelaser.maddi.cst.api.output.Qualification;
 import io.codelaser.maddi.cst.api.runtime.Runtime;
+import io.codelaser.maddi.cst.io.TypeSnapshot;
 import io.codelaser.maddi.cst.print.FormattingOptionsImpl;
 import io.codelaser.maddi.cst.print.formatter2.Formatter2Impl;
 import io.codelaser.maddi.inspection.api.integration.JavaInspector;
@@ -34,6 +35,7 @@ import io.codelaser.maddi.inspection.api.resource.ParameterNameIndex;
 import io.codelaser.maddi.inspection.api.resource.SourceFile;
 import io.codelaser.maddi.inspection.resource.InfoByFqn;
 import io.codelaser.maddi.inspection.resource.ResolveModuleDirectives;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
 import io.codelaser.maddi.inspection.resource.SummaryImpl;
 import io.codelaser.maddi.java.openjdk.ClassSymbolScanner;
 import io.codelaser.maddi.java.openjdk.InMemoryJavaFileObject;
@@ -54,6 +56,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -78,6 +81,9 @@ public class JavaInspectorImpl implements JavaInspector {
     // which primary types came out of which source file, keyed by (uri, source set) -- SourceFile's equality ignores
     // path and fingerprint. Filled after every scan; this is the map reloadSources diffs the source tree against.
     private final Map<SourceFile, List<TypeInfo>> sourceFiles = new HashMap<>();
+    // the types of the source files reloadSources found deleted, per source set, until the next parse: a
+    // parseChangedFiles must forget them and re-parse what used them; nothing else reads this
+    private final Map<SourceSet, List<TypeInfo>> removedTypes = new HashMap<>();
     private CompiledTypesManager compiledTypesManager;
     private InputConfiguration inputConfiguration; // kept for tests
     private io.codelaser.maddi.cst.api.info.InfoMapView lastRewireInfoMap; // the last re-parse's rewire, read-only
@@ -141,6 +147,8 @@ public class JavaInspectorImpl implements JavaInspector {
     // Survives a re-parse on purpose: a set that is not re-scanned keeps the class files its unchanged sources
     // compiled to, and the linearization guarantees a re-scanned set regenerates before any dependent re-scans.
     private final Map<String, Path> generatedClassOutput = new HashMap<>();
+    // where the compiled types are snapshot between runs; null = off. See JavaInspector.setTypeSnapshotDirectory.
+    private Path typeSnapshotDirectory;
 
     // the JDK modules for which a faithful parameter-name index is shipped in maddi-aapi-archive
     private static final List<String> PARAMETER_NAME_MODULES = List.of("java.base", "java.desktop", "java.net.http");
@@ -168,6 +176,7 @@ public class JavaInspectorImpl implements JavaInspector {
     @Override
     public void invalidateAllSources() {
         infoByFqn.removeAllSources();
+        runtime.clearAssignabilityCache();
         // all retained javac tasks are now unreachable through this inspector; their file managers can close
         for (StandardJavaFileManager fm : openFileManagers) {
             try {
@@ -229,6 +238,11 @@ public class JavaInspectorImpl implements JavaInspector {
         this.generatedClassesDirectory = directory;
     }
 
+    @Override
+    public void setTypeSnapshotDirectory(Path directory) {
+        this.typeSnapshotDirectory = directory;
+    }
+
     // lazily load and merge the per-module .paramnames.gz indices shipped in maddi-aapi-archive
     private ParameterNameIndex parameterNameIndex() {
         if (parameterNameIndex == null) {
@@ -299,6 +313,20 @@ public class JavaInspectorImpl implements JavaInspector {
         return viaFallBack;
     }
 
+    /**
+     * Load the compiled primary types of one package, for {@code CompiledTypesManagerImpl.preload}; empty before any
+     * scan. Called under that manager's monitor, like {@link #loadCompiledTypeOrNull}.
+     */
+    private List<TypeInfo> preloadCompiledPackage(String thePackage) {
+        ScanCompilationUnits units = unitsForCompiledTypeLoading();
+        if (units == null) return List.of();
+        try {
+            return units.preloadPackage(thePackage);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * The census behind the strict-mode audit: a type the requesting source set could NOT resolve, which the
      * fall-back found on another set's class path. Each one is a call site passing a source set that is not the one
@@ -381,7 +409,7 @@ public class JavaInspectorImpl implements JavaInspector {
             // errors are not expected (nothing is compiled) and must not reach the caller's Summary either
             MaddiDiagnosticCollector diagnostics = new MaddiDiagnosticCollector(true);
             JavacTask task = createTask(spec.sourceSet(), spec.ignoreModule(), Map.of(), diagnostics, false,
-                    null, true);
+                    null, true, null);
             if (task == null) return null;
             ParameterNameIndex pni = spec.parameterNames() || parameterNames ? parameterNameIndex() : null;
             LOGGER.info("Built a source-free javac task for compiled-type loading, on source set {}",
@@ -398,12 +426,17 @@ public class JavaInspectorImpl implements JavaInspector {
     @Override
     public List<InitializationProblem> initialize(InputConfiguration inputConfiguration) throws IOException {
         this.inputConfiguration = inputConfiguration;
+        createRuntime();
+        javaBase().computePriorityDependencies();
+        return List.of();
+    }
+
+    private void createRuntime() {
         CompiledTypesManagerImpl ctm = new CompiledTypesManagerImpl(inputConfiguration.javaBase(), infoByFqn);
         ctm.setLazyLoader(this::loadCompiledTypeOrNull); // on-demand bytecode load for getOrLoad misses
+        ctm.setPackageLoader(this::preloadCompiledPackage);
         compiledTypesManager = ctm;
         runtime = new RuntimeWithCompiledTypesManager(ctm);
-        javaBase().computePriorityDependencies();
-        return List.of();
     }
 
     @Override
@@ -432,11 +465,27 @@ public class JavaInspectorImpl implements JavaInspector {
         // which records its source set, and a subsequent full parse would then find it "known and unchanged" and
         // scan nothing at all.
         if (parseOptions.invalidated() == NOT_INVALIDATED) {
+            // the first parse: restore the compiled types from a snapshot, or write one after the scan
+            String typeSnapshotKey = typeSnapshotDirectory == null || runtime.objectTypeInfo().hasBeenInspected()
+                    ? null : typeSnapshotKey(parseOptions);
+            boolean writeTypeSnapshot = typeSnapshotKey != null && !restoreTypeSnapshot(typeSnapshotKey);
+            Map<SourceSet, Long> scanNanos = new HashMap<>();
+            long start = System.nanoTime();
             for (SourceSet sourceSet : linearization) {
-                scanSourceSet(summary, sourcesByFqn, sourceSet, parseOptions);
+                long t0 = System.nanoTime();
+                scanSourceSet(summary, sourcesByFqn, sourceSet, parseOptions, null);
+                scanNanos.put(sourceSet, System.nanoTime() - t0);
+            }
+            if (linearization.size() > 1) {
+                LOGGER.info("Scanned {} source sets in {} ms; their dependency critical path is {} ms",
+                        linearization.size(), (System.nanoTime() - start) / 1_000_000,
+                        criticalPathNanos(linearization, scanNanos) / 1_000_000);
             }
+            if (writeTypeSnapshot) writeTypeSnapshot(typeSnapshotKey);
+            removedTypes.clear();
         } else {
-            reparse(summary, sourcesByFqn, parseOptions, linearization, parseOptions.invalidated());
+            runtime.clearAssignabilityCache();
+            reparse(summary, sourcesByFqn, parseOptions, linearization, parseOptions.invalidated(), false);
         }
         // ⛔⛔ #201: this inspector never resolved a module directive, so apiResolved() was null for EVERY
         // `uses`/`provides` and ComputeCallGraph lost every module→service edge in silence. It runs here, once,
@@ -445,14 +494,177 @@ public class JavaInspectorImpl implements JavaInspector {
         return summary;
     }
 
+    @Override
+    public Summary parseChangedFiles(ParseOptions parseOptions) {
+        if (parseOptions.invalidated() == NOT_INVALIDATED) return parse(parseOptions);
+        Summary summary = new SummaryImpl(parseOptions.failFast());
+        runtime.clearAssignabilityCache();
+        reparse(summary, Map.of(), parseOptions, computeScanOrder(), parseOptions.invalidated(), true);
+        ResolveModuleDirectives.go(summary, compiledTypesManager);
+        return summary;
+    }
+
+    /*
+     * What the compiled types of a run are built from, and so what a snapshot of them is valid for: the JDK (its
+     * version, and the module image javac reads it from), the class path (the names the types are attributed to, and
+     * the files behind them), the preloads and the options of the class-file loader, and the loader itself. A file
+     * counts by its size and modification time, a class directory by the count, total size and latest modification
+     * time of its class files: enough to notice a rebuilt jar or recompiled classes, without reading them.
+     */
+    private String typeSnapshotKey(ParseOptions parseOptions) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("jdk ").append(java.lang.Runtime.version()).append(' ').append(System.getProperty("java.home"));
+        appendFileIdentity(sb, Path.of(System.getProperty("java.home"), "lib", "modules"));
+        Path jre = inputConfiguration.alternativeJREDirectory();
+        if (jre != null) {
+            sb.append("\njre ").append(jre);
+            appendFileIdentity(sb, jre.resolve("lib").resolve("modules"));
+        }
+        sb.append("\noptions release=").append(inputConfiguration.sourceRelease())
+                .append(" jdkInternals=").append(jdkInternals)
+                .append(" parameterNames=").append(parseOptions.parameterNames() || parameterNames)
+                .append(" ignoreModule=").append(parseOptions.ignoreModule())
+                .append(" syntheticListField=").append(parseOptions.syntheticListField())
+                .append(" preload=").append(preload);
+        for (SourceSet sourceSet : inputConfiguration.sourceSets()) {
+            sb.append("\nsource set ").append(sourceSet.name());
+        }
+        for (SourceSet cpp : inputConfiguration.classPathParts()) {
+            sb.append("\nclass path ").append(cpp.name()).append(' ').append(cpp.uri());
+            String selector = InputConfiguration.jarOnClasspathSelector(cpp);
+            if (selector != null) {
+                File jar = ClassSymbolScanner.jarOnClassPathFile(selector);
+                if (jar != null) appendFileIdentity(sb, jar.toPath());
+            } else if (cpp.uri() != null && "file".equals(cpp.uri().getScheme())) {
+                appendFileIdentity(sb, Path.of(cpp.uri()));
+            }
+        }
+        for (Class<?> clazz : List.of(ClassSymbolScanner.class, TypeSnapshot.class, runtime.getClass())) {
+            sb.append("\ncode ").append(clazz.getName());
+            var codeSource = clazz.getProtectionDomain().getCodeSource();
+            if (codeSource != null && codeSource.getLocation() != null) {
+                try {
+                    appendFileIdentity(sb, Path.of(codeSource.getLocation().toURI()));
+                } catch (java.net.URISyntaxException | IllegalArgumentException e) {
+                    sb.append(' ').append(codeSource.getLocation());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendFileIdentity(StringBuilder sb, Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                long count = 0;
+                long size = 0;
+                long lastModified = 0;
+                try (Stream<Path> walk = Files.walk(path)) {
+                    for (Path file : walk.filter(f -> f.toString().endsWith(".class")).toList()) {
+                        count++;
+                        size += Files.size(file);
+                        lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+                    }
+                }
+                sb.append(" dir ").append(count).append(' ').append(size).append(' ').append(lastModified);
+            } else if (Files.exists(path)) {
+                sb.append(" file ").append(Files.size(path)).append(' ')
+                        .append(Files.getLastModifiedTime(path).toMillis());
+            } else {
+                sb.append(" absent");
+            }
+        } catch (IOException | UncheckedIOException e) {
+            sb.append(" unreadable");
+        }
+    }
+
+    /*
+     * Registers the types of the snapshot as the class scanner would have: each one in the InfoByFqn, with its class
+     * scanner set-up marked done when it had one (the set-up computes the access), and the ones that were in the
+     * compiled types manager in there again. A type left uncommitted is completed by the scanner when it is first
+     * needed, as it would have been. Returns false when there is no usable snapshot; the scan then loads the types
+     * from their class files, as without one.
+     */
+    private boolean restoreTypeSnapshot(String key) {
+        Path file = TypeSnapshot.file(typeSnapshotDirectory, key);
+        if (!Files.isReadable(file)) return false;
+        long start = System.nanoTime();
+        Map<String, SourceSet> sourceSetByName = new HashMap<>();
+        for (SourceSet sourceSet : inputConfiguration.sourceSets()) {
+            sourceSetByName.put(sourceSet.name(), sourceSet);
+        }
+        for (SourceSet cpp : inputConfiguration.classPathParts()) {
+            // as ClassSymbolScanner names them: a jar-on-classpath part after the jar it resolves to
+            String selector = InputConfiguration.jarOnClasspathSelector(cpp);
+            File jar = selector == null ? null : ClassSymbolScanner.jarOnClassPathFile(selector);
+            SourceSet named = selector == null ? cpp : jar != null
+                    ? new SourceSetImpl.Builder(cpp).setName(jar.getName()).setUri(jar.toURI()).build()
+                    : new SourceSetImpl.Builder(cpp).setName(selector).build();
+            sourceSetByName.put(named.name(), named);
+        }
+        TypeSnapshot.Restored restored;
+        try {
+            restored = TypeSnapshot.read(runtime, file, key, sourceSetByName::get);
+        } catch (IOException e) {
+            // read in full before the predefined types are touched: the runtime is as it was
+            LOGGER.warn("Cannot restore the type snapshot {}, loading from class files: {}", file, e.toString());
+            deleteTypeSnapshot(file);
+            return false;
+        } catch (RuntimeException e) {
+            // completing the predefined types failed, and the runtime, which callers may already hold, cannot be
+            // trusted: fail the parse rather than replace it
+            deleteTypeSnapshot(file);
+            throw e;
+        }
+        if (restored == null) return false;
+        Set<TypeInfo> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+        roots.addAll(restored.roots());
+        for (TypeInfo typeInfo : restored.types()) {
+            if (!typeInfo.isPrimitive() && !roots.contains(typeInfo)) registerRestoredType(typeInfo);
+        }
+        for (TypeInfo typeInfo : restored.roots()) {
+            if (!typeInfo.isPrimitive()) registerRestoredType(typeInfo);
+            compiledTypesManager.addTypeInfo(null, typeInfo);
+        }
+        LOGGER.info("Restored {} compiled types from {} in {} ms", restored.types().size(), file,
+                (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private void registerRestoredType(TypeInfo typeInfo) {
+        infoByFqn.put(typeInfo.fullyQualifiedName(), typeInfo, typeInfo.compilationUnit().sourceSet());
+        if (typeInfo.access() != null) infoByFqn.markClassScannerSetupDone(typeInfo);
+    }
+
+    // everything the first scan loaded from class files; a failure costs the snapshot, never the parse
+    private void writeTypeSnapshot(String key) {
+        Path file = TypeSnapshot.file(typeSnapshotDirectory, key);
+        try {
+            List<TypeInfo> roots = compiledTypesManager.typesLoaded(null).stream().filter(TypeSnapshot::canHold)
+                    .toList();
+            TypeSnapshot.write(runtime, file, key, roots);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot write the type snapshot {}: {}", file, e.toString());
+        }
+    }
+
+    private static void deleteTypeSnapshot(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete {}: {}", file, e.toString());
+        }
+    }
+
     private void scanSourceSet(Summary summary,
                                Map<String, String> sourcesByFqn,
                                SourceSet sourceSet,
-                               ParseOptions parseOptions) {
+                               ParseOptions parseOptions,
+                               Set<URI> onlyUris) {
         try {
             singleSourceSet(summary, sourcesByFqn, infoByFqn, sourceSet, !parseOptions.failFast(),
                     parseOptions.ignoreModule(), parseOptions.parameterNames() || parameterNames,
-                    parseOptions.syntheticListField(), parseOptions.lombok());
+                    parseOptions.syntheticListField(), parseOptions.lombok(), onlyUris);
         } catch (IOException ioe) {
             // register the failure in the Summary (preserving the cause) instead of dropping it and aborting
             // with a cause-less UnsupportedOperationException; harmonizes with the in-house inspector
@@ -482,26 +694,41 @@ public class JavaInspectorImpl implements JavaInspector {
      * <p>
      * The linearization guarantees that a source set is handled after everything it depends on, so by the time a set
      * is rewired, the objects it must point at already exist.
+     * <p>
+     * With {@code fileLevel} (see {@link #parseChangedFiles}), a source set whose class files we generated ourselves
+     * is not re-scanned but handed to {@link #reparseFiles}; the others are handled as above.
      */
     private void reparse(Summary summary,
                          Map<String, String> sourcesByFqn,
                          ParseOptions parseOptions,
                          List<SourceSet> linearization,
-                         Invalidated invalidated) {
+                         Invalidated invalidated,
+                         boolean fileLevel) {
         this.lastRewireInfoMap = null; // reset: a parse with no rewiring exposes no map
         // snapshot: a RESCAN re-records sourceFiles for its own set as it goes
         Map<SourceSet, List<TypeInfo>> typesBySourceSet = typesBySourceSet();
+        Map<SourceSet, List<TypeInfo>> removed = new HashMap<>(removedTypes);
+        removedTypes.clear();
         Set<TypeInfo> toRewire = new LinkedHashSet<>();
         Set<SourceSet> rescanned = new LinkedHashSet<>();
+        // the types a file-level re-parse rebuilt, and the primary types whose API it found changed or gone
+        Set<TypeInfo> rebuiltFiles = new LinkedHashSet<>();
+        Set<String> apiChanged = new HashSet<>();
 
         for (SourceSet sourceSet : linearization) {
             List<TypeInfo> types = typesBySourceSet.getOrDefault(sourceSet, List.of());
+            if (fileLevel && sourcesByFqn.isEmpty() && !types.isEmpty()
+                && generatedClassOutput.containsKey(sourceSet.name())) {
+                reparseFiles(summary, parseOptions, sourceSet, types, removed.getOrDefault(sourceSet, List.of()),
+                        invalidated, apiChanged, toRewire, rebuiltFiles);
+                continue;
+            }
             SourceSetAction action = actionFor(types, invalidated);
             LOGGER.info("Re-parse: source set {} -> {} ({} primary type(s))", sourceSet.name(), action, types.size());
             switch (action) {
                 case RESCAN -> {
                     types.forEach(compiledTypesManager::invalidate);
-                    scanSourceSet(summary, sourcesByFqn, sourceSet, parseOptions);
+                    scanSourceSet(summary, sourcesByFqn, sourceSet, parseOptions, null);
                     rescanned.add(sourceSet);
                 }
                 case REWIRE -> {
@@ -519,14 +746,14 @@ public class JavaInspectorImpl implements JavaInspector {
         // fqn + source-set, so a caller can resolve an OLD (pre-reparse) rescanned type to its new object by fqn --
         // the basis of the same-source-set analysis carry (docs/analysis-rewiring). Only a no-op reparse (nothing
         // invalidated, nothing rewired) exposes no map.
-        if (toRewire.isEmpty() && rescanned.isEmpty()) return;
+        if (toRewire.isEmpty() && rescanned.isEmpty() && rebuiltFiles.isEmpty()) return;
 
         // the types the re-scan just produced. Without them the rewired copies would keep pointing at the objects
         // they replaced -- the very thing REWIRE exists to prevent (see InfoMap).
         Map<SourceSet, List<TypeInfo>> afterRescan = typesBySourceSet();
-        Set<TypeInfo> rebuilt = rescanned.stream()
-                .flatMap(sourceSet -> afterRescan.getOrDefault(sourceSet, List.of()).stream())
-                .collect(Collectors.toUnmodifiableSet());
+        Set<TypeInfo> rebuilt = Stream.concat(rescanned.stream()
+                        .flatMap(sourceSet -> afterRescan.getOrDefault(sourceSet, List.of()).stream()),
+                rebuiltFiles.stream()).collect(Collectors.toUnmodifiableSet());
         // newInfoMap seeds the rebuilt types (see InfoMapImpl); rewireAll is a no-op when toRewire is empty, so the
         // seeded rescanned mappings are all this map carries in the rescan-only case.
         InfoMap infoMap = runtime.newInfoMap(toRewire, rebuilt);
@@ -547,6 +774,171 @@ public class JavaInspectorImpl implements JavaInspector {
         LOGGER.info("Re-parse: rewired {} primary type(s)", rewired.size());
     }
 
+    /**
+     * Option B of {@code docs/partial-reparse-rewire.md}: re-parse one source set at the granularity of the
+     * compilation unit. javac compiles only the changed files, resolving the rest of the set from the class files our
+     * previous scan of it generated ({@link #setGeneratedClassesDirectory}), and regenerates the class files of what
+     * it compiled into that same directory, so the next edit, and the dependent source sets, see the new code.
+     * <p>
+     * What is re-parsed: the files of the INVALID and REMOVED types, the files {@code reloadSources} registered as
+     * new, and then every other file of the set that references a type whose {@link ApiSignature} changed, vanished,
+     * or comes from such a type by inheritance — its resolution may differ now. A change to bodies only touches no
+     * other file; that is the common edit, and the one this exists for. {@code apiChanged} carries the changed
+     * primary types over to the dependent source sets, which handle them the same way. Types that are re-parsed come
+     * back as new objects; the REWIRE types that are not are rewired by the caller, the others are kept.
+     */
+    private void reparseFiles(Summary summary,
+                              ParseOptions parseOptions,
+                              SourceSet sourceSet,
+                              List<TypeInfo> types,
+                              List<TypeInfo> removed,
+                              Invalidated invalidated,
+                              Set<String> apiChanged,
+                              Set<TypeInfo> toRewire,
+                              Set<TypeInfo> rebuilt) {
+        summary.ensureSourceSet(sourceSet);
+        Map<URI, List<TypeInfo>> typesByUri = new LinkedHashMap<>();
+        Set<URI> changed = new LinkedHashSet<>();
+        Set<TypeInfo> rewire = new HashSet<>();
+        for (TypeInfo typeInfo : types) {
+            URI uri = typeInfo.compilationUnit().uri();
+            typesByUri.computeIfAbsent(uri, _ -> new ArrayList<>()).add(typeInfo);
+            InvalidationState state = invalidated.apply(typeInfo);
+            if (state == INVALID || state == REMOVED) changed.add(uri);
+            else if (state == REWIRE) rewire.add(typeInfo);
+        }
+        // registered by reloadSources, nothing parsed from them yet
+        sourceFiles.forEach((sourceFile, parsed) -> {
+            if (parsed.isEmpty() && sourceSet.equals(sourceFile.sourceSet())) changed.add(sourceFile.uri());
+        });
+        for (TypeInfo typeInfo : removed) {
+            compiledTypesManager.invalidate(typeInfo);
+            deleteGeneratedClassFiles(sourceSet, typeInfo);
+            apiChanged.add(typeInfo.fullyQualifiedName());
+        }
+        Set<URI> reparsed = new LinkedHashSet<>();
+        if (!changed.isEmpty()) {
+            scanFiles(summary, parseOptions, sourceSet, changed, typesByUri, apiChanged, rebuilt);
+            reparsed.addAll(changed);
+        }
+        int forApi = 0;
+        if (!apiChanged.isEmpty()) {
+            Set<URI> dependents = apiDependents(types.stream()
+                    .filter(typeInfo -> !reparsed.contains(typeInfo.compilationUnit().uri())).toList(), apiChanged);
+            if (!dependents.isEmpty()) {
+                scanFiles(summary, parseOptions, sourceSet, dependents, typesByUri, apiChanged, rebuilt);
+                reparsed.addAll(dependents);
+                forApi = dependents.size();
+            }
+        }
+        for (TypeInfo typeInfo : types) {
+            if (reparsed.contains(typeInfo.compilationUnit().uri())) continue;
+            if (rewire.contains(typeInfo)) toRewire.add(typeInfo);
+            else summary.addType(typeInfo);
+        }
+        LOGGER.info("Re-parse: source set {} -> {} of {} file(s) re-parsed, {} of them for a changed API",
+                sourceSet.name(), reparsed.size(), typesByUri.size(), forApi);
+    }
+
+    /**
+     * One javac task over {@code uris} only: forget the types they held and their class files, scan, and compare the
+     * API of what came back with what was there. A type that is not there anymore counts as changed; a new one does
+     * not, nothing can have referenced it yet.
+     */
+    private void scanFiles(Summary summary,
+                           ParseOptions parseOptions,
+                           SourceSet sourceSet,
+                           Set<URI> uris,
+                           Map<URI, List<TypeInfo>> typesByUri,
+                           Set<String> apiChanged,
+                           Set<TypeInfo> rebuilt) {
+        Map<String, String> apiBefore = new HashMap<>();
+        for (URI uri : uris) {
+            for (TypeInfo typeInfo : typesByUri.getOrDefault(uri, List.of())) {
+                apiBefore.put(typeInfo.fullyQualifiedName(), ApiSignature.of(typeInfo));
+                compiledTypesManager.invalidate(typeInfo);
+                deleteGeneratedClassFiles(sourceSet, typeInfo);
+            }
+        }
+        // re-recorded by the scan; a file that yields nothing now must not keep the types it held
+        sourceFiles.replaceAll((sourceFile, types) ->
+                uris.contains(sourceFile.uri()) && sourceSet.equals(sourceFile.sourceSet()) ? List.of() : types);
+        scanSourceSet(summary, Map.of(), sourceSet, parseOptions, uris);
+        sourceFiles.forEach((sourceFile, types) -> {
+            if (!uris.contains(sourceFile.uri()) || !sourceSet.equals(sourceFile.sourceSet())) return;
+            for (TypeInfo typeInfo : types) {
+                rebuilt.add(typeInfo);
+                String before = apiBefore.remove(typeInfo.fullyQualifiedName());
+                if (before != null && !before.equals(ApiSignature.of(typeInfo))) {
+                    apiChanged.add(typeInfo.fullyQualifiedName());
+                }
+            }
+        });
+        apiChanged.addAll(apiBefore.keySet());
+    }
+
+    /**
+     * The files holding a candidate that references a type in {@code apiChanged}. A candidate that extends or
+     * implements one inherits the change, so it joins {@code apiChanged} in turn, until nothing more is added. Walks
+     * the candidates' CSTs, which is why it only runs when an API did change.
+     */
+    private static Set<URI> apiDependents(List<TypeInfo> candidates, Set<String> apiChanged) {
+        Map<TypeInfo, Set<String>> referenced = new HashMap<>();
+        for (TypeInfo candidate : candidates) {
+            referenced.put(candidate, candidate.typesReferenced(null)
+                    .map(tr -> tr.typeInfo().primaryType().fullyQualifiedName())
+                    .filter(fqn -> !fqn.equals(candidate.fullyQualifiedName()))
+                    .collect(Collectors.toUnmodifiableSet()));
+        }
+        Set<TypeInfo> dependents = new LinkedHashSet<>();
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (TypeInfo candidate : candidates) {
+                if (dependents.contains(candidate)
+                    || Collections.disjoint(referenced.get(candidate), apiChanged)) continue;
+                dependents.add(candidate);
+                added = true;
+                if (candidate.recursiveSubTypeStream().flatMap(JavaInspectorImpl::supertypes)
+                        .anyMatch(apiChanged::contains)) {
+                    apiChanged.add(candidate.fullyQualifiedName());
+                }
+            }
+        }
+        return dependents.stream().map(typeInfo -> typeInfo.compilationUnit().uri())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private static Stream<String> supertypes(TypeInfo typeInfo) {
+        return Stream.concat(Stream.ofNullable(typeInfo.parentClass()), typeInfo.interfacesImplemented().stream())
+                .filter(pt -> pt.typeInfo() != null)
+                .map(pt -> pt.typeInfo().primaryType().fullyQualifiedName());
+    }
+
+    /**
+     * The class files generated for a primary type: its own, and those of its nested, local and anonymous types
+     * ({@code Name$...}), so that none of them outlives a re-parse that no longer produces it.
+     */
+    private void deleteGeneratedClassFiles(SourceSet sourceSet, TypeInfo primaryType) {
+        Path directory = generatedClassOutput.get(sourceSet.name());
+        if (directory == null) return;
+        Path packageDirectory = directory.resolve(primaryType.packageName().replace('.', File.separatorChar));
+        if (!Files.isDirectory(packageDirectory)) return;
+        String simpleName = primaryType.simpleName();
+        try (Stream<Path> list = Files.list(packageDirectory)) {
+            for (Path path : list.toList()) {
+                String name = path.getFileName().toString();
+                if (name.equals(simpleName + ".class")
+                    || name.startsWith(simpleName + "$") && name.endsWith(".class")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete the class files of {} in {}: {}", primaryType, packageDirectory,
+                    e.toString());
+        }
+    }
+
     /**
      * A source set holding a type that changed (or vanished) must be re-scanned: javac cannot rebuild one file of it
      * in isolation. Otherwise, if anything in it must be rewired, the whole set is rewired; if not, it is kept.
@@ -580,7 +972,7 @@ public class JavaInspectorImpl implements JavaInspector {
                 Map<String, String> sourcesByFqn = sourcesByFqnBySourceSet.get(sourceSet);
                 singleSourceSet(summary, sourcesByFqn, infoByFqn, sourceSet, !parseOptions.failFast(),
                         parseOptions.ignoreModule(), parseOptions.parameterNames() || parameterNames,
-                        parseOptions.syntheticListField(), parseOptions.lombok());
+                        parseOptions.syntheticListField(), parseOptions.lombok(), null);
             } catch (IOException ioe) {
                 // register the failure in the Summary (preserving the cause) instead of dropping it and aborting
                 // with a cause-less UnsupportedOperationException; harmonizes with the in-house inspector
@@ -654,6 +1046,28 @@ public class JavaInspectorImpl implements JavaInspector {
                 .thenComparing(SourceSet::name));
     }
 
+    /**
+     * The longest chain of source-set dependencies, weighted by the time each set took to scan: what the serial scan
+     * would take if every set could start as soon as its dependencies were done. Only source-set edges count, so
+     * this is a lower bound. A sibling module that arrives as an artifact is not an edge, but it must still be
+     * scanned first (see {@code TestScanOrder}). See {@code parsing-stability.md}, "Why there is no parse farm".
+     */
+    static long criticalPathNanos(List<SourceSet> scanOrder, Map<SourceSet, Long> scanNanos) {
+        Map<SourceSet, Long> finish = new HashMap<>();
+        long max = 0;
+        for (SourceSet sourceSet : scanOrder) {
+            long ready = 0;
+            for (SourceSet dependency : sourceSet.dependencies()) {
+                Long f = finish.get(dependency);
+                if (f != null) ready = Math.max(ready, f);
+            }
+            long f = ready + scanNanos.getOrDefault(sourceSet, 0L);
+            finish.put(sourceSet, f);
+            max = Math.max(max, f);
+        }
+        return max;
+    }
+
     // single file
     @Override
     public List<TypeInfo> parse(String transformedString,
@@ -681,7 +1095,7 @@ public class JavaInspectorImpl implements JavaInspector {
             singleSourceSet(summary, Map.of(className, input), infoByFqn, sourceSet,
                     !parseOptions.failFast(), parseOptions.ignoreModule(),
                     parseOptions.parameterNames() || parameterNames, parseOptions.syntheticListField(),
-                    parseOptions.lombok());
+                    parseOptions.lombok(), null);
             return summary;
         } catch (IOException e) {
             LOGGER.error("Caught exception", e);
@@ -697,14 +1111,17 @@ public class JavaInspectorImpl implements JavaInspector {
                                  boolean ignoreModule,
                                  boolean parameterNames,
                                  boolean syntheticListField,
-                                 boolean lombok) throws IOException {
+                                 boolean lombok,
+                                 Set<URI> onlyUris) throws IOException {
         // must precede createTask: it is what the task's CLASS_OUTPUT is pointed at. null = we generate nothing for
         // this scan, and then we never set CLASS_OUTPUT and never call generate(), so javac cannot write class files
-        // next to the sources it is reading.
-        Path classOutput = sourcesByFqn.isEmpty() ? prepareGeneratedClassOutput(sourceSet) : null;
+        // next to the sources it is reading. A partial scan regenerates its units into the set's directory as it is:
+        // wiping it would take the class files of the units it does not compile along.
+        Path classOutput = onlyUris != null ? generatedClassOutput.get(sourceSet.name())
+                : sourcesByFqn.isEmpty() ? prepareGeneratedClassOutput(sourceSet) : null;
         MaddiDiagnosticCollector diagnostics = new MaddiDiagnosticCollector(ignoreErrors);
         JavacTask javacTask = createTask(sourceSet, ignoreModule, sourcesByFqn, diagnostics, lombok, classOutput,
-                false);
+                false, onlyUris);
         if (javacTask == null) {
             LOGGER.warn("Have no sources in source set {}", sourceSet.name());
             return;
@@ -729,7 +1146,8 @@ public class JavaInspectorImpl implements JavaInspector {
             LOGGER.warn("Lombok processor failed for source set {}; retrying without Lombok. Cause: {}",
                     sourceSet.name(), String.valueOf(re.getCause()));
             diagnostics = new MaddiDiagnosticCollector(ignoreErrors);
-            javacTask = createTask(sourceSet, ignoreModule, sourcesByFqn, diagnostics, false, classOutput, false);
+            javacTask = createTask(sourceSet, ignoreModule, sourcesByFqn, diagnostics, false, classOutput, false,
+                    onlyUris);
             scanCompilationUnits = new ScanCompilationUnits(runtime, inputConfiguration, javacTask, sourceSet,
                     infoByFqn, true, diagnostics, preload, pni, jdkInternals, computeFingerPrints,
                     syntheticListField);
@@ -1001,7 +1419,8 @@ public class JavaInspectorImpl implements JavaInspector {
                                  MaddiDiagnosticCollector diagnostics,
                                  boolean lombok,
                                  Path classOutput,
-                                 boolean loaderOnly) throws IOException {
+                                 boolean loaderOnly,
+                                 Set<URI> onlyUris) throws IOException {
         List<File> sources = new ArrayList<>();
         Map<String, String> sourcesByClassName;
         // use in-memory sources when they are supplied (parse(Map,...) and parseSingleFileInSourceSet(...));
@@ -1031,7 +1450,7 @@ public class JavaInspectorImpl implements JavaInspector {
         openFileManagers.add(fm);
         {
             Iterable<? extends JavaFileObject> allCompilationUnits = loaderOnly ? List.of()
-                    : computeCompilationUnits(sourceSet, ignoreModule, sources, sourcesByClassName, fm);
+                    : computeCompilationUnits(sourceSet, ignoreModule, sources, sourcesByClassName, onlyUris, fm);
             boolean hasModuleInfo = false;
             boolean haveSources = false;
             for (JavaFileObject jfo : allCompilationUnits) {
@@ -1081,6 +1500,9 @@ public class JavaInspectorImpl implements JavaInspector {
                     }
                 }
             }
+            // A partial scan (reparseFiles) compiles a few units of this set; the others are resolved from the class
+            // files the previous scan of this set generated, exactly as a dependent set resolves this one.
+            if (onlyUris != null) jarsAndClassDirectories.addFirst(generatedClassOutput.get(sourceSet.name()).toFile());
             setCompileClassPath(fm, jarsAndClassDirectories, sourceSet);
             if (!moduleJars.isEmpty()) {
                 fm.setLocation(StandardLocation.MODULE_PATH, moduleJars);
@@ -1406,7 +1828,9 @@ public class JavaInspectorImpl implements JavaInspector {
             (SourceSet sourceSet,
              boolean ignoreModule,
              List<File> sources,
-             Map<String, String> sourcesByClassName, StandardJavaFileManager fm) throws IOException {
+             Map<String, String> sourcesByClassName,
+             Set<URI> onlyUris,
+             StandardJavaFileManager fm) throws IOException {
         List<File> allSources = new LinkedList<>();
         for (File sourceDir : sources) {
             if (!Files.isDirectory(sourceDir.toPath())) {
@@ -1420,6 +1844,7 @@ public class JavaInspectorImpl implements JavaInspector {
                         .sorted()
                         .map(Path::toFile)
                         .filter(f -> !ignoreModule || !"module-info.java".equals(f.getName()))
+                        .filter(f -> onlyUris == null || onlyUris.contains(f.toURI()))
                         .forEach(allSources::add);
             }
         }
@@ -1598,7 +2023,8 @@ public class JavaInspectorImpl implements JavaInspector {
     Strategy (the same as the in-house inspector's): re-list the source tree and compare each file's fingerprint
     against the one held by the types we built from it last time.
     - new files: add to sourceFiles with no types; nothing to report, the code compiles.
-    - removed files: drop from sourceFiles; nothing to report either.
+    - removed files: drop from sourceFiles; nothing to report either. Their types are kept aside for the next
+      parseChangedFiles, which has to forget them.
     - changed files: report their types, so the caller's Invalidated can return INVALID for them and compute the
       dependents that need rewiring (see RunRewireTests).
     Nothing is invalidated or re-parsed here: this only answers "what changed?".
@@ -1636,6 +2062,10 @@ public class JavaInspectorImpl implements JavaInspector {
                 ++changedSourceFiles;
             } // else: UNCHANGED
         }
+        for (SourceFile sourceFile : removed) {
+            removedTypes.computeIfAbsent(sourceFile.sourceSet(), _ -> new ArrayList<>())
+                    .addAll(this.sourceFiles.get(sourceFile));
+        }
         this.sourceFiles.keySet().removeAll(removed);
         LOGGER.info("Reloaded sources: {} source file(s) removed, {} new, {} of {} remaining changed",
                 removed.size(), newSourceFiles, changedSourceFiles, current.size());
@@ -2,6 +2,7 @@ module io.codelaser.maddi.inspection.openjdk {
     requires io.codelaser.maddi.cst.analysis;
     requires io.codelaser.maddi.cst.api;
     requires io.codelaser.maddi.cst.impl;
+    requires io.codelaser.maddi.cst.io;
     requires io.codelaser.maddi.cst.print;
     requires io.codelaser.maddi.inspection.api;
     requires io.codelaser.maddi.inspection.parser;
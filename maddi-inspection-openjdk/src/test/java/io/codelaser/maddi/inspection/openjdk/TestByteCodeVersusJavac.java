@@ -0,0 +1,149 @@
+package io.codelaser.maddi.inspection.openjdk;
+
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.resource.CompiledTypesManager;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+The javac-free front end (maddi-inspection-integration, class files read by ASM in ByteCodeInspectorImpl) against
+this one (ClassSymbolScanner over javac's ClassSymbols): the same compiled types must come out the same, down to the
+generic types in the member signatures.
+The projection leaves out what the two legitimately differ in: synthetic members and the static initializer, which
+only javac's symbols carry, and private members.
+ */
+public class TestByteCodeVersusJavac {
+
+    private static final List<String> TYPES = List.of("java.util.ArrayList", "java.util.AbstractList",
+            "java.util.HashMap", "java.util.Optional", "java.util.function.Function", "java.lang.String",
+            "java.lang.Integer", "java.util.concurrent.ConcurrentHashMap", "java.util.stream.Collectors",
+            "java.io.BufferedReader");
+
+    private static String projection(TypeInfo typeInfo) {
+        ParameterizedType parent = typeInfo.parentClass();
+        TreeSet<String> interfaces = new TreeSet<>();
+        typeInfo.interfacesImplemented().forEach(pt -> interfaces.add(pt.typeInfo().fullyQualifiedName()));
+        TreeSet<String> methods = new TreeSet<>();
+        typeInfo.methodStream().filter(m -> visible(m) && !"<clinit>".equals(m.name()))
+                .forEach(m -> methods.add(m.name() + signature(m) + type(m.returnType())));
+        TreeSet<String> constructors = new TreeSet<>();
+        typeInfo.constructors().stream().filter(TestByteCodeVersusJavac::visible)
+                .forEach(c -> constructors.add(signature(c)));
+        TreeSet<String> fields = new TreeSet<>();
+        typeInfo.fields().stream().filter(TestByteCodeVersusJavac::visible)
+                .forEach(f -> fields.add(f.name() + ":" + type(f.type())));
+        return "parent=" + (parent == null ? null : parent.typeInfo().fullyQualifiedName())
+               + "\ninterfaces=" + interfaces
+               + "\ntypeParameters=" + typeInfo.typeParameters().size()
+               + "\nmethods=" + methods
+               + "\nconstructors=" + constructors
+               + "\nfields=" + fields;
+    }
+
+    // full generic types, type parameters and wildcards included
+    private static String signature(MethodInfo methodInfo) {
+        return methodInfo.parameters().stream().map(pi -> type(pi.parameterizedType()))
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static String type(ParameterizedType pt) {
+        return pt.fullyQualifiedName();
+    }
+
+    private static boolean visible(Info info) {
+        return !info.access().isPrivate() && !info.isSynthetic();
+    }
+
+    private static Map<String, String> load(JavaInspector javaInspector, SourceSet javaBase) {
+        CompiledTypesManager ctm = javaInspector.compiledTypesManager();
+        Map<String, String> result = new TreeMap<>();
+        for (String fqn : TYPES) {
+            TypeInfo typeInfo = ctm.type(fqn, javaBase);
+            assertNotNull(typeInfo, fqn);
+            assertTrue(typeInfo.hasBeenInspected(), fqn);
+            result.put(fqn, projection(typeInfo));
+        }
+        return result;
+    }
+
+    private static JavaInspector byteCodeInspector() throws IOException {
+        JavaInspector javaInspector = new io.codelaser.maddi.inspection.integration.JavaInspectorImpl();
+        javaInspector.initialize(new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .build());
+        return javaInspector;
+    }
+
+    @Test
+    public void test() throws IOException {
+        JavaInspector javac = new JavaInspectorImpl();
+        InputConfiguration inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPathParts(SourceSetImpl.javaBase())
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .build();
+        javac.initialize(inputConfiguration);
+        javac.onlyPreload();
+        Map<String, String> viaJavac = load(javac, inputConfiguration.javaBase());
+
+        JavaInspector asm = byteCodeInspector();
+        Map<String, String> viaAsm = load(asm, asm.compiledTypesManager().javaBase());
+
+        for (String fqn : TYPES) {
+            assertEquals(viaJavac.get(fqn), viaAsm.get(fqn), fqn);
+        }
+    }
+
+    // concurrent requests, some for the same type: every thread sees the same, fully loaded, TypeInfo
+    @Test
+    public void testConcurrentLoads() throws Exception {
+        JavaInspector asm = byteCodeInspector();
+        CompiledTypesManager ctm = asm.compiledTypesManager();
+        SourceSet javaBase = ctm.javaBase();
+        List<Future<List<TypeInfo>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                int offset = i;
+                futures.add(executor.submit(() -> {
+                    List<TypeInfo> list = new ArrayList<>();
+                    for (int j = 0; j < TYPES.size(); j++) {
+                        TypeInfo typeInfo = ctm.type(TYPES.get((j + offset) % TYPES.size()), javaBase);
+                        assertTrue(typeInfo.hasBeenInspected());
+                        list.add(typeInfo);
+                    }
+                    list.sort((t1, t2) -> t1.fullyQualifiedName().compareTo(t2.fullyQualifiedName()));
+                    return list;
+                }));
+            }
+        }
+        List<TypeInfo> first = futures.getFirst().get();
+        assertEquals(TYPES.size(), first.size());
+        for (Future<List<TypeInfo>> future : futures) {
+            List<TypeInfo> list = future.get();
+            for (int j = 0; j < first.size(); j++) {
+                assertSame(first.get(j), list.get(j));
+            }
+        }
+        assertTrue(first.stream().allMatch(Objects::nonNull));
+    }
+}
@@ -0,0 +1,104 @@
+package io.codelaser.maddi.inspection.openjdk;
+
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InfoByFqn;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent lazy loads of one type: the loader runs once, every request gets its result, or its exception.
+ */
+public class TestLazyLoadCoalescing {
+
+    private static TypeInfo string() throws IOException {
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        InputConfiguration inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPathParts(SourceSetImpl.javaBase())
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .build();
+        javaInspector.initialize(inputConfiguration);
+        javaInspector.onlyPreload();
+        return javaInspector.compiledTypesManager().typeIfLoaded(String.class);
+    }
+
+    private static List<Future<TypeInfo>> request(CompiledTypesManagerImpl ctm, ExecutorService executor) {
+        List<Future<TypeInfo>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> ctm.type("java.lang.String", ctm.javaBase())));
+        }
+        return futures;
+    }
+
+    @Test
+    public void test() throws Exception {
+        TypeInfo string = string();
+        assertNotNull(string);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CompiledTypesManagerImpl ctm = new CompiledTypesManagerImpl(string.compilationUnit().sourceSet(),
+                new InfoByFqn());
+        ctm.setLazyLoader((fqn, sourceSetOfRequest) -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return string;
+        });
+        List<Future<TypeInfo>> futures;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            futures = request(ctm, executor);
+            release.countDown();
+        }
+        for (Future<TypeInfo> future : futures) {
+            assertSame(string, future.get());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, ctm.lazyLoadMisses());
+    }
+
+    @Test
+    public void testFailure() {
+        SourceSet javaBase = SourceSetImpl.javaBase();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CompiledTypesManagerImpl ctm = new CompiledTypesManagerImpl(javaBase, new InfoByFqn());
+        ctm.setLazyLoader((fqn, sourceSetOfRequest) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            throw new IllegalStateException("load " + calls.incrementAndGet() + " of " + fqn);
+        });
+        List<Future<TypeInfo>> futures;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            futures = request(ctm, executor);
+            release.countDown();
+        }
+        for (Future<TypeInfo> future : futures) {
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+        // a failed load is not a miss: a later request tries again
+        assertEquals(0, ctm.lazyLoadMisses());
+        assertTrue(calls.get() >= 1);
+    }
+}
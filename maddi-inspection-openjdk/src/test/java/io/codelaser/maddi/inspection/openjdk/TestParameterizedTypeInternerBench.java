@@ -0,0 +1,148 @@
+package io.codelaser.maddi.inspection.openjdk;
+
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.impl.runtime.FactoryImpl;
+import io.codelaser.maddi.cst.impl.type.ParameterizedTypeImpl;
+import io.codelaser.maddi.cst.impl.type.ParameterizedTypeInterner;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.parser.ParseResult;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import io.codelaser.maddi.support.SetOnce;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.codelaser.maddi.inspection.resource.SourceSetImpl.sourceSetOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap of {@link ParameterizedTypeImpl} after parsing maddi-cst-api (the corpus of
+ * {@link TestJavaInspector4RealClasspath}), without and with {@link ParameterizedTypeInterner} (env INTERNTYPES).
+ * The numbers come from the JVM's class histogram ({@code jcmd GC.class_histogram}, taken in-process through the
+ * DiagnosticCommand MBean), which counts live objects after a full GC. The method signatures of the parsed types
+ * must not depend on interning.
+ * <p>
+ * INTERNTYPES is read once per JVM, so each configuration parses in a JVM of its own, with this test's classpath
+ * and module flags, and reports back on its standard output. The instance count does not depend on the machine,
+ * so it is asserted; the sizes are PROBE output.
+ */
+public class TestParameterizedTypeInternerBench {
+
+    private record Run(String signatures, long instances, long bytes, int interned, long hits) {
+    }
+
+    private static JavaInspector inspector() throws Exception {
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        SourceSet javaBase = SourceSetImpl.javaBase();
+        SourceSet annotations = sourceSetOf(NotNull.class, javaBase);
+        SourceSet maddiAnnotation = sourceSetOf(io.codelaser.maddi.annotation.Immutable.class, javaBase);
+        SourceSet maddiSupport = sourceSetOf(SetOnce.class, javaBase, maddiAnnotation);
+
+        Path cstApiPath = Path.of("../maddi-cst-api/src/main/java");
+        assertTrue(Files.isDirectory(cstApiPath));
+        SourceSet cstApi = new SourceSetImpl.Builder().setName("cst-api")
+                .setSourceDirectories(List.of(cstApiPath))
+                .setUri(URI.create("file:/"))
+                .setDependencies(List.of(javaBase, annotations, maddiAnnotation, maddiSupport))
+                .build();
+        InputConfiguration inputConfiguration = new InputConfigurationImpl.Builder()
+                .addSourceSets(cstApi)
+                .addClassPath("jmod:java.base")
+                .addClassPathParts(maddiAnnotation, maddiSupport, annotations)
+                .build();
+        javaInspector.initialize(inputConfiguration);
+        return javaInspector;
+    }
+
+    // the child JVM: parse with INTERNTYPES as it was given, one line of numbers, then the signatures
+    public static void main(String[] args) throws Exception {
+        JavaInspector javaInspector = inspector();
+        JavaInspector.ParseOptions options = new JavaInspector.ParseOptions.Builder()
+                .setFailFast(true).setDetailedSources(true).setIgnoreModule(true).build();
+        ParseResult parseResult = javaInspector.parse(Map.of(), options).parseResult();
+        TypeInfo element = parseResult.findType("io.codelaser.maddi.cst.api.element.Element");
+        String signatures = element.methodStream()
+                .map(m -> m.returnType() + " " + m.fullyQualifiedName())
+                .sorted().collect(Collectors.joining("\n"));
+        long[] histogram = histogram(ParameterizedTypeImpl.class.getName());
+        ParameterizedTypeInterner interner = ((FactoryImpl) javaInspector.runtime()).parameterizedTypeInterner();
+        // keeps the inspector, and with it the parse result, reachable until after the histogram
+        System.out.println(ParameterizedTypeInterner.ENABLED + " " + histogram[0] + " " + histogram[1] + " "
+                           + interner.size() + " " + interner.hits());
+        System.out.println(signatures);
+    }
+
+    private static Run parse(boolean intern) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        List<String> jvmArgs = ManagementFactory.getRuntimeMXBean().getInputArguments();
+        for (int i = 0; i < jvmArgs.size(); i++) {
+            String arg = jvmArgs.get(i);
+            if (arg.equals("--add-exports") || arg.equals("--add-opens")) {
+                command.add(arg);
+                command.add(jvmArgs.get(++i));
+            } else if (arg.startsWith("--add-") || arg.equals("--enable-preview") || arg.startsWith("-Xmx")) {
+                command.add(arg);
+            }
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                TestParameterizedTypeInternerBench.class.getName()));
+        ProcessBuilder processBuilder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT);
+        if (intern) processBuilder.environment().put("INTERNTYPES", "1");
+        else processBuilder.environment().remove("INTERNTYPES");
+        Process process = processBuilder.start();
+        String out = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), out);
+        // the parser may log to standard output: the report starts at the line that reads the gate
+        List<String> lines = out.lines().toList();
+        int start = 0;
+        while (start < lines.size() && !lines.get(start).startsWith(intern + " ")) start++;
+        assertTrue(start < lines.size(), out);
+        String[] numbers = lines.get(start).split(" ");
+        String signatures = String.join("\n", lines.subList(start + 1, lines.size()));
+        return new Run(signatures, Long.parseLong(numbers[1]), Long.parseLong(numbers[2]),
+                Integer.parseInt(numbers[3]), Long.parseLong(numbers[4]));
+    }
+
+    // live instances and bytes of exactly this class (not of its anonymous subclasses)
+    private static long[] histogram(String className) throws Exception {
+        String out = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[]{new String[0]}, new String[]{String[].class.getName()});
+        for (String line : out.lines().toList()) {
+            String[] parts = line.trim().split("\\s+");
+            if (parts.length >= 4 && parts[3].equals(className)) {
+                return new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])};
+            }
+        }
+        return new long[]{0, 0};
+    }
+
+    @Test
+    public void test() throws Exception {
+        Run plain = parse(false);
+        Run interned = parse(true);
+        assertEquals(plain.signatures, interned.signatures);
+        System.out.printf("PROBE ParameterizedTypeImpl live after parsing cst-api: plain %d instances %d KB   "
+                          + "interned %d instances %d KB (%d canonical, %d hits)%n",
+                plain.instances, plain.bytes / 1024, interned.instances, interned.bytes / 1024,
+                interned.interned, interned.hits);
+        assertEquals(0, plain.interned);
+        assertTrue(interned.instances < plain.instances,
+                "interning must reduce the live instances: " + interned.instances + " vs " + plain.instances);
+    }
+}
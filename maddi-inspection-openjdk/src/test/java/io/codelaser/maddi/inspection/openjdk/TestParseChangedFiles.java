@@ -0,0 +1,192 @@
+package io.codelaser.maddi.inspection.openjdk;
+
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.expression.MethodCall;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.statement.ReturnStatement;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.parser.Summary;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static io.codelaser.maddi.inspection.api.integration.JavaInspector.InvalidationState.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link JavaInspector#parseChangedFiles}: after an edit, only the edited compilation unit is re-parsed, against the
+ * class files of the previous parse; a user of a type whose API changed is re-parsed too, everything else is kept or
+ * rewired. Compare {@link TestInvalidate}, where the source set is the unit of re-parsing.
+ */
+public class TestParseChangedFiles {
+
+    @Language("java")
+    private static final String A = """
+            package a.b;
+            public class A {
+                public int method() { return 1; }
+            }
+            """;
+
+    @Language("java")
+    private static final String A_BODY = A.replace("return 1;", "return 2;");
+
+    @Language("java")
+    private static final String A_API = A.replace("public int method() { return 1; }",
+            "public int method() { return 1; }\n    public int other() { return 3; }");
+
+    @Language("java")
+    private static final String B = """
+            package a.b;
+            public class B {
+                public int b() { return new A().method(); }
+            }
+            """;
+
+    @Language("java")
+    private static final String C = """
+            package a.b;
+            public class C {
+                public String c() { return "c"; }
+            }
+            """;
+
+    private record Setup(JavaInspector javaInspector, InputConfiguration inputConfiguration, SourceSet main,
+                         Summary parsed, Path sources, Path generated) {
+    }
+
+    private static Setup setup(Path root, boolean generate) throws IOException {
+        Path sources = root.resolve("src");
+        Path pkg = Files.createDirectories(sources.resolve("a/b"));
+        Files.writeString(pkg.resolve("A.java"), A);
+        Files.writeString(pkg.resolve("B.java"), B);
+        Files.writeString(pkg.resolve("C.java"), C);
+        SourceSet main = new SourceSetImpl.Builder().setName("main")
+                .setSourceDirectories(List.of(sources))
+                .setUri(sources.toUri())
+                .build();
+        InputConfiguration inputConfiguration = new InputConfigurationImpl.Builder()
+                .addSourceSets(main)
+                .addClassPath(InputConfigurationImpl.DEFAULT_MODULES)
+                .build();
+        JavaInspector javaInspector = new JavaInspectorImpl(true, false);
+        Path generated = root.resolve("generated");
+        if (generate) javaInspector.setGeneratedClassesDirectory(generated);
+        javaInspector.initialize(inputConfiguration);
+        Summary summary = javaInspector.parse(JavaInspectorImpl.FAIL_FAST);
+        assertEquals(3, summary.types().size());
+        return new Setup(javaInspector, inputConfiguration, main, summary, sources, generated);
+    }
+
+    // what WorkspaceSession and RunRewireTests hand the inspector: the changed types, and their users to rewire
+    private static Summary reparse(Setup setup, Set<String> rewire) throws IOException {
+        JavaInspector.ReloadResult rr = setup.javaInspector.reloadSources(setup.inputConfiguration, Map.of());
+        assertTrue(rr.problems().isEmpty(), rr.problems().toString());
+        JavaInspector.Invalidated invalidated = ti -> rr.sourceHasChanged().contains(ti) ? INVALID
+                : rewire.contains(ti.fullyQualifiedName()) ? REWIRE : UNCHANGED;
+        Summary summary = setup.javaInspector.parseChangedFiles(new JavaInspector.ParseOptions.Builder()
+                .setFailFast(true).setInvalidated(invalidated).build());
+        assertFalse(summary.haveErrors(), summary.parseExceptions().toString());
+        return summary;
+    }
+
+    private static TypeInfo type(Summary summary, String fqn) {
+        return summary.types().stream().filter(t -> fqn.equals(t.fullyQualifiedName())).findFirst().orElse(null);
+    }
+
+    private static TypeInfo calledFrom(TypeInfo b) {
+        ReturnStatement rs = (ReturnStatement) b.findUniqueMethod("b", 0).methodBody().statements().getFirst();
+        return ((MethodCall) rs.expression()).methodInfo().typeInfo();
+    }
+
+    private static Path classFile(Path generated, String name) throws IOException {
+        try (Stream<Path> walk = Files.walk(generated)) {
+            return walk.filter(p -> p.toString().endsWith("a/b/" + name + ".class")).findFirst().orElse(null);
+        }
+    }
+
+    @DisplayName("a body edit re-parses its own file only; the user is rewired, the rest kept")
+    @Test
+    public void testBodyChange(@TempDir Path root) throws IOException {
+        Setup setup = setup(root, true);
+        TypeInfo a0 = type(setup.parsed, "a.b.A");
+        TypeInfo b0 = type(setup.parsed, "a.b.B");
+        TypeInfo c0 = type(setup.parsed, "a.b.C");
+        byte[] aClass = Files.readAllBytes(classFile(setup.generated, "A"));
+        Files.writeString(setup.sources.resolve("a/b/A.java"), A_BODY);
+
+        Summary summary = reparse(setup, Set.of("a.b.B"));
+        assertEquals(3, summary.types().size(), summary.types().toString());
+        TypeInfo a = type(summary, "a.b.A");
+        TypeInfo b = type(summary, "a.b.B");
+        assertNotSame(a0, a);
+        assertSame(c0, type(summary, "a.b.C"), "not touched");
+        assertNotSame(b0, b);
+        assertSame(b0.compilationUnit(), b.compilationUnit(), "rewired, not re-parsed");
+        assertSame(a, calledFrom(b));
+        assertSame(a, setup.javaInspector.compiledTypesManager().get("a.b.A", setup.main));
+        Path aClassFile = classFile(setup.generated, "A");
+        assertNotNull(aClassFile, "A.class written again");
+        assertFalse(Arrays.equals(aClass, Files.readAllBytes(aClassFile)), "A.class holds the new body");
+    }
+
+    @DisplayName("an API edit re-parses the users of the type too")
+    @Test
+    public void testApiChange(@TempDir Path root) throws IOException {
+        Setup setup = setup(root, true);
+        TypeInfo b0 = type(setup.parsed, "a.b.B");
+        TypeInfo c0 = type(setup.parsed, "a.b.C");
+        Files.writeString(setup.sources.resolve("a/b/A.java"), A_API);
+
+        Summary summary = reparse(setup, Set.of("a.b.B"));
+        TypeInfo a = type(summary, "a.b.A");
+        TypeInfo b = type(summary, "a.b.B");
+        assertEquals(2, a.methods().size());
+        assertNotSame(b0.compilationUnit(), b.compilationUnit(), "re-parsed: it uses A, whose API changed");
+        assertSame(a, calledFrom(b));
+        assertSame(c0, type(summary, "a.b.C"));
+    }
+
+    @DisplayName("a deleted file is forgotten with its class file, a new one parsed")
+    @Test
+    public void testDeletedAndAdded(@TempDir Path root) throws IOException {
+        Setup setup = setup(root, true);
+        TypeInfo a0 = type(setup.parsed, "a.b.A");
+        assertNotNull(classFile(setup.generated, "C"));
+        Files.delete(setup.sources.resolve("a/b/C.java"));
+        Files.writeString(setup.sources.resolve("a/b/D.java"), "package a.b;\npublic class D { }\n");
+
+        Summary summary = reparse(setup, Set.of());
+        assertNull(type(summary, "a.b.C"));
+        assertNull(setup.javaInspector.compiledTypesManager().get("a.b.C", setup.main));
+        assertNull(classFile(setup.generated, "C"));
+        assertNotNull(type(summary, "a.b.D"));
+        assertNotNull(classFile(setup.generated, "D"));
+        assertSame(a0, type(summary, "a.b.A"));
+    }
+
+    @DisplayName("without generated class files, the whole source set is re-parsed")
+    @Test
+    public void testWithoutGeneratedClasses(@TempDir Path root) throws IOException {
+        Setup setup = setup(root, false);
+        TypeInfo c0 = type(setup.parsed, "a.b.C");
+        Files.writeString(setup.sources.resolve("a/b/A.java"), A_BODY);
+
+        Summary summary = reparse(setup, Set.of("a.b.B"));
+        assertEquals(3, summary.types().size());
+        assertNotSame(c0, type(summary, "a.b.C"));
+    }
+}
@@ -48,4 +48,28 @@ public class TestPreload {
                         .collect(Collectors.joining(", ")));
 
     }
+
+    // the manager's own preload, after the first scan; and a repeated miss is answered without the loader
+    @Test
+    public void testManagerPreload() throws IOException {
+        JavaInspector javaInspector = new io.codelaser.maddi.inspection.openjdk.JavaInspectorImpl();
+        InputConfiguration inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPathParts(SourceSetImpl.javaBase())
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .build();
+        javaInspector.initialize(inputConfiguration);
+        javaInspector.onlyPreload();
+        CompiledTypesManagerImpl ctm = (CompiledTypesManagerImpl) javaInspector.compiledTypesManager();
+
+        ctm.preload("java.base::java.util.concurrent");
+        TypeInfo phaser = ctm.typeIfLoaded("java.util.concurrent.Phaser", null);
+        assertNotNull(phaser);
+        assertTrue(phaser.hasBeenInspected());
+
+        SourceSet javaBase = inputConfiguration.javaBase();
+        assertNull(ctm.type("java.util.concurrent.DoesNotExist", javaBase));
+        assertEquals(1, ctm.lazyLoadMisses());
+        assertNull(ctm.type("java.util.concurrent.DoesNotExist", javaBase));
+        assertEquals(1, ctm.lazyLoadMisses());
+    }
 }
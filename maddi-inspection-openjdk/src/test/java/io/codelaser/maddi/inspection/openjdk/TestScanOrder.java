@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -90,4 +91,22 @@ public class TestScanOrder {
         assertEquals(List.of("b/main", "a/main", "c/main"),
                 names(JavaInspectorImpl.computeScanOrder(List.of(b, a, c))));
     }
+
+    /**
+     * The critical path follows source-set edges only. An artifact dependency is not an edge, so it does not lengthen
+     * the path.
+     */
+    @Test
+    public void criticalPath() {
+        SourceSet utilJar = artifact("util-1.0.jar");
+        SourceSet util = sources("util/main");
+        SourceSet core = sources("core/main", util);
+        SourceSet api = sources("api/main", utilJar);
+        SourceSet test = sources("core/test", core, api);
+        List<SourceSet> order = JavaInspectorImpl.computeScanOrder(List.of(util, core, api, test));
+        Map<SourceSet, Long> nanos = Map.of(util, 10L, core, 20L, api, 40L, test, 5L);
+        // util -> core -> test = 35, api -> test = 45
+        assertEquals(45L, JavaInspectorImpl.criticalPathNanos(order, nanos));
+        assertEquals(0L, JavaInspectorImpl.criticalPathNanos(List.of(), Map.of()));
+    }
 }
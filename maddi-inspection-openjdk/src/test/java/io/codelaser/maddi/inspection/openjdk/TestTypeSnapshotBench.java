@@ -0,0 +1,183 @@
+package io.codelaser.maddi.inspection.openjdk;
+
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.runtime.Runtime;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The compiled types restored from a snapshot ({@link JavaInspector#setTypeSnapshotDirectory}) against the same
+ * types loaded from their class files: the JDK preload of {@code bin/maddi}, and a library jar. Every loaded type
+ * must come back with the same header, members, signatures, overrides and commit state, and a source parsed
+ * against them must resolve as it does against a cold load.
+ * The PROBE line carries the time to the first parse (inspector creation, initialize, and the parse of a warm-up
+ * type) without a snapshot, while writing one, and restoring it; no assertion is made on it.
+ */
+public class TestTypeSnapshotBench {
+
+    private static final String X = """
+            package a.b;
+            import java.util.*;
+            import org.slf4j.Logger;
+            public class X {
+                private final Map<String, List<Integer>> map = new HashMap<>();
+                private Logger logger;
+                List<Integer> get(String s) { return map.computeIfAbsent(s, k -> new ArrayList<>()); }
+                void log(String s) { logger.info("{}", s); }
+            }
+            """;
+
+    private record Run(long nanos, int types, String projection, String x) {
+    }
+
+    private static Run run(Path snapshotDirectory) throws IOException {
+        long start = System.nanoTime();
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        javaInspector.preload("java.base::java.util");
+        javaInspector.preload("org.slf4j");
+        if (snapshotDirectory != null) javaInspector.setTypeSnapshotDirectory(snapshotDirectory);
+        SourceSet slf4j = SourceSetImpl.sourceSetOf(Logger.class);
+        InputConfiguration inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPathParts(SourceSetImpl.javaBase(), slf4j)
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .build();
+        javaInspector.initialize(inputConfiguration);
+        javaInspector.onlyPreload();
+        long nanos = System.nanoTime() - start;
+
+        List<TypeInfo> loaded = javaInspector.compiledTypesManager().typesLoaded(true);
+        String projection = loaded.stream()
+                .sorted(Comparator.comparing(TypeInfo::fullyQualifiedName))
+                .map(TestTypeSnapshotBench::project)
+                .collect(Collectors.joining("\n"));
+        TypeInfo x = javaInspector.parse("a.b.X", X);
+        String xs = x.methodStream().map(m -> m.fullyQualifiedName() + " " + m.returnType())
+                .collect(Collectors.joining("\n"));
+        return new Run(nanos, loaded.size(), projection, xs);
+    }
+
+    // modifiers are sets without a stable iteration order, hence sorted
+    private static String project(TypeInfo typeInfo) {
+        if (!typeInfo.hasBeenInspected()) return typeInfo.fullyQualifiedName() + " (not inspected)";
+        return typeInfo.fullyQualifiedName() + " " + typeInfo.typeNature() + " " + typeInfo.access()
+               + " " + typeInfo.compilationUnit().sourceSet() + " " + sorted(typeInfo.typeModifiers().stream())
+               + " " + typeInfo.typeParameters().stream().map(tp -> tp.simpleName() + tp.typeBounds()).toList()
+               + " extends " + typeInfo.parentClass() + " implements " + typeInfo.interfacesImplemented()
+               + " " + typeInfo.annotations() + " sam " + typeInfo.singleAbstractMethod()
+               + " sub " + typeInfo.subTypes().stream().map(TypeInfo::simpleName).toList()
+               + typeInfo.constructorAndMethodStream().map(m -> "\n  " + m.fullyQualifiedName() + " "
+                       + m.returnType() + " " + sorted(m.methodModifiers().stream()) + " " + m.access()
+                       + " " + m.parameters().stream().map(p -> p.name() + (p.isVarArgs() ? "..." : "")).toList()
+                       + " " + m.exceptionTypes() + " " + m.annotations() + " " + m.hasBeenInspected()
+                       + " overrides " + sorted(m.overrides().stream().map(MethodInfo::fullyQualifiedName))
+                       + " getSet " + m.getSetField().field()).collect(Collectors.joining())
+               + typeInfo.fields().stream().map(f -> "\n  field " + f.name() + " " + f.type() + " "
+                       + sorted(f.modifiers().stream()) + " " + f.access() + " " + f.annotations())
+                       .collect(Collectors.joining());
+    }
+
+    private static List<String> sorted(Stream<?> stream) {
+        return stream.map(Object::toString).sorted().toList();
+    }
+
+    @DisplayName("restored types equal the cold ones; time to the first parse, with and without a snapshot")
+    @Test
+    public void test(@TempDir Path directory) throws IOException {
+        run(null); // the first load in a JVM pays for class loading and JIT, which a restore would not repeat
+        Run cold = run(null);
+        Run writing = run(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.toList();
+        }
+        assertEquals(1, files.size(), "one snapshot, no temporary file left: " + files);
+        assertTrue(files.getFirst().getFileName().toString().startsWith("types-"));
+        Run restored = run(directory);
+
+        assertEquals(cold.types, restored.types);
+        assertEquals(cold.projection, writing.projection);
+        assertEquals(cold.projection, restored.projection);
+        assertEquals(cold.x, restored.x);
+
+        System.out.printf("PROBE typeSnapshot %d types, %d KB: cold=%d ms  writing=%d ms  restored=%d ms%n",
+                restored.types, Files.size(files.getFirst()) / 1024, cold.nanos / 1_000_000,
+                writing.nanos / 1_000_000, restored.nanos / 1_000_000);
+        // timings are not asserted: a loaded machine can reverse them
+        System.out.printf("PROBE typeSnapshot restored/cold %.2f%n", restored.nanos / (double) cold.nanos);
+    }
+
+    @DisplayName("another preload is another key: the snapshot is not used, and a second one is written")
+    @Test
+    public void otherKey(@TempDir Path directory) throws IOException {
+        run(directory);
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        javaInspector.preload("java.base::java.util.concurrent");
+        javaInspector.setTypeSnapshotDirectory(directory);
+        javaInspector.initialize(new InputConfigurationImpl.Builder()
+                .addClassPathParts(SourceSetImpl.javaBase())
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .build());
+        javaInspector.onlyPreload();
+        assertNotNull(javaInspector.compiledTypesManager().typeIfLoaded("java.util.concurrent.Phaser", null));
+        try (Stream<Path> list = Files.list(directory)) {
+            assertEquals(2, list.count());
+        }
+    }
+
+    @DisplayName("a snapshot that cannot be read leaves the runtime as it was, and the types load from class files")
+    @Test
+    public void unreadable(@TempDir Path directory) throws IOException {
+        Run cold = run(null);
+        run(directory);
+        Path file;
+        try (Stream<Path> list = Files.list(directory)) {
+            file = list.findFirst().orElseThrow();
+        }
+        // a quarter short, with a checksum that matches: the reader runs out of bytes in the last sections
+        byte[] bytes = Files.readAllBytes(file);
+        int length = (bytes.length - 4) * 3 / 4;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        byte[] truncated = Arrays.copyOf(bytes, length + 4);
+        ByteBuffer.wrap(truncated).putInt(length, (int) crc.getValue());
+        Files.write(file, truncated);
+
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        javaInspector.preload("java.base::java.util");
+        javaInspector.preload("org.slf4j");
+        javaInspector.setTypeSnapshotDirectory(directory);
+        javaInspector.initialize(new InputConfigurationImpl.Builder()
+                .addClassPathParts(SourceSetImpl.javaBase(), SourceSetImpl.sourceSetOf(Logger.class))
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .build());
+        Runtime runtime = javaInspector.runtime();
+        javaInspector.onlyPreload();
+        assertSame(runtime, javaInspector.runtime());
+        assertEquals(cold.projection, javaInspector.compiledTypesManager().typesLoaded(true).stream()
+                .sorted(Comparator.comparing(TypeInfo::fullyQualifiedName))
+                .map(TestTypeSnapshotBench::project)
+                .collect(Collectors.joining("\n")));
+        assertTrue(Files.size(file) > truncated.length, "the snapshot is written again");
+    }
+}
@@ -28,18 +28,22 @@ import org.objectweb.asm.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URI;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 
 
 /*
 The ByteCodeInspectorImpl is used as a singleton.
-Its access is protected in CompiledTypesManager
+Its access is protected in CompiledTypesManager: loads are serialized on this object.
+Only the reading of class files happens outside that monitor, see prefetch().
 */
 public class ByteCodeInspectorImpl implements ByteCodeInspector, LocalTypeMap {
     private static final Logger LOGGER = LoggerFactory.getLogger(ByteCodeInspectorImpl.class);
@@ -90,6 +94,13 @@ public class ByteCodeInspectorImpl implements ByteCodeInspector, LocalTypeMap {
     private final MessageDigest md;
     private final boolean allowCreationOfStubTypes;
     private final Map<String, Integer> duplicateWarnings = new ConcurrentHashMap<String, Integer>();
+    /*
+    Class files read ahead of their load, keyed by URI. Reading and inflating a jar or jmod entry does not touch
+    the type universe, so concurrent requests for different types read in parallel, and concurrent requests for the
+    same type read once. Building the TypeInfo stays serialized: the visitors load super types and nested types
+    recursively, through registries that are not thread-safe.
+     */
+    private final Map<URI, CompletableFuture<byte[]>> prefetchedClassBytes = new ConcurrentHashMap<>();
 
     public ByteCodeInspectorImpl(Runtime runtime,
                                  CompiledTypesManager compiledTypesManager,
@@ -191,8 +202,13 @@ public class ByteCodeInspectorImpl implements ByteCodeInspector, LocalTypeMap {
         typeData.updateByteCodeInspectorData(new DataImpl(newStatus, new TypeParameterContextImpl()));
         if (!typeInfo1.haveOnDemandInspection()) {
             typeInfo1.setOnDemandInspection(_ -> {
-                synchronized (ByteCodeInspectorImpl.this) {
-                    inspectFromPath(typeData, sourceSetOfRequest, LoadMode.NOW);
+                boolean prefetched = prefetch(typeData);
+                try {
+                    synchronized (ByteCodeInspectorImpl.this) {
+                        inspectFromPath(typeData, sourceSetOfRequest, LoadMode.NOW);
+                    }
+                } finally {
+                    if (prefetched) discardPrefetched(typeData);
                 }
             });
         }
@@ -242,7 +258,7 @@ public class ByteCodeInspectorImpl implements ByteCodeInspector, LocalTypeMap {
         assert typeData.byteCodeInspectorData().status() != Status.DONE;
         typeData.updateByteCodeInspectorData(new DataImpl(Status.BEING_LOADED, typeParameterContext));
         try {
-            byte[] classBytes = compiledTypesManager.classPath().loadBytes(typeData.sourceFile().uri());
+            byte[] classBytes = classBytes(typeData.sourceFile().uri());
             if (classBytes == null) {
                 return null;
             }
@@ -270,6 +286,39 @@ public class ByteCodeInspectorImpl implements ByteCodeInspector, LocalTypeMap {
         }
     }
 
+    // reading happens in the calling thread, which holds no lock: see prefetchedClassBytes
+    @Override
+    public boolean prefetch(CompiledTypesManager.TypeData typeData) {
+        Data data = typeData.byteCodeInspectorData(); // read without the monitor: a hint only
+        if (data == null || data.status() == Status.DONE || data.status() == Status.BEING_LOADED) return false;
+        URI uri = typeData.sourceFile().uri();
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        if (prefetchedClassBytes.putIfAbsent(uri, mine) != null) return false;
+        try {
+            mine.complete(compiledTypesManager.classPath().loadBytes(uri));
+        } catch (RuntimeException re) {
+            mine.completeExceptionally(re);
+        }
+        return true;
+    }
+
+    @Override
+    public void discardPrefetched(CompiledTypesManager.TypeData typeData) {
+        prefetchedClassBytes.remove(typeData.sourceFile().uri());
+    }
+
+    // may wait for a read in progress in another thread; that thread does not need our monitor to finish it
+    private byte[] classBytes(URI uri) {
+        CompletableFuture<byte[]> prefetched = prefetchedClassBytes.remove(uri);
+        if (prefetched == null) return compiledTypesManager.classPath().loadBytes(uri);
+        try {
+            return prefetched.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) throw re;
+            throw ce;
+        }
+    }
+
     private FingerPrint makeFingerPrint(byte[] classBytes) {
         if (md == null) return MD5FingerPrint.NO_FINGERPRINT;
         synchronized (md) {
@@ -149,14 +149,7 @@ public class ScanCompilationUnits {
         if (!runtime.objectTypeInfo().hasBeenInspected()) {
             preloads = new LinkedList<>(indexJavaLangForJavaDocParsing());
             for (String modulePackage : packagesToPreload) {
-                int sep = modulePackage.indexOf("::");
-                if (sep < 0) {
-                    preloads.addAll(preloadClassPath(modulePackage));
-                } else {
-                    String module = modulePackage.substring(0, sep);
-                    String packageName = modulePackage.substring(sep + 2);
-                    preloads.addAll(preloadJdk(module, packageName));
-                }
+                preloads.addAll(preloadPackage(modulePackage));
             }
         } else {
             preloads = List.of();
@@ -555,6 +548,19 @@ public class ScanCompilationUnits {
         return list;
     }
 
+    /**
+     * Preload one package on this scan's task: {@code module::package} from the system modules (the JDK), otherwise
+     * from the class path; a trailing dot includes the subpackages. Returns the loaded types, nested ones included.
+     * Single-threaded, like all javac use here.
+     */
+    public List<TypeInfo> preloadPackage(String modulePackage) throws IOException {
+        int sep = modulePackage.indexOf("::");
+        if (sep < 0) return preloadClassPath(modulePackage);
+        String module = modulePackage.substring(0, sep);
+        String packageName = modulePackage.substring(sep + 2);
+        return preloadJdk(module, packageName);
+    }
+
     // preload a package from a named module on the system module path (the JDK)
     private List<TypeInfo> preloadJdk(String module, String packageName) throws IOException {
         JavaFileManager fm = ((BasicJavacTask) task).getContext().get(JavaFileManager.class);
@@ -25,6 +25,7 @@ dependencies {
     implementation(project(":maddi-graph"))
     implementation(project(":maddi-util"))
     implementation(project(":maddi-cst-analysis"))
+    implementation(project(":maddi-cst-impl"))
     implementation(project(":maddi-modification-common"))
     implementation(project(":maddi-modification-prepwork"))
     implementation(project(":maddi-modification-link"))
@@ -20,5 +20,15 @@ import java.util.List;
 
 public interface AbstractMethodAnalyzer  {
 
-    void go(boolean firstIteration, List<MethodInfo> abstractMethods);
+    /**
+     * Derive one abstract method's values from its concrete implementations. Abstract methods never read each
+     * other's values, so calls for different methods may run concurrently.
+     */
+    void go(boolean firstIteration, MethodInfo abstractMethod);
+
+    default void go(boolean firstIteration, List<MethodInfo> abstractMethods) {
+        for (MethodInfo abstractMethod : abstractMethods) {
+            go(firstIteration, abstractMethod);
+        }
+    }
 }
@@ -0,0 +1,336 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.codelaser.maddi.modification.analyzer;
+
+import io.codelaser.maddi.cst.api.info.FieldInfo;
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.impl.expression.eval.EvalBudget;
+import io.codelaser.maddi.modification.link.impl.LinkComputerImpl;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where the time of a multi-hour run goes, per element: wall time, allocation, fixpoint-engine work and
+ * evaluation work of each element of the analysis order, per {@link Phase}, summed over all iterations.
+ * The {@code Phase timing} and {@code Slowest elements} log lines give totals and the top of one worklist
+ * pass; this answers which types dominate the whole run, and in which analyzer.
+ *
+ * <p>Measurements are per thread, taken around the element's work on the worker that runs it: everything
+ * that happens inside is attributed to that element, including the linking of callees the link computer
+ * does on demand. The abstract-method batch (sequential post-loop) is recorded in the phase totals only.
+ * The counters:
+ * <ul>
+ *     <li>{@code nanos}: wall time;</li>
+ *     <li>{@code allocatedBytes}: {@link com.sun.management.ThreadMXBean#getCurrentThreadAllocatedBytes()},
+ *     0 where the JVM does not support it;</li>
+ *     <li>{@code engineWork}: edge visits of the link fixpoint engines
+ *     ({@link LinkComputerImpl#engineWorkOnThisThread()}), the unit of the work ceiling;</li>
+ *     <li>{@code evalWork}: And/Or evaluation entries ({@link EvalBudget#consumed()}).</li>
+ * </ul>
+ * Each measurement is also emitted as a JFR event ({@code maddi.ElementAnalysis}), for when a recording runs:
+ * then it lines up with the GC and allocation events of the same interval.
+ *
+ * <p>Off unless one is given to {@code IteratingAnalyzerImpl.setProfiler}; {@link #writeJson} exports the
+ * aggregate, {@link #hotSpots} is the short report for the log.
+ */
+public class AnalysisProfiler {
+
+    public enum Phase {
+        /** source contracts and the link computer, for a method */
+        LINK,
+        /** source contracts, dynamic immutability and the field analyzer, for a field */
+        FIELD,
+        /** the modification/independence, independence, immutable and container analyzers of a type */
+        TYPE,
+        /** the eventual analyzer of a type, and the static side effect analyzer after it (env SSE) */
+        EVENTUAL,
+        /** the abstract method analyzer */
+        ABSTRACT
+    }
+
+    /** The thread's counters at the start of a measurement. */
+    public record Mark(long nanos, long allocatedBytes, long engineWork, long evalWork, ElementAnalysisEvent event) {
+    }
+
+    /** Totals of one element, or of one phase, over all iterations. */
+    public static final class Counters {
+        private long calls;
+        private long nanos;
+        private long allocatedBytes;
+        private long engineWork;
+        private long evalWork;
+
+        private void add(long nanos, long allocatedBytes, long engineWork, long evalWork) {
+            calls++;
+            this.nanos += nanos;
+            this.allocatedBytes += allocatedBytes;
+            this.engineWork += engineWork;
+            this.evalWork += evalWork;
+        }
+
+        private void add(Counters other) {
+            calls += other.calls;
+            nanos += other.nanos;
+            allocatedBytes += other.allocatedBytes;
+            engineWork += other.engineWork;
+            evalWork += other.evalWork;
+        }
+
+        public long calls() {
+            return calls;
+        }
+
+        public long nanos() {
+            return nanos;
+        }
+
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long engineWork() {
+            return engineWork;
+        }
+
+        public long evalWork() {
+            return evalWork;
+        }
+
+        private String json() {
+            return "{\"calls\":" + calls + ",\"nanos\":" + nanos + ",\"allocatedBytes\":" + allocatedBytes
+                   + ",\"engineWork\":" + engineWork + ",\"evalWork\":" + evalWork + "}";
+        }
+    }
+
+    @Name("maddi.ElementAnalysis")
+    @Label("Element analysis")
+    @Category({"maddi", "Analysis"})
+    @Description("The analysis of one element of the analysis order, in one phase")
+    @StackTrace(false)
+    public static class ElementAnalysisEvent extends Event {
+        @Label("Element")
+        String element;
+        @Label("Phase")
+        String phase;
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+        @Label("Engine work")
+        long engineWork;
+        @Label("Evaluation work")
+        long evalWork;
+    }
+
+    // per element, one Counters per phase it went through; synchronized on the map
+    private final Map<Info, EnumMap<Phase, Counters>> elements = new ConcurrentHashMap<>();
+    private final EnumMap<Phase, Counters> phases = new EnumMap<>(Phase.class);
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    public AnalysisProfiler() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        threadMXBean = bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()
+                       && sun.isThreadAllocatedMemoryEnabled() ? sun : null;
+        for (Phase phase : Phase.values()) phases.put(phase, new Counters());
+    }
+
+    private long allocatedBytes() {
+        return threadMXBean == null ? 0 : threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /** Start a measurement on this thread; pair with {@link #record}. */
+    public Mark mark() {
+        ElementAnalysisEvent event = new ElementAnalysisEvent();
+        event.begin();
+        return new Mark(System.nanoTime(), allocatedBytes(), LinkComputerImpl.engineWorkOnThisThread(),
+                EvalBudget.consumed(), event);
+    }
+
+    /**
+     * End the measurement started by {@code mark}, on the same thread, and add it to {@code info} (null: the
+     * phase totals only).
+     */
+    public void record(Info info, Phase phase, Mark mark) {
+        long nanos = System.nanoTime() - mark.nanos;
+        long allocated = allocatedBytes() - mark.allocatedBytes;
+        long engineWork = LinkComputerImpl.engineWorkOnThisThread() - mark.engineWork;
+        long evalWork = EvalBudget.consumed() - mark.evalWork;
+        if (info != null) {
+            EnumMap<Phase, Counters> map = elements.computeIfAbsent(info, _ -> new EnumMap<>(Phase.class));
+            synchronized (map) {
+                map.computeIfAbsent(phase, _ -> new Counters()).add(nanos, allocated, engineWork, evalWork);
+            }
+        }
+        synchronized (phases) {
+            phases.get(phase).add(nanos, allocated, engineWork, evalWork);
+        }
+        ElementAnalysisEvent event = mark.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.element = info == null ? "-" : info.fullyQualifiedName();
+            event.phase = phase.name();
+            event.allocatedBytes = allocated;
+            event.engineWork = engineWork;
+            event.evalWork = evalWork;
+            event.commit();
+        }
+    }
+
+    /** The totals of an element, over all its phases and iterations; null when it was not measured. */
+    public Counters element(Info info) {
+        EnumMap<Phase, Counters> map = elements.get(info);
+        if (map == null) return null;
+        Counters sum = new Counters();
+        synchronized (map) {
+            map.values().forEach(sum::add);
+        }
+        return sum;
+    }
+
+    /** The totals of a phase, over all elements and iterations, the abstract batch included. */
+    public Counters phase(Phase phase) {
+        synchronized (phases) {
+            Counters copy = new Counters();
+            copy.add(phases.get(phase));
+            return copy;
+        }
+    }
+
+    private record Row(Info info, Counters total, EnumMap<Phase, Counters> phases) {
+    }
+
+    // all measured elements, most expensive (wall time) first
+    private List<Row> rows() {
+        List<Row> rows = new ArrayList<>(elements.size());
+        elements.forEach((info, map) -> {
+            EnumMap<Phase, Counters> copy = new EnumMap<>(Phase.class);
+            Counters total = new Counters();
+            synchronized (map) {
+                map.forEach((phase, c) -> {
+                    Counters cc = new Counters();
+                    cc.add(c);
+                    copy.put(phase, cc);
+                    total.add(c);
+                });
+            }
+            rows.add(new Row(info, total, copy));
+        });
+        rows.sort(Comparator.comparingLong((Row r) -> r.total.nanos).reversed()
+                .thenComparing(r -> r.info.fullyQualifiedName()));
+        return rows;
+    }
+
+    /**
+     * The {@code n} most expensive elements, and the primary types their cost adds up to, one per line.
+     */
+    public String hotSpots(int n) {
+        List<Row> rows = rows();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Profile: ").append(rows.size()).append(" elements;");
+        for (Phase phase : Phase.values()) {
+            Counters c = phase(phase);
+            sb.append(' ').append(phase).append(' ').append(c.nanos / 1_000_000).append(" ms");
+        }
+        sb.append("\nHottest elements:");
+        rows.stream().limit(n).forEach(r -> sb.append("\n  ").append(line(r.info.fullyQualifiedName(), r.total)));
+        Map<String, Counters> byType = new java.util.HashMap<>();
+        for (Row row : rows) {
+            Info info = row.info;
+            String type = info.typeInfo() == null ? info.fullyQualifiedName()
+                    : info.typeInfo().primaryType().fullyQualifiedName();
+            byType.computeIfAbsent(type, _ -> new Counters()).add(row.total);
+        }
+        sb.append("\nHottest primary types:");
+        byType.entrySet().stream()
+                .sorted(Map.Entry.<String, Counters>comparingByValue(Comparator.comparingLong(c -> c.nanos))
+                        .reversed())
+                .limit(n)
+                .forEach(e -> sb.append("\n  ").append(line(e.getKey(), e.getValue())));
+        return sb.toString();
+    }
+
+    private static String line(String name, Counters c) {
+        return String.format("%,d ms  %,d MB  engine %,d  eval %,d  x%d  %s", c.nanos / 1_000_000,
+                c.allocatedBytes / (1024 * 1024), c.engineWork, c.evalWork, c.calls, name);
+    }
+
+    /**
+     * Write the aggregate as one JSON object: the phase totals, and every measured element, most expensive
+     * first, with its totals and its phases.
+     */
+    public void writeJson(Path file) throws IOException {
+        List<Row> rows = rows();
+        try (Writer w = Files.newBufferedWriter(file)) {
+            w.write("{\"phases\":{");
+            boolean first = true;
+            for (Phase phase : Phase.values()) {
+                if (!first) w.write(',');
+                first = false;
+                w.write('"' + phase.name() + "\":" + phase(phase).json());
+            }
+            w.write("},\n\"elements\":[");
+            first = true;
+            for (Row row : rows) {
+                w.write(first ? "\n" : ",\n");
+                first = false;
+                w.write("{\"element\":" + quote(row.info.fullyQualifiedName()) + ",\"kind\":\"" + kind(row.info)
+                        + "\",\"total\":" + row.total.json() + ",\"phases\":{");
+                boolean firstPhase = true;
+                for (Map.Entry<Phase, Counters> e : row.phases.entrySet()) {
+                    if (!firstPhase) w.write(',');
+                    firstPhase = false;
+                    w.write('"' + e.getKey().name() + "\":" + e.getValue().json());
+                }
+                w.write("}}");
+            }
+            w.write("\n]}\n");
+        }
+    }
+
+    private static String kind(Info info) {
+        return info instanceof MethodInfo ? "method" : info instanceof FieldInfo ? "field" : "type";
+    }
+
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (char c : s.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -16,7 +16,9 @@ package io.codelaser.maddi.modification.analyzer;
 
 import io.codelaser.maddi.modification.prepwork.io.WriteAnalysisResults;
 import io.codelaser.maddi.cst.api.analysis.Codec;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
 import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
 import io.codelaser.maddi.cst.api.info.TypeInfo;
 import io.codelaser.maddi.cst.api.runtime.Runtime;
 import io.codelaser.maddi.util.Trie;
@@ -26,9 +28,17 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Checkpoint half of task #34 (checkpoint/resume v1): an {@link AnalysisValueFeed} that persists the
@@ -48,21 +58,44 @@ import java.util.Set;
  *
  * <p>Exceptions thrown here are swallowed by the analyzer's feed guard: a checkpoint IO failure
  * degrades the checkpoint, never the analysis.
+ *
+ * <p>Asynchronous mode (a positive queue capacity): at the barrier, each primary type's values are only
+ * snapshotted (the property maps are immutable snapshots already, so this is a list per element); the encode
+ * and the write happen on one background thread, so the coordinator does not hold the strata workers while
+ * the checkpoint flushes. The queue holds at most that many primary types: when the writer falls behind, the
+ * coordinator blocks until there is room, which bounds the memory of the snapshots. One thread in FIFO order
+ * means a later delta of a type still overwrites an earlier one. The files are exactly those of the
+ * synchronous mode, moved in place atomically one by one. {@link #close} drains the queue; the terminal
+ * marker is only written once everything before it is on disk.
  */
-public class CheckpointWriter implements AnalysisValueFeed {
+public class CheckpointWriter implements AnalysisValueFeed, AutoCloseable {
     private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointWriter.class);
 
     private final Runtime runtime;
     private final java.util.function.Supplier<Codec> codecSupplier;
     private final File directory;
     private final long waveFlushIntervalMillis;
-    private int typesWritten;
+    // written by the writer thread in asynchronous mode
+    private final AtomicInteger typesWritten = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
     // wave-boundary protection for the multi-hour FIRST pass (see waveCompleted): primaries of
     // completed waves accumulate here and flush at most once per interval. Coordinator thread only.
     private final Set<TypeInfo> pendingWavePrimaries = new LinkedHashSet<>();
     private long lastWaveFlush = System.currentTimeMillis();
 
-    private static final long DEFAULT_WAVE_FLUSH_INTERVAL_MILLIS = 60_000;
+    public static final long DEFAULT_WAVE_FLUSH_INTERVAL_MILLIS = 60_000;
+
+    // asynchronous mode; null when synchronous
+    private final BlockingQueue<Job> queue;
+    private final Thread writerThread;
+    private int peakQueueDepth;
+    private long blockedNanos;
+
+    /** One primary type to encode and write, with the values of its elements at the barrier. */
+    private record Job(TypeInfo primary, Map<Info, List<PropertyValueMap.PropertyValue>> values, String label) {
+    }
+
+    private static final Job END = new Job(null, null, null);
 
     /**
      * codecSupplier: a FRESH codec per type-write. A codec instance registers marker-variable
@@ -76,6 +109,15 @@ public class CheckpointWriter implements AnalysisValueFeed {
 
     public CheckpointWriter(Runtime runtime, java.util.function.Supplier<Codec> codecSupplier, File directory,
                             long waveFlushIntervalMillis) {
+        this(runtime, codecSupplier, directory, waveFlushIntervalMillis, 0);
+    }
+
+    /**
+     * @param queueCapacity 0: write synchronously, on the caller's thread; positive: asynchronous mode, with at
+     *                      most this many primary types waiting to be written
+     */
+    public CheckpointWriter(Runtime runtime, java.util.function.Supplier<Codec> codecSupplier, File directory,
+                            long waveFlushIntervalMillis, int queueCapacity) {
         this.runtime = runtime;
         this.codecSupplier = codecSupplier;
         this.directory = directory;
@@ -83,6 +125,13 @@ public class CheckpointWriter implements AnalysisValueFeed {
         if (directory.mkdirs()) {
             LOGGER.debug("Created checkpoint directory {}", directory);
         }
+        if (queueCapacity > 0) {
+            queue = new ArrayBlockingQueue<>(queueCapacity);
+            writerThread = Thread.ofPlatform().name("checkpoint-writer").daemon().start(this::writerLoop);
+        } else {
+            queue = null;
+            writerThread = null;
+        }
     }
 
     @Override
@@ -101,6 +150,10 @@ public class CheckpointWriter implements AnalysisValueFeed {
      * most needs protecting. Wave barriers are safe emission points; a time throttle batches the
      * (typically many, small) waves so a primary type whose elements span several waves is not
      * rewritten per wave. Values are provisional but monotone; the pass-boundary write supersedes.
+     *
+     * <p>Call this only when no worker is analyzing: both modes read the values of whole primary types, and the
+     * asynchronous one snapshots them right here. The analyzer keeps its wave barriers while a feed is set (no
+     * dependency-driven scheduling then), so its callback always fires with quiescent workers.
      */
     @Override
     public void waveCompleted(int iteration, int wave, Collection<Info> analyzed) {
@@ -123,46 +176,136 @@ public class CheckpointWriter implements AnalysisValueFeed {
     }
 
     private void write(Set<TypeInfo> primaries, String label) {
+        if (queue != null && writerThread.isAlive()) { // after close, synchronous again
+            enqueue(primaries, label);
+            return;
+        }
         // write PER TYPE so one unencodable type (mid-iteration values can trip codec asserts) costs
         // only itself, not the whole pass; and via a temp dir + atomic move, so a mid-encode crash
         // never leaves a truncated file in the checkpoint. Missing types are re-analyzed on resume.
         int ok = 0, failed = 0;
         for (TypeInfo primary : primaries) {
-            Trie<TypeInfo> trie = new Trie<>();
-            trie.add(primary.fullyQualifiedName().split("\\."), primary);
-            java.nio.file.Path tmpDir = null;
-            try {
-                tmpDir = Files.createTempDirectory(directory.toPath(), ".w");
-                new WriteAnalysisResults(runtime).write(tmpDir.toFile(), trie, codecSupplier.get());
-                try (var files = Files.walk(tmpDir).filter(p -> p.toString().endsWith(".json"))) {
-                    for (java.nio.file.Path p : files.toList()) {
-                        Files.move(p, directory.toPath().resolve(p.getFileName()),
-                                java.nio.file.StandardCopyOption.ATOMIC_MOVE,
-                                java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                    }
+            if (writeOne(primary, null, label)) ok++;
+            else failed++;
+        }
+        LOGGER.info("Checkpoint after {}: wrote {} primary type(s) ({} skipped), {} cumulative",
+                label, ok, failed, typesWritten.get());
+    }
+
+    // values == null: read the live property maps
+    private boolean writeOne(TypeInfo primary, Map<Info, List<PropertyValueMap.PropertyValue>> values, String label) {
+        Trie<TypeInfo> trie = new Trie<>();
+        trie.add(primary.fullyQualifiedName().split("\\."), primary);
+        Path tmpDir = null;
+        try {
+            tmpDir = Files.createTempDirectory(directory.toPath(), ".w");
+            WriteAnalysisResults writeAnalysisResults = values == null ? new WriteAnalysisResults(runtime)
+                    : new WriteAnalysisResults(runtime, _ -> true, _ -> true,
+                    info -> values.getOrDefault(info, List.of()).stream());
+            writeAnalysisResults.write(tmpDir.toFile(), trie, codecSupplier.get());
+            long bytes = 0;
+            try (var files = Files.walk(tmpDir).filter(p -> p.toString().endsWith(".json"))) {
+                for (Path p : files.toList()) {
+                    bytes += Files.size(p);
+                    Files.move(p, directory.toPath().resolve(p.getFileName()),
+                            java.nio.file.StandardCopyOption.ATOMIC_MOVE,
+                            java.nio.file.StandardCopyOption.REPLACE_EXISTING);
                 }
-                ok++;
-            } catch (IOException | RuntimeException | AssertionError | StackOverflowError e) {
-                failed++;
-                LOGGER.debug("Checkpoint skip {} after {}: {}", primary, label, e.toString());
-            } finally {
-                if (tmpDir != null) {
-                    try (var leftovers = Files.walk(tmpDir).sorted(java.util.Comparator.reverseOrder())) {
-                        for (java.nio.file.Path p : leftovers.toList()) Files.deleteIfExists(p);
-                    } catch (IOException ignored) {
-                        // temp-dir cleanup is best-effort
-                    }
+            }
+            typesWritten.incrementAndGet();
+            bytesWritten.addAndGet(bytes);
+            return true;
+        } catch (IOException | RuntimeException | AssertionError | StackOverflowError e) {
+            LOGGER.debug("Checkpoint skip {} after {}: {}", primary, label, e.toString());
+            return false;
+        } finally {
+            if (tmpDir != null) {
+                try (var leftovers = Files.walk(tmpDir).sorted(java.util.Comparator.reverseOrder())) {
+                    for (Path p : leftovers.toList()) Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                    // temp-dir cleanup is best-effort
                 }
             }
         }
-        typesWritten += ok;
-        LOGGER.info("Checkpoint after {}: wrote {} primary type(s) ({} skipped), {} cumulative",
-                label, ok, failed, typesWritten);
+    }
+
+    // coordinator thread: snapshot, then hand over; blocks while the queue is full
+    private void enqueue(Set<TypeInfo> primaries, String label) {
+        long start = System.nanoTime();
+        long blocked = 0;
+        for (TypeInfo primary : primaries) {
+            Job job = new Job(primary, snapshot(primary), label);
+            if (!queue.offer(job)) {
+                long t0 = System.nanoTime();
+                try {
+                    queue.put(job);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.warn("Checkpoint after {}: interrupted, remaining types not queued", label);
+                    break;
+                }
+                blocked += System.nanoTime() - t0;
+            }
+            peakQueueDepth = Math.max(peakQueueDepth, queue.size());
+        }
+        blockedNanos += blocked;
+        LOGGER.info("Checkpoint after {}: queued {} primary type(s) in {} ms ({} ms blocked), queue depth {} "
+                    + "(peak {}), {} type(s) and {} KB written so far", label, primaries.size(),
+                (System.nanoTime() - start) / 1_000_000, blocked / 1_000_000, queue.size(), peakQueueDepth,
+                typesWritten.get(), bytesWritten.get() / 1024);
+    }
+
+    // the values WriteAnalysisResults reads: the type, its nested types, fields, methods and parameters
+    private static Map<Info, List<PropertyValueMap.PropertyValue>> snapshot(TypeInfo primary) {
+        Map<Info, List<PropertyValueMap.PropertyValue>> values = new HashMap<>();
+        primary.recursiveSubTypeStream().forEach(typeInfo -> {
+            values.put(typeInfo, typeInfo.analysis().propertyValueStream().toList());
+            typeInfo.fields().forEach(f -> values.put(f, f.analysis().propertyValueStream().toList()));
+            typeInfo.constructorAndMethodStream().forEach(mi -> snapshot(mi, values));
+        });
+        return values;
+    }
+
+    private static void snapshot(MethodInfo methodInfo, Map<Info, List<PropertyValueMap.PropertyValue>> values) {
+        values.put(methodInfo, methodInfo.analysis().propertyValueStream().toList());
+        methodInfo.parameters().forEach(p -> values.put(p, p.analysis().propertyValueStream().toList()));
+    }
+
+    private void writerLoop() {
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == END) return;
+            writeOne(job.primary, job.values, job.label);
+        }
+    }
+
+    /**
+     * Asynchronous mode: wait until everything queued so far is on disk, then stop the writer thread. A no-op
+     * in synchronous mode, and when already closed.
+     */
+    @Override
+    public void close() {
+        if (writerThread == null || !writerThread.isAlive()) return;
+        try {
+            queue.put(END);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        LOGGER.info("Checkpoint writer closed: {} type(s), {} KB written; peak queue depth {}, {} ms blocked",
+                typesWritten.get(), bytesWritten.get() / 1024, peakQueueDepth, blockedNanos / 1_000_000);
     }
 
     @Override
     public void phase(Phase phase, int iteration) {
         if (phase.name().startsWith("TERMINAL")) {
+            close(); // the marker says the checkpoint is complete: drain the queue first
             try {
                 Files.writeString(new File(directory, "checkpoint-terminal.txt").toPath(),
                         phase + " at iteration " + iteration + "\n");
@@ -173,6 +316,20 @@ public class CheckpointWriter implements AnalysisValueFeed {
     }
 
     public int typesWritten() {
-        return typesWritten;
+        return typesWritten.get();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /** Asynchronous mode: primary types waiting to be written. */
+    public int queueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    /** Asynchronous mode: the largest queue depth seen after queueing a type. */
+    public int peakQueueDepth() {
+        return peakQueueDepth;
     }
 }
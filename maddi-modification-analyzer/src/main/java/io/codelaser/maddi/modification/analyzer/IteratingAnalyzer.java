@@ -94,6 +94,28 @@ public interface IteratingAnalyzer {
         default boolean flattenVariableData() {
             return false;
         }
+
+        /**
+         * A soft heap budget in bytes for the statement-level {@code VariableData} that {@link #flattenVariableData()}
+         * evicts; 0 (the default) means no budget. With a budget, methods keep their full VD until the estimated
+         * total goes over it, and then the least recently used methods whose callers have all completed in the
+         * current pass are evicted first. A positive budget implies {@link #flattenVariableData()}, with the same
+         * restrictions.
+         */
+        default long variableDataBudget() {
+            return 0L;
+        }
+
+        /**
+         * When true, the certification at the end of a worklist run re-verifies only the elements whose inputs
+         * changed since their last analysis — the elements whose {@code analysis()} they touched, and their
+         * neighbours in the dependency graph — instead of running a full pass over the analysis order. The outcome,
+         * certified or not, is that of the full pass as long as an element's analysis is a function of those
+         * inputs. Only applies when analyzing with a dependency graph; off by default.
+         */
+        default boolean dependencyDrivenCertification() {
+            return false;
+        }
     }
 
     /**
@@ -30,7 +30,8 @@ public interface SingleIterationAnalyzer {
     /**
      * Like the 3-arg {@code go}, additionally providing dependency waves for a strata-parallel FIRST
      * iteration (see ComputeAnalysisOrder.waves): each wave's units run concurrently, units are sequential
-     * inside, waves are barriers. Ignored (delegates) by default or when null.
+     * inside, waves are barriers — or, when the implementation has the unit dependency DAG, each unit starts as
+     * soon as its own predecessors are done. Ignored (delegates) by default or when null.
      */
     default void go(List<Info> analysisOrder, boolean activateCycleBreaking, boolean firstIteration,
                     List<List<List<Info>>> firstIterationWaves) {
@@ -48,25 +48,23 @@ public class AbstractMethodAnalyzerImpl extends CommonAnalyzerImpl implements Ab
     }
 
     @Override
-    public void go(boolean firstIteration, List<MethodInfo> abstractMethods) {
-        for (MethodInfo methodInfo : abstractMethods) {
-            Value.SetOfMethodInfo implementations = methodInfo.analysis().getOrDefault(IMPLEMENTATIONS,
-                    ValueImpl.SetOfMethodInfoImpl.EMPTY);
-            if (implementations.isEmpty()) {
-                if (firstIteration) doMethodWithoutImplementation(methodInfo);
-            } else {
-                Iterable<MethodInfo> concreteImplementations = implementations.methodInfoSet();
-                for (ParameterInfo pi : methodInfo.parameters()) {
-                    unmodified(concreteImplementations, pi);
-                    independent(concreteImplementations, pi);
-                    collectDowncast(concreteImplementations, pi);
-                    if (EventualCluster.ENABLED) parameterEventuallyUnmodified(concreteImplementations, pi);
-                }
-                methodNonModifying(concreteImplementations, methodInfo);
-                methodIndependent(concreteImplementations, methodInfo);
-                methodEventual(concreteImplementations, methodInfo);
-                methodEventuallyNonModifying(concreteImplementations, methodInfo);
+    public void go(boolean firstIteration, MethodInfo methodInfo) {
+        Value.SetOfMethodInfo implementations = methodInfo.analysis().getOrDefault(IMPLEMENTATIONS,
+                ValueImpl.SetOfMethodInfoImpl.EMPTY);
+        if (implementations.isEmpty()) {
+            if (firstIteration) doMethodWithoutImplementation(methodInfo);
+        } else {
+            Iterable<MethodInfo> concreteImplementations = implementations.methodInfoSet();
+            for (ParameterInfo pi : methodInfo.parameters()) {
+                unmodified(concreteImplementations, pi);
+                independent(concreteImplementations, pi);
+                collectDowncast(concreteImplementations, pi);
+                if (EventualCluster.ENABLED) parameterEventuallyUnmodified(concreteImplementations, pi);
             }
+            methodNonModifying(concreteImplementations, methodInfo);
+            methodIndependent(concreteImplementations, methodInfo);
+            methodEventual(concreteImplementations, methodInfo);
+            methodEventuallyNonModifying(concreteImplementations, methodInfo);
         }
     }
 
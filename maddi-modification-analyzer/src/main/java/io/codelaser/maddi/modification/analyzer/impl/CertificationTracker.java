@@ -0,0 +1,180 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.codelaser.maddi.modification.analyzer.impl;
+
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Dependency-driven certification ({@code IteratingAnalyzer.Configuration#dependencyDrivenCertification}): when the
+ * worklist runs dry, re-verify only the elements whose inputs changed since their last analysis, instead of a full
+ * pass over the analysis order.
+ *
+ * <p>Versions are iteration numbers. An element's version is the last iteration in which it was analyzed; the
+ * version of what it reads is the last iteration in which that changed: by the iterating analyzer's own change
+ * attribution ({@code SingleIterationAnalyzer.changedInfos()}: the processed element whose counter moved, and the
+ * targets of TolerantWrite's value-changing writes), and by the maps that received a value, whoever wrote it
+ * ({@code ValueWriteRecorder}). The latter are resolved to their elements through the analysis order and the
+ * elements read, with their parameters. An element is stale when itself, or one of its inputs, changed in or after the
+ * iteration of its last analysis: within one iteration the order of a read and a write is unknown (parallel
+ * passes), so the same iteration counts as after.
+ *
+ * <p>The inputs of an element are the union of
+ * <ul>
+ *     <li>the elements whose {@code analysis()} it touched during any of its analyses, as recorded by the
+ *     {@code ConsumptionEdgeRecorder} — a superset of what its last analysis read;</li>
+ *     <li>its neighbours in the worklist's adjacency (the symmetric call graph, overrides and consumed summaries):
+ *     the field analyzer reads the statement-level links of its methods, which live outside {@code analysis()}
+ *     of any {@code Info}.</li>
+ * </ul>
+ * <p>Some iterations withhold writes, invisibly to the change count: a refused downgrade, which a full pass counts
+ * towards certification, and the eventual cluster's warm-up window, whose type-level writes depend on the iteration
+ * number rather than on the inputs. The elements last analyzed in such an iteration are re-verified too.
+ * <p>A zero-change pass over the stale elements certifies the same fixpoint a zero-change full pass does, provided an
+ * element's analysis is a function of these inputs; state read outside them (static caches, the cycle-breaking
+ * mode) is why every mode switch of the iterating analyzer still runs a full pass.
+ *
+ * <p>Not thread-safe: called by the iterating analyzer between passes.
+ */
+public class CertificationTracker {
+
+    /**
+     * @param reverified       the elements analyzed in the certification passes
+     * @param fullPassElements the elements full verification passes would have analyzed instead
+     */
+    public record Report(int passes, long reverified, long fullPassElements) {
+        @Override
+        public String toString() {
+            return passes + " certification pass(es): " + reverified + " element(s) re-verified instead of "
+                   + fullPassElements + " (" + (fullPassElements == 0 ? 0 : 100 * reverified / fullPassElements)
+                   + "%)";
+        }
+    }
+
+    private final Function<Info, Info> toOrderElement;
+    private final Map<Info, Integer> lastAnalyzed = new HashMap<>();
+    // keyed by the changed Info as attributed, and by its order element when that differs
+    private final Map<Info, Integer> lastChanged = new HashMap<>();
+    // written maps not resolved to an element yet
+    private final Map<PropertyValueMap, Integer> lastWritten = new IdentityHashMap<>();
+    private final Set<Integer> iterationsWithheldWrites = new HashSet<>();
+    private int passes;
+    private long reverified;
+    private long fullPassElements;
+
+    /**
+     * @param toOrderElement maps an {@code Info} to the element of the analysis order that analyzes it (an anonymous
+     *                       class's method to its enclosing method), or null when there is none
+     */
+    public CertificationTracker(Function<Info, Info> toOrderElement) {
+        this.toOrderElement = toOrderElement;
+    }
+
+    /**
+     * @param written the maps that received a new or changed value since the previous call
+     */
+    public void iterationCompleted(int iteration, Collection<Info> analyzed, Collection<Info> changed,
+                                   Collection<PropertyValueMap> written, boolean writesWithheld) {
+        for (Info info : analyzed) lastAnalyzed.put(info, iteration);
+        if (writesWithheld) iterationsWithheldWrites.add(iteration);
+        for (Info info : changed) changed(info, iteration);
+        for (PropertyValueMap map : written) lastWritten.put(map, iteration);
+    }
+
+    private void changed(Info info, int iteration) {
+        lastChanged.merge(info, iteration, Math::max);
+        Info orderElement = toOrderElement.apply(info);
+        if (orderElement != null && orderElement != info) lastChanged.merge(orderElement, iteration, Math::max);
+    }
+
+    private void resolveWritten(List<Info> analysisOrder, Map<Info, Set<Info>> reads) {
+        if (lastWritten.isEmpty()) return;
+        Map<PropertyValueMap, Info> owners = new IdentityHashMap<>();
+        analysisOrder.forEach(info -> addOwner(info, owners));
+        reads.values().forEach(consumed -> consumed.forEach(info -> addOwner(info, owners)));
+        lastWritten.entrySet().removeIf(e -> {
+            Info owner = owners.get(e.getKey());
+            if (owner != null) changed(owner, e.getValue());
+            return owner != null;
+        });
+    }
+
+    // a parameter's map belongs to its method, the element that analyzes it
+    private static void addOwner(Info info, Map<PropertyValueMap, Info> owners) {
+        owners.put(info.analysis(), info);
+        if (info instanceof MethodInfo methodInfo) {
+            methodInfo.parameters().forEach(pi -> owners.put(pi.analysis(), methodInfo));
+        }
+    }
+
+    /**
+     * @param adjacency the worklist's reverse adjacency, keyed by graph vertex
+     * @param reads     consumer to consumed elements, as recorded by the {@code ConsumptionEdgeRecorder}
+     * @return the elements of the analysis order to re-verify, in analysis order
+     */
+    public Set<Info> stale(List<Info> analysisOrder, Map<Info, Set<Info>> adjacency, Map<Info, Set<Info>> reads) {
+        resolveWritten(analysisOrder, reads);
+        Map<Info, Set<Info>> readers = new HashMap<>();
+        reads.forEach((consumer, consumed) -> {
+            Info c = toOrderElement.apply(consumer);
+            if (c == null) return;
+            for (Info read : consumed) {
+                readers.computeIfAbsent(read, _ -> new HashSet<>()).add(c);
+                Info r = toOrderElement.apply(read);
+                if (r != null && r != read) readers.computeIfAbsent(r, _ -> new HashSet<>()).add(c);
+            }
+        });
+        Set<Info> stale = new HashSet<>();
+        lastChanged.forEach((changed, iteration) -> {
+            markIfStale(changed, iteration, stale);
+            for (Info reader : readers.getOrDefault(changed, Set.of())) markIfStale(reader, iteration, stale);
+            for (Info neighbour : adjacency.getOrDefault(changed, Set.of())) {
+                markIfStale(neighbour, iteration, stale);
+            }
+        });
+        Set<Info> result = new LinkedHashSet<>();
+        for (Info info : analysisOrder) {
+            Integer analyzedIn = lastAnalyzed.get(info);
+            if (analyzedIn == null || stale.contains(info) || iterationsWithheldWrites.contains(analyzedIn)) {
+                result.add(info);
+            }
+        }
+        passes++;
+        reverified += result.size();
+        fullPassElements += analysisOrder.size();
+        return result;
+    }
+
+    private void markIfStale(Info info, int changedIn, Set<Info> stale) {
+        Info orderElement = toOrderElement.apply(info);
+        if (orderElement == null) return;
+        Integer analyzedIn = lastAnalyzed.get(orderElement);
+        if (analyzedIn != null && changedIn >= analyzedIn) stale.add(orderElement);
+    }
+
+    public Report report() {
+        return new Report(passes, reverified, fullPassElements);
+    }
+}
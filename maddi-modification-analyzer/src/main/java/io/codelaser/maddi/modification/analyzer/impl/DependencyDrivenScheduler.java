@@ -0,0 +1,191 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.analyzer.impl;
+
+import io.codelaser.maddi.cst.api.info.Info;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Dependency-driven alternative to the wave barriers of the strata-parallel first iteration. The units are
+ * those of {@code ComputeAnalysisOrder.waves}; each unit carries a countdown of its call-graph predecessors
+ * ({@code ComputeAnalysisOrder.unitPredecessors}) and is released the moment the last one finishes, rather
+ * than when its whole wave has. Released units are forked onto the finishing worker's own deque of a
+ * {@link ForkJoinPool}, so a caller typically runs right after its callee, and idle workers steal.
+ *
+ * <p>One slow unit now only holds up its own dependents, and the periphery of a giant SCC that does not
+ * depend on it runs alongside it instead of after it.
+ *
+ * <p>The wave callback is kept, in weakened form: wave {@code w} is reported (on the coordinator thread, in
+ * wave order) once all units of waves {@code 1..w} have finished. Units of later waves may still be running
+ * at that point — there is no barrier to make the workers quiescent. Consumers that need the strict barrier
+ * semantics select the wave scheduler (env WAVEBARRIERS).
+ *
+ * <p>The post-loop phases reuse it through {@link #ofOrder}: a sequential order, relaxed to the dependencies
+ * that order was there to respect.
+ */
+public class DependencyDrivenScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencyDrivenScheduler.class);
+
+    private final List<List<List<Info>>> waves;
+    private final List<List<Info>> units;
+    private final int[] waveOfUnit;
+    private final int[][] successors;
+    private final int[] predecessorCount;
+
+    /**
+     * @param waves            the first-iteration waves
+     * @param unitPredecessors per unit (numbered in wave order), the units it waits for; must only point into
+     *                         strictly earlier waves, as {@code ComputeAnalysisOrder.unitPredecessors} guarantees
+     */
+    public DependencyDrivenScheduler(List<List<List<Info>>> waves, int[][] unitPredecessors) {
+        this.waves = waves;
+        this.units = waves.stream().flatMap(List::stream).toList();
+        if (unitPredecessors.length != units.size()) {
+            throw new IllegalArgumentException("Have " + units.size() + " units, but predecessors for "
+                                               + unitPredecessors.length);
+        }
+        this.waveOfUnit = new int[units.size()];
+        int u = 0;
+        for (int w = 0; w < waves.size(); w++) {
+            for (int i = 0; i < waves.get(w).size(); i++) waveOfUnit[u++] = w;
+        }
+        this.predecessorCount = new int[units.size()];
+        int[] successorCount = new int[units.size()];
+        for (int i = 0; i < unitPredecessors.length; i++) {
+            for (int p : unitPredecessors[i]) {
+                if (waveOfUnit[p] >= waveOfUnit[i]) {
+                    throw new IllegalArgumentException("Unit " + i + " waits for unit " + p + " of a later wave");
+                }
+                predecessorCount[i]++;
+                successorCount[p]++;
+            }
+        }
+        this.successors = new int[units.size()][];
+        for (int i = 0; i < successors.length; i++) successors[i] = new int[successorCount[i]];
+        int[] fill = new int[units.size()];
+        for (int i = 0; i < unitPredecessors.length; i++) {
+            for (int p : unitPredecessors[i]) successors[p][fill[p]++] = i;
+        }
+    }
+
+    /**
+     * A schedule over single elements that would otherwise run sequentially in the given order: each element
+     * is its own unit and its own wave, so it may only wait for elements at lower positions.
+     *
+     * @param predecessors per element, the positions of the elements it waits for; null when there are none
+     */
+    public static DependencyDrivenScheduler ofOrder(List<? extends Info> elements, int[][] predecessors) {
+        List<List<List<Info>>> waves = elements.stream().map(i -> List.<List<Info>>of(List.of(i))).toList();
+        return new DependencyDrivenScheduler(waves, predecessors == null ? new int[elements.size()][0]
+                : predecessors);
+    }
+
+    public int units() {
+        return units.size();
+    }
+
+    /** Units that can start immediately: the roots of the DAG. */
+    public int roots() {
+        int roots = 0;
+        for (int count : predecessorCount) if (count == 0) roots++;
+        return roots;
+    }
+
+    /**
+     * Run all units, blocking until done. The elements of a unit are processed in order on one thread.
+     *
+     * @param threads        the parallelism of the pool
+     * @param processElement the per-element work; an exception escaping it aborts the schedule (units not
+     *                       yet started are not started) and is rethrown here, on the calling thread
+     * @param waveCompleted  optional, called on the calling thread with the elements and the 1-based index
+     *                       of each wave whose prefix has completed. Units of later waves may still be
+     *                       running: this is progress, not a barrier
+     */
+    public void run(int threads, Consumer<Info> processElement, ObjIntConsumer<Collection<Info>> waveCompleted) {
+        AtomicIntegerArray pending = new AtomicIntegerArray(predecessorCount);
+        int[] unitsPerWave = new int[waves.size()];
+        for (int w = 0; w < waves.size(); w++) unitsPerWave[w] = waves.get(w).size();
+        AtomicIntegerArray remainingInWave = new AtomicIntegerArray(unitsPerWave);
+        // completed wave indices (Integer) or the first failure (Throwable), consumed by the calling thread
+        LinkedBlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        final class UnitTask extends RecursiveAction {
+            private final int unit;
+
+            UnitTask(int unit) {
+                this.unit = unit;
+            }
+
+            @Override
+            protected void compute() {
+                if (failure.get() != null) return;
+                try {
+                    for (Info info : units.get(unit)) processElement.accept(info);
+                } catch (RuntimeException | Error e) {
+                    if (failure.compareAndSet(null, e)) events.add(e);
+                    return;
+                }
+                for (int successor : successors[unit]) {
+                    // LIFO on this worker's deque: the caller runs next, while its callee's values are hot
+                    if (pending.decrementAndGet(successor) == 0) new UnitTask(successor).fork();
+                }
+                int wave = waveOfUnit[unit];
+                if (remainingInWave.decrementAndGet(wave) == 0) events.add(wave);
+            }
+        }
+
+        boolean[] waveDone = new boolean[waves.size()];
+        int nextWave = 0;
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            for (int u = 0; u < units.size(); u++) {
+                if (predecessorCount[u] == 0) pool.execute(new UnitTask(u));
+            }
+            while (nextWave < waves.size()) {
+                Object event = events.take();
+                if (event instanceof Throwable t) {
+                    pool.shutdownNow();
+                    if (t instanceof RuntimeException re) throw re;
+                    throw (Error) t;
+                }
+                waveDone[(Integer) event] = true;
+                while (nextWave < waves.size() && waveDone[nextWave]) {
+                    if (waveCompleted != null) {
+                        List<Info> waveElements = new ArrayList<>();
+                        waves.get(nextWave).forEach(waveElements::addAll);
+                        waveCompleted.accept(waveElements, nextWave + 1);
+                    }
+                    nextWave++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        LOGGER.debug("Dependency-driven schedule complete: {} units over {} waves", units.size(), waves.size());
+    }
+}
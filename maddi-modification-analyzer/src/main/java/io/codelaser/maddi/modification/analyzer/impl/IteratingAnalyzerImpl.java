@@ -50,6 +50,34 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         this.valueFeed = feed;
     }
 
+    // > 0: the first iteration runs over the dependency waves on this many threads, whatever PARALLEL and the size
+    // of the analysis order (tests of a feed during a parallel first iteration); otherwise PARALLEL decides
+    private int firstIterationThreads;
+
+    public void setFirstIterationThreads(int firstIterationThreads) {
+        this.firstIterationThreads = firstIterationThreads;
+    }
+
+    private io.codelaser.maddi.modification.analyzer.AnalysisProfiler profiler;
+
+    /**
+     * Profile every element of the next {@link #analyze}, over all its iterations, into {@code profiler}; null
+     * (the default) switches profiling off.
+     */
+    public void setProfiler(io.codelaser.maddi.modification.analyzer.AnalysisProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    private io.codelaser.maddi.modification.link.io.LinkSummaryCache linkSummaryCache;
+
+    /**
+     * Take source-method link summaries from, and store them into, a cross-run cache; null (the default) computes
+     * every summary.
+     */
+    public void setLinkSummaryCache(io.codelaser.maddi.modification.link.io.LinkSummaryCache linkSummaryCache) {
+        this.linkSummaryCache = linkSummaryCache;
+    }
+
     // task #35 phase C: consumption edges PERSISTED by a previous run (consumed element -> its
     // consumers), unioned into the worklist's wake relation. They close the value-mediated-flow
     // gap on resume: an edge discovered DURING the prior run (functional-interface application,
@@ -89,7 +117,9 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                                     boolean warnNearMisses,
                                     NearMissPolicy nearMissPolicy,
                                     boolean modificationViaReachability,
-                                    boolean flattenVariableData) implements Configuration {
+                                    boolean flattenVariableData,
+                                    long variableDataBudget,
+                                    boolean dependencyDrivenCertification) implements Configuration {
     }
 
     public static class ConfigurationBuilder {
@@ -101,6 +131,8 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         private boolean warnNearMisses;
         private boolean modificationViaReachability;
         private boolean flattenVariableData;
+        private long variableDataBudget;
+        private boolean dependencyDrivenCertification;
         private NearMissPolicy nearMissPolicy = NearMissPolicy.STRICT;
         private CycleBreakingStrategy cycleBreakingStrategy = CycleBreakingStrategy.NONE;
 
@@ -155,10 +187,21 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
             return this;
         }
 
+        public ConfigurationBuilder setVariableDataBudget(long variableDataBudget) {
+            this.variableDataBudget = variableDataBudget;
+            return this;
+        }
+
+        public ConfigurationBuilder setDependencyDrivenCertification(boolean dependencyDrivenCertification) {
+            this.dependencyDrivenCertification = dependencyDrivenCertification;
+            return this;
+        }
+
         public Configuration build() {
             return new ConfigurationImpl(maxIterations, stopWhenCycleDetectedAndNoImprovements, cycleBreakingStrategy,
                     trackObjectCreations, guardContracts, faultTolerant, warnNearMisses, nearMissPolicy,
-                    modificationViaReachability, flattenVariableData);
+                    modificationViaReachability, flattenVariableData, variableDataBudget,
+                    dependencyDrivenCertification);
         }
     }
 
@@ -276,6 +319,9 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         if (System.getenv("VL2OTIER") != null) {
             LOGGER.info(io.codelaser.maddi.modification.link.impl.LinkComputerImpl.vl2oTierStats());
         }
+        if (System.getenv("GROUPCOLLAPSE") != null) {
+            LOGGER.info(io.codelaser.maddi.modification.link.impl.LinkComputerImpl.groupCollapseStats());
+        }
         // task #35 Phase A: consumption-edge sparsity report (CONSEDGES gate; GO/NO-GO for the
         // giant-SCC incremental design, see DESIGN-incremental-v2.md)
         if (io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.ENABLED) {
@@ -354,6 +400,25 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                 guardMessages.stream()).toList();
     }
 
+    /**
+     * The eviction and regeneration counters of the last {@link #analyze}, for tuning
+     * {@link Configuration#variableDataBudget()}; null when that run had no budget.
+     */
+    public VariableDataBudget.Counters variableDataBudgetCounters() {
+        return lastRun instanceof SingleIterationAnalyzerImpl sia && sia.variableDataBudget() != null
+                ? sia.variableDataBudget().counters() : null;
+    }
+
+    private CertificationTracker certificationTracker;
+
+    /**
+     * How many elements the certification passes of the last {@link #analyze} re-verified, under
+     * {@link Configuration#dependencyDrivenCertification()}; null when that run did not use it.
+     */
+    public CertificationTracker.Report certificationReport() {
+        return certificationTracker == null ? null : certificationTracker.report();
+    }
+
     /**
      * Did the last {@link #analyze} reach a clean certified fixpoint — terminating via a genuine certification with
      * zero refused downgrades? Read-only diagnostic, no effect on the analysis. A partial (subset) analysis is
@@ -390,6 +455,28 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
     @Override
     public void analyze(List<Info> analysisOrder, io.codelaser.maddi.graph.G<Info> dependencyGraph,
                         java.util.Set<Info> initialDirty, java.util.function.Consumer<Info> beforeFirstRecompute) {
+        try {
+            iterate(analysisOrder, dependencyGraph, initialDirty, beforeFirstRecompute);
+        } finally {
+            // the recorders are JVM-wide: a run that armed them for its certification passes leaves them as it found them
+            if (recorderEnabledBefore != null) {
+                io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.ENABLED = recorderEnabledBefore;
+                recorderEnabledBefore = null;
+            }
+            if (writeRecorderEnabledBefore != null) {
+                io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder.ENABLED = writeRecorderEnabledBefore;
+                io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder.reset();
+                writeRecorderEnabledBefore = null;
+            }
+        }
+    }
+
+    // the recorders' flags before this run armed them for dependency-driven certification; null when it did not
+    private Boolean recorderEnabledBefore;
+    private Boolean writeRecorderEnabledBefore;
+
+    private void iterate(List<Info> analysisOrder, io.codelaser.maddi.graph.G<Info> dependencyGraph,
+                         java.util.Set<Info> initialDirty, java.util.function.Consumer<Info> beforeFirstRecompute) {
         // incremental (early-cutoff) mode: seed the worklist with initialDirty and stop the moment it runs dry,
         // WITHOUT the full verification / cycle-breaking passes — those re-touch the untouched (carried) elements
         // and would defeat the skip. See docs/analysis-rewiring.md and IteratingAnalyzer#analyze(List,G,Set).
@@ -407,6 +494,12 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         int eventualDeferralRounds = 0; // terminal-phase re-derivation of the eventual family, once
         SingleIterationAnalyzer singleIterationAnalyzer = new SingleIterationAnalyzerImpl(javaInspector, configuration);
         this.lastRun = singleIterationAnalyzer;
+        if (profiler != null && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl siap) {
+            siap.setProfiler(profiler);
+        }
+        if (linkSummaryCache != null && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl siac) {
+            siac.setLinkSummaryCache(linkSummaryCache);
+        }
         if (valueFeed != null && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl sia) {
             // wave-barrier feed (first pass only): intra-pass checkpoint protection for the multi-hour
             // cold first pass; the callback runs on the coordinator thread at the wave barrier
@@ -418,6 +511,19 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
             sia.setElementCompletedCallback(() ->
                     feed(io.codelaser.maddi.modification.analyzer.AnalysisValueFeed::elementCompleted));
         }
+        if (dependencyGraph != null && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl siab
+            && siab.variableDataBudget() != null) {
+            // eviction waits for a method's callers (edges caller -> callee, methods only)
+            java.util.Map<io.codelaser.maddi.cst.api.info.MethodInfo, java.util.Set<io.codelaser.maddi.cst.api.info.MethodInfo>>
+                    callees = new java.util.HashMap<>();
+            dependencyGraph.edgeStream().forEach(e -> {
+                if (e.from().t() instanceof io.codelaser.maddi.cst.api.info.MethodInfo caller
+                    && e.to().t() instanceof io.codelaser.maddi.cst.api.info.MethodInfo callee) {
+                    callees.computeIfAbsent(caller, _ -> new java.util.HashSet<>()).add(callee);
+                }
+            });
+            siab.variableDataBudget().setCallees(callees);
+        }
         // a stale warm-up window from a previous run on the same universe (the seeded incremental entry
         // point) would withhold this run's type-level writes: close it before the first iteration
         if (EventualCluster.ENABLED && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl sia0) {
@@ -466,13 +572,39 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
         java.util.Set<Info> dirty = initialDirty; // null = analyze everything; a seed = incremental early-cutoff
         java.util.Set<Info> orderSet = java.util.Set.copyOf(analysisOrder);
         boolean verifying = false; // worklist ran dry -> one full pass certifies (0 changes = true fixpoint)
+        int lastVerified = 0; // under dependency-driven certification: the size of the last verification pass
+        // dependency-driven certification: the verification pass re-runs only the elements whose inputs changed
+        // since their last analysis; the reads are those of the consumption-edge recorder, the changes include every
+        // map the value-write recorder saw written; both are armed for this run only, without the edges and writes
+        // of earlier runs in this JVM
+        if (configuration.dependencyDrivenCertification() && dependersOf != null && !incremental) {
+            recorderEnabledBefore = io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.ENABLED;
+            io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.reset();
+            io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.ENABLED = true;
+            writeRecorderEnabledBefore = io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder.ENABLED;
+            io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder.reset();
+            io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder.ENABLED = true;
+            certificationTracker = new CertificationTracker(i -> mapToOrderElement(i, orderSet));
+        } else {
+            certificationTracker = null;
+        }
         // strata-parallel first iteration (PARALLEL=n): dependency waves from the same call graph
         java.util.List<java.util.List<java.util.List<Info>>> firstIterationWaves;
-        if (!incremental && SingleIterationAnalyzerImpl.PARALLEL_THREADS > 1 && dependencyGraph != null
-            && analysisOrder.size() >= SingleIterationAnalyzerImpl.MIN_ELEMENTS_FOR_PARALLEL) {
+        if (!incremental && dependencyGraph != null && (firstIterationThreads > 1
+            || SingleIterationAnalyzerImpl.PARALLEL_THREADS > 1
+               && analysisOrder.size() >= SingleIterationAnalyzerImpl.MIN_ELEMENTS_FOR_PARALLEL)) {
             firstIterationWaves = io.codelaser.maddi.modification.prepwork.callgraph.ComputeAnalysisOrder
                     .waves(dependencyGraph);
             LOGGER.info("Computed {} first-iteration waves", firstIterationWaves.size());
+            if (firstIterationThreads > 0 && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl sit) {
+                sit.setFirstIterationThreads(firstIterationThreads);
+            }
+            // a value feed keeps the barriers (its waveCompleted snapshots quiescent workers): no unit DAG then
+            if (!SingleIterationAnalyzerImpl.WAVE_BARRIERS && valueFeed == null
+                && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl sia) {
+                sia.setFirstIterationUnitPredecessors(io.codelaser.maddi.modification.prepwork.callgraph
+                        .ComputeAnalysisOrder.unitPredecessors(dependencyGraph, firstIterationWaves));
+            }
         } else {
             firstIterationWaves = null;
         }
@@ -498,6 +630,10 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                     if (everAnalyzed.add(info)) beforeFirstRecompute.accept(info);
                 }
             }
+            // decided before the pass: the window's arithmetic is on the iteration number
+            boolean warmUp = EventualCluster.ENABLED
+                             && singleIterationAnalyzer instanceof SingleIterationAnalyzerImpl siw
+                             && siw.eventualCluster().typeLevelWarmUp();
             Instant start = Instant.now();
             singleIterationAnalyzer.go(subset, cycleBreakingActive, iterations == 1,
                     iterations == 1 ? firstIterationWaves : null);
@@ -506,6 +642,10 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
             LOGGER.info("Duration of single iteration: {} min {} sec {} ms", duration.toMinutesPart(),
                     duration.toSecondsPart(), duration.toMillisPart());
             int propertiesChanged = singleIterationAnalyzer.propertiesChanged();
+            if (certificationTracker != null) {
+                certificationTracker.iterationCompleted(iterations, subset, singleIterationAnalyzer.changedInfos(),
+                        io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder.drain(), warmUp || !TolerantWrite.refusedDowngrades().isEmpty());
+            }
             {
                 boolean fullPass = dirty == null;
                 List<Info> analyzed = subset;
@@ -535,7 +675,7 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                 done = false;
                 dirty = null;
                 previousPropertiesChanged = Integer.MAX_VALUE;
-                // the verify-certify loop's own exit ("worklist dry + full verification pass clean") returns
+                // the verify-certify loop's own exit ("worklist dry + ... verification pass clean") returns
                 // WITHOUT the terminal machinery and does not consult this hold: it fired mid-window on the
                 // seeded-analysis fixture and skipped TERMINAL_CERTIFIED, the deferral and the contraction.
                 // Breaking 'verifying' re-arms the full-verification dance instead; when the window closes,
@@ -761,10 +901,18 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                 dirty = next;
                 if (verifying) {
                     if (propertiesChanged == 0) {
-                        // certified: a FULL iteration changed nothing — this is the true fixpoint, regardless
-                        // of any dependency-edge kinds the worklist's reverse adjacency might miss
-                        LOGGER.info("Stop iterating after {} iterations: worklist dry + full verification pass clean",
-                                iterations);
+                        if (certificationTracker == null) {
+                            // certified: a FULL iteration changed nothing — this is the true fixpoint, regardless
+                            // of any dependency-edge kinds the worklist's reverse adjacency might miss
+                            LOGGER.info("Stop iterating after {} iterations: worklist dry + full verification pass clean",
+                                    iterations);
+                        } else {
+                            // certified on the recorded reads and writes: the stale elements re-ran without a change;
+                            // the others read nothing that changed since their last analysis
+                            LOGGER.info("Stop iterating after {} iterations: worklist dry + verification pass over "
+                                        + "{} stale element(s) clean; {}", iterations, lastVerified,
+                                    certificationTracker.report());
+                        }
                         logVerdictFingerprint(analysisOrder);
                         if (configuration.guardContracts() || configuration.warnNearMisses()) {
                             new GuardAnalyzerImpl(javaInspector.runtime(), configuration, guardMessages).go(analysisOrder);
@@ -795,8 +943,18 @@ public class IteratingAnalyzerImpl extends CommonAnalyzerImpl implements Iterati
                     }
                     // worklist dry (or a zero-change subset round): do NOT stop yet — run one full pass to
                     // certify (or catch missed dependencies)
-                    LOGGER.info("Worklist empty/quiet after {} iterations; running a full verification pass", iterations);
-                    dirty = null;
+                    if (certificationTracker != null) {
+                        dirty = certificationTracker.stale(analysisOrder, dependersOf,
+                                io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.edgesSnapshot());
+                        lastVerified = dirty.size();
+                        LOGGER.info("Worklist empty/quiet after {} iterations; re-verifying {} of {} elements, "
+                                    + "stale since their last analysis; {}", iterations, dirty.size(),
+                                analysisOrder.size(), certificationTracker.report());
+                    } else {
+                        LOGGER.info("Worklist empty/quiet after {} iterations; running a full verification pass",
+                                iterations);
+                        dirty = null;
+                    }
                     verifying = true;
                 }
             }
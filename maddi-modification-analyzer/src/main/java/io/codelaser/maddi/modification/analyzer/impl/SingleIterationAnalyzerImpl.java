@@ -75,6 +75,12 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
     private final Runtime runtime;
     private final boolean flattenVariableData;
     private final Set<MethodInfo> flattenedMethods = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    // Configuration.variableDataBudget > 0: flatten under an LRU budget instead of immediately; null otherwise
+    private final VariableDataBudget variableDataBudget;
+    // rough retained size of one statement's VariableInfoContainer (the container, its VariableInfo's and their
+    // property maps), for the budget's estimate; the retained size of a method is this times its known variables
+    // summed over the statements
+    private static final long BYTES_PER_VARIABLE_INFO_CONTAINER = 512;
 
     // Parallel per-element loop: iterations 2+ on a fixed pool, iteration 1 via call-graph strata waves.
     // DEFAULT ON since the 3-corpus proof (2026-07-17: certified + verdict-exact at 8 threads): min(8,
@@ -100,8 +106,37 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
     private final Set<Info> changedInfos = Collections.synchronizedSet(new HashSet<>());
     private final Set<Info> summaryChangedInfos = Collections.synchronizedSet(new HashSet<>());
 
+    // First-iteration scheduling over the waves: by default dependency-driven (DependencyDrivenScheduler: a
+    // unit starts as soon as its own call-graph predecessors finished, work stealing on a ForkJoinPool), when
+    // IteratingAnalyzerImpl supplied the unit DAG. WAVEBARRIERS (presence-only) restores the hard barrier per
+    // wave. A wave-completed callback (a value feed) always gets the barriers: waveCompleted promises quiescent
+    // workers, and without a barrier units of later waves are still running when a wave's prefix completes.
+    static final boolean WAVE_BARRIERS = System.getenv("WAVEBARRIERS") != null;
+    private int[][] firstIterationUnitPredecessors;
+
+    public void setFirstIterationUnitPredecessors(int[][] unitPredecessors) {
+        this.firstIterationUnitPredecessors = unitPredecessors;
+    }
+
+    // > 0: the first iteration runs over the waves on this many threads, whatever the size of the analysis order
+    // (tests of the wave scheduling); otherwise PARALLEL and MIN_ELEMENTS_FOR_PARALLEL decide
+    private int firstIterationThreads;
+
+    public void setFirstIterationThreads(int firstIterationThreads) {
+        this.firstIterationThreads = firstIterationThreads;
+    }
+
+    // > 0: the second type pass runs on this many threads, whatever the size of the analysis order (tests
+    // comparing it with the sequential pass); otherwise it follows the post-loop parallel gate
+    private int secondTypePassThreads;
+
+    public void setSecondTypePassThreads(int secondTypePassThreads) {
+        this.secondTypePassThreads = secondTypePassThreads;
+    }
+
     // wave-barrier hook (AnalysisValueFeed.waveCompleted): fired on the coordinator thread after each
-    // strata wave's join, with that wave's element set. Set by IteratingAnalyzerImpl when a feed exists.
+    // strata wave's join, with that wave's element set. Set by IteratingAnalyzerImpl when a feed exists;
+    // while it is set, the first iteration keeps its wave barriers (see WAVE_BARRIERS).
     private java.util.function.ObjIntConsumer<java.util.Collection<Info>> waveCompletedCallback;
 
     public void setWaveCompletedCallback(java.util.function.ObjIntConsumer<java.util.Collection<Info>> callback) {
@@ -117,6 +152,18 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
         this.elementCompletedCallback = callback;
     }
 
+    // per-element profile (AnalysisProfiler), aggregated over the iterations; set by IteratingAnalyzerImpl, null = off
+    private AnalysisProfiler profiler;
+
+    public void setProfiler(AnalysisProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    // see IteratingAnalyzerImpl.setLinkSummaryCache
+    public void setLinkSummaryCache(io.codelaser.maddi.modification.link.io.LinkSummaryCache linkSummaryCache) {
+        if (linkComputer instanceof LinkComputerImpl lci) lci.setSummaryCache(linkSummaryCache);
+    }
+
     public static final String ANALYZER_CRASH = "analyzer-crash";
     public static final String LINK_CRASH = "link-crash";
 
@@ -149,7 +196,14 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
         abstractMethodAnalyzer = new AbstractMethodAnalyzerImpl(configuration, propertiesChanged, messages,
                 eventualCluster);
         this.runtime = runtime;
-        this.flattenVariableData = configuration.flattenVariableData();
+        this.flattenVariableData = configuration.flattenVariableData() || configuration.variableDataBudget() > 0;
+        this.variableDataBudget = configuration.variableDataBudget() > 0
+                ? new VariableDataBudget(configuration.variableDataBudget()) : null;
+    }
+
+    /** The budget of the flatten-snapshot, when {@code Configuration.variableDataBudget} is set; null otherwise. */
+    public VariableDataBudget variableDataBudget() {
+        return variableDataBudget;
     }
 
     @Override
@@ -203,12 +257,14 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
         // flatten-snapshot: before this pass re-links any method whose intermediate VD was dropped,
         // regenerate its full per-statement VD from the body (quiescent: before the parallel loop).
         if (flattenVariableData && !flattenedMethods.isEmpty()) regenerateFlattened(analysisOrder);
+        if (variableDataBudget != null) variableDataBudget.startPass(analysisOrder);
         // first iteration only; concurrent for the strata-parallel path
         Set<TypeInfo> abstractTypes = java.util.concurrent.ConcurrentHashMap.newKeySet();
 
         long startLoop = System.currentTimeMillis();
-        if (PARALLEL_THREADS > 1 && firstIteration && firstIterationWaves != null
-            && analysisOrder.size() >= MIN_ELEMENTS_FOR_PARALLEL) {
+        int firstIterationThreads = this.firstIterationThreads > 0 ? this.firstIterationThreads
+                : analysisOrder.size() >= MIN_ELEMENTS_FOR_PARALLEL ? PARALLEL_THREADS : 1;
+        if (firstIterationThreads > 1 && firstIteration && firstIterationWaves != null) {
             int units = firstIterationWaves.stream().mapToInt(List::size).sum();
             int elements = firstIterationWaves.stream().flatMap(List::stream).mapToInt(List::size).sum();
             if (elements != analysisOrder.size()) {
@@ -218,12 +274,25 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
                 for (Info info : analysisOrder) {
                     processElement(info, activateCycleBreaking, true, abstractTypes);
                 }
+            } else if (!WAVE_BARRIERS && waveCompletedCallback == null && firstIterationUnitPredecessors != null
+                       && firstIterationUnitPredecessors.length == units) {
+                DependencyDrivenScheduler scheduler = new DependencyDrivenScheduler(firstIterationWaves,
+                        firstIterationUnitPredecessors);
+                LOGGER.info("Dependency-driven FIRST iteration: {} threads, {} waves, {} units ({} roots), {} elements",
+                        firstIterationThreads, firstIterationWaves.size(), units, scheduler.roots(), elements);
+                linkComputer.setLockComputeDisabled(true);
+                try {
+                    scheduler.run(firstIterationThreads,
+                            info -> processElement(info, activateCycleBreaking, true, abstractTypes), null);
+                } finally {
+                    linkComputer.setLockComputeDisabled(false);
+                }
             } else {
                 LOGGER.info("Strata-parallel FIRST iteration: {} threads, {} waves, {} units, {} elements",
-                        PARALLEL_THREADS, firstIterationWaves.size(), units, elements);
+                        firstIterationThreads, firstIterationWaves.size(), units, elements);
                 linkComputer.setLockComputeDisabled(true);
                 try (java.util.concurrent.ExecutorService pool =
-                             java.util.concurrent.Executors.newFixedThreadPool(PARALLEL_THREADS)) {
+                             java.util.concurrent.Executors.newFixedThreadPool(firstIterationThreads)) {
                     int waveIndex = 0;
                     for (List<List<Info>> wave : firstIterationWaves) {
                         waveIndex++;
@@ -292,17 +361,29 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
                 .toList();
 
         long startAbstract = System.currentTimeMillis();
-        int changesBeforeAbstract = propertiesChanged.get();
-        try {
-            abstractMethodAnalyzer.go(firstIteration, abstractMethods);
-        } catch (RuntimeException | AssertionError | StackOverflowError e) {
-            LOGGER.error("Caught exception in the abstract-method analyzer", e);
-            if (!faultTolerant) throw e;
-            // batch step — attribute to the first abstract method so the finding is at least locatable
-            if (!abstractMethods.isEmpty()) messages.add(crashFinding(abstractMethods.getFirst(), e));
-        } finally {
-            // batch step: coarse attribution, any change dirties all abstract methods of this round
-            if (propertiesChanged.get() > changesBeforeAbstract) changedInfos.addAll(abstractMethods);
+        // the post-loop phases follow the main loop's parallel gate: iterations 2+ should scale with cores here
+        // too, instead of serializing after the loop (the Phase timing line below)
+        boolean parallelPostLoop = PARALLEL_THREADS > 1 && analysisOrder.size() >= MIN_ELEMENTS_FOR_PARALLEL;
+        if (parallelPostLoop) {
+            // abstract methods derive their values from their CONCRETE implementations only, never from each
+            // other: no dependencies, and each method is now its own unit of failure isolation
+            DependencyDrivenScheduler.ofOrder(abstractMethods, null).run(PARALLEL_THREADS,
+                    info -> processAbstractMethod(firstIteration, (MethodInfo) info), null);
+        } else {
+            int changesBeforeAbstract = propertiesChanged.get();
+            AnalysisProfiler.Mark mark = profiler == null ? null : profiler.mark();
+            try {
+                abstractMethodAnalyzer.go(firstIteration, abstractMethods);
+            } catch (RuntimeException | AssertionError | StackOverflowError e) {
+                LOGGER.error("Caught exception in the abstract-method analyzer", e);
+                if (!faultTolerant) throw e;
+                // batch step — attribute to the first abstract method so the finding is at least locatable
+                if (!abstractMethods.isEmpty()) messages.add(crashFinding(abstractMethods.getFirst(), e));
+            } finally {
+                // batch step: coarse attribution, any change dirties all abstract methods of this round
+                if (propertiesChanged.get() > changesBeforeAbstract) changedInfos.addAll(abstractMethods);
+                if (mark != null) profiler.record(null, AnalysisProfiler.Phase.ABSTRACT, mark); // phase total only
+            }
         }
 
         long startSecondPass = System.currentTimeMillis();
@@ -310,29 +391,115 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
         run once more, because the abstract method analyzer may have resolved independence and modification values
         for abstract methods.
          */
-        for (TypeInfo typeInfo : typesInOrder) {
-            if (faultTolerant && failed.contains(typeInfo)) continue;
-            int changesBefore2 = propertiesChanged.get();
-            try {
-                runTypeAnalyzers(activateCycleBreaking, typeInfo);
-            } catch (RuntimeException | AssertionError | StackOverflowError e) {
-                LOGGER.error("Caught exception (2nd type pass) on {}", typeInfo, e);
-                if (!faultTolerant) throw e;
-                failed.add(typeInfo);
-                messages.add(crashFinding(typeInfo, e));
-            } finally {
-                if (propertiesChanged.get() > changesBefore2) changedInfos.add(typeInfo);
+        int typePassThreads = secondTypePassThreads > 0 ? secondTypePassThreads
+                : parallelPostLoop ? PARALLEL_THREADS : 1;
+        if (typePassThreads > 1) {
+            DependencyDrivenScheduler.ofOrder(typesInOrder, secondTypePassPredecessors(typesInOrder))
+                    .run(typePassThreads, info -> secondTypePass(activateCycleBreaking, (TypeInfo) info), null);
+        } else {
+            for (TypeInfo typeInfo : typesInOrder) {
+                secondTypePass(activateCycleBreaking, typeInfo);
             }
         }
         long end = System.currentTimeMillis();
         LOGGER.info("Phase timing: main loop {} ms, abstract batch {} ms, 2nd type pass {} ms",
                 endLoop - startLoop, startSecondPass - startAbstract, end - startSecondPass);
+        if (variableDataBudget != null) LOGGER.info("VariableData budget: {}", variableDataBudget.counters());
         unionInWriteTargets();
     }
 
+    private void processAbstractMethod(boolean firstIteration, MethodInfo methodInfo) {
+        if (faultTolerant && failed.contains(methodInfo)) return;
+        int changesBefore = propertiesChanged.get();
+        AnalysisProfiler.Mark mark = profiler == null ? null : profiler.mark();
+        try {
+            abstractMethodAnalyzer.go(firstIteration, methodInfo);
+        } catch (RuntimeException | AssertionError | StackOverflowError e) {
+            LOGGER.error("Caught exception in the abstract-method analyzer on {}", methodInfo, e);
+            if (!faultTolerant) throw e;
+            failed.add(methodInfo);
+            messages.add(crashFinding(methodInfo, e));
+        } finally {
+            // as in processElement: under PARALLEL a superset of the changed elements, which is safe
+            if (propertiesChanged.get() > changesBefore) changedInfos.add(methodInfo);
+            if (mark != null) profiler.record(methodInfo, AnalysisProfiler.Phase.ABSTRACT, mark);
+        }
+    }
+
+    private void secondTypePass(boolean activateCycleBreaking, TypeInfo typeInfo) {
+        if (faultTolerant && failed.contains(typeInfo)) return;
+        int changesBefore2 = propertiesChanged.get();
+        try {
+            runTypeAnalyzers(activateCycleBreaking, typeInfo);
+        } catch (RuntimeException | AssertionError | StackOverflowError e) {
+            LOGGER.error("Caught exception (2nd type pass) on {}", typeInfo, e);
+            if (!faultTolerant) throw e;
+            failed.add(typeInfo);
+            messages.add(crashFinding(typeInfo, e));
+        } finally {
+            if (propertiesChanged.get() > changesBefore2) changedInfos.add(typeInfo);
+        }
+    }
+
+    /*
+    The type analyzers of a type read the verdicts of its supertypes, of its nested types, and of the types of its
+    fields (TypeImmutableAnalyzerImpl.fieldTypeCommits, among others). Under EVENTUALCLUSTER they also read the other
+    direction, through registries filled during the pass: a type's known subclasses and implementors (Part A, A''),
+    the subclass cone of residueVacuousOnCone, and the candidates inherited from subtypes -- hence ALL supertypes,
+    not only the direct ones. Under SSE, a method reads the STATIC_SIDE_EFFECTS_METHOD of its callees, which the
+    callees' types write in this pass. The sequential pass fixes, for each such pair,
+    which of the two goes first: the one earlier in the analysis order. The parallel pass keeps that order for every
+    pair, in either direction -- a reader earlier in the order must also finish before the type it reads is
+    committed, or it could see the new value on one run and the old one on the next. All edges point forward in
+    the order, so the result is acyclic.
+     */
+    private static int[][] secondTypePassPredecessors(List<TypeInfo> typesInOrder) {
+        java.util.Map<TypeInfo, Integer> position = new java.util.HashMap<>();
+        for (int i = 0; i < typesInOrder.size(); i++) position.put(typesInOrder.get(i), i);
+        List<java.util.TreeSet<Integer>> sets = new ArrayList<>();
+        for (int i = 0; i < typesInOrder.size(); i++) sets.add(new java.util.TreeSet<>());
+        for (int i = 0; i < typesInOrder.size(); i++) {
+            for (TypeInfo read : typesReadInSecondPass(typesInOrder.get(i))) {
+                Integer p = position.get(read);
+                if (p == null || p == i) continue;
+                sets.get(Math.max(i, p)).add(Math.min(i, p));
+            }
+        }
+        int[][] predecessors = new int[typesInOrder.size()][];
+        for (int i = 0; i < typesInOrder.size(); i++) {
+            predecessors[i] = sets.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return predecessors;
+    }
+
+    private static Set<TypeInfo> typesReadInSecondPass(TypeInfo typeInfo) {
+        Set<TypeInfo> read = new HashSet<>(typeInfo.superTypesExcludingJavaLangObject());
+        read.addAll(typeInfo.subTypes());
+        for (FieldInfo fieldInfo : typeInfo.fields()) {
+            addTypes(fieldInfo.type(), read);
+        }
+        if (StaticSideEffectAnalyzerImpl.ENABLED) {
+            typeInfo.constructorAndMethodStream().forEach(methodInfo -> methodInfo.methodBody().visit(e -> {
+                if (e instanceof io.codelaser.maddi.cst.api.expression.MethodCall mc) {
+                    read.add(mc.methodInfo().typeInfo());
+                }
+                return true;
+            }));
+        }
+        return read;
+    }
+
+    private static void addTypes(io.codelaser.maddi.cst.api.type.ParameterizedType type, Set<TypeInfo> read) {
+        TypeInfo best = type.bestTypeInfo();
+        if (best != null) read.add(best);
+        for (io.codelaser.maddi.cst.api.type.ParameterizedType parameter : type.parameters()) {
+            addTypes(parameter, read);
+        }
+    }
+
     // ---- VariableData flatten-snapshot helpers (DESIGN-vardata-flatten.md) --------------------------
-    // Both regenerate and flatten run only at pass boundaries in go(), where the workers are quiescent,
-    // so neither races the parallel FieldAnalyzer reads of another method's last-statement VariableData.
+    // Regeneration runs only at pass boundaries in go(), where the workers are quiescent; the flatten runs
+    // on the workers, but only replaces the last statement's VariableData atomically (see setVariableData).
 
     private void regenerateFlattened(List<Info> subset) {
         PrepAnalyzer prep = new PrepAnalyzer(runtime);
@@ -341,6 +508,7 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
                 clearAllVariableData(mi);
                 try {
                     prep.doMethod(mi);
+                    if (variableDataBudget != null) variableDataBudget.regenerated(mi);
                 } catch (RuntimeException | AssertionError | StackOverflowError e) {
                     LOGGER.error("VariableData regeneration failed for {}", mi, e);
                 }
@@ -348,7 +516,29 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
         }
     }
 
-    /** Called concurrently from processElement, once per method, right after its link is written. */
+    /**
+     * Called concurrently from processElement, once per method, right after its link is written: flatten now, or,
+     * with a budget, account for the method and flatten whatever the budget evicts.
+     */
+    private void methodCompleted(MethodInfo mi) {
+        if (variableDataBudget == null) {
+            flattenMethod(mi);
+        } else if (!failed.contains(mi)) {
+            long bytes = estimateVariableDataBytes(mi);
+            if (bytes > 0) variableDataBudget.completed(mi, bytes).forEach(this::flattenMethod);
+        }
+    }
+
+    private static long estimateVariableDataBytes(MethodInfo mi) {
+        if (mi.methodBody() == null) return 0;
+        long[] containers = {0};
+        walkStatements(mi.methodBody().statements(), s -> {
+            VariableData vd = VariableDataImpl.of(s);
+            if (vd != null) containers[0] += vd.knownVariableNames().size();
+        });
+        return containers[0] * BYTES_PER_VARIABLE_INFO_CONTAINER;
+    }
+
     private void flattenMethod(MethodInfo mi) {
         if (failed.contains(mi) || !flattenedMethods.add(mi)) return;
         try {
@@ -392,8 +582,8 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
     }
 
     private static void setVariableData(PropertyValueMap analysis, VariableDataImpl flat) {
-        // ATOMIC single put (PropertyValueMapImpl.overwrite is synchronized): a parallel FieldAnalyzer
-        // reading this statement's VD via the equally-synchronized getOrNull sees the old chained VD or
+        // ATOMIC single put (PropertyValueMapImpl.overwrite publishes one new snapshot): a parallel
+        // FieldAnalyzer reading this statement's VD via the lock-free getOrNull sees the old chained VD or
         // the new flattened one — never a transient null, as a removeIf-then-set would leave.
         analysis.overwrite(VariableDataImpl.VARIABLE_DATA, flat);
     }
@@ -422,6 +612,8 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
                                 Set<TypeInfo> abstractTypes) {
         if (faultTolerant && failed.contains(info)) return; // an earlier iteration already crashed on this one
         int changesBefore = propertiesChanged.get();
+        // a type's analyzers are measured per phase in runTypeAnalyzers
+        AnalysisProfiler.Mark mark = profiler == null || info instanceof TypeInfo ? null : profiler.mark();
         // task #35 Phase A: attribute all analysis() touches during this element to it (CONSEDGES gate)
         io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.setCurrent(info);
         try {
@@ -445,7 +637,7 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
                     // because the last-statement replacement is an atomic overwrite (a parallel
                     // FieldAnalyzer read sees the old chained or new flattened VD, both valid) and nothing
                     // cross-method reads this method's intermediate statements.
-                    if (flattenVariableData) flattenMethod(methodInfo);
+                    if (flattenVariableData) methodCompleted(methodInfo);
                 }
             } else if (info instanceof FieldInfo fieldInfo) {
                 sourceContractMaterializer.materialize(fieldInfo);
@@ -474,6 +666,10 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
             messages.add(crashFinding(info, e));
         } finally {
             io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.clearCurrent();
+            if (mark != null) {
+                profiler.record(info, info instanceof MethodInfo ? AnalysisProfiler.Phase.LINK
+                        : AnalysisProfiler.Phase.FIELD, mark);
+            }
             // under PARALLEL the delta can over-attribute (another thread's change lands in the window);
             // a superset of changed elements is safe for the worklist
             if (propertiesChanged.get() > changesBefore) changedInfos.add(info);
@@ -518,11 +714,17 @@ public class SingleIterationAnalyzerImpl implements SingleIterationAnalyzer, Mod
     }
 
     private void runTypeAnalyzers(boolean activateCycleBreaking, TypeInfo typeInfo) {
+        AnalysisProfiler.Mark mark = profiler == null ? null : profiler.mark();
         typeModIndyAnalyzer.go(typeInfo, activateCycleBreaking);
         typeIndependentAnalyzer.go(typeInfo, activateCycleBreaking);
         typeImmutableAnalyzer.go(typeInfo, activateCycleBreaking);
         typeContainerAnalyzer.go(typeInfo);
+        if (mark != null) {
+            profiler.record(typeInfo, AnalysisProfiler.Phase.TYPE, mark);
+            mark = profiler.mark();
+        }
         typeEventualAnalyzer.go(typeInfo, activateCycleBreaking);
         staticSideEffectAnalyzer.go(typeInfo); // gated on env SSE; additive, writes only STATIC_SIDE_EFFECTS_METHOD
+        if (mark != null) profiler.record(typeInfo, AnalysisProfiler.Phase.EVENTUAL, mark);
     }
 }
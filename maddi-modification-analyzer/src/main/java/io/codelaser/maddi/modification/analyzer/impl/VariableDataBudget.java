@@ -0,0 +1,182 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.codelaser.maddi.modification.analyzer.impl;
+
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The budgeted form of the VariableData flatten-snapshot ({@code IteratingAnalyzer.Configuration#variableDataBudget},
+ * {@code DESIGN-vardata-flatten.md}). Instead of flattening every method the moment its link is written, methods
+ * keep their full per-statement VariableData while the estimated total stays under the budget; once it goes over,
+ * the least recently used <em>evictable</em> methods are flattened until it is back under.
+ *
+ * <p>A method is evictable once it has completed in the current pass and so have all of its callers in that pass:
+ * the callers are the ones whose on-demand link recursion may still come back to it. Recency is the time of the last
+ * such use: the method's own completion, or the completion of its last caller. Callers outside the pass do not
+ * count; without a call graph ({@link #setCallees} not called) every completed method is evictable.
+ *
+ * <p>The budget is soft: when nothing is evictable the resident total is allowed to grow past it. Only the
+ * regenerable part is accounted; the flattened last-statement snapshot that remains after eviction is not.
+ * Regeneration of an evicted method happens at the start of the next pass that re-links it, and is counted here.
+ *
+ * <p>All methods are synchronized: {@link #completed} is called from the parallel workers. The eviction itself
+ * (the flatten) is done by the caller, outside the lock.
+ */
+public class VariableDataBudget {
+
+    public record Counters(long evictions, long evictedBytes, long regenerations, long residentBytes,
+                           long peakResidentBytes) {
+        @Override
+        public String toString() {
+            return evictions + " evictions (" + evictedBytes / (1024 * 1024) + " MB), " + regenerations
+                   + " regenerations, resident " + residentBytes / (1024 * 1024) + " MB, peak "
+                   + peakResidentBytes / (1024 * 1024) + " MB";
+        }
+    }
+
+    private final long budget;
+    // every method holding its full VariableData, with its estimate
+    private final Map<MethodInfo, Long> resident = new HashMap<>();
+    // the evictable subset of resident, least recently used first
+    private final LinkedHashMap<MethodInfo, Long> evictable = new LinkedHashMap<>();
+    private Map<MethodInfo, Set<MethodInfo>> callees = Map.of();
+    private Map<MethodInfo, Set<MethodInfo>> callers = Map.of();
+    private final Map<MethodInfo, Integer> pendingCallers = new HashMap<>();
+    private final Set<MethodInfo> inPass = new HashSet<>();
+    private final Set<MethodInfo> completedInPass = new HashSet<>();
+    private long residentBytes;
+    private long peakResidentBytes;
+    private long evictions;
+    private long evictedBytes;
+    private long regenerations;
+
+    public VariableDataBudget(long budget) {
+        assert budget > 0;
+        this.budget = budget;
+    }
+
+    /**
+     * @param callees for each method, the methods it calls (the call-graph edges caller → callee between methods)
+     */
+    public synchronized void setCallees(Map<MethodInfo, Set<MethodInfo>> callees) {
+        this.callees = callees;
+        Map<MethodInfo, Set<MethodInfo>> reverse = new HashMap<>();
+        callees.forEach((caller, set) -> set.forEach(callee ->
+                reverse.computeIfAbsent(callee, _ -> new HashSet<>()).add(caller)));
+        this.callers = reverse;
+    }
+
+    /**
+     * Start of a pass over {@code subset}: its methods are no longer evictable until they complete again. Resident
+     * methods outside the subset become evictable once none of their callers are in it.
+     */
+    public synchronized void startPass(Collection<Info> subset) {
+        inPass.clear();
+        completedInPass.clear();
+        pendingCallers.clear();
+        for (Info info : subset) {
+            if (info instanceof MethodInfo mi) inPass.add(mi);
+        }
+        for (MethodInfo mi : inPass) {
+            int pending = 0;
+            for (MethodInfo caller : callers.getOrDefault(mi, Set.of())) {
+                if (caller != mi && inPass.contains(caller)) pending++;
+            }
+            pendingCallers.put(mi, pending);
+            evictable.remove(mi);
+        }
+        for (Map.Entry<MethodInfo, Long> entry : resident.entrySet()) {
+            MethodInfo mi = entry.getKey();
+            if (inPass.contains(mi)) continue;
+            if (!noPendingCallers(mi)) {
+                evictable.remove(mi);
+            } else if (!evictable.containsKey(mi)) {
+                evictable.put(mi, entry.getValue());
+            }
+        }
+    }
+
+    private boolean noPendingCallers(MethodInfo mi) {
+        for (MethodInfo caller : callers.getOrDefault(mi, Set.of())) {
+            if (caller != mi && inPass.contains(caller) && !completedInPass.contains(caller)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The method has been linked in this pass and holds its full VariableData, estimated at {@code bytes}.
+     *
+     * @return the methods to flatten now, possibly empty; they are no longer resident
+     */
+    public synchronized List<MethodInfo> completed(MethodInfo methodInfo, long bytes) {
+        Long previous = resident.put(methodInfo, bytes);
+        residentBytes += bytes - (previous == null ? 0 : previous);
+        peakResidentBytes = Math.max(peakResidentBytes, residentBytes);
+        completedInPass.add(methodInfo);
+        if (pendingCallers.getOrDefault(methodInfo, 0) == 0) touch(methodInfo);
+        for (MethodInfo callee : callees.getOrDefault(methodInfo, Set.of())) {
+            if (callee == methodInfo) continue;
+            Integer pending = pendingCallers.get(callee);
+            if (pending != null && pending > 0) {
+                pendingCallers.put(callee, pending - 1);
+                if (pending == 1 && completedInPass.contains(callee)) touch(callee);
+            } else if (pending == null && noPendingCallers(callee)) {
+                touch(callee); // a callee outside the pass, now without callers to come: this use makes it recent
+            }
+        }
+        if (residentBytes <= budget || evictable.isEmpty()) return List.of();
+        List<MethodInfo> victims = new ArrayList<>();
+        var iterator = evictable.entrySet().iterator();
+        while (residentBytes > budget && iterator.hasNext()) {
+            Map.Entry<MethodInfo, Long> eldest = iterator.next();
+            iterator.remove();
+            resident.remove(eldest.getKey());
+            residentBytes -= eldest.getValue();
+            evictedBytes += eldest.getValue();
+            evictions++;
+            victims.add(eldest.getKey());
+        }
+        return victims;
+    }
+
+    // (re-)insert at the most recently used end, if resident
+    private void touch(MethodInfo mi) {
+        Long bytes = resident.get(mi);
+        if (bytes != null) {
+            evictable.remove(mi);
+            evictable.put(mi, bytes);
+        }
+    }
+
+    /**
+     * An evicted method's VariableData was rebuilt; it becomes resident again when it completes.
+     */
+    public synchronized void regenerated(MethodInfo methodInfo) {
+        regenerations++;
+    }
+
+    public synchronized Counters counters() {
+        return new Counters(evictions, evictedBytes, regenerations, residentBytes, peakResidentBytes);
+    }
+}
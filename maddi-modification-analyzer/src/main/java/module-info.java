@@ -8,10 +8,13 @@ module io.codelaser.maddi.modification.analyzer {
     requires io.codelaser.maddi.modification.prepwork;
     requires io.codelaser.maddi.cst.analysis;
     requires io.codelaser.maddi.cst.api;
+    requires io.codelaser.maddi.cst.impl; // AnalysisProfiler: EvalBudget's per-thread work count
     requires io.codelaser.maddi.inspection.api;
     requires io.codelaser.maddi.support;
     requires io.codelaser.maddi.graph;
     requires io.codelaser.maddi.util;
     requires org.slf4j;
     requires java.management; // AnalysisProgressFeed: heap + GC beans for long-run observability
+    requires jdk.management; // AnalysisProfiler: per-thread allocated bytes
+    requires jdk.jfr; // AnalysisProfiler: the element analysis event
 }
\ No newline at end of file
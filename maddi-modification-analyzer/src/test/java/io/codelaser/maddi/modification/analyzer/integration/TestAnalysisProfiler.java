@@ -0,0 +1,111 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.analyzer.integration;
+
+import io.codelaser.maddi.cst.api.info.FieldInfo;
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.modification.analyzer.AnalysisProfiler;
+import io.codelaser.maddi.modification.analyzer.CommonTest;
+import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The per-element profile ({@link AnalysisProfiler}): every element of the analysis order is measured in its
+ * phase, the counters add up over the iterations, and the JSON export carries every element.
+ */
+public class TestAnalysisProfiler extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            class X {
+                private final List<String> list = new ArrayList<>();
+                void add(String s) {
+                    if (s != null && !s.isEmpty() || list.isEmpty() && s == null) list.add(s.trim());
+                }
+                List<String> copy() {
+                    return new ArrayList<>(list);
+                }
+                interface I {
+                    void run();
+                }
+            }
+            """;
+
+    @DisplayName("every element measured in its phase; JSON export")
+    @Test
+    public void test(@TempDir Path directory) throws IOException {
+        TypeInfo X = javaInspector.parse("a.b.X", INPUT);
+        List<Info> analysisOrder = prepWork(X);
+        AnalysisProfiler profiler = new AnalysisProfiler();
+        IteratingAnalyzerImpl analyzer = new IteratingAnalyzerImpl(javaInspector,
+                new IteratingAnalyzerImpl.ConfigurationBuilder().setMaxIterations(10).build());
+        analyzer.setProfiler(profiler);
+        analyzer.analyze(analysisOrder);
+
+        for (Info info : analysisOrder) {
+            AnalysisProfiler.Counters counters = profiler.element(info);
+            assertNotNull(counters, "not measured: " + info);
+            assertTrue(counters.calls() >= 1);
+        }
+        MethodInfo add = X.findUniqueMethod("add", 1);
+        AnalysisProfiler.Counters addCounters = profiler.element(add);
+        assertTrue(addCounters.engineWork() > 0, "add links its parameter into the list: " + addCounters.engineWork());
+        assertTrue(addCounters.evalWork() > 0, "add evaluates an And/Or condition: " + addCounters.evalWork());
+
+        assertTrue(profiler.phase(AnalysisProfiler.Phase.LINK).calls() >= 2);
+        assertTrue(profiler.phase(AnalysisProfiler.Phase.FIELD).calls() >= 1);
+        // the types are measured twice per iteration: in the main loop and in the second type pass
+        assertTrue(profiler.phase(AnalysisProfiler.Phase.TYPE).calls() >= 4);
+        assertEquals(profiler.phase(AnalysisProfiler.Phase.TYPE).calls(),
+                profiler.phase(AnalysisProfiler.Phase.EVENTUAL).calls());
+        assertTrue(profiler.phase(AnalysisProfiler.Phase.ABSTRACT).calls() >= 1);
+        // the phase totals are the sums over the elements
+        long fieldNanos = analysisOrder.stream().filter(i -> i instanceof FieldInfo)
+                .mapToLong(i -> profiler.element(i).nanos()).sum();
+        assertEquals(profiler.phase(AnalysisProfiler.Phase.FIELD).nanos(), fieldNanos);
+
+        String hotSpots = profiler.hotSpots(3);
+        assertTrue(hotSpots.startsWith("Profile: "), hotSpots);
+        assertTrue(hotSpots.lines().findFirst().orElseThrow().contains(" elements; LINK "), hotSpots);
+        // the three hottest elements, then the primary types, a.b.X among them
+        List<String> lines = hotSpots.lines().toList();
+        assertEquals("Hottest elements:", lines.get(1), hotSpots);
+        assertEquals("Hottest primary types:", lines.get(5), hotSpots);
+        assertTrue(lines.subList(6, lines.size()).stream().anyMatch(l -> l.endsWith(" a.b.X")), hotSpots);
+
+        Path json = directory.resolve("profile.json");
+        profiler.writeJson(json);
+        String content = Files.readString(json);
+        assertTrue(content.startsWith("{\"phases\":{\"LINK\":{\"calls\":"), content);
+        for (Info info : analysisOrder) {
+            assertTrue(content.contains("\"element\":\"" + info.fullyQualifiedName() + "\""), info.toString());
+        }
+    }
+}
@@ -20,6 +20,7 @@ import io.codelaser.maddi.modification.analyzer.CommonTest;
 import io.codelaser.maddi.modification.analyzer.IteratingAnalyzer;
 import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
 import io.codelaser.maddi.modification.link.io.LinkCodec;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeCallGraph;
 import io.codelaser.maddi.modification.prepwork.io.LoadAnalysisResults;
 import io.codelaser.maddi.cst.api.info.Info;
 import io.codelaser.maddi.cst.api.info.MethodInfo;
@@ -31,6 +32,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -62,29 +64,68 @@ public class TestCheckpointResume extends CommonTest {
     @DisplayName("analyze -> checkpoint -> restore -> re-certify with identical verdicts")
     @Test
     public void test() throws IOException {
+        roundTrip(new File("build/json-checkpoint"), 0, 0);
+    }
+
+    @DisplayName("asynchronous checkpoint, queue of one: same round trip, same verdicts")
+    @Test
+    public void testAsync() throws IOException {
+        File dir = new File("build/json-checkpoint-async");
+        deleteJsonFiles(dir);
+        CheckpointWriter writer = roundTrip(dir, 1, 0);
+        assertEquals(0, writer.queueDepth(), "the terminal phase drains the queue");
+        assertTrue(writer.bytesWritten() > 0);
+    }
+
+    @DisplayName("asynchronous checkpoint at every wave of a parallel first iteration: same verdicts after restore")
+    @Test
+    public void testAsyncParallel() throws IOException {
+        File dir = new File("build/json-checkpoint-async-parallel");
+        deleteJsonFiles(dir);
+        CheckpointWriter writer = roundTrip(dir, 1, 4);
+        assertEquals(0, writer.queueDepth(), "the terminal phase drains the queue");
+        assertTrue(writer.bytesWritten() > 0);
+    }
+
+    // firstIterationThreads > 0: the first iteration runs over the call graph's waves on that many threads, and
+    // every wave is checkpointed (flush interval 0)
+    private CheckpointWriter roundTrip(File dir, int queueCapacity, int firstIterationThreads) throws IOException {
         TypeInfo X = javaInspector.parse("a.b.X", INPUT);
         List<Info> analysisOrder = prepWork(X);
 
-        File dir = new File("build/json-checkpoint");
         LinkCodec linkCodec = new LinkCodec(javaInspector);
-        CheckpointWriter writer = new CheckpointWriter(runtime, linkCodec::codec, dir);
+        CheckpointWriter writer = new CheckpointWriter(runtime, linkCodec::codec, dir,
+                firstIterationThreads > 0 ? 0 : CheckpointWriter.DEFAULT_WAVE_FLUSH_INTERVAL_MILLIS, queueCapacity);
         List<AnalysisValueFeed.Phase> phases = new ArrayList<>();
+        List<Integer> waves = new ArrayList<>();
         AnalysisValueFeed feed = new AnalysisValueFeed() {
             @Override
             public void passCompleted(int iteration, boolean fullPass, java.util.Collection<Info> analyzed) {
                 writer.passCompleted(iteration, fullPass, analyzed);
             }
 
+            @Override
+            public void waveCompleted(int iteration, int wave, java.util.Collection<Info> analyzed) {
+                waves.add(wave);
+                writer.waveCompleted(iteration, wave, analyzed);
+            }
+
             @Override
             public void phase(Phase phase, int iteration) {
                 phases.add(phase);
                 writer.phase(phase, iteration);
             }
         };
-        IteratingAnalyzer iterating = new IteratingAnalyzerImpl(javaInspector,
+        IteratingAnalyzerImpl iterating = new IteratingAnalyzerImpl(javaInspector,
                 new IteratingAnalyzerImpl.ConfigurationBuilder().setMaxIterations(10).build());
         iterating.setValueFeed(feed);
-        iterating.analyze(analysisOrder);
+        if (firstIterationThreads > 0) {
+            iterating.setFirstIterationThreads(firstIterationThreads);
+            iterating.analyze(analysisOrder, new ComputeCallGraph(runtime, X).go().graph());
+            assertFalse(waves.isEmpty(), "the first iteration must have run over the waves");
+        } else {
+            iterating.analyze(analysisOrder);
+        }
 
         assertTrue(phases.contains(AnalysisValueFeed.Phase.TERMINAL_CERTIFIED));
         assertTrue(writer.typesWritten() > 0, "the checkpoint must have written at least one type");
@@ -110,6 +151,38 @@ public class TestCheckpointResume extends CommonTest {
 
         Map<String, String> after = verdicts(X2);
         assertEquals(before, after, "restored + re-certified verdicts must be identical");
+        return writer;
+    }
+
+    @DisplayName("the asynchronous writer encodes the barrier snapshot: same files as the synchronous one")
+    @Test
+    public void testAsyncSameFiles() throws IOException {
+        TypeInfo X = javaInspector.parse("a.b.X", INPUT);
+        List<Info> analysisOrder = prepWork(X);
+        IteratingAnalyzer iterating = new IteratingAnalyzerImpl(javaInspector,
+                new IteratingAnalyzerImpl.ConfigurationBuilder().setMaxIterations(10).build());
+        iterating.analyze(analysisOrder);
+
+        LinkCodec linkCodec = new LinkCodec(javaInspector);
+        File syncDir = new File("build/json-checkpoint-same-sync");
+        File asyncDir = new File("build/json-checkpoint-same-async");
+        deleteJsonFiles(syncDir);
+        deleteJsonFiles(asyncDir);
+        new CheckpointWriter(runtime, linkCodec::codec, syncDir, 0).waveCompleted(1, 1, analysisOrder);
+        try (CheckpointWriter async = new CheckpointWriter(runtime, linkCodec::codec, asyncDir, 0, 1)) {
+            async.waveCompleted(1, 1, analysisOrder);
+        }
+        File[] json = syncDir.listFiles((_, name) -> name.endsWith(".json"));
+        assertNotNull(json);
+        assertTrue(json.length > 0);
+        for (File f : json) {
+            File other = new File(asyncDir, f.getName());
+            assertTrue(other.exists(), "missing in the asynchronous checkpoint: " + f.getName());
+            assertEquals(Files.readString(f.toPath()), Files.readString(other.toPath()));
+        }
+        File[] asyncJson = asyncDir.listFiles((_, name) -> name.endsWith(".json"));
+        assertNotNull(asyncJson);
+        assertEquals(json.length, asyncJson.length);
     }
 
     @DisplayName("wave-boundary delta writes during the first pass (checkpoint granularity gap)")
@@ -0,0 +1,154 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.analyzer.integration;
+
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder;
+import io.codelaser.maddi.cst.impl.analysis.ValueWriteRecorder;
+import io.codelaser.maddi.graph.G;
+import io.codelaser.maddi.modification.analyzer.CommonTest;
+import io.codelaser.maddi.modification.analyzer.impl.CertificationTracker;
+import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeCallGraph;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Dependency-driven certification ({@code Configuration.dependencyDrivenCertification}): the run certifies with the
+ * same values as one ending in a full verification pass, while re-verifying fewer elements than that pass analyzes.
+ */
+public class TestDependencyDrivenCertification extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.HashMap;
+            import java.util.List;
+            import java.util.Map;
+            class X {
+                interface Sink {
+                    void accept(String s);
+                }
+                static class ListSink implements Sink {
+                    private final List<String> list = new ArrayList<>();
+                    public void accept(String s) { list.add(s); }
+                    List<String> copy() { return new ArrayList<>(list); }
+                }
+                static class Counter {
+                    private final Map<String, Integer> counts = new HashMap<>();
+                    void count(String s) { counts.merge(s, 1, Integer::sum); }
+                    int get(String s) { return counts.getOrDefault(s, 0); }
+                }
+                record Pair(String a, String b) {
+                    String joined() { return a + b; }
+                }
+                private final Counter counter = new Counter();
+                void feed(Sink sink, Pair pair) {
+                    sink.accept(pair.a());
+                    sink.accept(pair.joined());
+                    counter.count(pair.b());
+                }
+                int seen(String s) {
+                    return counter.get(s);
+                }
+                static String lower(String s) {
+                    return s.toLowerCase();
+                }
+            }
+            """;
+
+    // their values print as identities
+    private static final Set<String> NO_VALUE_STRING = Set.of("variableData", "implementations");
+
+    private record Run(Map<String, String> values, boolean certified, CertificationTracker.Report report) {
+    }
+
+    private static Run run(CommonTest.AnalyzerBundle bundle, boolean dependencyDriven) {
+        TypeInfo X = bundle.javaInspector().parse("a.b.X", INPUT);
+        List<Info> analysisOrder = bundle.prepAnalyzer().doPrimaryType(X);
+        G<Info> graph = new ComputeCallGraph(bundle.javaInspector().runtime(), X).go().graph();
+        IteratingAnalyzerImpl analyzer = new IteratingAnalyzerImpl(bundle.javaInspector(),
+                new IteratingAnalyzerImpl.ConfigurationBuilder().setMaxIterations(10)
+                        .setDependencyDrivenCertification(dependencyDriven).build());
+        analyzer.analyze(analysisOrder, graph);
+        Map<String, String> values = new TreeMap<>();
+        for (Info info : analysisOrder) {
+            values.put(info.fullyQualifiedName(), info.analysis().propertyValueStream()
+                    .filter(pv -> !NO_VALUE_STRING.contains(pv.property().key()))
+                    .map(pv -> pv.property().key() + "=" + pv.value())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return new Run(values, analyzer.certifiedWithoutFrozenValues(), analyzer.certificationReport());
+    }
+
+    @DisplayName("same values and outcome as a full verification pass, fewer elements re-verified")
+    @Test
+    public void test() throws IOException {
+        Run full = run(buildAnalyzerBundle(), false);
+        assertNull(full.report, "no tracking without the option");
+        boolean recorderEnabled = ConsumptionEdgeRecorder.ENABLED;
+        boolean writeRecorderEnabled = ValueWriteRecorder.ENABLED;
+        Run dependencyDriven = run(buildAnalyzerBundle(), true);
+        assertEquals(recorderEnabled, ConsumptionEdgeRecorder.ENABLED, "the run restores the recorder's flag");
+        assertEquals(writeRecorderEnabled, ValueWriteRecorder.ENABLED, "the run restores the write recorder's flag");
+        CertificationTracker.Report report = dependencyDriven.report;
+
+        assertEquals(full.values, dependencyDriven.values);
+        assertEquals(full.certified, dependencyDriven.certified);
+        assertTrue(report.passes() >= 1, report.toString());
+        assertEquals(report.passes() * (long) full.values.size(), report.fullPassElements());
+        assertTrue(report.reverified() < report.fullPassElements(), report.toString());
+    }
+
+    @DisplayName("a value written outside the change attribution makes its readers stale")
+    @Test
+    public void writtenElsewhere() throws IOException {
+        CommonTest.AnalyzerBundle bundle = buildAnalyzerBundle();
+        TypeInfo X = bundle.javaInspector().parse("a.b.X", INPUT);
+        List<Info> analysisOrder = bundle.prepAnalyzer().doPrimaryType(X);
+        Set<Info> orderSet = Set.copyOf(analysisOrder);
+        MethodInfo lower = X.findUniqueMethod("lower", 1);
+        MethodInfo toLowerCase = bundle.javaInspector().runtime().stringTypeInfo().findUniqueMethod("toLowerCase", 0);
+        Map<Info, Set<Info>> reads = Map.of(lower, Set.of(toLowerCase));
+
+        CertificationTracker tracker = new CertificationTracker(i -> orderSet.contains(i) ? i : null);
+        tracker.iterationCompleted(1, analysisOrder, List.of(), List.of(), false);
+        tracker.iterationCompleted(2, List.of(), List.of(), List.of(), false);
+        assertEquals(Set.of(), tracker.stale(analysisOrder, Map.of(), reads));
+
+        // a library method outside the analysis order, only known as read by 'lower'
+        tracker.iterationCompleted(3, List.of(), List.of(), List.of(toLowerCase.analysis()), false);
+        assertEquals(Set.of(lower), tracker.stale(analysisOrder, Map.of(), reads));
+
+        // a parameter's map belongs to its method
+        tracker.iterationCompleted(4, List.of(lower), List.of(), List.of(), false);
+        tracker.iterationCompleted(5, List.of(), List.of(), List.of(lower.parameters().getFirst().analysis()), false);
+        assertEquals(Set.of(lower), tracker.stale(analysisOrder, Map.of(), reads));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.analyzer.integration;
+
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.graph.G;
+import io.codelaser.maddi.modification.analyzer.CommonTest;
+import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
+import io.codelaser.maddi.modification.analyzer.impl.SingleIterationAnalyzerImpl;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeAnalysisOrder;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeCallGraph;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A parallel first iteration with a wave-completed callback (the value feed's {@code waveCompleted}) runs with a
+ * barrier per wave, even when the unit DAG for the dependency-driven scheduler is available: at each callback,
+ * on the coordinator thread, exactly the elements of the waves up to and including this one have completed.
+ */
+public class TestParallelFirstIterationFeed extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            class X {
+                private final List<String> list = new ArrayList<>();
+                static String trim(String s) { return s.trim(); }
+                static String lower(String s) { return trim(s).toLowerCase(); }
+                static String upper(String s) { return trim(s).toUpperCase(); }
+                void add(String s) { list.add(lower(s)); }
+                void addUpper(String s) { list.add(upper(s)); }
+                void addBoth(String s) { add(s); addUpper(s); }
+                void addAll(List<String> in) { for (String s : in) addBoth(s); }
+                List<String> copy() { List<String> result = new ArrayList<>(list); addAll(result); return result; }
+                static final class Y {
+                    private final X x = new X();
+                    void go(String s) { x.addBoth(s); }
+                }
+            }
+            """;
+
+    private record Callback(int wave, int completedElements, int elementsUpToWave, boolean coordinator) {
+    }
+
+    @DisplayName("PARALLEL first iteration with a feed: quiescent workers at every waveCompleted")
+    @Test
+    public void test() throws IOException {
+        CommonTest.AnalyzerBundle bundle = buildAnalyzerBundle();
+        TypeInfo X = bundle.javaInspector().parse("a.b.X", INPUT);
+        List<Info> analysisOrder = bundle.prepAnalyzer().doPrimaryType(X);
+        G<Info> graph = new ComputeCallGraph(bundle.javaInspector().runtime(), X).go().graph();
+        List<List<List<Info>>> waves = ComputeAnalysisOrder.waves(graph);
+        assertTrue(waves.size() > 2, "waves: " + waves);
+
+        SingleIterationAnalyzerImpl analyzer = new SingleIterationAnalyzerImpl(bundle.javaInspector(),
+                new IteratingAnalyzerImpl.ConfigurationBuilder().build());
+        analyzer.setFirstIterationThreads(4);
+        analyzer.setFirstIterationUnitPredecessors(ComputeAnalysisOrder.unitPredecessors(graph, waves));
+        AtomicInteger completed = new AtomicInteger();
+        analyzer.setElementCompletedCallback(completed::incrementAndGet);
+        Thread coordinator = Thread.currentThread();
+        List<Callback> callbacks = new ArrayList<>();
+        int[] elementsUpToWave = new int[1];
+        analyzer.setWaveCompletedCallback((elements, wave) -> {
+            elementsUpToWave[0] += elements.size();
+            callbacks.add(new Callback(wave, completed.get(), elementsUpToWave[0],
+                    Thread.currentThread() == coordinator));
+        });
+        analyzer.go(analysisOrder, false, true, waves);
+
+        assertEquals(waves.size(), callbacks.size(), "one callback per wave: the parallel path ran");
+        for (Callback callback : callbacks) {
+            assertTrue(callback.coordinator, callback.toString());
+            assertEquals(callback.elementsUpToWave, callback.completedElements, callback.toString());
+        }
+        assertEquals(analysisOrder.size(), completed.get());
+    }
+}
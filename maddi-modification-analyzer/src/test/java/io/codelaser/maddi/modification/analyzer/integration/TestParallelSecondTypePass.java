@@ -0,0 +1,158 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.analyzer.integration;
+
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.impl.analysis.PropertyImpl;
+import io.codelaser.maddi.cst.impl.analysis.ValueImpl;
+import io.codelaser.maddi.modification.analyzer.CommonTest;
+import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
+import io.codelaser.maddi.modification.analyzer.impl.SingleIterationAnalyzerImpl;
+import io.codelaser.maddi.modification.analyzer.impl.StaticSideEffectAnalyzerImpl;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The parallel second type pass ({@code SingleIterationAnalyzerImpl.secondTypePassPredecessors}) commits the same
+ * type verdicts as the sequential one: a type reads its supertypes, nested types and field types, and under SSE the
+ * types of its callees, which must come before or after it exactly as they do in the analysis order.
+ */
+public class TestParallelSecondTypePass extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            class X {
+                interface Shape { int area(); }
+                record Square(int side) implements Shape {
+                    public int area() { return side * side; }
+                }
+                static final class Holder {
+                    private final Square square;
+                    private final Box box;
+                    Holder(Square square, Box box) { this.square = square; this.box = box; }
+                    int area() { return square.area() + box.size(); }
+                }
+                static final class Box {
+                    private final List<Square> squares = new ArrayList<>();
+                    void add(Square s) { squares.add(s); }
+                    int size() { return squares.size(); }
+                }
+                static class Pair {
+                    private final Holder left;
+                    private final Holder right;
+                    Pair(Holder left, Holder right) { this.left = left; this.right = right; }
+                    Holder left() { return left; }
+                }
+                static final class Chain {
+                    private final Pair pair;
+                    private final List<Holder> holders;
+                    Chain(Pair pair, List<Holder> holders) { this.pair = pair; this.holders = List.copyOf(holders); }
+                    Pair pair() { return pair; }
+                }
+            }
+            """;
+
+    // static methods, so that a caller's type reads its callee's type only through the call
+    @Language("java")
+    private static final String SSE_INPUT = """
+            package a.b;
+            class Config {
+                static int level;
+            }
+            class X {
+                static final class A {
+                    static void set() { Config.level = 1; }
+                    static int get() { return Config.level; }
+                }
+                static final class B {
+                    static void go() { A.set(); }
+                    static int read() { return A.get(); }
+                }
+                static final class C {
+                    static void run() { B.go(); }
+                    static int peek() { return B.read(); }
+                }
+                static final class D {
+                    static void all() { C.run(); C.peek(); }
+                }
+            }
+            """;
+
+    // their values print as identities
+    private static final Set<String> NO_VALUE_STRING = Set.of("variableData", "implementations");
+
+    private Map<String, String> run(String input, int secondTypePassThreads) throws IOException {
+        CommonTest.AnalyzerBundle bundle = buildAnalyzerBundle();
+        TypeInfo X = bundle.javaInspector().parse("a.b.X", input);
+        List<Info> order = bundle.prepAnalyzer().doPrimaryType(X);
+        SingleIterationAnalyzerImpl analyzer = new SingleIterationAnalyzerImpl(bundle.javaInspector(),
+                new IteratingAnalyzerImpl.ConfigurationBuilder().build());
+        analyzer.setSecondTypePassThreads(secondTypePassThreads);
+        Map<String, String> values = new TreeMap<>();
+        for (int iteration = 0; iteration < 3; iteration++) {
+            analyzer.go(order, false, iteration == 0);
+            int i = iteration;
+            X.recursiveSubTypeStream().forEach(t -> {
+                values.put(i + " " + t.fullyQualifiedName(), t.analysis().propertyValueStream()
+                        .filter(pv -> !NO_VALUE_STRING.contains(pv.property().key()))
+                        .map(pv -> pv.property().key() + "=" + pv.value())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                t.methodStream().forEach(m -> values.put(i + " " + m.fullyQualifiedName(), "sse="
+                        + m.analysis().getOrNull(PropertyImpl.STATIC_SIDE_EFFECTS_METHOD, ValueImpl.BoolImpl.class)));
+            });
+        }
+        return values;
+    }
+
+    @DisplayName("parallel and sequential second type pass commit the same type verdicts, per iteration")
+    @Test
+    public void test() throws IOException {
+        Map<String, String> sequential = run(INPUT, 1);
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertEquals(sequential, run(INPUT, 4));
+        }
+    }
+
+    @DisplayName("SSE: a caller's type waits for, or goes before, the types of its callees as in the sequential pass")
+    @Test
+    public void staticSideEffects() throws IOException {
+        boolean saved = StaticSideEffectAnalyzerImpl.ENABLED;
+        StaticSideEffectAnalyzerImpl.ENABLED = true;
+        try {
+            Map<String, String> sequential = run(SSE_INPUT, 1);
+            assertEquals("sse=true", sequential.get("2 a.b.X.D.all()"));
+            for (int attempt = 0; attempt < 5; attempt++) {
+                assertEquals(sequential, run(SSE_INPUT, 4));
+            }
+        } finally {
+            StaticSideEffectAnalyzerImpl.ENABLED = saved;
+        }
+    }
+}
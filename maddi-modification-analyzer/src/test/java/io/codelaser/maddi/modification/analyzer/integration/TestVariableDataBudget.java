@@ -0,0 +1,191 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.analyzer.integration;
+
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.graph.G;
+import io.codelaser.maddi.modification.analyzer.CommonTest;
+import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
+import io.codelaser.maddi.modification.analyzer.impl.VariableDataBudget;
+import io.codelaser.maddi.modification.link.impl.MethodLinkedVariablesImpl;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeCallGraph;
+import io.codelaser.maddi.modification.prepwork.variable.impl.VariableDataImpl;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static io.codelaser.maddi.modification.link.impl.MethodLinkedVariablesImpl.METHOD_LINKS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The budgeted flatten-snapshot ({@code Configuration.variableDataBudget}): under a budget every method goes over,
+ * all methods are evicted once they and their callers have been linked, and the links equal those of a run
+ * without flattening. A budget no method reaches evicts nothing. The eviction order and the protection of a method
+ * whose callers are still to come are tested on the budget itself.
+ */
+public class TestVariableDataBudget extends CommonTest {
+
+    @Language("java")
+    private static final String INPUT = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            class X {
+                private final List<String> list = new ArrayList<>();
+                void add(String s) {
+                    String t = s.trim();
+                    String u = t.toLowerCase();
+                    list.add(u);
+                }
+                void addAll(List<String> in) {
+                    int n = 0;
+                    for (String s : in) {
+                        add(s);
+                        n++;
+                    }
+                    System.out.println(n);
+                }
+                List<String> copy() {
+                    List<String> result = new ArrayList<>(list);
+                    addAll(result);
+                    return result;
+                }
+            }
+            """;
+
+    private record Run(TypeInfo X, VariableDataBudget.Counters counters) {
+    }
+
+    private static Run run(CommonTest.AnalyzerBundle bundle, long budget) {
+        TypeInfo X = bundle.javaInspector().parse("a.b.X", INPUT);
+        List<Info> analysisOrder = bundle.prepAnalyzer().doPrimaryType(X);
+        G<Info> graph = new ComputeCallGraph(bundle.javaInspector().runtime(), X).go().graph();
+        IteratingAnalyzerImpl analyzer = new IteratingAnalyzerImpl(bundle.javaInspector(),
+                new IteratingAnalyzerImpl.ConfigurationBuilder().setMaxIterations(10)
+                        .setVariableDataBudget(budget).build());
+        analyzer.analyze(analysisOrder, graph);
+        return new Run(X, analyzer.variableDataBudgetCounters());
+    }
+
+    private static Map<String, String> links(TypeInfo X) {
+        return X.methodStream().collect(Collectors.toMap(MethodInfo::name,
+                m -> String.valueOf(m.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class))));
+    }
+
+    @DisplayName("a budget of one byte evicts every method; the links are those of an unbudgeted run")
+    @Test
+    public void test() throws IOException {
+        Run plain = run(buildAnalyzerBundle(), 0);
+        assertNull(plain.counters, "no budget, no counters");
+        Run budgeted = run(buildAnalyzerBundle(), 1);
+        VariableDataBudget.Counters counters = budgeted.counters;
+
+        assertEquals(links(plain.X), links(budgeted.X));
+        assertTrue(counters.evictions() >= 3, "at least add, addAll and copy: " + counters);
+        assertTrue(counters.regenerations() <= counters.evictions());
+        assertEquals(0, counters.residentBytes(), "with a budget of one byte, nothing stays resident");
+        assertTrue(counters.peakResidentBytes() > 0);
+
+        MethodInfo addAll = budgeted.X.findUniqueMethod("addAll", 1);
+        assertNull(VariableDataImpl.of(addAll.methodBody().statements().getFirst()), "intermediate VD dropped");
+        assertNotNull(VariableDataImpl.of(addAll.methodBody().lastStatement()), "last-statement VD kept");
+    }
+
+    @DisplayName("a budget no method reaches evicts nothing")
+    @Test
+    public void large() throws IOException {
+        Run run = run(buildAnalyzerBundle(), 1L << 40);
+        VariableDataBudget.Counters counters = run.counters;
+        assertEquals(0, counters.evictions());
+        assertEquals(0, counters.regenerations());
+        assertEquals(counters.peakResidentBytes(), counters.residentBytes());
+
+        MethodInfo addAll = run.X.findUniqueMethod("addAll", 1);
+        assertNotNull(VariableDataImpl.of(addAll.methodBody().statements().getFirst()), "intermediate VD kept");
+    }
+
+    @Language("java")
+    private static final String METHODS = """
+            package a.b;
+            class Y {
+                void m1() { }
+                void m2() { }
+                void m3() { }
+                void callee() { }
+                void caller1() { callee(); }
+                void caller2() { callee(); }
+                void other() { }
+            }
+            """;
+
+    private Map<String, MethodInfo> methods() throws IOException {
+        TypeInfo Y = buildAnalyzerBundle().javaInspector().parse("a.b.Y", METHODS);
+        return Y.methodStream().collect(Collectors.toMap(MethodInfo::name, m -> m));
+    }
+
+    @DisplayName("least recently used first; a method used again moves to the end")
+    @Test
+    public void lru() throws IOException {
+        Map<String, MethodInfo> m = methods();
+        VariableDataBudget budget = new VariableDataBudget(25);
+        budget.startPass(List.of(m.get("m1"), m.get("m2"), m.get("m3")));
+        assertEquals(List.of(), budget.completed(m.get("m1"), 10));
+        assertEquals(List.of(), budget.completed(m.get("m2"), 10));
+        assertEquals(List.of(m.get("m1")), budget.completed(m.get("m3"), 10));
+
+        // m2 is re-linked: m3 is now the least recently used
+        budget.startPass(List.of(m.get("m2")));
+        assertEquals(List.of(m.get("m3")), budget.completed(m.get("m2"), 20));
+        VariableDataBudget.Counters counters = budget.counters();
+        assertEquals(2, counters.evictions());
+        assertEquals(20, counters.residentBytes());
+        assertEquals(30, counters.peakResidentBytes());
+    }
+
+    @DisplayName("a callee outside the pass stays until its last caller in the pass has completed")
+    @Test
+    public void pendingCallers() throws IOException {
+        Map<String, MethodInfo> m = methods();
+        MethodInfo callee = m.get("callee");
+        MethodInfo caller1 = m.get("caller1");
+        MethodInfo caller2 = m.get("caller2");
+        MethodInfo other = m.get("other");
+        VariableDataBudget budget = new VariableDataBudget(100);
+        budget.setCallees(Map.of(caller1, Set.of(callee), caller2, Set.of(callee)));
+        budget.startPass(List.of(callee, caller1, caller2));
+        assertEquals(List.of(), budget.completed(callee, 60));
+        assertEquals(List.of(), budget.completed(caller1, 10));
+        assertEquals(List.of(), budget.completed(caller2, 10));
+
+        // the callers are re-linked, the callee is not; caller2 may still recurse into it
+        budget.startPass(List.of(caller1, caller2, other));
+        assertEquals(List.of(), budget.completed(caller1, 10));
+        assertEquals(List.of(caller1, other), budget.completed(other, 100), "not the callee");
+        assertEquals(List.of(), budget.completed(caller2, 10));
+        assertEquals(70, budget.counters().residentBytes());
+
+        // the callee is evictable now, and it was used after caller2 completed
+        budget.startPass(List.of(other));
+        assertEquals(List.of(caller2, callee), budget.completed(other, 100));
+    }
+}
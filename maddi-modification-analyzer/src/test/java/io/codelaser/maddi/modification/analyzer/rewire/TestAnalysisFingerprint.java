@@ -17,11 +17,13 @@ package io.codelaser.maddi.modification.analyzer.rewire;
 import io.codelaser.maddi.modification.analyzer.CommonTest;
 import io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl;
 import io.codelaser.maddi.modification.prepwork.io.AnalysisFingerprint;
+import io.codelaser.maddi.modification.prepwork.io.SourcePositionNormalizer;
 import io.codelaser.maddi.cst.api.element.FingerPrint;
 import io.codelaser.maddi.cst.api.element.SourceSet;
 import io.codelaser.maddi.cst.api.info.Info;
 import io.codelaser.maddi.cst.api.info.TypeInfo;
 import io.codelaser.maddi.cst.api.runtime.Runtime;
+import io.codelaser.maddi.inspection.api.resource.MD5FingerPrint;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -29,6 +31,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -137,6 +140,26 @@ public class TestAnalysisFingerprint extends CommonTest {
                 "the analysis is identical; only positions moved, so the normalized fingerprint must match");
     }
 
+    @DisplayName("streaming fingerprint: the hash of the normalized dump, without the dump")
+    @Test
+    public void testStreamingEqualsDump() throws IOException {
+        Analyzed a = analyze("a.b.X", IMMUTABLE_SHIFTED);
+        String dump = AnalysisFingerprint.dump(a.runtime(), a.typeInfo(), AnalysisFingerprint.ANALYZER_OUTPUT_ONLY);
+        assertEquals(MD5FingerPrint.compute(dump),
+                AnalysisFingerprint.of(a.runtime(), a.typeInfo(), AnalysisFingerprint.RAW));
+        assertEquals(MD5FingerPrint.compute(AnalysisFingerprint.normalize(dump, AnalysisFingerprint.DEFAULT)),
+                AnalysisFingerprint.of(a.runtime(), a.typeInfo()));
+        assertEquals(Map.of(a.typeInfo(), AnalysisFingerprint.of(a.runtime(), a.typeInfo())),
+                AnalysisFingerprint.ofAll(a.runtime(), List.of(a.typeInfo()), (_, e) -> fail(e)));
+
+        UnaryOperator<String> filter = new SourcePositionNormalizer().stringFilter();
+        assertEquals("", filter.apply("4-23:4-26"));
+        assertEquals("", filter.apply("0-0:0-0"));
+        assertEquals("1.0.0", filter.apply("1.0.0"));
+        assertEquals("4-23:4-", filter.apply("4-23:4-"));
+        assertEquals("4-23:4-26x", filter.apply("4-23:4-26x"));
+    }
+
     @DisplayName("per-source-set rollup: deterministic, and storePerSourceSet activates the dormant hook")
     @Test
     public void testSourceSetRollupAndStore() throws IOException {
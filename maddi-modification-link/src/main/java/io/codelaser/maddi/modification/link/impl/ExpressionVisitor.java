@@ -232,6 +232,7 @@ public record ExpressionVisitor(Runtime runtime,
     // SAM's first parameter), static ('String::valueOf'), and constructor ('R::new' — re-homed like a factory below).
     private Result methodReference(VariableData variableData, Stage stage, MethodReference mr) {
         MethodLinkedVariables mlv = linkComputer.recurseMethod(mr.methodInfo());
+        linkComputer.summaryConsumed(currentMethod, mr.methodInfo(), mlv);
         Result object = visit(mr.scope(), variableData, stage);
         MethodLinkedVariables tMlv;
         if (object.links().primary() != null) {
@@ -811,7 +812,7 @@ public record ExpressionVisitor(Runtime runtime,
         // worklist edge discovery: currentMethod's links are being computed FROM methodInfo's summary
         linkComputer.recordSummaryConsumption(currentMethod, methodInfo);
         RecursionPrevention.How how = recursionPrevention.contains(methodInfo);
-        return switch (how) {
+        MethodLinkedVariables mlv = switch (how) {
             case GET -> methodInfo.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class);
             case SHALLOW -> linkComputer.doMethodShallowDoNotWrite(methodInfo);
             case LOCK -> {
@@ -844,6 +845,8 @@ public record ExpressionVisitor(Runtime runtime,
                 yield methodInfo.analysis().getOrCreate(METHOD_LINKS, () -> linkComputer.doMethod(methodInfo));
             }
         };
+        linkComputer.summaryConsumed(currentMethod, methodInfo, mlv);
+        return mlv;
     }
 
 }
@@ -12,6 +12,7 @@ import io.codelaser.maddi.modification.link.impl.linkgraph.MakeGraph;
 import io.codelaser.maddi.modification.link.impl.localvar.IntermediateVariable;
 import io.codelaser.maddi.modification.link.impl.localvar.MarkerVariable;
 import io.codelaser.maddi.modification.link.impl.translate.TranslateConstants;
+import io.codelaser.maddi.modification.link.io.LinkSummaryCache;
 import io.codelaser.maddi.modification.link.vf.VirtualFieldComputer;
 import io.codelaser.maddi.modification.prepwork.Util;
 import io.codelaser.maddi.modification.prepwork.variable.*;
@@ -20,10 +21,13 @@ import io.codelaser.maddi.modification.prepwork.variable.impl.ReturnVariableImpl
 import io.codelaser.maddi.modification.prepwork.variable.impl.VariableDataImpl;
 import io.codelaser.maddi.modification.prepwork.variable.impl.VariableInfoImpl;
 import io.codelaser.maddi.cst.api.analysis.Codec;
+import io.codelaser.maddi.cst.api.analysis.Property;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
 import io.codelaser.maddi.cst.api.analysis.Value;
 import io.codelaser.maddi.cst.api.element.Element;
 import io.codelaser.maddi.cst.api.expression.Expression;
 import io.codelaser.maddi.cst.api.expression.NullConstant;
+import io.codelaser.maddi.cst.api.info.Info;
 import io.codelaser.maddi.cst.api.info.InfoMap;
 import io.codelaser.maddi.cst.api.info.InfoMapView;
 import io.codelaser.maddi.cst.api.info.MethodInfo;
@@ -81,6 +85,18 @@ public class LinkComputerImpl implements LinkComputer, LinkComputerRecursion {
                + ", content-only-adds=" + VL2O_CONTENT_TIER.sum();
     }
 
+    // saturated-group collapse (gate GROUPCOLLAPSE): how many methods completed that, by the edge visits the
+    // collapse skipped, would otherwise have tripped the work ceiling
+    static final java.util.concurrent.atomic.LongAdder COLLAPSE_METHODS = new java.util.concurrent.atomic.LongAdder();
+    static final java.util.concurrent.atomic.LongAdder COLLAPSE_RESCUED = new java.util.concurrent.atomic.LongAdder();
+    static final java.util.concurrent.atomic.LongAdder COLLAPSE_SKIPPED = new java.util.concurrent.atomic.LongAdder();
+
+    public static String groupCollapseStats() {
+        return "Group collapse stats: methods=" + COLLAPSE_METHODS.sum()
+               + ", completed-below-ceiling-only-thanks-to-collapse=" + COLLAPSE_RESCUED.sum()
+               + ", skipped-edge-visits=" + COLLAPSE_SKIPPED.sum();
+    }
+
     public static final PropertyImpl LINKED_VARIABLES_ARGUMENTS = new PropertyImpl("linkedVariablesArguments",
             ListOfLinksImpl.EMPTY);
 
@@ -181,6 +197,27 @@ public class LinkComputerImpl implements LinkComputer, LinkComputerRecursion {
         return consumedSummaries;
     }
 
+    // cross-run summary cache (LinkSummaryCache); null = off
+    private LinkSummaryCache summaryCache;
+    // per source method being computed for the cache: the inputs of the callee summaries it consumed, taken at
+    // consumption, so that a store keys what the computation read and not what a parallel worker wrote since
+    private final java.util.Map<MethodInfo, java.util.Map<MethodInfo, LinkSummaryCache.CalleeInputs>> consumedInputs =
+            new java.util.concurrent.ConcurrentHashMap<>();
+
+    @Override
+    public void summaryConsumed(MethodInfo consumer, MethodInfo consumed, MethodLinkedVariables used) {
+        if (summaryCache == null) return;
+        java.util.Map<MethodInfo, LinkSummaryCache.CalleeInputs> inputs = consumedInputs.get(consumer);
+        if (inputs == null) return; // not a computation the cache stores
+        // consumed twice with different values: nothing to key the result on
+        inputs.merge(consumed, LinkSummaryCache.calleeInputs(consumed, used),
+                (a, b) -> a.equals(b) ? a : new LinkSummaryCache.CalleeInputs(consumed, null));
+    }
+
+    public void setSummaryCache(LinkSummaryCache summaryCache) {
+        this.summaryCache = summaryCache;
+    }
+
     @Override
     public void setLockComputeDisabled(boolean disabled) {
         this.lockComputeDisabled = disabled;
@@ -299,11 +336,28 @@ public class LinkComputerImpl implements LinkComputer, LinkComputerRecursion {
                 io.codelaser.maddi.modification.link.impl.graph.IncrementalFixpointEngine.TRACE = true;
                 System.out.println("LT >>> " + methodInfo.fullyQualifiedName());
             }
-            SourceMethodComputer computer = new SourceMethodComputer(methodInfo);
+            SourceMethodComputer computer = null;
             try {
                 try {
-                    tlv = computer.go();
-                    reportWork(methodInfo, computer, false);
+                    LinkSummaryCache.Restored restored = summaryCache == null ? null
+                            : summaryCache.lookup(methodInfo, options);
+                    if (restored != null) {
+                        tlv = restoreFromCache(methodInfo, restored);
+                    } else {
+                        computer = new SourceMethodComputer(methodInfo);
+                        java.util.Map<MethodInfo, LinkSummaryCache.CalleeInputs> inputs;
+                        if (summaryCache != null) {
+                            consumedInputs.put(methodInfo, new java.util.concurrent.ConcurrentHashMap<>());
+                        }
+                        try {
+                            tlv = computer.go();
+                        } finally {
+                            inputs = summaryCache == null ? null : consumedInputs.remove(methodInfo);
+                        }
+                        reportWork(methodInfo, computer, false);
+                        // null: a concurrent computation of the same method took the map
+                        if (inputs != null) summaryCache.store(methodInfo, options, tlv, inputs.values());
+                    }
                     if (write) {
                         if (TolerantWrite.setAllowControlledOverwrite(methodInfo.analysis(), METHOD_LINKS, tlv, methodInfo)) {
                             propertiesChanged.incrementAndGet();
@@ -341,6 +395,35 @@ public class LinkComputerImpl implements LinkComputer, LinkComputerRecursion {
         return tlv;
     }
 
+    // a cache hit: what go() would have written onto the method and its parameters, and the consumption edges the
+    // computation would have recorded (the worklist wakes this method when one of those summaries changes)
+    private MethodLinkedVariables restoreFromCache(MethodInfo methodInfo, LinkSummaryCache.Restored restored) {
+        restored.values().forEach((info, values) -> values.propertyValueStream()
+                .filter(pv -> pv.property() != METHOD_LINKS)
+                .forEach(pv -> {
+                    if (TolerantWrite.setAllowControlledOverwrite(info.analysis(), pv.property(), pv.value(), info)) {
+                        propertiesChanged.incrementAndGet();
+                    }
+                }));
+        // the codec does not stream default values: a FALSE that copyModificationsIntoMethod wrote is absent from
+        // the cache entry. The cache only holds methods whose parameters do not link to a field of the hierarchy,
+        // so every parameter received UNMODIFIED_PARAMETER.
+        restoreDefault(methodInfo, PropertyImpl.NON_MODIFYING_METHOD, restored);
+        methodInfo.parameters().forEach(pi -> restoreDefault(pi, PropertyImpl.UNMODIFIED_PARAMETER, restored));
+        restored.callees().forEach(callee -> recordSummaryConsumption(methodInfo, callee));
+        countSourceMethods.incrementAndGet();
+        return restored.methodLinkedVariables();
+    }
+
+    private void restoreDefault(Info info, Property property, LinkSummaryCache.Restored restored) {
+        PropertyValueMap values = restored.values().get(info);
+        if (values == null || values.getOrNull(property, Value.Bool.class) == null) {
+            if (TolerantWrite.setAllowControlledOverwrite(info.analysis(), property, ValueImpl.BoolImpl.FALSE, info)) {
+                propertiesChanged.incrementAndGet();
+            }
+        }
+    }
+
     /*
     prepwork sets method-level VARIABLE_DATA only after the whole body analyzed (MethodAnalyzer.doMethod), so
     its absence on a non-trivially-bodied method means prep never ran or did not complete — including the
@@ -383,9 +466,27 @@ public class LinkComputerImpl implements LinkComputer, LinkComputerRecursion {
      */
     private static final String WORK_DUMP = System.getProperty("maddi.workDump");
 
+    // edge visits of the fixpoint engines that completed on this thread, for the analysis profiler
+    private static final ThreadLocal<long[]> ENGINE_WORK = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * The edge visits ({@link IncrementalFixpointEngine#work()}) of all methods linked on this thread so far,
+     * tripped ones included. Monotone; read before and after a piece of work to attribute the difference to it.
+     */
+    public static long engineWorkOnThisThread() {
+        return ENGINE_WORK.get()[0];
+    }
+
     private void reportWork(MethodInfo methodInfo, SourceMethodComputer computer, boolean tripped) {
         Graph graph = computer.linkGraph.graph();
         long work = graph.engine().work();
+        ENGINE_WORK.get()[0] += work;
+        if (graph.engine().collapsesGroups()) {
+            long skipped = graph.engine().skippedWork();
+            COLLAPSE_METHODS.increment();
+            COLLAPSE_SKIPPED.add(skipped);
+            if (!tripped && work + skipped >= IncrementalFixpointEngine.workCeiling()) COLLAPSE_RESCUED.increment();
+        }
         if (WORK_DUMP != null && methodInfo.fullyQualifiedName().contains(WORK_DUMP)) {
             LOGGER.info("LINKDUMP method={} work={} variables={}\n{}", methodInfo.fullyQualifiedName(), work,
                     graph.size(), graph.engine().printClosure());
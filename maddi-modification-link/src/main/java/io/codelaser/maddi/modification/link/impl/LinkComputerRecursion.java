@@ -17,6 +17,11 @@ interface LinkComputerRecursion {
         // no-op by default
     }
 
+    /** consumer's links are being computed from {@code used}, consumed's summary as it was read */
+    default void summaryConsumed(MethodInfo consumer, MethodInfo consumed, MethodLinkedVariables used) {
+        // no-op by default
+    }
+
     MethodLinkedVariables doMethod(MethodInfo methodInfo);
 
     MethodLinkedVariables recurseMethod(MethodInfo methodInfo);
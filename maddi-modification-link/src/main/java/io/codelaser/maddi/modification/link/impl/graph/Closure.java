@@ -10,7 +10,7 @@ import java.util.stream.Stream;
 
 // not symmetric by design!
 
-public class Closure<V, L> {
+public class Closure<V, L> implements ClosureStore<V, L> {
     private final Map<V, Map<V, L>> reachable = new HashMap<>();
     private final BinaryOperator<L> best;
 
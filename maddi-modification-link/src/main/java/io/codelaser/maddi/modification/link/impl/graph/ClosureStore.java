@@ -0,0 +1,46 @@
+package io.codelaser.maddi.modification.link.impl.graph;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/*
+The closure as the engine sees it: rows of (target, label) per source vertex. Two representations:
+Closure (nested hash maps, the reference) and IndexedClosure (vertices interned to ints, primitive rows),
+selected per engine (IncrementalFixpointEngine.INDEXED_CLOSURE).
+ */
+public interface ClosureStore<V, L> {
+
+    // returns true when the fact is new, or its label changed
+    boolean add(V from, V to, L label);
+
+    int countFacts();
+
+    Stream<Fact<V, L>> factStream();
+
+    L label(V from, V to);
+
+    Stream<Map.Entry<V, L>> successorStream(V source);
+
+    Iterable<Map.Entry<V, L>> successors(V source);
+
+    // the engine's hot loops: no Map.Entry per visited fact. The row of 'source' must not be modified by the
+    // consumer (appends are tolerated by IndexedClosure, not by Closure).
+    default void forEachSuccessor(V source, BiConsumer<V, L> consumer) {
+        for (Map.Entry<V, L> entry : successors(source)) {
+            consumer.accept(entry.getKey(), entry.getValue());
+        }
+    }
+
+    String print(Function<V, String> vertexPrinter, Comparator<V> vComparator, WitnessIndex<V, L> witnessIndex);
+
+    List<Fact<V, L>> removeFacts(Set<V> vertices, Predicate<Fact<V, L>> acceptForRemoval);
+
+    // returns the SURVIVING row owners that lost a fact to the column sweep
+    Set<V> removeVertices(Set<V> vertices);
+}
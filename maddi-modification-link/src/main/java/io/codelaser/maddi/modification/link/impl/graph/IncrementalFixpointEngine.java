@@ -5,6 +5,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -42,7 +43,7 @@ public final class IncrementalFixpointEngine<V, L> {
     private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalFixpointEngine.class);
 
     private final LabeledGraph<V, L> graph;
-    private final Closure<V, L> closure;
+    private final ClosureStore<V, L> closure;
     private final WitnessIndex<V, L> witnessIndex;
     private final BinaryOperator<L> combine;
     private final BinaryOperator<L> best;
@@ -69,6 +70,30 @@ public final class IncrementalFixpointEngine<V, L> {
     // propagation step and witness decision. Volatile, off by default; zero overhead when false.
     public static volatile boolean TRACE = false;
 
+    // Closure representation for engines created from now on: IndexedClosure (int-interned vertices, primitive
+    // rows) instead of the nested hash maps. Off by default: row iteration order differs, so derivation order and
+    // witness choices do, and on large corpora so do some results. TestClosureDifferential holds the module's
+    // fixtures to the same links under every representation. Env INDEXEDCLOSURE; benches flip it in-process.
+    public static volatile boolean INDEXED_CLOSURE = Gate.isSet("INDEXEDCLOSURE");
+
+    /*
+    Saturated-group collapse (docs/handoff-saturated-closure-collapse.md), env GROUPCOLLAPSE, implies the
+    indexed closure. When a fact 'a g b' is added for a group label g (valid, rev(g) = g, g∘g = g) between two
+    vertices accepted for composites, the groups of a and b merge: every cross pair is a g-derivation
+    a' g a g b g b' the engine would make anyway, so it is added at once (witness synthesized along that path,
+    queued for propagation OUT of the group) and then stored implicitly (IndexedClosure.merge). No merge when a
+    cross pair is already better than g, or has no cycle-free witness along that path: groups stay pure. Inside a
+    group, propagation skips the implicit members whenever composing with g cannot beat g: those derivations
+    could only re-offer witnesses for facts already present, and they are the N per fact that make a saturated
+    closure cubic. Witnesses stay per pair: support() drives removal and cycle avoidance, and must not change.
+    Merges are deferred to the end of the current fact's propagation: the row being walked must not change.
+     */
+    public static volatile boolean GROUP_COLLAPSE = Gate.isSet("GROUPCOLLAPSE");
+    private final IndexedClosure<V, L> groups;
+    private final List<Fact<V, L>> pendingMerges = new ArrayList<>();
+    // implicit group members NOT visited thanks to the collapse: what the work counter would have added
+    private long skippedWork;
+
     /*
     Extraction-reuse dirty tracking (remedy A, review 2026-08-05): the endpoints of every CLOSURE-CONTENT
     change (fact added, label upgraded, fact removed) since the last drain. Witness-only changes are
@@ -109,7 +134,13 @@ public final class IncrementalFixpointEngine<V, L> {
                                      Comparator<V> vertexComparator,
                                      Predicate<V> acceptForComposite) {
         this.graph = new LabeledGraph<>();
-        this.closure = new Closure<>(best);
+        if (GROUP_COLLAPSE) {
+            this.groups = new IndexedClosure<>(best, true);
+            this.closure = groups;
+        } else {
+            this.groups = null;
+            this.closure = INDEXED_CLOSURE ? new IndexedClosure<>(best) : new Closure<>(best);
+        }
         this.witnessIndex = new WitnessIndex<>(scoreFunction, vertexComparator);
         this.combine = Objects.requireNonNull(combine);
         this.valid = Objects.requireNonNull(valid);
@@ -139,6 +170,18 @@ public final class IncrementalFixpointEngine<V, L> {
         return work;
     }
 
+    /**
+     * Edge visits the group collapse avoided so far: {@code work() + skippedWork()} estimates what this method
+     * would have cost without it. Always 0 when collapsing is off.
+     */
+    public long skippedWork() {
+        return skippedWork;
+    }
+
+    public boolean collapsesGroups() {
+        return groups != null;
+    }
+
     /** The ceiling {@link #work()} is measured against; {@code Long.MAX_VALUE} when opted out. */
     public static long workCeiling() {
         return NO_WORK_CEILING ? Long.MAX_VALUE : WORK_CEILING;
@@ -284,6 +327,11 @@ public final class IncrementalFixpointEngine<V, L> {
         }
         LOGGER.debug("New information, statement {}", statementIndex);
         Deque<Fact<V, L>> queueCopy = new ArrayDeque<>(queue);
+        // after the copy: the cross pairs of a merge are derived facts, not seeds of the optimization phase
+        if (groups != null) {
+            pendingMerges.addAll(queueCopy);
+            mergeGroups(queue, false);
+        }
 
         while (!queue.isEmpty()) {
             countWork();
@@ -291,6 +339,7 @@ public final class IncrementalFixpointEngine<V, L> {
             if (LOGGER.isDebugEnabled()) LOGGER.debug("-- inference phase: process {}", fact.print(vertexPrinter));
             propagateForward(fact, queue, false, null);
             propagateBackward(fact, queue, false, null);
+            if (groups != null) mergeGroups(queue, false);
         }
         // see e.g. TestDependent,2,3 -- they need this optimization phase
         Set<Fact<V, L>> history = new HashSet<>();
@@ -301,6 +350,7 @@ public final class IncrementalFixpointEngine<V, L> {
                 if (LOGGER.isDebugEnabled()) LOGGER.debug("-- optimization phase: process {}", fact.print(vertexPrinter));
                 propagateForward(fact, queueCopy, true, history);
                 propagateBackward(fact, queueCopy, true, history);
+                if (groups != null) mergeGroups(queueCopy, true);
             }
         }
         LOGGER.debug("End of update, statement {}", statementIndex);
@@ -309,38 +359,45 @@ public final class IncrementalFixpointEngine<V, L> {
     }
 
     private void propagateForward(Fact<V, L> fact, Deque<Fact<V, L>> queue, boolean optimize, Set<Fact<V, L>> history) {
-        Iterable<Map.Entry<V, L>> successors = optimize
-                ? closure.successors(fact.target())
-                : graph.successors(fact.target());
-        for (Map.Entry<V, L> edge : successors) {
-            countWork();
-            L nextLabel = combine.apply(fact.label(), edge.getValue());
-            V source = fact.source();
-            V target = edge.getKey();
-            if (acceptForComposite.test(target) && !source.equals(target) && valid.test(nextLabel)) {
-                Fact<V, L> next = new Fact<>(source, target, nextLabel);
-                if (history == null || addToHistory(history, next)) {
-                    Fact<V, L> newFact = new Fact<>(fact.target(), target, edge.getValue());
-                    Witness<V, L> leftW = witnessIndex.get(fact);
-                    Witness<V, L> rightW = witnessIndex.get(newFact);
-                    if (leftW != null && rightW != null && doesNotCreateCycle(next, leftW, rightW)) {
-                        Witness.CompositeWitness<V, L> candidate = Witness.CompositeWitness.of(leftW, rightW, fact,
-                                newFact, !optimize);
-                        boolean improved = witnessIndex.putIfBetter(next, candidate);
-                        boolean added = closure.add(next.source(), next.target(), next.label());
-                        if (added) touch(next);
-                        if (TRACE && (added || improved)) lt((optimize ? "opt-fwd " : "fwd ")
-                                + next.print(vertexPrinter) + " added=" + added + " improved=" + improved
-                                + " via " + fact.print(vertexPrinter) + " + " + newFact.print(vertexPrinter));
-                        if (added || improved) {
-                            if (LOGGER.isDebugEnabled()) LOGGER.debug(" -- -- forward, {} {} {} witness {}",
-                                    next.print(vertexPrinter),
-                                    added ? "added" : "",
-                                    improved ? "improved" : "",
-                                    candidate.print(vertexPrinter));
-                            queue.addLast(next);
-                            if (added) completeSymmetrically(next, fact, newFact, candidate, queue, optimize);
-                        }
+        if (optimize) {
+            forEachContributingSuccessor(fact, true, (target, label) ->
+                    forwardStep(fact, target, label, queue, true, history));
+        } else {
+            for (Map.Entry<V, L> edge : graph.successors(fact.target())) {
+                forwardStep(fact, edge.getKey(), edge.getValue(), queue, false, history);
+            }
+        }
+    }
+
+    private void forwardStep(Fact<V, L> fact, V target, L edgeLabel, Deque<Fact<V, L>> queue, boolean optimize,
+                             Set<Fact<V, L>> history) {
+        countWork();
+        L nextLabel = combine.apply(fact.label(), edgeLabel);
+        V source = fact.source();
+        if (acceptForComposite.test(target) && !source.equals(target) && valid.test(nextLabel)) {
+            Fact<V, L> next = new Fact<>(source, target, nextLabel);
+            if (history == null || addToHistory(history, next)) {
+                Fact<V, L> newFact = new Fact<>(fact.target(), target, edgeLabel);
+                Witness<V, L> leftW = witnessIndex.get(fact);
+                Witness<V, L> rightW = witnessIndex.get(newFact);
+                if (leftW != null && rightW != null && doesNotCreateCycle(next, leftW, rightW)) {
+                    Witness.CompositeWitness<V, L> candidate = Witness.CompositeWitness.of(leftW, rightW, fact,
+                            newFact, !optimize);
+                    boolean improved = witnessIndex.putIfBetter(next, candidate);
+                    boolean added = closure.add(next.source(), next.target(), next.label());
+                    if (added) touch(next);
+                    if (TRACE && (added || improved)) lt((optimize ? "opt-fwd " : "fwd ")
+                            + next.print(vertexPrinter) + " added=" + added + " improved=" + improved
+                            + " via " + fact.print(vertexPrinter) + " + " + newFact.print(vertexPrinter));
+                    if (added || improved) {
+                        if (LOGGER.isDebugEnabled()) LOGGER.debug(" -- -- forward, {} {} {} witness {}",
+                                next.print(vertexPrinter),
+                                added ? "added" : "",
+                                improved ? "improved" : "",
+                                candidate.print(vertexPrinter));
+                        queue.addLast(next);
+                        if (added) completeSymmetrically(next, fact, newFact, candidate, queue, optimize);
+                        if (added && groups != null) pendingMerges.add(next);
                     }
                 }
             }
@@ -389,40 +446,147 @@ public final class IncrementalFixpointEngine<V, L> {
     }
 
     private void propagateBackward(Fact<V, L> fact, Deque<Fact<V, L>> queue, boolean optimize, Set<Fact<V, L>> history) {
+        forEachContributingSuccessor(fact, false, (p, label) -> backwardStep(fact, p, label, queue, optimize, history));
+    }
+
+    /*
+    The closure successors of fact.target() (forward) or fact.source() (backward), minus the implicit members of
+    the fact's own group when composing with the group label cannot beat it: forward, 's ℓ t' and 't g x' give
+    's ℓ∘g x'; backward, 'p g s' and 's ℓ t' give 'p g∘ℓ t'; and s, t, x, p all in the group already carry g.
+     */
+    private void forEachContributingSuccessor(Fact<V, L> fact, boolean forward, BiConsumer<V, L> consumer) {
+        V vertex = forward ? fact.target() : fact.source();
+        if (groups != null && groups.sameGroup(fact.source(), fact.target())) {
+            L g = groups.groupLabel(vertex);
+            L composed = forward ? combine.apply(fact.label(), g) : combine.apply(reverse.apply(g), fact.label());
+            if (!valid.test(composed) || best.apply(g, composed).equals(g)) {
+                skippedWork += groups.forEachSuccessor(vertex, consumer, false);
+                return;
+            }
+        }
+        closure.forEachSuccessor(vertex, consumer);
+    }
+
+    private void mergeGroups(Deque<Fact<V, L>> queue, boolean optimize) {
+        for (int i = 0; i < pendingMerges.size(); i++) {
+            Fact<V, L> fact = pendingMerges.get(i);
+            V a = fact.source();
+            V b = fact.target();
+            L g = fact.label();
+            if (!isGroupLabel(g) || groups.sameGroup(a, b)
+                || !acceptForComposite.test(a) || !acceptForComposite.test(b)
+                || !g.equals(closure.label(a, b))) continue; // upgraded since: an exception, not a group link
+            L ga = groups.groupLabel(a);
+            L gb = groups.groupLabel(b);
+            if (ga != null && !ga.equals(g) || gb != null && !gb.equals(g)) continue;
+            merge(fact, queue, optimize);
+        }
+        pendingMerges.clear();
+    }
+
+    private void merge(Fact<V, L> fact, Deque<Fact<V, L>> queue, boolean optimize) {
+        V a = fact.source();
+        V b = fact.target();
+        L g = fact.label();
+        List<V> as = groups.groupOrSelf(a);
+        List<V> bs = groups.groupOrSelf(b);
+        // which cross pairs does the merge add (or upgrade to g)? Decide before they become implicit. A pair
+        // that is already better than g does not derive through the group: no merge, groups stay pure.
+        Set<Fact<V, L>> fresh = new HashSet<>();
+        for (V x : as) {
+            for (V y : bs) {
+                countWork();
+                if (!collectFromGroup(x, y, g, fresh) || !collectFromGroup(y, x, g, fresh)) return;
+            }
+        }
+        // witnesses along a' g a g b g b', in the orientation completeSymmetrically would give the mirrors:
+        // first the column through b, then every other b' through it. All of them before anything changes: a
+        // pair without a cycle-free composite is not derived through the group either, and then there is no merge.
+        Map<Fact<V, L>, Witness<V, L>> planned = new LinkedHashMap<>();
+        for (V x : as) {
+            if (!x.equals(a) && !(planFromGroup(x, a, b, g, fresh, planned, optimize)
+                                  && planFromGroup(b, a, x, g, fresh, planned, optimize))) return;
+        }
+        for (V y : bs) {
+            if (y.equals(b)) continue;
+            for (V x : as) {
+                if (!(planFromGroup(x, b, y, g, fresh, planned, optimize)
+                      && planFromGroup(y, b, x, g, fresh, planned, optimize))) return;
+            }
+        }
+        groups.merge(a, b, g);
+        if (TRACE) lt("merge " + fact.print(vertexPrinter) + " " + as.size() + "x" + bs.size()
+                      + " fresh=" + fresh.size());
+        planned.forEach((next, witness) -> {
+            witnessIndex.putIfBetter(next, witness);
+            touch(next);
+            queue.addLast(next);
+        });
+    }
+
+    // false when the pair has a label strictly better than g; otherwise collects it if g is an improvement
+    private boolean collectFromGroup(V x, V y, L g, Set<Fact<V, L>> fresh) {
+        L current = closure.label(x, y);
+        if (current == null || !current.equals(g) && best.apply(current, g).equals(g)) {
+            fresh.add(new Fact<>(x, y, g));
+        } else if (!current.equals(g)) {
+            return false;
+        }
+        return true;
+    }
+
+    // 'from g to' as 'from g via' + 'via g to', either of which may itself be planned. Every fact on the path
+    // carries g: the groups are pure.
+    private boolean planFromGroup(V from, V via, V to, L g, Set<Fact<V, L>> fresh,
+                                  Map<Fact<V, L>, Witness<V, L>> planned, boolean optimize) {
+        Fact<V, L> next = new Fact<>(from, to, g);
+        if (!fresh.contains(next)) return true;
+        Fact<V, L> left = new Fact<>(from, via, g);
+        Fact<V, L> right = new Fact<>(via, to, g);
+        Witness<V, L> leftW = planned.containsKey(left) ? planned.get(left) : witnessIndex.get(left);
+        Witness<V, L> rightW = planned.containsKey(right) ? planned.get(right) : witnessIndex.get(right);
+        if (leftW == null || rightW == null || !doesNotCreateCycle(next, leftW, rightW)) return false;
+        planned.put(next, Witness.CompositeWitness.of(leftW, rightW, left, right, !optimize));
+        return true;
+    }
+
+    private boolean isGroupLabel(L label) {
+        return valid.test(label) && reverse.apply(label).equals(label) && combine.apply(label, label).equals(label);
+    }
+
+    private void backwardStep(Fact<V, L> fact, V p, L label, Deque<Fact<V, L>> queue, boolean optimize,
+                              Set<Fact<V, L>> history) {
+        countWork();
         V source = fact.source();
-        for (Map.Entry<V, L> edge : closure.successors(source)) {
-            countWork();
-            V p = edge.getKey();
-            V target = fact.target();
-            if (acceptForComposite.test(target) && !p.equals(source) && !p.equals(target)) {
-                L label = edge.getValue();
-                L predLabel = reverse.apply(label); // because we're following the successors!
-                L combined = combine.apply(predLabel, fact.label());
-                if (valid.test(combined)) {
-                    Fact<V, L> next = new Fact<>(p, target, combined);
-                    if (history == null || addToHistory(history, next)) {
-                        Fact<V, L> newFact = new Fact<>(p, source, predLabel);
-                        Witness<V, L> leftW = witnessIndex.get(newFact);
-                        Witness<V, L> rightW = witnessIndex.get(fact);
-                        if (leftW != null && rightW != null && doesNotCreateCycle(next, leftW, rightW)) {
-                            Witness.CompositeWitness<V, L> candidate = Witness.CompositeWitness.of(leftW, rightW, newFact,
-                                    fact, !optimize);
-                            // (the doesNotCreateCycle check above IS 'candidate.support() does not contain next';
-                            // asserting it again would materialize every candidate's lazy support)
-                            boolean added = closure.add(next.source(), next.target(), next.label());
-                            if (added) touch(next);
-                            boolean improved = witnessIndex.putIfBetter(next, candidate);
-                            if (TRACE && (added || improved)) lt((optimize ? "opt-bwd " : "bwd ")
-                                    + next.print(vertexPrinter) + " added=" + added + " improved=" + improved
-                                    + " via " + newFact.print(vertexPrinter) + " + " + fact.print(vertexPrinter));
-                            if (added || improved) {
-                                if (LOGGER.isDebugEnabled()) LOGGER.debug(" -- -- backward, {} {} {} witness {}",
-                                        added ? "added" : "",
-                                        improved ? "improved" : "",
-                                        next.print(vertexPrinter), candidate.print(vertexPrinter));
-                                queue.addLast(next);
-                                if (added) completeSymmetrically(next, newFact, fact, candidate, queue, optimize);
-                            }
+        V target = fact.target();
+        if (acceptForComposite.test(target) && !p.equals(source) && !p.equals(target)) {
+            L predLabel = reverse.apply(label); // because we're following the successors!
+            L combined = combine.apply(predLabel, fact.label());
+            if (valid.test(combined)) {
+                Fact<V, L> next = new Fact<>(p, target, combined);
+                if (history == null || addToHistory(history, next)) {
+                    Fact<V, L> newFact = new Fact<>(p, source, predLabel);
+                    Witness<V, L> leftW = witnessIndex.get(newFact);
+                    Witness<V, L> rightW = witnessIndex.get(fact);
+                    if (leftW != null && rightW != null && doesNotCreateCycle(next, leftW, rightW)) {
+                        Witness.CompositeWitness<V, L> candidate = Witness.CompositeWitness.of(leftW, rightW, newFact,
+                                fact, !optimize);
+                        // (the doesNotCreateCycle check above IS 'candidate.support() does not contain next';
+                        // asserting it again would materialize every candidate's lazy support)
+                        boolean added = closure.add(next.source(), next.target(), next.label());
+                        if (added) touch(next);
+                        boolean improved = witnessIndex.putIfBetter(next, candidate);
+                        if (TRACE && (added || improved)) lt((optimize ? "opt-bwd " : "bwd ")
+                                + next.print(vertexPrinter) + " added=" + added + " improved=" + improved
+                                + " via " + newFact.print(vertexPrinter) + " + " + fact.print(vertexPrinter));
+                        if (added || improved) {
+                            if (LOGGER.isDebugEnabled()) LOGGER.debug(" -- -- backward, {} {} {} witness {}",
+                                    added ? "added" : "",
+                                    improved ? "improved" : "",
+                                    next.print(vertexPrinter), candidate.print(vertexPrinter));
+                            queue.addLast(next);
+                            if (added) completeSymmetrically(next, newFact, fact, candidate, queue, optimize);
+                            if (added && groups != null) pendingMerges.add(next);
                         }
                     }
                 }
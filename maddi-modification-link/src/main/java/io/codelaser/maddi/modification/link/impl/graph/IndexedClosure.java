@@ -0,0 +1,538 @@
+package io.codelaser.maddi.modification.link.impl.graph;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/*
+Closure with the vertices interned to dense int ids (per engine, hence per method) and every row stored as
+parallel primitive arrays: int[] targets, Object[] labels, in insertion order. Rows up to LINEAR_SCAN facts
+are searched linearly; larger rows get an open-addressing int index (slot -> position + 1) on top.
+
+Near the work ceiling, Closure's HashMap-of-HashMaps costs a 32-byte HashMap.Node per fact, plus table and
+resize garbage; here a fact costs 8 bytes in the row plus, in large rows, 8 in the index. Ids are never
+recycled: a removed vertex that comes back gets its old id, so rows of other vertices need no renumbering.
+
+Successor iteration of a large row follows its index slots, i.e. hash order of the ids, NOT insertion order.
+Deliberately: the engine's work is order-sensitive, and on a saturating ≡-chain (60 vertices) insertion order
+cost 6.5x the edge visits of Closure's hash order of V, where slot order cost 0.77x. Either way derivation
+order, and with it the witness offered first, differs between the two representations, and a different witness
+can change what is derived later: results are not guaranteed to be identical, which is why the representation is
+gated (INDEXEDCLOSURE). TestClosureDifferential compares the links of this module's fixtures.
+ */
+public final class IndexedClosure<V, L> implements ClosureStore<V, L> {
+    private static final int LINEAR_SCAN = 8;
+
+    private final BinaryOperator<L> best;
+    private final Map<V, Integer> ids = new HashMap<>();
+    private final List<V> vertices = new ArrayList<>();
+    private Row[] rows = new Row[16];
+    private int facts;
+
+    // saturated groups, see the second comment below; null when collapsing is off
+    private int[] groupOf;
+    private final List<Group> groups = new ArrayList<>();
+
+    public IndexedClosure(BinaryOperator<L> best) {
+        this(best, false);
+    }
+
+    public IndexedClosure(BinaryOperator<L> best, boolean collapseGroups) {
+        this.best = best;
+        if (collapseGroups) {
+            groupOf = new int[16];
+            Arrays.fill(groupOf, -1);
+        }
+    }
+
+    /*
+    Saturated-group collapse (GROUPCOLLAPSE, docs/handoff-saturated-closure-collapse.md). A group is a set of
+    vertices that are pairwise linked by one label g — symmetric (rev(g) = g) and idempotent (g∘g = g), e.g.
+    ≡, ~, ∩. The N(N-1) facts g between its members are IMPLICIT: stored once, as the membership, and expanded
+    on read (label, successors, factStream). A group is pure: no member pair carries anything better than g.
+    An upgrade of a member pair dissolves the group back into explicit facts first, as does removeFacts on a
+    member, so that neither the engine's derivations through the group nor the repair flow (feature 8) ever
+    meet an exception. The engine decides when vertices merge (it owns witnesses and the queue).
+     */
+    private static final class Group {
+        final Object label;
+        int[] members; // ids, ascending
+
+        Group(Object label, int[] members) {
+            this.label = label;
+            this.members = members;
+        }
+    }
+
+    private static final class Row {
+        int size;
+        int[] targets = new int[4];
+        Object[] labels = new Object[4];
+        int[] index; // null while size <= LINEAR_SCAN; length is a power of 2, at least 2 * targets.length
+
+        int find(int target) {
+            if (index == null) {
+                for (int i = 0; i < size; i++) if (targets[i] == target) return i;
+                return -1;
+            }
+            int mask = index.length - 1;
+            for (int slot = mix(target) & mask; ; slot = (slot + 1) & mask) {
+                int p = index[slot];
+                if (p == 0) return -1;
+                if (targets[p - 1] == target) return p - 1;
+            }
+        }
+
+        void append(int target, Object label) {
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                labels = Arrays.copyOf(labels, size * 2);
+            }
+            targets[size] = target;
+            labels[size] = label;
+            size++;
+            if (index != null && index.length < 2 * targets.length) {
+                rebuildIndex();
+            } else if (index != null) {
+                insertIntoIndex(size - 1);
+            } else if (size > LINEAR_SCAN) {
+                rebuildIndex();
+            }
+        }
+
+        // keep the positions accepted by 'keep', in order; returns the number removed
+        int retain(IntPredicate keep) {
+            int w = 0;
+            for (int r = 0; r < size; r++) {
+                if (keep.test(r)) {
+                    targets[w] = targets[r];
+                    labels[w] = labels[r];
+                    w++;
+                }
+            }
+            int removed = size - w;
+            if (removed > 0) {
+                Arrays.fill(labels, w, size, null);
+                size = w;
+                if (size > LINEAR_SCAN) rebuildIndex();
+                else index = null;
+            }
+            return removed;
+        }
+
+        private void rebuildIndex() {
+            index = new int[Integer.highestOneBit(Math.max(targets.length, LINEAR_SCAN * 2) - 1) << 2];
+            for (int i = 0; i < size; i++) insertIntoIndex(i);
+        }
+
+        private void insertIntoIndex(int position) {
+            int mask = index.length - 1;
+            int slot = mix(targets[position]) & mask;
+            while (index[slot] != 0) slot = (slot + 1) & mask;
+            index[slot] = position + 1;
+        }
+
+        private static int mix(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private int intern(V v) {
+        Integer id = ids.get(v);
+        if (id != null) return id;
+        int fresh = vertices.size();
+        ids.put(v, fresh);
+        vertices.add(v);
+        if (groupOf != null && fresh >= groupOf.length) {
+            int old = groupOf.length;
+            groupOf = Arrays.copyOf(groupOf, old * 2);
+            Arrays.fill(groupOf, old, groupOf.length, -1);
+        }
+        return fresh;
+    }
+
+    private Row row(V v) {
+        Integer id = ids.get(v);
+        return id == null || id >= rows.length ? null : rows[id];
+    }
+
+    private Row rowOrCreate(int id) {
+        if (id >= rows.length) rows = Arrays.copyOf(rows, Math.max(rows.length * 2, id + 1));
+        Row row = rows[id];
+        if (row == null) rows[id] = row = new Row();
+        return row;
+    }
+
+    private Group groupOfId(int id) {
+        if (groupOf == null) return null;
+        int g = groupOf[id];
+        return g < 0 ? null : groups.get(g);
+    }
+
+    private Group commonGroup(int a, int b) {
+        if (groupOf == null || groupOf[a] < 0 || groupOf[a] != groupOf[b]) return null;
+        return groups.get(groupOf[a]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private L groupLabel(Group group) {
+        return (L) group.label;
+    }
+
+    @Override
+    public boolean add(V from, V to, L label) {
+        assert !from.equals(to);
+        int f = intern(from);
+        int t = intern(to);
+        Row row = rowOrCreate(f);
+        int p = row.find(t);
+        if (p < 0) {
+            Group group = commonGroup(f, t);
+            if (group != null) {
+                // implied by the group, unless strictly better: then the group is no longer pure
+                L g = groupLabel(group);
+                label = best.apply(g, label);
+                if (label.equals(g)) return false;
+                dissolve(groupOf[f]);
+                p = row.find(t);
+                L current = labelAt(row, p);
+                row.labels[p] = label;
+                return !current.equals(label);
+            }
+            row.append(t, label);
+            facts++;
+            return true;
+        }
+        L current = labelAt(row, p);
+        L newLabel = best.apply(current, label);
+        row.labels[p] = newLabel;
+        return !current.equals(newLabel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private L labelAt(Row row, int position) {
+        return (L) row.labels[position];
+    }
+
+    // stored facts: explicit row entries, plus one per group member (its membership stands for its implicit row)
+    @Override
+    public int countFacts() {
+        int count = facts;
+        for (Group group : groups) if (group != null) count += group.members.length;
+        return count;
+    }
+
+    @Override
+    public Stream<Fact<V, L>> factStream() {
+        Stream<Fact<V, L>> explicit = IntStream.range(0, Math.min(rows.length, vertices.size()))
+                .filter(f -> rows[f] != null)
+                .boxed()
+                .flatMap(f -> {
+                    Row row = rows[f];
+                    V source = vertices.get(f);
+                    return IntStream.range(0, row.size)
+                            .mapToObj(i -> new Fact<>(source, vertices.get(row.targets[i]), labelAt(row, i)));
+                });
+        if (groupOf == null) return explicit;
+        Stream<Fact<V, L>> implicit = groups.stream().filter(Objects::nonNull).flatMap(group ->
+                Arrays.stream(group.members).boxed().flatMap(f -> {
+                    Row row = f < rows.length ? rows[f] : null;
+                    V source = vertices.get(f);
+                    return Arrays.stream(group.members)
+                            .filter(t -> t != f && (row == null || row.find(t) < 0))
+                            .mapToObj(t -> new Fact<>(source, vertices.get(t), groupLabel(group)));
+                }));
+        return Stream.concat(explicit, implicit);
+    }
+
+    @Override
+    public L label(V from, V to) {
+        Integer f = ids.get(from);
+        Integer t = ids.get(to);
+        if (f == null || t == null) return null;
+        Row row = f < rows.length ? rows[f] : null;
+        int p = row == null ? -1 : row.find(t);
+        if (p >= 0) return labelAt(row, p);
+        Group group = commonGroup(f, t);
+        return group == null ? null : groupLabel(group);
+    }
+
+    @Override
+    public Stream<Map.Entry<V, L>> successorStream(V source) {
+        return successorList(source).stream();
+    }
+
+    @Override
+    public Iterable<Map.Entry<V, L>> successors(V source) {
+        return successorList(source);
+    }
+
+    // a snapshot, in the same order as forEachSuccessor
+    private List<Map.Entry<V, L>> successorList(V source) {
+        List<Map.Entry<V, L>> list = new ArrayList<>();
+        forEachSuccessor(source, (v, l) -> list.add(new AbstractMap.SimpleImmutableEntry<>(v, l)));
+        return list.isEmpty() ? List.of() : list;
+    }
+
+    @Override
+    public void forEachSuccessor(V source, BiConsumer<V, L> consumer) {
+        forEachSuccessor(source, consumer, true);
+    }
+
+    /**
+     * The explicit successors of {@code source}, then, if {@code implicit}, the members of its group that are
+     * not among them, with the group label. The consumer must not merge groups. It may dissolve one, by upgrading
+     * a member pair in {@link #add}: the successors of a group member are therefore visited from a copy, taken
+     * before the first call to the consumer.
+     *
+     * @return the number of implicit successors, whether visited or not
+     */
+    public int forEachSuccessor(V source, BiConsumer<V, L> consumer, boolean implicit) {
+        Integer id = ids.get(source);
+        if (id == null) return 0;
+        Row row = id < rows.length ? rows[id] : null;
+        Group group = groupOfId(id);
+        if (group != null) return forEachSuccessorOfMember(id, row, group, consumer, implicit);
+        if (row != null) {
+            // arrays are re-read on every step: an append by the consumer (which may reallocate them, or
+            // replace the index) never leaves us reading a stale array; positions indexed by the held index
+            // stay valid
+            int[] index = row.index;
+            if (index == null) {
+                for (int i = 0; i < row.size; i++) {
+                    consumer.accept(vertices.get(row.targets[i]), labelAt(row, i));
+                }
+            } else {
+                for (int slot = 0; slot < index.length; slot++) {
+                    int p = index[slot];
+                    if (p != 0) consumer.accept(vertices.get(row.targets[p - 1]), labelAt(row, p - 1));
+                }
+            }
+        }
+        return 0;
+    }
+
+    /*
+    A dissolve appends the implicit facts to the rows of all members, this one included, and drops the group: a
+    walk over the live row and group would visit some successors twice, and miss the members that are implicit
+    in the remainder of the walk.
+     */
+    private int forEachSuccessorOfMember(int id, Row row, Group group, BiConsumer<V, L> consumer,
+                                         boolean implicit) {
+        int explicit = row == null ? 0 : row.size;
+        int[] members = group.members;
+        int[] targets = new int[explicit + (implicit ? members.length : 0)];
+        Object[] labels = new Object[targets.length];
+        int n = 0;
+        if (row != null) {
+            if (row.index == null) {
+                for (int i = 0; i < row.size; i++, n++) {
+                    targets[n] = row.targets[i];
+                    labels[n] = row.labels[i];
+                }
+            } else {
+                for (int p : row.index) {
+                    if (p != 0) {
+                        targets[n] = row.targets[p - 1];
+                        labels[n++] = row.labels[p - 1];
+                    }
+                }
+            }
+        }
+        int count = 0;
+        for (int m : members) {
+            if (m != id && (row == null || row.find(m) < 0)) {
+                count++;
+                if (implicit) {
+                    targets[n] = m;
+                    labels[n++] = group.label;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[i];
+            consumer.accept(vertices.get(targets[i]), label);
+        }
+        return count;
+    }
+
+    /** The label of the group of {@code v}, or null when it is in none. */
+    public L groupLabel(V v) {
+        Integer id = ids.get(v);
+        Group group = id == null ? null : groupOfId(id);
+        return group == null ? null : groupLabel(group);
+    }
+
+    public boolean sameGroup(V a, V b) {
+        Integer ia = ids.get(a);
+        Integer ib = ids.get(b);
+        return ia != null && ib != null && commonGroup(ia, ib) != null;
+    }
+
+    /** The members of the group of {@code v}, in id (first-seen) order; {@code v} alone when in none. */
+    public List<V> groupOrSelf(V v) {
+        Integer id = ids.get(v);
+        Group group = id == null ? null : groupOfId(id);
+        if (group == null) return List.of(v);
+        List<V> list = new ArrayList<>(group.members.length);
+        for (int m : group.members) list.add(vertices.get(m));
+        return list;
+    }
+
+    public int groupCount() {
+        return (int) groups.stream().filter(Objects::nonNull).count();
+    }
+
+    /**
+     * Merge the groups (or single vertices) of {@code a} and {@code b} into one group with the given label.
+     * The caller guarantees that every member pair across the two is now linked by exactly {@code label}: the
+     * explicit entries between the two sides become implicit.
+     */
+    public void merge(V a, V b, L label) {
+        assert groupOf != null;
+        int ia = intern(a);
+        int ib = intern(b);
+        Group ga = groupOfId(ia);
+        Group gb = groupOfId(ib);
+        assert ga == null || ga != gb;
+        assert ga == null || ga.label.equals(label);
+        assert gb == null || gb.label.equals(label);
+        int[] ma = ga == null ? new int[]{ia} : ga.members;
+        int[] mb = gb == null ? new int[]{ib} : gb.members;
+        int slot;
+        if (ga != null) {
+            slot = groupOf[ia];
+            if (gb != null) groups.set(groupOf[ib], null);
+        } else if (gb != null) {
+            slot = groupOf[ib];
+        } else {
+            slot = groups.size();
+            groups.add(null);
+        }
+        int[] merged = new int[ma.length + mb.length];
+        int i = 0, j = 0, k = 0;
+        while (i < ma.length || j < mb.length) {
+            merged[k++] = j == mb.length || i < ma.length && ma[i] < mb[j] ? ma[i++] : mb[j++];
+        }
+        groups.set(slot, new Group(label, merged));
+        for (int m : merged) groupOf[m] = slot;
+        dropImplied(ma, mb);
+        dropImplied(mb, ma);
+    }
+
+    private void dropImplied(int[] sources, int[] targets) {
+        BitSet other = new BitSet();
+        for (int t : targets) other.set(t);
+        for (int f : sources) {
+            Row row = f < rows.length ? rows[f] : null;
+            if (row != null) facts -= row.retain(i -> !other.get(row.targets[i]));
+        }
+    }
+
+    // back to explicit facts: afterwards, the closure is exactly what it would have been without the group
+    private void dissolve(int slot) {
+        Group group = groups.get(slot);
+        L g = groupLabel(group);
+        for (int f : group.members) {
+            Row row = rowOrCreate(f);
+            for (int t : group.members) {
+                if (t != f && row.find(t) < 0) {
+                    row.append(t, g);
+                    facts++;
+                }
+            }
+        }
+        for (int m : group.members) groupOf[m] = -1;
+        groups.set(slot, null);
+    }
+
+    @Override
+    public String print(Function<V, String> vertexPrinter, Comparator<V> vComparator,
+                        WitnessIndex<V, L> witnessIndex) {
+        return factStream()
+                .sorted(Comparator.comparing((Fact<V, L> f) -> f.source(), vComparator)
+                        .thenComparing(Fact::target, vComparator))
+                .map(f -> vertexPrinter.apply(f.source()) + " " + f.label()
+                          + " " + vertexPrinter.apply(f.target()) + "   "
+                          + witnessIndex.print(vertexPrinter, f))
+                .collect(Collectors.joining("\n", "", "\n"));
+    }
+
+    @Override
+    public List<Fact<V, L>> removeFacts(Set<V> vertices, Predicate<Fact<V, L>> acceptForRemoval) {
+        if (groupOf != null) {
+            for (V v : vertices) {
+                Integer id = ids.get(v);
+                if (id != null && groupOf[id] >= 0) dissolve(groupOf[id]);
+            }
+        }
+        List<Fact<V, L>> result = new ArrayList<>();
+        for (V v : vertices) {
+            Row row = row(v);
+            if (row == null) continue;
+            // the Fact handed to the predicate IS the removed fact: one allocation per visited entry, none
+            // for the Map.Entry iteration
+            facts -= row.retain(i -> {
+                Fact<V, L> fact = new Fact<>(v, this.vertices.get(row.targets[i]), labelAt(row, i));
+                if (acceptForRemoval.test(fact)) {
+                    result.add(fact);
+                    return false;
+                }
+                return true;
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public Set<V> removeVertices(Set<V> vertices) {
+        BitSet dead = new BitSet();
+        for (V v : vertices) {
+            Integer id = ids.get(v);
+            if (id != null) dead.set(id);
+        }
+        Set<V> affectedSurvivors = new HashSet<>();
+        if (dead.isEmpty()) return affectedSurvivors;
+        if (groupOf != null) {
+            // a clique minus some vertices is still a clique: shrink, and every survivor lost its implicit facts
+            // to the dead members
+            for (int slot = 0; slot < groups.size(); slot++) {
+                Group group = groups.get(slot);
+                if (group == null) continue;
+                int[] survivors = Arrays.stream(group.members).filter(m -> !dead.get(m)).toArray();
+                if (survivors.length == group.members.length) continue;
+                for (int m : group.members) if (dead.get(m)) groupOf[m] = -1;
+                for (int m : survivors) affectedSurvivors.add(this.vertices.get(m));
+                if (survivors.length < 2) {
+                    for (int m : survivors) groupOf[m] = -1;
+                    groups.set(slot, null);
+                } else {
+                    group.members = survivors;
+                }
+            }
+        }
+        for (int f = 0; f < rows.length; f++) {
+            Row row = rows[f];
+            if (row == null) continue;
+            if (dead.get(f)) {
+                facts -= row.size;
+                rows[f] = null;
+            } else {
+                int removed = row.retain(i -> !dead.get(row.targets[i]));
+                if (removed > 0) {
+                    facts -= removed;
+                    affectedSurvivors.add(this.vertices.get(f));
+                }
+            }
+        }
+        return affectedSurvivors;
+    }
+}
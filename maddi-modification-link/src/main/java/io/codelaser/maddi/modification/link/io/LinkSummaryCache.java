@@ -0,0 +1,463 @@
+package io.codelaser.maddi.modification.link.io;
+
+import io.codelaser.maddi.modification.link.LinkComputer;
+import io.codelaser.maddi.modification.link.impl.MethodLinkedVariablesImpl;
+import io.codelaser.maddi.modification.prepwork.callgraph.ComputeCallGraph;
+import io.codelaser.maddi.modification.prepwork.io.LoadAnalysisResults;
+import io.codelaser.maddi.modification.prepwork.io.WriteAnalysisResults;
+import io.codelaser.maddi.modification.prepwork.variable.MethodLinkedVariables;
+import io.codelaser.maddi.cst.api.analysis.Codec;
+import io.codelaser.maddi.cst.api.analysis.Property;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
+import io.codelaser.maddi.cst.api.analysis.Value;
+import io.codelaser.maddi.cst.api.expression.ConstructorCall;
+import io.codelaser.maddi.cst.api.expression.Lambda;
+import io.codelaser.maddi.cst.api.expression.MethodCall;
+import io.codelaser.maddi.cst.api.expression.MethodReference;
+import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.api.statement.LocalTypeDeclaration;
+import io.codelaser.maddi.cst.api.type.ParameterizedType;
+import io.codelaser.maddi.cst.api.variable.FieldReference;
+import io.codelaser.maddi.cst.impl.analysis.PropertyImpl;
+import io.codelaser.maddi.cst.impl.analysis.PropertyValueMapImpl;
+import io.codelaser.maddi.cst.impl.analysis.ValueImpl;
+import io.codelaser.maddi.cst.io.CodecImpl;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static io.codelaser.maddi.modification.link.impl.MethodLinkedVariablesImpl.METHOD_LINKS;
+
+/**
+ * A persistent, content-addressed cache of source-method link summaries, shared across runs: an unchanged method
+ * whose consumed callee summaries are unchanged takes its {@code METHOD_LINKS} from disk instead of running the
+ * fixpoint engine.
+ * <p>
+ * An entry sits under a <em>body key</em>, a hash of the method's signature and fully qualified print of its body
+ * (plus the link options), and is named by its <em>inputs key</em>: a hash of the {@link LinkCodec} encoding of the
+ * summaries it consumed and of the immutability of the types its values can have, the two things besides the body
+ * the computation reads. A store keys the callee values as they were when the computation consumed them
+ * ({@link #calleeInputs}), not as they are afterwards: under PARALLEL another worker may write a callee in between.
+ * A body key holds a few variants, because the callee summaries differ between the first iteration and the
+ * converged ones. A lookup recomputes the inputs key of each variant over the current values of its callees, and
+ * computes none of them: a callee without a summary, or any other difference, is a miss.
+ * <p>
+ * An entry carries everything {@code SourceMethodComputer.go()} leaves on the method and its parameters
+ * ({@link #CACHED}), not the statement-level link data. That restricts the cache to methods whose statement-level
+ * links nobody else reads: no field references (the field analyzer reads the last statement's links of the methods
+ * referring to a field), no lambdas, anonymous or local classes (their own methods are linked as part of the body).
+ * Nor does it carry per-call data: with {@code trackObjectCreations} on (which MODREACH forces), the object creations
+ * feed the reachability edges, so the cache is not used at all ({@link #eligible(MethodInfo, LinkComputer.Options)}).
+ * The VL2O data on the method calls of a hit stays absent.
+ * <p>
+ * Eviction is least-recently-used by file modification time, which a hit refreshes: {@link #evict()} removes the
+ * oldest entries until the directory is below its budget. Thread-safe: entries are written through a temporary file
+ * and an atomic move, and every operation uses its own codec.
+ */
+public class LinkSummaryCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkSummaryCache.class);
+
+    // bump when the entry format, or what an entry must contain, changes
+    private static final String FORMAT = "maddi link summary cache v1";
+    private static final String CALLEE = "C ";
+    public static final int MAX_VARIANTS = 4;
+
+    /** What a hit restores: the values {@code SourceMethodComputer.go()} writes or returns. */
+    public static final Set<Property> CACHED = Set.of(METHOD_LINKS, PropertyImpl.NON_MODIFYING_METHOD,
+            PropertyImpl.UNMODIFIED_PARAMETER, PropertyImpl.DOWNCAST_PARAMETER);
+
+    /** What the computation reads from a consumed callee, beside its summary. */
+    private static final Set<Property> CALLEE_INPUTS = Set.of(METHOD_LINKS, PropertyImpl.INDEPENDENT_METHOD,
+            PropertyImpl.INDEPENDENT_PARAMETER, PropertyImpl.NON_MODIFYING_METHOD, PropertyImpl.UNMODIFIED_PARAMETER);
+
+    public record Statistics(long hits, long misses, long ineligible, long stores, long evictedFiles,
+                             long evictedBytes) {
+        @Override
+        public String toString() {
+            long lookups = hits + misses;
+            return String.format("link summary cache: %d hit(s), %d miss(es) (%d%% hits), %d ineligible, %d stored, "
+                                 + "%d evicted (%d KB)", hits, misses, lookups == 0 ? 0 : 100 * hits / lookups,
+                    ineligible, stores, evictedFiles, evictedBytes / 1024);
+        }
+    }
+
+    /**
+     * What a computation read of a callee, taken when it consumed the callee's summary: the callee inputs of the
+     * callee and its parameters. {@code values} is null when the summary used was not the callee's stored one (a
+     * shallow stand-in for a method in progress, or a result the stored value was retained over); a store then
+     * has nothing to key it on.
+     */
+    public record CalleeInputs(MethodInfo callee, Map<Info, List<PropertyValueMap.PropertyValue>> values) {
+    }
+
+    /** A hit: the restored values per element (the method and its parameters), and the callees it consumed. */
+    public record Restored(MethodLinkedVariables methodLinkedVariables, Map<Info, PropertyValueMap> values,
+                           List<MethodInfo> callees) {
+    }
+
+    private final JavaInspector javaInspector;
+    private final LinkCodec linkCodec;
+    private final Path directory;
+    private final long maxBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder ineligible = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictedFiles = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+
+    /**
+     * @param maxBytes the size {@link #evict()} brings the directory back to
+     */
+    public LinkSummaryCache(JavaInspector javaInspector, Path directory, long maxBytes) throws IOException {
+        this.javaInspector = javaInspector;
+        this.linkCodec = new LinkCodec(javaInspector);
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+    }
+
+    public Statistics statistics() {
+        return new Statistics(hits.sum(), misses.sum(), ineligible.sum(), stores.sum(), evictedFiles.sum(),
+                evictedBytes.sum());
+    }
+
+    /**
+     * A method whose link computation leaves nothing but the {@link #CACHED} values for others to read. See the
+     * class comment.
+     */
+    public boolean eligible(MethodInfo methodInfo, LinkComputer.Options options) {
+        if (options.trackObjectCreations()) return false;
+        if (methodInfo.methodBody().isEmpty()) return false;
+        for (TypeInfo t = methodInfo.typeInfo(); !t.isPrimaryType(); t = t.compilationUnitOrEnclosingType().getRight()) {
+            if (t.isAnonymous() || t.enclosingMethod() != null) return false;
+        }
+        if (methodInfo.methodBody().variableStreamDescend().anyMatch(v -> v instanceof FieldReference)) return false;
+        AtomicBoolean nested = new AtomicBoolean();
+        methodInfo.methodBody().visit(e -> {
+            if (e instanceof Lambda || e instanceof LocalTypeDeclaration
+                || e instanceof ConstructorCall cc && cc.anonymousClass() != null) {
+                nested.set(true);
+            }
+            return !nested.get();
+        });
+        return !nested.get();
+    }
+
+    /**
+     * The inputs of {@code callee} for a computation that has just consumed {@code used} as its summary.
+     */
+    public static CalleeInputs calleeInputs(MethodInfo callee, MethodLinkedVariables used) {
+        if (used == null || callee.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class) != used) {
+            return new CalleeInputs(callee, null);
+        }
+        Map<Info, List<PropertyValueMap.PropertyValue>> values = new HashMap<>();
+        values.put(callee, inputs(callee));
+        callee.parameters().forEach(pi -> values.put(pi, inputs(pi)));
+        return new CalleeInputs(callee, values);
+    }
+
+    private static List<PropertyValueMap.PropertyValue> inputs(Info info) {
+        return info.analysis().propertyValueStream().filter(pv -> CALLEE_INPUTS.contains(pv.property())).toList();
+    }
+
+    /**
+     * @return the restored values, or null on a miss (including an ineligible method)
+     */
+    public Restored lookup(MethodInfo methodInfo, LinkComputer.Options options) {
+        if (!eligible(methodInfo, options)) {
+            ineligible.increment();
+            return null;
+        }
+        try {
+            Path bodyDirectory = directory.resolve(bodyKey(methodInfo, options));
+            if (Files.isDirectory(bodyDirectory)) {
+                Map<String, MethodInfo> candidates = referencedMethods(methodInfo);
+                String types = typeInputs(methodInfo, candidates.values());
+                for (Path variant : variantsNewestFirst(bodyDirectory)) {
+                    Restored restored = tryVariant(methodInfo, variant, candidates, types);
+                    if (restored != null) {
+                        Files.setLastModifiedTime(variant, FileTime.fromMillis(System.currentTimeMillis()));
+                        hits.increment();
+                        return restored;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Link summary cache: lookup of {} failed: {}", methodInfo, e.toString());
+        }
+        misses.increment();
+        return null;
+    }
+
+    private Restored tryVariant(MethodInfo methodInfo, Path variant, Map<String, MethodInfo> candidates, String types)
+            throws IOException {
+        List<String> lines = Files.readAllLines(variant, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !FORMAT.equals(lines.getFirst())) return null;
+        List<MethodInfo> callees = new ArrayList<>();
+        List<CalleeInputs> inputs = new ArrayList<>();
+        int i = 1;
+        for (; i < lines.size() && lines.get(i).startsWith(CALLEE); i++) {
+            MethodInfo callee = candidates.get(lines.get(i).substring(CALLEE.length()));
+            if (callee == null) return null; // the body no longer refers to it
+            callees.add(callee);
+            inputs.add(calleeInputs(callee, callee.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class)));
+        }
+        String inputsKey = inputsKey(inputs, types);
+        if (inputsKey == null || !variant.getFileName().toString().equals(inputsKey + ".json")) return null;
+
+        String json = String.join("\n", lines.subList(i, lines.size()));
+        Map<Info, PropertyValueMap> values = new HashMap<>();
+        Codec.Context context = typeContext(methodInfo);
+        boolean ok = new LoadAnalysisResults(javaInspector.runtime(), javaInspector.mainSources())
+                .goElement(linkCodec.codec(), context, json, info -> values.computeIfAbsent(info,
+                        _ -> new PropertyValueMapImpl()));
+        PropertyValueMap ofMethod = values.get(methodInfo);
+        if (!ok || ofMethod == null) return null;
+        MethodLinkedVariables mlv = ofMethod.getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class);
+        if (mlv == null) {
+            // the codec does not stream default values; only a method without parameters has the empty summary
+            if (!methodInfo.parameters().isEmpty()) return null;
+            mlv = (MethodLinkedVariables) METHOD_LINKS.defaultValue();
+        }
+        return new Restored(mlv, values, List.copyOf(callees));
+    }
+
+    /**
+     * Store the outcome of a full computation: {@code mlv} is its result, the other {@link #CACHED} values are read
+     * from the method and its parameters; {@code consumed} holds the inputs of every callee summary it consumed, taken
+     * at the time. Skipped when one of those was not a stored summary, or a value cannot be encoded.
+     */
+    public void store(MethodInfo methodInfo, LinkComputer.Options options, MethodLinkedVariables mlv,
+                      Collection<CalleeInputs> consumed) {
+        if (!eligible(methodInfo, options)) return;
+        // a parameter linked to a field of the type's hierarchy: go() leaves its unmodified-ness to the field
+        // analysis, so the value on the parameter is not the computation's
+        TypeInfo typeInfo = methodInfo.typeInfo();
+        if (mlv.ofParameters().stream().anyMatch(links -> links.stream().anyMatch(l -> l.to().variableStreamDescend()
+                .anyMatch(v -> v instanceof FieldReference fr && (fr.fieldInfo().owner().equals(typeInfo)
+                        || typeInfo.superTypesExcludingJavaLangObject().contains(fr.fieldInfo().owner())))))) {
+            return;
+        }
+        try {
+            Map<String, MethodInfo> candidates = referencedMethods(methodInfo);
+            List<CalleeInputs> inputs = consumed.stream()
+                    .sorted(Comparator.comparing(ci -> ci.callee().fullyQualifiedName())).toList();
+            // a value-mediated consumption the body does not name could not be validated by a lookup
+            if (inputs.stream().anyMatch(ci -> candidates.get(ci.callee().fullyQualifiedName()) != ci.callee())) {
+                return;
+            }
+            String inputsKey = inputsKey(inputs, typeInputs(methodInfo, candidates.values()));
+            if (inputsKey == null) return;
+
+            WriteAnalysisResults war = new WriteAnalysisResults(javaInspector.runtime(), _ -> true, CACHED::contains,
+                    info -> info == methodInfo
+                            ? Stream.concat(Stream.of(new PropertyValueMap.PropertyValue(METHOD_LINKS, mlv)),
+                                    info.analysis().propertyValueStream().filter(pv -> pv.property() != METHOD_LINKS))
+                            : info.analysis().propertyValueStream());
+            String json = write(war.encodeMethod(linkCodec.codec(), typeContext(methodInfo), methodInfo));
+            if (war.skippedValues() > 0) return;
+
+            StringBuilder sb = new StringBuilder(FORMAT).append('\n');
+            inputs.forEach(ci -> sb.append(CALLEE).append(ci.callee().fullyQualifiedName()).append('\n'));
+            sb.append(json).append('\n');
+
+            Path bodyDirectory = directory.resolve(bodyKey(methodInfo, options));
+            Files.createDirectories(bodyDirectory);
+            Path tmp = Files.createTempFile(bodyDirectory, ".w", ".tmp");
+            try {
+                Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+                Files.move(tmp, bodyDirectory.resolve(inputsKey + ".json"), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            stores.increment();
+            List<Path> variants = variantsNewestFirst(bodyDirectory);
+            for (Path old : variants.subList(Math.min(MAX_VARIANTS, variants.size()), variants.size())) {
+                evictFile(old);
+            }
+        } catch (IOException | RuntimeException | AssertionError e) {
+            LOGGER.debug("Link summary cache: not storing {}: {}", methodInfo, e.toString());
+        }
+    }
+
+    /**
+     * Remove the least recently used entries until the cache directory holds at most {@code maxBytes}; empty body
+     * directories go as well.
+     */
+    public void evict() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(p -> p.toString().endsWith(".json")).toList();
+        }
+        record Entry(Path path, long size, long lastModified) {
+        }
+        List<Entry> entries = new ArrayList<>(files.size());
+        long total = 0;
+        for (Path file : files) {
+            try {
+                long size = Files.size(file);
+                entries.add(new Entry(file, size, Files.getLastModifiedTime(file).toMillis()));
+                total += size;
+            } catch (IOException e) {
+                // removed concurrently
+            }
+        }
+        entries.sort(Comparator.comparingLong(Entry::lastModified));
+        for (int i = 0; total > maxBytes && i < entries.size(); i++) {
+            evictFile(entries.get(i).path);
+            total -= entries.get(i).size;
+        }
+        try (Stream<Path> list = Files.list(directory)) {
+            for (Path bodyDirectory : list.filter(Files::isDirectory).toList()) {
+                try (Stream<Path> content = Files.list(bodyDirectory)) {
+                    if (content.findAny().isEmpty()) Files.deleteIfExists(bodyDirectory);
+                }
+            }
+        }
+    }
+
+    private void evictFile(Path file) throws IOException {
+        long size = Files.size(file);
+        if (Files.deleteIfExists(file)) {
+            evictedFiles.increment();
+            evictedBytes.add(size);
+        }
+    }
+
+    private static List<Path> variantsNewestFirst(Path bodyDirectory) throws IOException {
+        try (Stream<Path> list = Files.list(bodyDirectory)) {
+            Map<Path, Long> lastModified = new HashMap<>();
+            for (Path p : list.filter(p -> p.toString().endsWith(".json")).toList()) {
+                lastModified.put(p, Files.getLastModifiedTime(p).toMillis());
+            }
+            return lastModified.keySet().stream()
+                    .sorted(Comparator.comparing((Path p) -> -lastModified.get(p)).thenComparing(Path::toString))
+                    .toList();
+        }
+    }
+
+    // the signature and the body, fully qualified, under the options that change what linking computes
+    private String bodyKey(MethodInfo methodInfo, LinkComputer.Options options) {
+        String sb = FORMAT + '\n' + options + '\n' + methodInfo.fullyQualifiedName() + ' ' + methodInfo.returnType()
+                    + " recursive=" + methodInfo.analysis().getOrDefault(ComputeCallGraph.RECURSIVE_METHOD,
+                ValueImpl.BoolImpl.FALSE).isTrue()
+                    + '\n' + methodInfo.methodBody().print(javaInspector.runtime().qualificationFullyQualifiedNames());
+        return hash(sb);
+    }
+
+    // null when a callee has no usable inputs
+    private String inputsKey(List<CalleeInputs> inputs, String types) {
+        StringBuilder sb = new StringBuilder(types);
+        for (CalleeInputs ci : inputs) {
+            if (ci.values() == null) return null;
+            WriteAnalysisResults war = new WriteAnalysisResults(javaInspector.runtime(), _ -> true,
+                    CALLEE_INPUTS::contains, info -> ci.values().getOrDefault(info, List.of()).stream());
+            MethodInfo callee = ci.callee();
+            sb.append(callee.fullyQualifiedName()).append('\n')
+                    .append(write(war.encodeMethod(linkCodec.codec(), typeContext(callee), callee))).append('\n');
+        }
+        return hash(sb.toString());
+    }
+
+    // the immutability of every type a value in the method can have: VirtualFieldComputer reads it
+    private static String typeInputs(MethodInfo methodInfo, Iterable<MethodInfo> referenced) {
+        Map<String, TypeInfo> types = new TreeMap<>();
+        addTypes(types, methodInfo.returnType());
+        methodInfo.parameters().forEach(pi -> addTypes(types, pi.parameterizedType()));
+        methodInfo.methodBody().variableStreamDescend().forEach(v -> addTypes(types, v.parameterizedType()));
+        for (MethodInfo mi : referenced) {
+            addTypes(types, mi.returnType());
+            mi.parameters().forEach(pi -> addTypes(types, pi.parameterizedType()));
+            types.put(mi.typeInfo().fullyQualifiedName(), mi.typeInfo());
+        }
+        StringBuilder sb = new StringBuilder();
+        types.forEach((fqn, ti) -> sb.append(fqn).append(' ')
+                .append(ti.analysis().getOrNull(PropertyImpl.IMMUTABLE_TYPE, Value.Immutable.class))
+                .append('\n'));
+        return sb.toString();
+    }
+
+    private static void addTypes(Map<String, TypeInfo> types, ParameterizedType pt) {
+        if (pt == null) return;
+        TypeInfo ti = pt.typeInfo();
+        if (ti != null) types.put(ti.fullyQualifiedName(), ti);
+        pt.parameters().forEach(p -> addTypes(types, p));
+    }
+
+    // every method the body names, by fully qualified name: the candidates a stored callee list is resolved against
+    private static Map<String, MethodInfo> referencedMethods(MethodInfo methodInfo) {
+        Map<String, MethodInfo> map = new HashMap<>();
+        methodInfo.methodBody().visit(e -> {
+            MethodInfo mi = switch (e) {
+                case MethodCall mc -> mc.methodInfo();
+                case MethodReference mr -> mr.methodInfo();
+                case ConstructorCall cc -> cc.constructor();
+                default -> null;
+            };
+            if (mi != null) map.put(mi.fullyQualifiedName(), mi);
+            return true;
+        });
+        map.put(methodInfo.fullyQualifiedName(), methodInfo);
+        return map;
+    }
+
+    // the enclosing types of the method, outermost first, as WriteAnalysisResults has them
+    private static Codec.Context typeContext(MethodInfo methodInfo) {
+        List<TypeInfo> chain = new ArrayList<>();
+        for (TypeInfo t = methodInfo.typeInfo(); ; t = t.compilationUnitOrEnclosingType().getRight()) {
+            chain.addFirst(t);
+            if (t.isPrimaryType()) break;
+        }
+        Codec.Context context = new CodecImpl.ContextImpl();
+        chain.forEach(context::push);
+        return context;
+    }
+
+    private static String write(Codec.EncodedValue ev) {
+        if (ev == null) return "";
+        StringWriter sw = new StringWriter();
+        try {
+            ((CodecImpl.E) ev).write(sw, 0, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sw.toString();
+    }
+
+    private static String hash(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
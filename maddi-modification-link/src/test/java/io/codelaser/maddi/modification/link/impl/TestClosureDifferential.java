@@ -0,0 +1,136 @@
+package io.codelaser.maddi.modification.link.impl;
+
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.modification.link.impl.graph.IncrementalFixpointEngine;
+import io.codelaser.maddi.modification.prepwork.PrepAnalyzer;
+import io.codelaser.maddi.modification.prepwork.io.LoadAnalysisResults;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static io.codelaser.maddi.inspection.resource.SourceSetImpl.testProtocolSourceSet;
+import static io.codelaser.maddi.modification.prepwork.io.LoadAnalysisResults.ANALYZED_RESULTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Differential test of the closure representations of {@link IncrementalFixpointEngine}: every fixture of this
+ * module's tests (a text block declaring a package and a top-level type) is linked under the nested hash maps
+ * ({@code Closure}), the indexed closure (env INDEXEDCLOSURE) and the indexed closure with saturated groups
+ * collapsed (env GROUPCOLLAPSE). The links and modifications of every method must be the same.
+ * <p>
+ * Each representation has its own inspector, in which a fixture gets the same fully qualified names: the order of
+ * the engine's work follows the hash codes of the variables, so a fixture renamed to parse it twice in one
+ * inspector can link differently under one and the same representation. Fixtures that do not compile on their own
+ * are skipped.
+ */
+public class TestClosureDifferential {
+    private static final Pattern TEXT_BLOCK = Pattern.compile("\"\"\"\n(.*?)\"\"\"", Pattern.DOTALL);
+    private static final Pattern PACKAGE = Pattern.compile("^package ([\\w.]+);", Pattern.MULTILINE);
+    private static final Pattern TOP_LEVEL_TYPE = Pattern.compile(
+            "^(?:public |final |abstract |sealed |non-sealed )*(?:class|interface|record|enum) (\\w+)",
+            Pattern.MULTILINE);
+
+    private record World(JavaInspector javaInspector, PrepAnalyzer prepAnalyzer, boolean indexed, boolean groups) {
+    }
+
+    private static World world(boolean indexed, boolean groups) throws IOException {
+        SourceSet testProtocol = testProtocolSourceSet();
+        JavaInspector javaInspector = io.codelaser.maddi.modification.common.CommonTest.javaInspectorFactory()
+                .withSources(testProtocol);
+        javaInspector.setParameterNames(true);
+        javaInspector.onlyPreload();
+        new LoadAnalysisResults(javaInspector.runtime(), testProtocol).go(ANALYZED_RESULTS);
+        return new World(javaInspector, new PrepAnalyzer(javaInspector.runtime(),
+                new PrepAnalyzer.Options.Builder().build()), indexed, groups);
+    }
+
+    private static List<String> fixtures() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(Path.of("src/test/java"))) {
+            files = walk.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+        }
+        List<String> fixtures = new ArrayList<>();
+        for (Path file : files) {
+            Matcher m = TEXT_BLOCK.matcher(Files.readString(file));
+            while (m.find()) {
+                String source = m.group(1).stripIndent().translateEscapes();
+                if (PACKAGE.matcher(source).find() && TOP_LEVEL_TYPE.matcher(source).find()) fixtures.add(source);
+            }
+        }
+        return fixtures;
+    }
+
+    // null when the fixture does not compile on its own
+    private static Map<String, String> link(World world, String source, int fixture) {
+        Matcher pm = PACKAGE.matcher(source);
+        pm.find();
+        String packageName = pm.group(1);
+        // unique per fixture, the same in every world
+        String own = packageName + ".f" + fixture;
+        String renamed = source.replaceFirst("package " + Pattern.quote(packageName) + ";", "package " + own + ";");
+        Matcher tm = TOP_LEVEL_TYPE.matcher(renamed);
+        tm.find();
+        boolean previous = IncrementalFixpointEngine.INDEXED_CLOSURE;
+        boolean previousGroups = IncrementalFixpointEngine.GROUP_COLLAPSE;
+        IncrementalFixpointEngine.INDEXED_CLOSURE = world.indexed;
+        IncrementalFixpointEngine.GROUP_COLLAPSE = world.groups;
+        try {
+            TypeInfo typeInfo;
+            try {
+                typeInfo = world.javaInspector.parse(own + "." + tm.group(1), renamed);
+            } catch (RuntimeException e) {
+                return null;
+            }
+            world.prepAnalyzer.doPrimaryType(typeInfo);
+            LinkComputerImpl lc = new LinkComputerImpl(world.javaInspector);
+            Map<String, String> result = new TreeMap<>();
+            typeInfo.recursiveSubTypeStream().flatMap(TypeInfo::constructorAndMethodStream).forEach(m -> {
+                String value;
+                try {
+                    var mlv = lc.doMethod(m);
+                    value = mlv + " " + mlv.sortedModifiedString();
+                } catch (RuntimeException | AssertionError e) {
+                    // not every fixture links without the settings of its own test
+                    value = e.getClass().getSimpleName();
+                }
+                result.put(m.fullyQualifiedName(), value);
+            });
+            return result;
+        } finally {
+            IncrementalFixpointEngine.INDEXED_CLOSURE = previous;
+            IncrementalFixpointEngine.GROUP_COLLAPSE = previousGroups;
+        }
+    }
+
+    @DisplayName("the link fixtures: identical links under all closure representations")
+    @Test
+    public void test() throws IOException {
+        World maps = world(false, false);
+        World indexed = world(true, false);
+        World groups = world(true, true);
+        List<String> fixtures = fixtures();
+        int linked = 0;
+        for (int i = 0; i < fixtures.size(); i++) {
+            String source = fixtures.get(i);
+            Map<String, String> expected = link(maps, source, i);
+            if (expected == null) continue;
+            linked++;
+            assertEquals(expected, link(indexed, source, i), "IndexedClosure, fixture:\n" + source);
+            assertEquals(expected, link(groups, source, i), "IndexedClosure with groups, fixture:\n" + source);
+        }
+        assertTrue(linked > 150, "fixtures linked: " + linked + " of " + fixtures.size());
+    }
+}
@@ -0,0 +1,164 @@
+package io.codelaser.maddi.modification.link.impl;
+
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.modification.link.CommonTest;
+import io.codelaser.maddi.modification.link.impl.graph.IncrementalFixpointEngine;
+import io.codelaser.maddi.modification.prepwork.PrepAnalyzer;
+import io.codelaser.maddi.modification.prepwork.variable.LinkNature;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The closure representations of {@link IncrementalFixpointEngine}: nested hash maps ({@code Closure}),
+ * int-interned primitive rows ({@code IndexedClosure}, env INDEXEDCLOSURE), and the latter with saturated groups
+ * collapsed (env GROUPCOLLAPSE).
+ * <ol>
+ *   <li>{@code linkMethodCall} replays the {@link TestLinkMethodCall} scenarios under all three, and requires
+ *       identical link results: the representation must not be observable in the output.</li>
+ *   <li>{@code saturated} measures time per edge visit (the unit of the work ceiling) and retained heap per
+ *       closure fact on a fully saturated clique, the shape that makes methods trip the ceiling.</li>
+ *   <li>{@code groupCollapse} runs the same clique with its groups collapsed: same facts, a fraction of the
+ *       edge visits.</li>
+ * </ol>
+ * Times and heap go to PROBE lines only; what is asserted is what the representation must not change (the facts,
+ * the links) and the edge-visit count, which does not depend on the machine. Retained heap is a before/after of
+ * used heap around a full GC, so only its order of magnitude is meaningful.
+ */
+public class TestIndexedClosureBench extends CommonTest {
+
+    private int parses;
+
+    private Map<String, String> linkAll(boolean indexed) {
+        return linkAll(indexed, false);
+    }
+
+    private Map<String, String> linkAll(boolean indexed, boolean groups) {
+        boolean previous = IncrementalFixpointEngine.INDEXED_CLOSURE;
+        boolean previousGroups = IncrementalFixpointEngine.GROUP_COLLAPSE;
+        IncrementalFixpointEngine.INDEXED_CLOSURE = indexed;
+        IncrementalFixpointEngine.GROUP_COLLAPSE = groups;
+        try {
+            // a fresh type name per parse: an inspection can only be committed once per JavaInspector instance
+            String name = "C" + (++parses);
+            String source = TestLinkMethodCall.INPUT.replace("public class C<", "public class " + name + "<");
+            TypeInfo c = javaInspector.parse("a.b." + name, source);
+            new PrepAnalyzer(runtime, new PrepAnalyzer.Options.Builder().build()).doPrimaryType(c);
+            LinkComputerImpl lc = new LinkComputerImpl(javaInspector);
+            Map<String, String> result = new TreeMap<>();
+            c.methodStream().forEach(m -> {
+                var mlv = lc.doMethod(m);
+                result.put(m.name(), mlv + " " + mlv.sortedModifiedString());
+            });
+            return result;
+        } finally {
+            IncrementalFixpointEngine.INDEXED_CLOSURE = previous;
+            IncrementalFixpointEngine.GROUP_COLLAPSE = previousGroups;
+        }
+    }
+
+    @DisplayName("TestLinkMethodCall scenarios: identical links under all closure representations")
+    @Test
+    public void linkMethodCall() {
+        Map<String, String> maps = linkAll(false);
+        Map<String, String> indexed = linkAll(true);
+        assertEquals(maps, indexed);
+        assertEquals(maps, linkAll(true, true));
+
+        long best0 = Long.MAX_VALUE;
+        long best1 = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long t0 = System.nanoTime();
+            linkAll(false);
+            long t1 = System.nanoTime();
+            linkAll(true);
+            long t2 = System.nanoTime();
+            best0 = Math.min(best0, t1 - t0);
+            best1 = Math.min(best1, t2 - t1);
+        }
+        System.out.printf("PROBE linkMethodCall %d methods: maps=%d us  indexed=%d us (parse+prep+link, best of 5)%n",
+                maps.size(), best0 / 1000, best1 / 1000);
+    }
+
+    private record Run(long nanos, long work, long facts, long retainedBytes, String closure) {
+    }
+
+    private static Run saturate(boolean indexed, int n) {
+        return saturate(indexed, false, n);
+    }
+
+    // a chain of ≡ edges over n vertices: every vertex ends up linked to every other, n(n-1) facts
+    private static Run saturate(boolean indexed, boolean groups, int n) {
+        boolean previous = IncrementalFixpointEngine.INDEXED_CLOSURE;
+        boolean previousGroups = IncrementalFixpointEngine.GROUP_COLLAPSE;
+        IncrementalFixpointEngine.INDEXED_CLOSURE = indexed;
+        IncrementalFixpointEngine.GROUP_COLLAPSE = groups;
+        try {
+            LinkNature identical = LinkNatureImpl.makeIdenticalTo(null);
+            Runtime rt = Runtime.getRuntime();
+            System.gc();
+            long used0 = rt.totalMemory() - rt.freeMemory();
+            long t0 = System.nanoTime();
+            IncrementalFixpointEngine<String, LinkNature> engine = new IncrementalFixpointEngine<>(
+                    LinkNature::combine, LinkNature::best, LinkNature::valid, LinkNature::score,
+                    LinkNature::reverse, Object::toString, String::compareTo, _ -> true);
+            for (int i = 1; i < n; i++) {
+                engine.addSymmetricEdge("v" + (i - 1), "v" + i, identical, "0");
+            }
+            long nanos = System.nanoTime() - t0;
+            System.gc();
+            long used1 = rt.totalMemory() - rt.freeMemory();
+            return new Run(nanos, engine.work(), engine.sizeOfClosure(), used1 - used0,
+                    engine.printClosure().lines().map(line -> line.substring(0, line.indexOf("   ")))
+                            .sorted().toList().toString());
+        } finally {
+            IncrementalFixpointEngine.INDEXED_CLOSURE = previous;
+            IncrementalFixpointEngine.GROUP_COLLAPSE = previousGroups;
+        }
+    }
+
+    @DisplayName("saturated clique: time per edge visit, retained heap per fact")
+    @Test
+    public void saturated() {
+        int n = 60; // n³ growth: well below the 10M work ceiling
+        Run maps = null;
+        Run indexed = null;
+        for (int i = 0; i < 3; i++) {
+            Run m = saturate(false, n);
+            Run x = saturate(true, n);
+            if (maps == null || m.nanos < maps.nanos) maps = m;
+            if (indexed == null || x.nanos < indexed.nanos) indexed = x;
+        }
+        assertEquals(maps.facts, indexed.facts);
+        System.out.printf("PROBE saturated n=%d facts=%d visits=%d  maps: %.1f ns/visit %d B/fact   "
+                          + "indexed: %.1f ns/visit %d B/fact%n", n, maps.facts, maps.work,
+                maps.nanos / (double) maps.work, maps.retainedBytes / maps.facts,
+                indexed.nanos / (double) indexed.work, indexed.retainedBytes / indexed.facts);
+        assertEquals(maps.closure, indexed.closure);
+    }
+
+    @DisplayName("saturated clique, groups collapsed: same facts, far fewer edge visits")
+    @Test
+    public void groupCollapse() {
+        int n = 60;
+        Run maps = saturate(false, n);
+        Run groups = saturate(true, true, n);
+        for (int i = 0; i < 2; i++) {
+            Run m = saturate(false, n);
+            Run x = saturate(true, true, n);
+            if (m.nanos < maps.nanos) maps = m;
+            if (x.nanos < groups.nanos) groups = x;
+        }
+        assertEquals(maps.closure, groups.closure);
+        assertEquals(n, groups.facts, "one group: the membership stands for the n(n-1) facts");
+        System.out.printf("PROBE groupCollapse n=%d  maps: visits=%d %d us   groups: visits=%d %d us%n", n,
+                maps.work, maps.nanos / 1000, groups.work, groups.nanos / 1000);
+        assertTrue(10 * groups.work < maps.work, "collapse must cut the edge visits: " + groups.work + " vs "
+                                                 + maps.work);
+    }
+}
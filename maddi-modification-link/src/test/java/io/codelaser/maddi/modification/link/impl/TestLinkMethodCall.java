@@ -37,8 +37,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class TestLinkMethodCall extends CommonTest {
 
+    // package-private: TestIndexedClosureBench replays these scenarios under both closure representations
     @Language("java")
-    private static final String INPUT = """
+    static final String INPUT = """
             package a.b;
             public class C<X, Y, Z> {
                 static class Box<T> {
@@ -0,0 +1,198 @@
+package io.codelaser.maddi.modification.link.io;
+
+import io.codelaser.maddi.modification.link.CommonTest;
+import io.codelaser.maddi.modification.link.LinkComputer;
+import io.codelaser.maddi.modification.link.impl.LinkComputerImpl;
+import io.codelaser.maddi.modification.link.impl.MethodLinkedVariablesImpl;
+import io.codelaser.maddi.cst.api.info.MethodInfo;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.cst.impl.analysis.PropertyImpl;
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static io.codelaser.maddi.modification.link.impl.MethodLinkedVariablesImpl.METHOD_LINKS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link LinkSummaryCache}: a second cold run over the same sources takes every summary from the cache, with the
+ * same values; a changed body misses, and so does a caller of a method whose summary changed; eviction brings the
+ * directory back to its budget.
+ */
+public class TestLinkSummaryCache extends CommonTest {
+
+    @Language("java")
+    private static final String X = """
+            package a.b;
+            import java.util.ArrayList;
+            import java.util.List;
+            class X {
+                static List<String> copy(List<String> in) {
+                    List<String> out = new ArrayList<>(in);
+                    return out;
+                }
+                static List<String> twice(List<String> in) {
+                    List<String> c = copy(in);
+                    c.addAll(in);
+                    return c;
+                }
+                static void add(List<String> list, String s) {
+                    list.add(s);
+                }
+            }
+            """;
+
+    // copy's summary changes: it returns its parameter
+    private static final String X_CHANGED = X.replace("List<String> out = new ArrayList<>(in);",
+            "List<String> out = in;");
+
+    private Map<String, String> run(String source, LinkSummaryCache cache) {
+        javaInspector.invalidateAllSources();
+        TypeInfo x = javaInspector.parse("a.b.X", source);
+        prepWork(x);
+        LinkComputerImpl linkComputer = new LinkComputerImpl(javaInspector);
+        linkComputer.setSummaryCache(cache);
+        linkComputer.doPrimaryType(x);
+        Map<String, String> values = new TreeMap<>();
+        x.methodStream().forEach(mi -> values.put(mi.name(), values(mi)));
+        return values;
+    }
+
+    private static String values(MethodInfo mi) {
+        return mi.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class)
+               + " nm=" + mi.analysis().getOrNull(PropertyImpl.NON_MODIFYING_METHOD,
+                io.codelaser.maddi.cst.api.analysis.Value.Bool.class)
+               + " " + mi.parameters().stream().map(pi -> pi.name() + "="
+                + pi.analysis().getOrNull(PropertyImpl.UNMODIFIED_PARAMETER,
+                io.codelaser.maddi.cst.api.analysis.Value.Bool.class)).toList();
+    }
+
+    @DisplayName("cold run, cached run, changed body, eviction")
+    @Test
+    public void test(@TempDir Path directory) throws IOException {
+        Map<String, String> uncached = run(X, null);
+
+        LinkSummaryCache first = new LinkSummaryCache(javaInspector, directory, Long.MAX_VALUE);
+        assertEquals(uncached, run(X, first));
+        LinkSummaryCache.Statistics s1 = first.statistics();
+        // the three methods and the implicit constructor
+        assertEquals(0, s1.hits());
+        assertEquals(4, s1.misses());
+        assertEquals(4, s1.stores());
+
+        LinkSummaryCache second = new LinkSummaryCache(javaInspector, directory, Long.MAX_VALUE);
+        assertEquals(uncached, run(X, second), "the cached summaries are the computed ones");
+        LinkSummaryCache.Statistics s2 = second.statistics();
+        assertEquals(4, s2.hits(), s2.toString());
+        assertEquals(0, s2.misses());
+
+        LinkSummaryCache third = new LinkSummaryCache(javaInspector, directory, Long.MAX_VALUE);
+        Map<String, String> changed = run(X_CHANGED, third);
+        assertEquals(run(X_CHANGED, null), changed);
+        assertNotEquals(uncached.get("copy"), changed.get("copy"));
+        LinkSummaryCache.Statistics s3 = third.statistics();
+        assertEquals(2, s3.hits(), "add and the constructor are unaffected: " + s3);
+        assertEquals(2, s3.misses(), "copy changed, twice consumed copy's summary: " + s3);
+
+        // two variants of copy and twice, one of add and the constructor
+        assertEquals(6, countEntries(directory));
+        LinkSummaryCache evicting = new LinkSummaryCache(javaInspector, directory, 0);
+        evicting.evict();
+        assertEquals(0, countEntries(directory));
+        assertEquals(6, evicting.statistics().evictedFiles());
+        try (Stream<Path> list = Files.list(directory)) {
+            assertEquals(0, list.count(), "the emptied body directories go too");
+        }
+    }
+
+    @DisplayName("a lookup computes no callee; a store keys the callee values the computation consumed")
+    @Test
+    public void calleeInputs(@TempDir Path directory) throws IOException {
+        LinkSummaryCache cache = new LinkSummaryCache(javaInspector, directory, Long.MAX_VALUE);
+        run(X, cache);
+        assertEquals(4, cache.statistics().stores());
+        long misses = cache.statistics().misses();
+
+        // copy has no summary yet: twice misses, and copy stays without one
+        javaInspector.invalidateAllSources();
+        TypeInfo x = javaInspector.parse("a.b.X", X);
+        prepWork(x);
+        MethodInfo copy = x.findUniqueMethod("copy", 1);
+        MethodInfo twice = x.findUniqueMethod("twice", 1);
+        assertNull(cache.lookup(twice, LinkComputer.Options.TEST));
+        assertFalse(copy.analysis().haveAnalyzedValueFor(METHOD_LINKS));
+        assertEquals(misses + 1, cache.statistics().misses());
+
+        // twice computed from a summary of copy that is not the stored one: not stored
+        LinkComputerImpl linkComputer = new LinkComputerImpl(javaInspector);
+        linkComputer.doPrimaryType(x);
+        MethodLinkedVariablesImpl stored = copy.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class);
+        MethodLinkedVariablesImpl other = (MethodLinkedVariablesImpl) linkComputer.doMethodShallowDoNotWrite(copy);
+        assertNotSame(stored, other);
+        assertNull(LinkSummaryCache.calleeInputs(copy, other).values());
+        assertNotNull(LinkSummaryCache.calleeInputs(copy, stored).values());
+        MethodLinkedVariablesImpl mlv = twice.analysis().getOrNull(METHOD_LINKS, MethodLinkedVariablesImpl.class);
+        cache.store(twice, LinkComputer.Options.TEST, mlv, List.of(LinkSummaryCache.calleeInputs(copy, other)));
+        assertEquals(4, cache.statistics().stores());
+        cache.store(twice, LinkComputer.Options.TEST, mlv, List.of(LinkSummaryCache.calleeInputs(copy, stored)));
+        assertEquals(5, cache.statistics().stores());
+    }
+
+    @DisplayName("a method reading a field is not cached: the field analyzer reads its statement-level links")
+    @Test
+    public void ineligible(@TempDir Path directory) throws IOException {
+        TypeInfo y = javaInspector.parse("a.b.Y", """
+                package a.b;
+                import java.util.List;
+                class Y {
+                    private List<String> list;
+                    void add(String s) { list.add(s); }
+                    Runnable r(String s) { return () -> System.out.println(s); }
+                }
+                """);
+        prepWork(y);
+        LinkSummaryCache cache = new LinkSummaryCache(javaInspector, directory, Long.MAX_VALUE);
+        assertFalse(cache.eligible(y.findUniqueMethod("add", 1), LinkComputer.Options.TEST));
+        assertFalse(cache.eligible(y.findUniqueMethod("r", 1), LinkComputer.Options.TEST));
+        LinkComputer linkComputer = new LinkComputerImpl(javaInspector);
+        ((LinkComputerImpl) linkComputer).setSummaryCache(cache);
+        linkComputer.doPrimaryType(y);
+        // add, r and the lambda's method; only the implicit constructor is stored
+        assertEquals(3, cache.statistics().ineligible());
+        assertEquals(1, cache.statistics().stores());
+        assertEquals(1, countEntries(directory));
+    }
+
+    @DisplayName("with trackObjectCreations, nothing is cached: a hit would leave out the per-call data")
+    @Test
+    public void trackObjectCreations(@TempDir Path directory) throws IOException {
+        javaInspector.invalidateAllSources();
+        TypeInfo x = javaInspector.parse("a.b.X", X);
+        prepWork(x);
+        LinkComputer.Options options = new LinkComputer.Options.Builder().setRecurse(true)
+                .setCheckDuplicateNames(true).setTrackObjectCreations(true).build();
+        LinkSummaryCache cache = new LinkSummaryCache(javaInspector, directory, Long.MAX_VALUE);
+        assertFalse(cache.eligible(x.findUniqueMethod("add", 2), options));
+        LinkComputerImpl linkComputer = new LinkComputerImpl(javaInspector, options);
+        linkComputer.setSummaryCache(cache);
+        linkComputer.doPrimaryType(x);
+        assertEquals(4, cache.statistics().ineligible());
+        assertEquals(0, cache.statistics().stores());
+        assertEquals(0, countEntries(directory));
+    }
+
+    private static long countEntries(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(p -> p.toString().endsWith(".json")).count();
+        }
+    }
+}
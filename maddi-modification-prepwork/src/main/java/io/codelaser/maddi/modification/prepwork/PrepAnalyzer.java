@@ -170,9 +170,9 @@ public class PrepAnalyzer {
 
         LOGGER.info("Start compute call graph");
         ComputeCallGraph ccg = new ComputeCallGraph(runtime, primaryTypes, moduleInfos, externalsToAccept);
-        G<Info> cg = ccg.go().graph();
+        G<Info> cg = ccg.go(parallel).graph();
         LOGGER.info("Set recursive methods");
-        ccg.setRecursiveMethods();
+        ccg.setRecursiveMethods(parallel);
         LOGGER.info("Start compute part of construction, final field");
         ComputePartOfConstructionFinalField cp = new ComputePartOfConstructionFinalField(options.parallel);
         // PREPPED is exactly "doType ran over this type", i.e. "its method bodies were analyzed" — the precondition
@@ -89,4 +89,41 @@ public class ComputeAnalysisOrder {
         return waves;
     }
 
+    /**
+     * Unit-level dependency DAG over {@link #waves(G)}, for the dependency-driven first-iteration scheduler.
+     * Units are numbered in wave order (all units of the first wave, in list order, then the second wave, ...);
+     * entry {@code i} holds the (ascending, distinct) numbers of the units unit {@code i} must wait for. Only
+     * call-graph edges into a STRICTLY EARLIER wave are kept: that is exactly the ordering the wave barriers
+     * guarantee, so nothing that was honoured is dropped, and the result is acyclic by construction (edges
+     * inside a wave or into a later one were never honoured; edges inside a cycle unit stay on its thread).
+     */
+    public static int[][] unitPredecessors(G<Info> callGraph, List<List<List<Info>>> waves) {
+        java.util.Map<Info, Integer> unitOf = new java.util.HashMap<>();
+        List<Integer> waveOfUnit = new java.util.ArrayList<>();
+        int waveIndex = 0;
+        for (List<List<Info>> wave : waves) {
+            for (List<Info> unit : wave) {
+                int unitIndex = waveOfUnit.size();
+                waveOfUnit.add(waveIndex);
+                for (Info info : unit) unitOf.put(info, unitIndex);
+            }
+            waveIndex++;
+        }
+        List<java.util.TreeSet<Integer>> predecessors = new java.util.ArrayList<>(waveOfUnit.size());
+        for (int i = 0; i < waveOfUnit.size(); i++) predecessors.add(new java.util.TreeSet<>());
+        // same edge filter as the subgraph waves() linearizes; vertices outside the subset have no unit
+        callGraph.edgeStream().filter(e -> e.weight() >= ComputeCallGraph.REFERENCES).forEach(e -> {
+            Integer from = unitOf.get(e.from().t());
+            Integer to = unitOf.get(e.to().t());
+            if (from != null && to != null && waveOfUnit.get(to) < waveOfUnit.get(from)) {
+                predecessors.get(from).add(to);
+            }
+        });
+        int[][] result = new int[predecessors.size()][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = predecessors.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return result;
+    }
+
 }
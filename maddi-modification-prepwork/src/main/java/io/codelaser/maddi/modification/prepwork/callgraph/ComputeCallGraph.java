@@ -33,11 +33,15 @@ import io.codelaser.maddi.cst.api.variable.FieldReference;
 import io.codelaser.maddi.cst.impl.analysis.PropertyImpl;
 import io.codelaser.maddi.cst.impl.analysis.ValueImpl;
 import io.codelaser.maddi.inspection.api.parser.ParseResult;
+import io.codelaser.maddi.graph.CsrGraph;
 import io.codelaser.maddi.graph.G;
 import io.codelaser.maddi.graph.ImmutableGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -49,11 +53,12 @@ call & reference graphs.
 direction of arrow: I need you to exist first (I, from -> you, to)
  */
 public class ComputeCallGraph {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ComputeCallGraph.class);
     public static final Property RECURSIVE_METHOD = new PropertyImpl("recursiveMethod", ValueImpl.BoolImpl.FALSE);
     private final Runtime runtime;
     private final Set<TypeInfo> primaryTypes;
     private final Set<MethodInfo> recursive = new HashSet<>();
-    private final G.Builder<Info> builder = new ImmutableGraph.Builder<>(Long::sum);
+    private final G.Builder<Info> builder;
     private final Predicate<TypeInfo> externalsToAccept;
     private final Collection<ModuleInfo> moduleInfos;
 
@@ -80,6 +85,7 @@ public class ComputeCallGraph {
         this.primaryTypes = parseResult.primaryTypes();
         this.externalsToAccept = externalsToAccept;
         this.moduleInfos = parseResult.sourceSetToModuleInfoMap().values();
+        this.builder = newBuilder(primaryTypes.size());
     }
 
     public ComputeCallGraph(Runtime runtime,
@@ -90,6 +96,31 @@ public class ComputeCallGraph {
         this.primaryTypes = primaryTypes;
         this.externalsToAccept = externalsToAccept;
         this.moduleInfos = moduleInfos;
+        this.builder = newBuilder(primaryTypes.size());
+    }
+
+    /*
+    From CSR_CALL_GRAPH_TYPES primary types on, the graph is built in compressed sparse rows (CsrGraph): no map
+    entry or boxed weight per edge, and the subgraph ComputeAnalysisOrder linearizes is a view rather than a copy.
+    Below that, ImmutableGraph, whose linked maps give the edge order the tests are written against.
+    Env CSR_CALL_GRAPH_TYPES=<n>, default 1000; 0 means always.
+     */
+    static final int CSR_CALL_GRAPH_TYPES = csrCallGraphTypes();
+
+    private static int csrCallGraphTypes() {
+        String s = System.getenv("CSR_CALL_GRAPH_TYPES");
+        if (s == null) return 1000;
+        try {
+            return Math.max(0, Integer.parseInt(s.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Cannot parse CSR_CALL_GRAPH_TYPES={}, using 1000", s);
+            return 1000;
+        }
+    }
+
+    private static G.Builder<Info> newBuilder(int primaryTypes) {
+        return primaryTypes >= CSR_CALL_GRAPH_TYPES ? new CsrGraph.Builder<>(Long::sum)
+                : new ImmutableGraph.Builder<>(Long::sum);
     }
 
     public static boolean isAtLeastReference(long value) {
@@ -129,8 +160,40 @@ public class ComputeCallGraph {
                + codeStructure * codeStructureWeight;
     }
 
+    // a fragment: the same acceptance rules, its own builder and recursive set (see go(boolean))
+    private ComputeCallGraph(ComputeCallGraph parent) {
+        this.runtime = parent.runtime;
+        this.primaryTypes = parent.primaryTypes;
+        this.externalsToAccept = parent.externalsToAccept;
+        this.moduleInfos = List.of();
+        this.builder = new ImmutableGraph.Builder<>(Long::sum);
+    }
+
     public ComputeCallGraph go() {
-        primaryTypes.forEach(this::go);
+        return go(false);
+    }
+
+    /*
+    In parallel, every primary type is walked into a fragment of its own; the fragments are merged in the iteration
+    order of primaryTypes. The walk of one type only ever adds edges, and a sequential walk is the concatenation of
+    the per-type walks, so the merged builder sees the vertices and, per vertex, the edges in the same order as the
+    sequential one, with the same summed weights: the graph is identical, not merely equal.
+    The walk only reads the CST (and the externalsToAccept predicate, which must therefore be thread-safe).
+     */
+    public ComputeCallGraph go(boolean parallel) {
+        if (parallel) {
+            List<ComputeCallGraph> fragments = List.copyOf(primaryTypes).parallelStream().map(primaryType -> {
+                ComputeCallGraph fragment = new ComputeCallGraph(this);
+                fragment.go(primaryType);
+                return fragment;
+            }).toList();
+            for (ComputeCallGraph fragment : fragments) {
+                builder.addAll(fragment.builder);
+                recursive.addAll(fragment.recursive);
+            }
+        } else {
+            primaryTypes.forEach(this::go);
+        }
         moduleInfos.forEach(this::go);
         graph = builder.build();
         return this;
@@ -145,7 +208,12 @@ public class ComputeCallGraph {
     }
 
     public void setRecursiveMethods() {
-        recursive.forEach(mi -> {
+        setRecursiveMethods(false);
+    }
+
+    // each method has its own analysis map, so the writes are independent
+    public void setRecursiveMethods(boolean parallel) {
+        (parallel ? recursive.parallelStream() : recursive.stream()).forEach(mi -> {
             if (!mi.analysis().haveAnalyzedValueFor(RECURSIVE_METHOD)) {
                 mi.analysis().set(RECURSIVE_METHOD, TRUE);
             }
@@ -17,6 +17,7 @@ package io.codelaser.maddi.modification.prepwork.callgraph;
 import io.codelaser.maddi.cst.api.element.ModuleInfo;
 import io.codelaser.maddi.cst.api.info.Info;
 import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.graph.CsrGraph;
 import io.codelaser.maddi.graph.G;
 import io.codelaser.maddi.graph.ImmutableGraph;
 import io.codelaser.maddi.graph.V;
@@ -46,7 +47,9 @@ public class PrimaryTypeUseGraph {
     private final G<TypeInfo> graph;
 
     public PrimaryTypeUseGraph(G<Info> callGraph) {
-        G.Builder<TypeInfo> builder = new ImmutableGraph.Builder<>(Long::sum);
+        // a large call graph (see ComputeCallGraph.CSR_CALL_GRAPH_TYPES) gets a compact projection as well
+        G.Builder<TypeInfo> builder = callGraph instanceof CsrGraph<Info> ? new CsrGraph.Builder<>(Long::sum)
+                : new ImmutableGraph.Builder<>(Long::sum);
         callGraph.edgeStream().forEach(e -> {
             Info from = e.from().t();
             Info to = e.to().t();
@@ -28,6 +28,10 @@ import io.codelaser.maddi.inspection.api.resource.MD5FingerPrint;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -36,7 +40,10 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * The <em>analysisFingerprint</em>: an MD5 over the canonical cst-io codec dump of a primary type's <em>analyzer
@@ -87,17 +94,22 @@ public class AnalysisFingerprint {
 
     /** The canonical serialised analysis dump for {@code primaryType}, honouring {@code propertyPredicate}. */
     public static String dump(Runtime runtime, TypeInfo primaryType, Predicate<Property> propertyPredicate) {
-        Codec codec = new PrepWorkCodec(runtime, null).codec();
+        StringWriter sw = new StringWriter();
+        write(runtime, primaryType, propertyPredicate, null, sw);
+        return sw.toString();
+    }
+
+    private static void write(Runtime runtime, TypeInfo primaryType, Predicate<Property> propertyPredicate,
+                              UnaryOperator<String> stringFilter, Writer writer) {
+        Codec codec = new PrepWorkCodec(runtime, null).codec(stringFilter);
         WriteAnalysisResults war = new WriteAnalysisResults(runtime, ti -> true, propertyPredicate);
         Codec.EncodedValue ev = war.encodePrimaryType(codec, new CodecImpl.ContextImpl(), primaryType);
-        if (ev == null) return "";
-        StringWriter sw = new StringWriter();
+        if (ev == null) return;
         try {
-            ((CodecImpl.E) ev).write(sw, 0, true);
+            ((CodecImpl.E) ev).write(writer, 0, true);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        return sw.toString();
     }
 
     /** Apply a normalizer pipeline to a dump. */
@@ -114,21 +126,70 @@ public class AnalysisFingerprint {
         return of(runtime, primaryType, DEFAULT);
     }
 
-    /** The analysisFingerprint of a primary type with an explicit normalizer profile (e.g. {@link #RAW}). */
+    /**
+     * The analysisFingerprint of a primary type with an explicit normalizer profile (e.g. {@link #RAW}). Equal to the
+     * MD5 of the {@link #normalize(String, List) normalized} {@link #dump}, but when every normalizer has a
+     * {@link FingerprintNormalizer#stringFilter()}, computed without either: the normalizers filter the codec's string
+     * values, and the encoding streams straight into the digest.
+     */
     public static FingerPrint of(Runtime runtime, TypeInfo primaryType, List<FingerprintNormalizer> normalizers) {
-        return MD5FingerPrint.compute(normalize(dump(runtime, primaryType, ANALYZER_OUTPUT_ONLY), normalizers));
+        UnaryOperator<String> stringFilter = stringFilter(normalizers);
+        if (stringFilter == null) {
+            return MD5FingerPrint.compute(normalize(dump(runtime, primaryType, ANALYZER_OUTPUT_ONLY), normalizers));
+        }
+        DigestWriter digestWriter = new DigestWriter();
+        write(runtime, primaryType, ANALYZER_OUTPUT_ONLY, normalizers.isEmpty() ? null : stringFilter, digestWriter);
+        return digestWriter.fingerPrint();
+    }
+
+    // the composition of the normalizers' string filters, or null when one of them has none
+    private static UnaryOperator<String> stringFilter(List<FingerprintNormalizer> normalizers) {
+        UnaryOperator<String> result = UnaryOperator.identity();
+        for (FingerprintNormalizer normalizer : normalizers) {
+            UnaryOperator<String> filter = normalizer.stringFilter();
+            if (filter == null) return null;
+            UnaryOperator<String> before = result;
+            result = s -> filter.apply(before.apply(s));
+        }
+        return result;
+    }
+
+    /**
+     * The analysisFingerprints of many primary types, computed in parallel with the {@link #DEFAULT} normalizers.
+     * A type whose analysis cannot be encoded (the known codec tail: fieldIndex &amp; friends) is left out, and
+     * reported to {@code onError}.
+     */
+    public static Map<TypeInfo, FingerPrint> ofAll(Runtime runtime, Collection<TypeInfo> primaryTypes,
+                                                   BiConsumer<TypeInfo, Throwable> onError) {
+        Map<TypeInfo, FingerPrint> result = new ConcurrentHashMap<>();
+        primaryTypes.parallelStream().forEach(pt -> {
+            try {
+                result.put(pt, of(runtime, pt));
+            } catch (RuntimeException | AssertionError | StackOverflowError e) {
+                onError.accept(pt, e);
+            }
+        });
+        return result;
     }
 
     /**
-     * A source set's rollup fingerprint: the hash of its primary types' (fqn-sorted) {@link #DEFAULT}-normalized
-     * analysis dumps. Two runs whose rollups match produced the same analyzer output for the whole set, so a
-     * dependent set need not be re-analyzed — the coarse cross-source-set early cutoff.
+     * A source set's rollup fingerprint: the hash of its primary types' (fqn-sorted) {@link #DEFAULT} fingerprints.
+     * Two runs whose rollups match produced the same analyzer output for the whole set, so a dependent set need not
+     * be re-analyzed — the coarse cross-source-set early cutoff.
      */
     public static FingerPrint ofSourceSet(Runtime runtime, Collection<TypeInfo> primaryTypes) {
+        return rollup(primaryTypes, ofAll(runtime, primaryTypes, RETHROW));
+    }
+
+    private static final BiConsumer<TypeInfo, Throwable> RETHROW = (_, e) -> {
+        if (e instanceof Error error) throw error;
+        throw (RuntimeException) e;
+    };
+
+    private static FingerPrint rollup(Collection<TypeInfo> primaryTypes, Map<TypeInfo, FingerPrint> fingerPrints) {
         StringBuilder sb = new StringBuilder();
         primaryTypes.stream().sorted(Comparator.comparing(TypeInfo::fullyQualifiedName)).forEach(pt ->
-                sb.append(pt.fullyQualifiedName()).append('=')
-                        .append(normalize(dump(runtime, pt, ANALYZER_OUTPUT_ONLY), DEFAULT)).append('\n'));
+                sb.append(pt.fullyQualifiedName()).append('=').append(fingerPrints.get(pt)).append('\n'));
         return MD5FingerPrint.compute(sb.toString());
     }
 
@@ -145,11 +206,13 @@ public class AnalysisFingerprint {
         for (TypeInfo pt : primaryTypes) {
             bySet.computeIfAbsent(pt.compilationUnit().sourceSet(), s -> new ArrayList<>()).add(pt);
         }
+        // one parallel pass over all the types, rather than one per set
+        Map<TypeInfo, FingerPrint> fingerPrints = ofAll(runtime, primaryTypes, RETHROW);
         Map<SourceSet, FingerPrint> result = new LinkedHashMap<>();
         bySet.entrySet().stream()
                 .sorted(Comparator.comparing(e -> e.getKey().name()))
                 .forEach(e -> {
-                    FingerPrint fp = ofSourceSet(runtime, e.getValue());
+                    FingerPrint fp = rollup(e.getValue(), fingerPrints);
                     if (e.getKey().analysisFingerPrintOrNull() == null) {
                         e.getKey().setAnalysisFingerPrint(fp);
                     }
@@ -157,4 +220,44 @@ public class AnalysisFingerprint {
                 });
         return result;
     }
+
+    // UTF-8 into an MD5 digest: the bytes MD5FingerPrint.compute(String) would hash, without the String
+    private static class DigestWriter extends Writer {
+        private final MessageDigest md;
+
+        DigestWriter() {
+            try {
+                md = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void write(String str) {
+            md.update(str.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            write(str.substring(off, off + len));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            write(new String(cbuf, off, len));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        FingerPrint fingerPrint() {
+            return new MD5FingerPrint(md.digest());
+        }
+    }
 }
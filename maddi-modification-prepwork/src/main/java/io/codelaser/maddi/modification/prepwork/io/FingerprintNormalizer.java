@@ -14,6 +14,8 @@
 
 package io.codelaser.maddi.modification.prepwork.io;
 
+import java.util.function.UnaryOperator;
+
 /**
  * A single normalization applied to the serialised analysis dump before it is hashed into an
  * {@link AnalysisFingerprint}. Each normalizer widens the class of source edits the fingerprint is invariant to,
@@ -27,6 +29,8 @@ package io.codelaser.maddi.modification.prepwork.io;
  * Normalizers compose as an ordered pipeline (see {@link AnalysisFingerprint}); many are expected over time, so
  * this is deliberately a small, open interface. The substrate is the serialised dump ({@code String}) — the one
  * representation every normalizer can share; a structurally-aware normalizer may parse and re-serialise internally.
+ * A normalizer that erases whole string values can also offer that as a {@link #stringFilter()}, which the codec
+ * applies while encoding: the streaming fingerprint then never materialises the dump.
  * <p>
  * <b>Soundness contract:</b> a normalizer may only erase detail a dependent cannot read. Erasing more than that
  * would make two genuinely-different results hash equal and cut off a recomputation that was actually needed.
@@ -39,4 +43,13 @@ public interface FingerprintNormalizer {
 
     /** Return {@code encoded} with this normalizer's target detail erased; must be deterministic and idempotent. */
     String normalize(String encoded);
+
+    /**
+     * The same erasure as a filter on each string value the codec encodes (unquoted in, unquoted out), or null when
+     * this normalizer has no such form; a profile containing one of those is fingerprinted from the dump instead.
+     * Must agree with {@link #normalize(String)}: hashing the filtered encoding equals hashing the normalized dump.
+     */
+    default UnaryOperator<String> stringFilter() {
+        return null;
+    }
 }
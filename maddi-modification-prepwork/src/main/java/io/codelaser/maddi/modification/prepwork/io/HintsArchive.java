@@ -0,0 +1,287 @@
+/*
+ * maddi: a modification analyzer for duplication detection and immutability.
+ * Copyright 2020-2025, Bart Naudts, https://github.com/CodeLaser/maddi
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU Lesser General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details. You should have received a copy of the GNU Lesser General Public
+ * License along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package io.codelaser.maddi.modification.prepwork.io;
+
+import io.codelaser.maddi.cst.io.CodecImpl;
+import org.parsers.json.JSONParser;
+import org.parsers.json.Node;
+import org.parsers.json.ast.JSONObject;
+import org.parsers.json.ast.KeyValuePair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.stream.Stream;
+
+/**
+ * A directory of analysis-results JSON files (one per package, as {@link WriteAnalysisResults} writes them) packed
+ * into one file, {@value #FILE_NAME}, with an index by primary type. {@link LoadAnalysisResults#goArchive} maps it
+ * into memory, reads only the index, and decodes a primary type's hints when the analyzer first touches that type:
+ * the JSON of the whole directory is never read, nor parsed into one tree.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ *   int magic, int version
+ *   long filesKey                          the directory it was built from: a stale archive is not used
+ *   long contentKey                        the same, by content, for a copy without file times (a jar)
+ *   int count
+ *   count × (short n, n bytes UTF-8 name, int offset, int length)
+ *   the data: per primary type, the UTF-8 JSON object of its entry in the package file
+ * </pre>
+ * The name is the encoded name of the primary type ({@code T} + fully qualified name); offsets are relative to the
+ * start of the data. The values stay in the codec's JSON form: decoding them is the codec's job, and a per-type
+ * parse of a few hundred bytes is not where the time went.
+ * <p>
+ * Both keys hash, per JSON file in name order, its path relative to the directory and its size; the files key adds
+ * the modification time, so that checking a directory is a stat of each file, the content key adds the CRC-32 of
+ * the file, which a jar entry carries, and which a copy of the directory with new modification times still has.
+ */
+public final class HintsArchive {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HintsArchive.class);
+
+    public static final String FILE_NAME = "hints.bin";
+    private static final int MAGIC = 0x4D484E54; // "MHNT"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+
+    private final long contentKey;
+    private final ByteBuffer data;
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private HintsArchive(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not an analysis hints archive");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported hints archive version " + version);
+        buffer.getLong(); // filesKey
+        contentKey = buffer.getLong();
+        int count = buffer.getInt();
+        names = new String[count];
+        offsets = new int[count];
+        lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = readUtf(buffer);
+            offsets[i] = buffer.getInt();
+            lengths[i] = buffer.getInt();
+        }
+        data = buffer.slice();
+    }
+
+    /** Memory-maps the archive; the mapping outlives the channel, and is released with the archive. */
+    public static HintsArchive map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new HintsArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** An archive read from a jar entry, where there is no file to map. */
+    public static HintsArchive of(byte[] bytes) {
+        return new HintsArchive(ByteBuffer.wrap(bytes));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    /** The encoded name of the {@code i}-th primary type: its kind character followed by its fully qualified name. */
+    public String name(int i) {
+        return names[i];
+    }
+
+    /** The JSON object holding the hints of the {@code i}-th primary type, decoded from the buffer on each call. */
+    public String json(int i) {
+        byte[] bytes = new byte[lengths[i]];
+        data.get(offsets[i], bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A JSON file, as the content key sees it.
+     *
+     * @param name its path relative to the directory, with {@code /} separators
+     * @param crc  the CRC-32 of its bytes
+     */
+    public record JsonFile(String name, long size, long crc) {
+    }
+
+    /**
+     * Whether this archive was built from exactly {@code jsonFiles}, by content. For a copy of the directory where
+     * the files are not at hand, e.g. the entries of a jar, which carry their size and CRC-32.
+     */
+    public boolean builtFrom(List<JsonFile> jsonFiles) {
+        return contentKey == contentKey(jsonFiles);
+    }
+
+    /**
+     * The archive of {@code directory}, when it exists and was built from exactly the JSON files now present; null
+     * otherwise. Usually a stat of each file: only when their names, sizes and modification times differ from those
+     * the archive was built from, as in a copy of the directory, are the files read, for their CRC-32.
+     */
+    public static Path currentArchive(Path directory) throws IOException {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) return null;
+        List<Path> jsonFiles = jsonFiles(directory);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return null;
+            }
+            if (header.getLong() != filesKey(directory, jsonFiles)) {
+                List<JsonFile> contents = new ArrayList<>();
+                for (Path jsonFile : jsonFiles) {
+                    contents.add(jsonFile(directory, jsonFile, Files.readAllBytes(jsonFile)));
+                }
+                if (header.getLong() != contentKey(contents)) {
+                    LOGGER.info("Ignoring stale {}: the JSON files in {} changed since it was built", file, directory);
+                    return null;
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Build the archive of the JSON files in {@code directory}, and write it there. Called after every write of
+     * analysis results, so that the archive covers whatever the directory holds.
+     *
+     * @return the number of primary types in the archive
+     */
+    public static int writeDirectory(Path directory) throws IOException {
+        List<Path> jsonFiles = jsonFiles(directory);
+        List<String> names = new ArrayList<>();
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        List<int[]> ranges = new ArrayList<>();
+        List<JsonFile> contents = new ArrayList<>();
+        for (Path jsonFile : jsonFiles) {
+            byte[] bytes = Files.readAllBytes(jsonFile);
+            contents.add(jsonFile(directory, jsonFile, bytes));
+            String content = new String(bytes, StandardCharsets.UTF_8);
+            JSONParser parser = new JSONParser(content);
+            parser.Root();
+            Node root = parser.rootNode();
+            for (JSONObject jo : root.getFirst().childrenOfType(JSONObject.class)) {
+                KeyValuePair nameKv = (KeyValuePair) jo.get(1);
+                byte[] object = jo.getSource().getBytes(StandardCharsets.UTF_8);
+                names.add(CodecImpl.unquote(nameKv.get(2).getSource()));
+                ranges.add(new int[]{data.size(), object.length});
+                data.write(object);
+            }
+        }
+        Path file = directory.resolve(FILE_NAME);
+        // written next to its final name and moved in place: a crash, or a reader mapping the archive, never sees
+        // half of it
+        Path tmp = Files.createTempFile(directory, "hints-", ".tmp");
+        try {
+            write(tmp, directory, jsonFiles, contents, names, ranges, data);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        LOGGER.info("Wrote {} primary types from {} JSON files to {}", names.size(), jsonFiles.size(), file);
+        return names.size();
+    }
+
+    private static void write(Path file, Path directory, List<Path> jsonFiles, List<JsonFile> contents,
+                              List<String> names, List<int[]> ranges, ByteArrayOutputStream data) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(filesKey(directory, jsonFiles));
+            out.writeLong(contentKey(contents));
+            out.writeInt(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(name.length);
+                out.write(name);
+                out.writeInt(ranges.get(i)[0]);
+                out.writeInt(ranges.get(i)[1]);
+            }
+            data.writeTo(out);
+        }
+    }
+
+    // the same files, at the same depth, as LoadAnalysisResults.goDir reads; sorted, so the archive is reproducible
+    private static List<Path> jsonFiles(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory, 3)) {
+            return stream.filter(p -> p.toString().endsWith(".json")).sorted().toList();
+        }
+    }
+
+    private static JsonFile jsonFile(Path directory, Path file, byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return new JsonFile(relativeName(directory, file), bytes.length, crc.getValue());
+    }
+
+    private static String relativeName(Path directory, Path file) {
+        return directory.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static long filesKey(Path directory, List<Path> jsonFiles) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path jsonFile : jsonFiles) {
+            lines.add(relativeName(directory, jsonFile) + "\t" + Files.size(jsonFile) + "\t"
+                      + Files.getLastModifiedTime(jsonFile).toMillis());
+        }
+        return key(lines);
+    }
+
+    private static long contentKey(List<JsonFile> jsonFiles) {
+        return key(jsonFiles.stream().sorted(Comparator.comparing(JsonFile::name))
+                .map(f -> f.name() + "\t" + f.size() + "\t" + f.crc()).toList());
+    }
+
+    // the first 8 bytes of the SHA-256 of the lines, in the order given
+    private static long key(List<String> lines) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String line : lines) {
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
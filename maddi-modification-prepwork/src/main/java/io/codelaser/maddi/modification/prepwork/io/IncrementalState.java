@@ -74,15 +74,13 @@ public record IncrementalState(Map<String, String> analysisFingerprints,
                                            Map<Info, Set<Info>> elementConsumerToConsumed) {
         Map<String, String> fingerprints = new TreeMap<>();
         Map<String, String> sourceFps = new TreeMap<>();
+        // the known codec tail (fieldIndex & friends): a type without a fingerprint is
+        // simply always-recomputed on resume — degraded, never wrong
+        Map<TypeInfo, FingerPrint> analysisFps = AnalysisFingerprint.ofAll(runtime, primaryTypes,
+                (pt, e) -> LOGGER.debug("No fingerprint for {}: {}", pt, e.toString()));
         for (TypeInfo pt : primaryTypes) {
-            try {
-                FingerPrint fp = AnalysisFingerprint.of(runtime, pt);
-                if (!fp.isNoFingerPrint()) fingerprints.put(pt.fullyQualifiedName(), fp.toString());
-            } catch (RuntimeException | AssertionError | StackOverflowError e) {
-                // the known codec tail (fieldIndex & friends): a type without a fingerprint is
-                // simply always-recomputed on resume — degraded, never wrong
-                LOGGER.debug("No fingerprint for {}: {}", pt, e.toString());
-            }
+            FingerPrint fp = analysisFps.get(pt);
+            if (fp != null && !fp.isNoFingerPrint()) fingerprints.put(pt.fullyQualifiedName(), fp.toString());
             FingerPrint source = pt.compilationUnit() == null ? null
                     : pt.compilationUnit().fingerPrintOrNull();
             if (source != null && !source.isNoFingerPrint()) {
@@ -104,6 +102,25 @@ public record IncrementalState(Map<String, String> analysisFingerprints,
         return new IncrementalState(fingerprints, sourceFps, consumers);
     }
 
+    /**
+     * An incremental run records the consumption edges of what it re-analyzed only: keep the edges of the
+     * {@code prior} state among the types that still exist. A stale edge wakes a consumer needlessly, a lost one
+     * leaves a value-mediated change unpropagated in the next run.
+     */
+    public IncrementalState withPriorConsumers(IncrementalState prior) {
+        Set<String> current = new TreeSet<>(sourceFingerprints.keySet());
+        current.addAll(analysisFingerprints.keySet());
+        Map<String, Set<String>> merged = new TreeMap<>();
+        consumers.forEach((consumed, consumerFqns) -> merged.put(consumed, new TreeSet<>(consumerFqns)));
+        prior.consumers.forEach((consumed, consumerFqns) -> {
+            if (!current.contains(consumed)) return;
+            for (String consumer : consumerFqns) {
+                if (current.contains(consumer)) merged.computeIfAbsent(consumed, _ -> new TreeSet<>()).add(consumer);
+            }
+        });
+        return new IncrementalState(analysisFingerprints, sourceFingerprints, merged);
+    }
+
     private static void appendStringMap(StringBuilder sb, String name, Map<String, String> map) {
         sb.append(" \"").append(name).append("\": {");
         boolean first = true;
@@ -15,9 +15,12 @@
 package io.codelaser.maddi.modification.prepwork.io;
 
 import io.codelaser.maddi.cst.api.analysis.Codec;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
 import io.codelaser.maddi.cst.api.element.SourceSet;
 import io.codelaser.maddi.cst.api.info.Info;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
 import io.codelaser.maddi.cst.api.runtime.Runtime;
+import io.codelaser.maddi.cst.impl.analysis.PropertyValueMapImpl;
 import io.codelaser.maddi.cst.io.CodecImpl;
 import io.codelaser.maddi.inspection.api.integration.JavaInspector;
 import org.parsers.json.JSONParser;
@@ -32,9 +35,19 @@ import java.io.*;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.stream.Stream;
@@ -55,6 +68,9 @@ import java.util.stream.Stream;
  *       that disagreement is upstream immutability work; until then, dropping the individual hint keeps prep loading
  *       instead of failing every project that references such a type.</li>
  * </ul>
+ * A directory with a current {@link HintsArchive} is loaded through it: hints are then decoded per primary type, on
+ * first use, and the counters above grow as types are decoded rather than all at once (env NOLAZYHINTS: read the
+ * JSON files, decode everything up front).
  */
 public class LoadAnalysisResults {
     public static final String ANALYZED_RESULTS_JDK = "../maddi-aapi-archive/src/main/resources/io/codelaser/maddi/aapi/archive/analyzedPackageFiles/jdk";
@@ -64,6 +80,7 @@ public class LoadAnalysisResults {
     public static final List<String> ANALYZED_RESULTS = List.of(ANALYZED_RESULTS_JDK, ANALYZED_RESULTS_LIBS + "/test",
             ANALYZED_RESULTS_LIBS + "/log", ANALYZED_RESULTS_LIBS + "/kotlin");
     private static final Logger LOGGER = LoggerFactory.getLogger(LoadAnalysisResults.class);
+    private static final boolean LAZY_HINTS = System.getenv("NOLAZYHINTS") == null;
     private final SourceSet sourceSetOfRequest; // for loading types
     private final Runtime runtime;
 
@@ -95,7 +112,11 @@ public class LoadAnalysisResults {
                 }
             } else {
                 File directory = new File(dir);
-                if (directory.canRead()) {
+                Path archive = LAZY_HINTS && directory.isDirectory()
+                        ? HintsArchive.currentArchive(directory.toPath()) : null;
+                if (archive != null) {
+                    countPrimaryTypes += goArchive(codec, HintsArchive.map(archive));
+                } else if (directory.canRead()) {
                     countPrimaryTypes += goDir(codec, directory);
                     LOGGER.info("Finished reading all json files in AAAPI {}", directory.getAbsolutePath());
                 } else {
@@ -162,28 +183,143 @@ public class LoadAnalysisResults {
     /**
      * checkpoint-restore variant (task #34): an unparseable or undecodable file (crash mid-write,
      * codec drift) is skipped and counted, never fatal — the resumed run re-analyzes what is missing.
+     * <p>
+     * A pipeline: reader threads read and parse the files ahead of the caller, in walk order and at most
+     * {@code 2 × RESTORE_THREADS} files ahead, while the caller decodes, because the codec resolves against the
+     * runtime. The time per stage ends up in {@link #restoreStats()}.
      */
     public int goDirTolerant(Codec codec, File directory) throws IOException {
         if (!directory.isDirectory()) throw new UnsupportedEncodingException(directory + " is not a directory");
+        List<Path> files;
         try (Stream<Path> jsonFiles = Files.walk(directory.toPath(), 3)
                 .filter(p -> p.toString().endsWith(".json"))) {
-            int countPrimaryTypes = 0;
-            int skippedFiles = 0;
-            for (Path jsonFile : jsonFiles.toList()) {
-                try {
-                    countPrimaryTypes += go(codec, jsonFile);
-                } catch (IOException | RuntimeException | AssertionError | StackOverflowError e) {
+            files = jsonFiles.toList();
+        }
+        int threads = Math.max(1, Math.min(RESTORE_THREADS, files.size()));
+        LongAdder readNanos = new LongAdder();
+        LongAdder parseNanos = new LongAdder();
+        long decodeNanos = 0;
+        long waitNanos = 0;
+        int countPrimaryTypes = 0;
+        int skippedFiles = 0;
+        ExecutorService readers = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("maddi-restore-", 0).daemon().factory());
+        try {
+            Deque<Future<ParsedFile>> window = new ArrayDeque<>();
+            int next = 0;
+            while (next < files.size() || !window.isEmpty()) {
+                while (next < files.size() && window.size() < 2 * threads) {
+                    Path file = files.get(next++);
+                    window.addLast(readers.submit(() -> readAndParse(file, readNanos, parseNanos)));
+                }
+                long t0 = System.nanoTime();
+                ParsedFile parsed = take(window.removeFirst());
+                long t1 = System.nanoTime();
+                waitNanos += t1 - t0;
+                Throwable failure = parsed.failure();
+                if (failure == null) {
+                    try {
+                        countPrimaryTypes += decode(codec, parsed.primaryTypes());
+                    } catch (RuntimeException | AssertionError | StackOverflowError e) {
+                        failure = e;
+                    }
+                }
+                decodeNanos += System.nanoTime() - t1;
+                if (failure != null) {
                     ++skippedFiles;
-                    LOGGER.warn("Skipping unreadable analysis file {}: {}", jsonFile, e.toString());
+                    LOGGER.warn("Skipping unreadable analysis file {}: {}", parsed.file(), failure.toString());
                 }
             }
-            if (skippedFiles > 0) {
-                LOGGER.warn("Skipped {} unreadable analysis file(s) in {}", skippedFiles, directory);
-            }
-            return countPrimaryTypes;
+        } finally {
+            readers.shutdownNow();
+        }
+        if (skippedFiles > 0) {
+            LOGGER.warn("Skipped {} unreadable analysis file(s) in {}", skippedFiles, directory);
+        }
+        restoreStats = new RestoreStats(files.size(), skippedFiles, threads, readNanos.sum(), parseNanos.sum(),
+                decodeNanos, waitNanos);
+        LOGGER.info("Restored {} primary types from {}: {}", countPrimaryTypes, directory, restoreStats);
+        return countPrimaryTypes;
+    }
+
+    /**
+     * Where the time of the last {@link #goDirTolerant} went. Read and parse are summed over the reader threads;
+     * decode and wait are on the calling thread, wait being the time decode had no parsed file to work on. With a
+     * wait close to zero, decode is the bottleneck and more reader threads will not help.
+     */
+    public record RestoreStats(int files, int skippedFiles, int threads, long readNanos, long parseNanos,
+                               long decodeNanos, long waitNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d file(s), %d skipped, %d reader thread(s); read %d ms, parse %d ms, decode %d ms,"
+                                 + " waited %d ms", files, skippedFiles, threads, readNanos / 1_000_000,
+                    parseNanos / 1_000_000, decodeNanos / 1_000_000, waitNanos / 1_000_000);
         }
     }
 
+    private RestoreStats restoreStats;
+
+    public RestoreStats restoreStats() {
+        return restoreStats;
+    }
+
+    // env RESTORE_THREADS=<n>; default min(4, cores-1), RESTORE_THREADS=1 still reads ahead on one thread
+    private static final int RESTORE_THREADS = restoreThreads();
+
+    private static int restoreThreads() {
+        String s = System.getenv("RESTORE_THREADS");
+        if (s == null) return Math.max(1, Math.min(4, java.lang.Runtime.getRuntime().availableProcessors() - 1));
+        try {
+            return Math.max(1, Integer.parseInt(s.trim()));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Cannot parse RESTORE_THREADS={}, reading on one thread", s);
+            return 1;
+        }
+    }
+
+    // a file as the reader threads hand it over: its primary-type objects, or why it could not be read
+    private record ParsedFile(Path file, List<JSONObject> primaryTypes, Throwable failure) {
+    }
+
+    private static ParsedFile readAndParse(Path file, LongAdder readNanos, LongAdder parseNanos) {
+        try {
+            long t0 = System.nanoTime();
+            String content = Files.readString(file);
+            long t1 = System.nanoTime();
+            readNanos.add(t1 - t0);
+            JSONParser parser = new JSONParser(content);
+            parser.Root();
+            List<JSONObject> primaryTypes = parser.rootNode().getFirst().childrenOfType(JSONObject.class);
+            parseNanos.add(System.nanoTime() - t1);
+            return new ParsedFile(file, primaryTypes, null);
+        } catch (IOException | RuntimeException | AssertionError | StackOverflowError e) {
+            return new ParsedFile(file, null, e);
+        }
+    }
+
+    private static ParsedFile take(Future<ParsedFile> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // all of a file, or none of it: as before, a failing file contributes no count
+    private int decode(Codec codec, List<JSONObject> primaryTypes) {
+        int countPrimaryTypes = 0;
+        int skipped = 0;
+        for (JSONObject jo : primaryTypes) {
+            if (processPrimaryType(codec, jo, Info::analysis)) ++countPrimaryTypes;
+            else ++skipped;
+        }
+        skippedPrimaryTypes += skipped;
+        return countPrimaryTypes;
+    }
+
     public int go(Codec codec, Path jsonFile) throws IOException {
         LOGGER.info("Parsing {}", jsonFile);
         String s = Files.readString(jsonFile);
@@ -196,12 +332,102 @@ public class LoadAnalysisResults {
         Node root = parser.rootNode();
         int countPrimaryTypes = 0;
         for (JSONObject jo : root.getFirst().childrenOfType(JSONObject.class)) {
-            if (processPrimaryType(codec, jo)) ++countPrimaryTypes;
+            if (processPrimaryType(codec, jo, Info::analysis)) ++countPrimaryTypes;
             else ++skippedPrimaryTypes;
         }
         return countPrimaryTypes;
     }
 
+    /**
+     * Register the hints of an archive without decoding them. Each primary type is resolved, as the JSON loaders do
+     * first; then every analysis map of the type and of its members (the elements {@link WriteAnalysisResults}
+     * writes) is handed one {@link PropertyValueMap.Deferred}, which decodes the whole type's hints when any of
+     * those maps is first used.
+     */
+    public int goArchive(Codec codec, HintsArchive archive) {
+        int countPrimaryTypes = 0;
+        for (int i = 0; i < archive.size(); i++) {
+            String name = archive.name(i);
+            Info info;
+            try {
+                info = codec.decodeInfoInContext(new CodecImpl.ContextImpl(), name.charAt(0), name.substring(1));
+            } catch (Codec.DecoderException de) {
+                LOGGER.warn("Skipping analysis hints for unresolvable type '{}': {}", name, de.getMessage());
+                ++skippedUnresolvableHints;
+                continue;
+            }
+            if (info instanceof TypeInfo typeInfo) {
+                defer(typeInfo, new DeferredHints(codec, archive, i));
+                ++countPrimaryTypes;
+            } else {
+                LOGGER.debug("Skipping analysis hints for {}: type not on the classpath", name);
+                ++skippedPrimaryTypes;
+            }
+        }
+        LOGGER.info("Registered {} primary types of analysis hints, to be decoded on first use", countPrimaryTypes);
+        return countPrimaryTypes;
+    }
+
+    private static void defer(TypeInfo typeInfo, PropertyValueMap.Deferred deferred) {
+        typeInfo.analysis().setDeferred(deferred);
+        typeInfo.fields().forEach(f -> f.analysis().setDeferred(deferred));
+        typeInfo.constructorAndMethodStream().forEach(m -> {
+            m.analysis().setDeferred(deferred);
+            m.parameters().forEach(p -> p.analysis().setDeferred(deferred));
+        });
+        typeInfo.subTypes().forEach(st -> defer(st, deferred));
+    }
+
+    /*
+    The hints of one primary type of an archive. Decoding goes into maps of its own, one per element, and each
+    element's map pulls its share when first used (PropertyValueMapImpl): the decoder never takes the monitor of an
+    element's map. All decoding is serialized on the LoadAnalysisResults, which owns the codec and the counters.
+     */
+    private final class DeferredHints implements PropertyValueMap.Deferred {
+        private final Codec codec;
+        private final HintsArchive archive;
+        private final int index;
+        private volatile Map<PropertyValueMap, PropertyValueMap> decoded; // by identity of the element's map
+        private boolean decoding; // guarded by LoadAnalysisResults.this
+
+        private DeferredHints(Codec codec, HintsArchive archive, int index) {
+            this.codec = codec;
+            this.archive = archive;
+            this.index = index;
+        }
+
+        @Override
+        public boolean load() {
+            if (decoded != null) return true;
+            synchronized (LoadAnalysisResults.this) {
+                if (decoded != null) return true;
+                if (decoding) return false;
+                decoding = true;
+                Map<PropertyValueMap, PropertyValueMap> map = new IdentityHashMap<>();
+                try {
+                    JSONParser parser = new JSONParser("[" + archive.json(index) + "]");
+                    parser.Root();
+                    JSONObject jo = parser.rootNode().getFirst().childrenOfType(JSONObject.class).getFirst();
+                    processPrimaryType(codec, jo, info ->
+                            map.computeIfAbsent(info.analysis(), _ -> new PropertyValueMapImpl()));
+                } catch (RuntimeException | AssertionError e) {
+                    // the analysis is under way: it carries on with shallow defaults for this type
+                    LOGGER.warn("Dropping the analysis hints of {}: {}", archive.name(index), e.toString());
+                    map.clear();
+                } finally {
+                    decoding = false;
+                    decoded = map;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public PropertyValueMap valuesFor(PropertyValueMap target) {
+            return decoded.get(target);
+        }
+    }
+
     // number of primary types whose module is not on the classpath, so their hints were skipped
     private int skippedPrimaryTypes;
 
@@ -218,15 +444,30 @@ public class LoadAnalysisResults {
     }
 
     // returns false if the primary type's hints are skipped whole (its module is not on the classpath)
-    private boolean processPrimaryType(Codec codec, JSONObject jo) {
+    private boolean processPrimaryType(Codec codec, JSONObject jo, Function<Info, PropertyValueMap> target) {
         Codec.Context context = new CodecImpl.ContextImpl();
-        return processSub(codec, context, jo, true);
+        return processSub(codec, context, jo, true, target);
+    }
+
+    /**
+     * Decode one element, as {@link WriteAnalysisResults#encodeMethod} encodes it, into the maps {@code target}
+     * hands out. The context holds the element's enclosing types. Returns false when the element or one of its
+     * values cannot be resolved: nothing, or only part of it, was decoded.
+     */
+    public boolean goElement(Codec codec, Codec.Context context, String json, Function<Info, PropertyValueMap> target) {
+        JSONParser parser = new JSONParser("[" + json + "]");
+        parser.Root();
+        JSONObject jo = parser.rootNode().getFirst().childrenOfType(JSONObject.class).getFirst();
+        int skippedBefore = skippedUnresolvableHints;
+        processSub(codec, context, jo, false, target);
+        return skippedUnresolvableHints == skippedBefore;
     }
 
     // Applies the hints for one element and recurses into its children. Returns false only for a primary type
     // (topLevel) whose own type is not on the classpath, so the caller counts it as skipped; a nested element that
     // cannot be applied is dropped in place (see the class note on tolerance) without failing its siblings.
-    private boolean processSub(Codec codec, Codec.Context context, JSONObject jo, boolean topLevel) {
+    private boolean processSub(Codec codec, Codec.Context context, JSONObject jo, boolean topLevel,
+                               Function<Info, PropertyValueMap> target) {
         KeyValuePair nameKv = (KeyValuePair) jo.get(1);
         String fullyQualifiedWithType = CodecImpl.unquote(nameKv.get(2).getSource());
         KeyValuePair dataKv = (KeyValuePair) jo.get(3);
@@ -256,17 +497,17 @@ public class LoadAnalysisResults {
         }
         context.push(info);
         try {
-            processData(codec, context, info, dataJo);
+            processData(codec, context, target.apply(info), dataJo);
             if (jo.size() > 5) {
                 KeyValuePair subs = (KeyValuePair) jo.get(5);
                 String subKey = subs.get(0).getSource();
                 if ("\"sub\"".equals(subKey)) {
-                    processSub(codec, context, (JSONObject) subs.get(2), false);
+                    processSub(codec, context, (JSONObject) subs.get(2), false, target);
                 } else {
                     assert "\"subs\"".equals(subKey);
                     Array array = (Array) subs.get(2);
                     for (int i = 1; i < array.size(); i += 2) {
-                        processSub(codec, context, (JSONObject) array.get(i), false);
+                        processSub(codec, context, (JSONObject) array.get(i), false, target);
                     }
                 }
             }
@@ -286,7 +527,8 @@ public class LoadAnalysisResults {
         return true;
     }
 
-    private static void processData(Codec codec, Codec.Context context, Info info, JSONObject dataJo) {
+    private static void processData(Codec codec, Codec.Context context, PropertyValueMap target,
+                                    JSONObject dataJo) {
         List<Codec.EncodedPropertyValue> epvs = new ArrayList<>();
         for (int i = 1; i < dataJo.size(); i += 2) {
             if (dataJo.get(i) instanceof KeyValuePair kvp2) {
@@ -294,8 +536,8 @@ public class LoadAnalysisResults {
                 epvs.add(new Codec.EncodedPropertyValue(key, new CodecImpl.D(kvp2.get(2))));
             }
         }
-        // the decoder writes directly into info.analysis()! we must do this, because to properly
-        // decode HCS, we need the value of HCT which occurs earlier in the same list
-        codec.decode(context, info.analysis(), epvs.stream());
+        // the decoder writes directly into the target map (info.analysis(), or the archive's map for it)! we must
+        // do this, because to properly decode HCS, we need the value of HCT which occurs earlier in the same list
+        codec.decode(context, target, epvs.stream());
     }
 }
@@ -31,6 +31,7 @@ import io.codelaser.maddi.cst.io.CodecImpl;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
 
 public class PrepWorkCodec {
 
@@ -55,9 +56,29 @@ public class PrepWorkCodec {
         return new C(runtime);
     }
 
+    /**
+     * An encode-only codec that passes every string value through {@code stringFilter} before quoting it; the
+     * analysisFingerprint's normalizers, applied while encoding rather than on the dump.
+     */
+    public Codec codec(UnaryOperator<String> stringFilter) {
+        return new C(runtime, stringFilter);
+    }
+
     class C extends CodecImpl {
+        private final UnaryOperator<String> stringFilter;
+
         public C(Runtime runtime) {
+            this(runtime, null);
+        }
+
+        C(Runtime runtime, UnaryOperator<String> stringFilter) {
             super(runtime, propertyProvider, decoderProvider, typeProvider, sourceSetOfRequest);
+            this.stringFilter = stringFilter;
+        }
+
+        @Override
+        public EncodedValue encodeString(Context context, String string) {
+            return super.encodeString(context, stringFilter == null ? string : stringFilter.apply(string));
         }
 
         // the prep-work introduces the ReturnVariable, which the base codec (CST-only) does not know; encode it
@@ -14,6 +14,7 @@
 
 package io.codelaser.maddi.modification.prepwork.io;
 
+import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
 
 /**
@@ -26,7 +27,8 @@ import java.util.regex.Pattern;
  * <p>
  * String-level and anchored on the distinctive four-number, quote-delimited shape, which does not collide with
  * statement indices ({@code "1.0.0"}), fqns, or link markers. Blanks to {@code ""} (a stable placeholder) rather
- * than deleting, so the surrounding list structure is untouched.
+ * than deleting, so the surrounding list structure is untouched. The {@link #stringFilter()} does the same to the
+ * string value as the codec encodes it.
  */
 public class SourcePositionNormalizer implements FingerprintNormalizer {
 
@@ -42,4 +44,28 @@ public class SourcePositionNormalizer implements FingerprintNormalizer {
     public String normalize(String encoded) {
         return COMPACT2.matcher(encoded).replaceAll("\"\"");
     }
+
+    // the codec-level form: the coordinates reach the dump only as a whole string value (element [1])
+    @Override
+    public UnaryOperator<String> stringFilter() {
+        return s -> isCompact2(s) ? "" : s;
+    }
+
+    // digits '-' digits ':' digits '-' digits, without the regex
+    static boolean isCompact2(String s) {
+        int i = digits(s, 0);
+        if (i < 0 || i == s.length() || s.charAt(i) != '-') return false;
+        i = digits(s, i + 1);
+        if (i < 0 || i == s.length() || s.charAt(i) != ':') return false;
+        i = digits(s, i + 1);
+        if (i < 0 || i == s.length() || s.charAt(i) != '-') return false;
+        return digits(s, i + 1) == s.length();
+    }
+
+    // the end of a non-empty run of digits starting at 'from', or -1
+    private static int digits(String s, int from) {
+        int i = from;
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+        return i == from ? -1 : i;
+    }
 }
@@ -17,6 +17,7 @@ package io.codelaser.maddi.modification.prepwork.io;
 import io.codelaser.maddi.modification.prepwork.PrepAnalyzer;
 import io.codelaser.maddi.cst.api.analysis.Codec;
 import io.codelaser.maddi.cst.api.analysis.Property;
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
 import io.codelaser.maddi.cst.api.element.SourceSet;
 import io.codelaser.maddi.cst.api.info.*;
 import io.codelaser.maddi.cst.api.runtime.Runtime;
@@ -45,6 +46,9 @@ public class WriteAnalysisResults {
     // which analysis properties to serialise; the analysisFingerprint (docs/analysis-rewiring.md) passes a predicate
     // that keeps only the analyzer output. Default true = write everything, the production behaviour.
     private final Predicate<Property> propertyPredicate;
+    // where an element's values are read: by default its live analysis() map; CheckpointWriter's asynchronous mode
+    // passes the snapshot it took at the barrier, so the encoding on its writer thread does not race the analysis
+    private final Function<Info, Stream<PropertyValueMap.PropertyValue>> values;
 
     /**
      * Per-run bookkeeping that must NEVER reach a file, whatever {@link #propertyPredicate} says.
@@ -63,9 +67,15 @@ public class WriteAnalysisResults {
     }
 
     public WriteAnalysisResults(Runtime runtime, Predicate<TypeInfo> typePredicate, Predicate<Property> propertyPredicate) {
+        this(runtime, typePredicate, propertyPredicate, info -> info.analysis().propertyValueStream());
+    }
+
+    public WriteAnalysisResults(Runtime runtime, Predicate<TypeInfo> typePredicate, Predicate<Property> propertyPredicate,
+                                Function<Info, Stream<PropertyValueMap.PropertyValue>> values) {
         this.runtime = runtime;
         this.typePredicate = typePredicate;
         this.propertyPredicate = propertyPredicate;
+        this.values = values;
     }
 
     public void write(String destinationDirectory, Trie<TypeInfo> typeTrie) throws IOException {
@@ -161,7 +171,7 @@ public class WriteAnalysisResults {
     private int skippedValues;
 
     private Codec.EncodedPropertyValue encodeOrSkip(Codec codec, Codec.Context context,
-                                                    io.codelaser.maddi.cst.api.analysis.PropertyValueMap.PropertyValue pv) {
+                                                    PropertyValueMap.PropertyValue pv) {
         try {
             return codec.encode(context, pv.property(), pv.value());
         } catch (RuntimeException | AssertionError | StackOverflowError e) {
@@ -178,7 +188,7 @@ public class WriteAnalysisResults {
     }
 
     private Codec.EncodedValue write(Codec codec, Codec.Context context, Info info, int index) {
-        Stream<Codec.EncodedPropertyValue> stream = info.analysis().propertyValueStream()
+        Stream<Codec.EncodedPropertyValue> stream = values.apply(info)
                 .filter(pv -> !pv.value().isDefault()) // not streaming default values
                 .filter(pv -> NEVER_SERIALISED.test(pv.property()) && propertyPredicate.test(pv.property()))
                 .map(pv -> encodeOrSkip(codec, context, pv))
@@ -195,7 +205,7 @@ public class WriteAnalysisResults {
             context.pop();
             p++;
         }
-        Stream<Codec.EncodedPropertyValue> stream = methodInfo.analysis().propertyValueStream()
+        Stream<Codec.EncodedPropertyValue> stream = values.apply(methodInfo)
                 .filter(pv -> !pv.value().isDefault())
                 .filter(pv -> NEVER_SERIALISED.test(pv.property()) && propertyPredicate.test(pv.property()))
                 .map(pv -> encodeOrSkip(codec, context, pv))
@@ -244,7 +254,7 @@ public class WriteAnalysisResults {
             context.pop();
             mc++;
         }
-        Stream<Codec.EncodedPropertyValue> stream = typeInfo.analysis().propertyValueStream()
+        Stream<Codec.EncodedPropertyValue> stream = values.apply(typeInfo)
                 .filter(pv -> !pv.value().isDefault())
                 .filter(pv -> NEVER_SERIALISED.test(pv.property()) && propertyPredicate.test(pv.property()))
                 .map(pv -> encodeOrSkip(codec, context, pv))
@@ -264,6 +274,22 @@ public class WriteAnalysisResults {
         return ev;
     }
 
+    /**
+     * Encode a single method's analysis, with its parameters, honouring the property predicate. The context holds
+     * the method's enclosing types, outermost first, as {@link #encodePrimaryType} has them when it reaches the
+     * method; the method is named by its index in the sorted constructors or methods, as in the type's encoding.
+     * Used by the link summary cache, which stores methods one at a time.
+     */
+    public Codec.EncodedValue encodeMethod(Codec codec, Codec.Context context, MethodInfo methodInfo) {
+        TypeInfo typeInfo = methodInfo.typeInfo();
+        int index = (methodInfo.isConstructor() ? typeInfo.constructors() : typeInfo.methods()).stream()
+                .sorted(Comparator.comparing(MethodInfo::fullyQualifiedName)).toList().indexOf(methodInfo);
+        context.push(methodInfo);
+        Codec.EncodedValue ev = writeMethod(codec, context, methodInfo, index);
+        context.pop();
+        return ev;
+    }
+
     private void writePrimary(OutputStreamWriter osw,
                               Codec codec,
                               AtomicBoolean first,
@@ -22,10 +22,12 @@ import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestAnalysisOrder extends CommonTest {
 
@@ -82,4 +84,30 @@ public class TestAnalysisOrder extends CommonTest {
                 """, analysisOrder.stream().map(Info::simpleName).collect(Collectors.joining(", ")));
     }
 
+    @DisplayName("unit predecessors over the waves")
+    @Test
+    public void test2() {
+        TypeInfo X = javaInspector.parse(ABX, INPUT1);
+        G<Info> graph = new ComputeCallGraph(runtime, X).go().graph();
+        List<List<List<Info>>> waves = ComputeAnalysisOrder.waves(graph);
+        List<List<Info>> units = waves.stream().flatMap(List::stream).toList();
+        int[][] predecessors = ComputeAnalysisOrder.unitPredecessors(graph, waves);
+        assertEquals(units.size(), predecessors.length);
+
+        int kk = units.indexOf(List.<Info>of(X.findSubType("KK")));
+        assertEquals("K, get", Arrays.stream(predecessors[kk])
+                .mapToObj(i -> units.get(i).getFirst().simpleName()).sorted().collect(Collectors.joining(", ")));
+        int x = units.indexOf(List.<Info>of(X));
+        assertEquals(8, predecessors[x].length);
+
+        // acyclic by construction: a unit only waits for units of strictly earlier waves
+        int[] waveOfUnit = new int[units.size()];
+        int u = 0;
+        for (int w = 0; w < waves.size(); w++) {
+            for (int i = 0; i < waves.get(w).size(); i++) waveOfUnit[u++] = w;
+        }
+        for (int i = 0; i < predecessors.length; i++) {
+            for (int p : predecessors[i]) assertTrue(waveOfUnit[p] < waveOfUnit[i]);
+        }
+    }
 }
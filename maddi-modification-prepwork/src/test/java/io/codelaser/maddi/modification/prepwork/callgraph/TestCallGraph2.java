@@ -258,6 +258,24 @@ public class TestCallGraph2 extends CommonTest {
     }
 
 
+    @Test
+    public void testParallel() throws IOException {
+        Map<String, String> sourcesByFqn = Map.of("a.b.c.C", TYPE_A_B_C, "a.b.d.D", TYPE_A_B_D,
+                "a.b.e.E1", TYPE_A_B_E1, "a.b.e.E2", TYPE_A_B_E2,
+                "a.b.f.F1", TYPE_A_B_F1, "a.b.f.F2", TYPE_A_B_F2,
+                "a.b.g.G1", TYPE_A_B_G1, "a.b.g.G2", TYPE_A_B_G2);
+        R r = init(sourcesByFqn);
+        Set<TypeInfo> primaryTypes = r.parseResult.primaryTypes();
+
+        ComputeCallGraph sequential = new ComputeCallGraph(runtime, primaryTypes, List.of(), _ -> false).go(false);
+        ComputeCallGraph parallel = new ComputeCallGraph(runtime, primaryTypes, List.of(), _ -> false).go(true);
+        assertEquals(sequential.graph().toString("\n", ComputeCallGraph::edgeValuePrinter),
+                parallel.graph().toString("\n", ComputeCallGraph::edgeValuePrinter));
+        assertEquals(List.copyOf(sequential.graph().vertices()), List.copyOf(parallel.graph().vertices()));
+        assertEquals(sequential.graph(), parallel.graph());
+        assertEquals(sequential.recursiveMethods(), parallel.recursiveMethods());
+    }
+
     @Language("java")
     String X = """
             package a.b;
@@ -0,0 +1,125 @@
+package io.codelaser.maddi.modification.prepwork.io;
+
+import io.codelaser.maddi.cst.api.analysis.PropertyValueMap;
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.cst.api.info.TypeInfo;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The binary hints archive must apply exactly the hints of the JSON files it was built from: an inspector loaded
+ * through the archive (decoding per type, on first use) and one loaded from the JSON must end up with the same
+ * analysis on every hinted element. A JSON file added after the archive was built makes it stale.
+ */
+public class TestHintsArchive {
+
+    private static JavaInspector inspector() throws Exception {
+        SourceSet javaBase = SourceSetImpl.javaBase();
+        JavaInspector ji = new io.codelaser.maddi.inspection.openjdk.JavaInspectorImpl();
+        ji.preload("java.base::java.util.");
+        InputConfiguration ic = new InputConfigurationImpl.Builder()
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .addClassPathParts(javaBase)
+                .build();
+        ji.initialize(ic);
+        ji.onlyPreload();
+        return ji;
+    }
+
+    private static String dump(PropertyValueMap analysis) {
+        return analysis.propertyValueStream().map(pv -> pv.property().key() + "=" + pv.value())
+                .collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static String dump(TypeInfo typeInfo) {
+        return Stream.concat(Stream.of(typeInfo.fullyQualifiedName() + dump(typeInfo.analysis())),
+                        Stream.concat(typeInfo.fields().stream().map(f -> f.name() + dump(f.analysis())),
+                                typeInfo.constructorAndMethodStream().map(m -> m.fullyQualifiedName()
+                                        + dump(m.analysis()) + m.parameters().stream()
+                                        .map(p -> dump(p.analysis())).collect(Collectors.joining()))))
+                .collect(Collectors.joining("\n"));
+    }
+
+    @Test
+    public void sameHintsAsTheJson(@TempDir Path dir) throws Exception {
+        Path json = Path.of(LoadAnalysisResults.ANALYZED_RESULTS_JDK, "JavaUtil.json");
+        Files.copy(json, dir.resolve("JavaUtil.json"));
+        assertNull(HintsArchive.currentArchive(dir));
+        int written = HintsArchive.writeDirectory(dir);
+        assertEquals(dir.resolve(HintsArchive.FILE_NAME), HintsArchive.currentArchive(dir));
+
+        JavaInspector eager = inspector();
+        LoadAnalysisResults fromJson = new LoadAnalysisResults(eager.runtime(), SourceSetImpl.testProtocolSourceSet());
+        int loaded = fromJson.goDir(new PrepWorkCodec(eager.runtime(), SourceSetImpl.testProtocolSourceSet()).codec(),
+                dir.toFile());
+
+        JavaInspector lazy = inspector();
+        LoadAnalysisResults fromArchive = new LoadAnalysisResults(lazy.runtime(), SourceSetImpl.testProtocolSourceSet());
+        HintsArchive archive = HintsArchive.map(HintsArchive.currentArchive(dir));
+        assertEquals(written, archive.size());
+        int registered = fromArchive.goArchive(new PrepWorkCodec(lazy.runtime(), SourceSetImpl.testProtocolSourceSet())
+                .codec(), archive);
+        assertEquals(loaded, registered);
+        assertTrue(registered > 50);
+
+        for (int i = 0; i < archive.size(); i++) {
+            String fqn = archive.name(i).substring(1);
+            TypeInfo e = eager.runtime().getFullyQualified(fqn, false);
+            TypeInfo l = lazy.runtime().getFullyQualified(fqn, false);
+            if (e != null) assertEquals(dump(e), dump(l));
+        }
+        assertFalse(lazy.runtime().getFullyQualified("java.util.ArrayList", true).analysis().isEmpty());
+    }
+
+    @Test
+    public void staleWhenTheDirectoryChanges(@TempDir Path dir) throws Exception {
+        Files.copy(Path.of(LoadAnalysisResults.ANALYZED_RESULTS_JDK, "JavaUtil.json"), dir.resolve("JavaUtil.json"));
+        HintsArchive.writeDirectory(dir);
+        Files.copy(Path.of(LoadAnalysisResults.ANALYZED_RESULTS_JDK, "JavaIo.json"), dir.resolve("JavaIo.json"));
+        assertNull(HintsArchive.currentArchive(dir), "the JSON loader takes over");
+    }
+
+    @Test
+    public void staleWhenAFileChangesAtTheSameSize(@TempDir Path dir) throws Exception {
+        Path json = dir.resolve("JavaUtil.json");
+        Files.copy(Path.of(LoadAnalysisResults.ANALYZED_RESULTS_JDK, "JavaUtil.json"), json);
+        HintsArchive.writeDirectory(dir);
+        String content = Files.readString(json);
+        String edited = content.replaceFirst("java\\.util", "java.utjl");
+        assertEquals(content.length(), edited.length());
+        Files.writeString(json, edited);
+        assertNull(HintsArchive.currentArchive(dir));
+
+        // same content, new modification time: the content key still matches
+        Files.writeString(json, content);
+        assertEquals(dir.resolve(HintsArchive.FILE_NAME), HintsArchive.currentArchive(dir));
+    }
+
+    @Test
+    public void builtFromTheSameContent(@TempDir Path dir) throws Exception {
+        byte[] bytes = Files.readAllBytes(Path.of(LoadAnalysisResults.ANALYZED_RESULTS_JDK, "JavaUtil.json"));
+        Files.write(dir.resolve("JavaUtil.json"), bytes);
+        HintsArchive.writeDirectory(dir);
+        HintsArchive archive = HintsArchive.map(dir.resolve(HintsArchive.FILE_NAME));
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        assertTrue(archive.builtFrom(List.of(new HintsArchive.JsonFile("JavaUtil.json", bytes.length,
+                crc.getValue()))));
+        assertFalse(archive.builtFrom(List.of(new HintsArchive.JsonFile("JavaUtil.json", bytes.length,
+                crc.getValue() + 1))));
+        assertFalse(archive.builtFrom(List.of()));
+    }
+}
@@ -0,0 +1,64 @@
+package io.codelaser.maddi.modification.prepwork.io;
+
+import io.codelaser.maddi.cst.api.analysis.Codec;
+import io.codelaser.maddi.cst.api.element.SourceSet;
+import io.codelaser.maddi.inspection.api.integration.JavaInspector;
+import io.codelaser.maddi.inspection.api.resource.InputConfiguration;
+import io.codelaser.maddi.inspection.resource.InputConfigurationImpl;
+import io.codelaser.maddi.inspection.resource.SourceSetImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The pipelined checkpoint restore: files are read and parsed ahead on reader threads, decoded on the caller. A
+ * truncated file is skipped and counted, the others restore as with the sequential loader.
+ */
+public class TestTolerantRestore {
+
+    private static JavaInspector inspector() throws Exception {
+        SourceSet javaBase = SourceSetImpl.javaBase();
+        JavaInspector ji = new io.codelaser.maddi.inspection.openjdk.JavaInspectorImpl();
+        ji.preload("java.base::java.util.");
+        ji.preload("java.base::java.io");
+        InputConfiguration ic = new InputConfigurationImpl.Builder()
+                .addSourceSets(SourceSetImpl.testProtocolSourceSet())
+                .addClassPathParts(javaBase)
+                .build();
+        ji.initialize(ic);
+        ji.onlyPreload();
+        return ji;
+    }
+
+    @Test
+    public void pipelinedRestoreSkipsBrokenFiles(@TempDir Path dir) throws Exception {
+        Path jdk = Path.of(LoadAnalysisResults.ANALYZED_RESULTS_JDK);
+        Files.copy(jdk.resolve("JavaUtil.json"), dir.resolve("JavaUtil.json"));
+        Files.copy(jdk.resolve("JavaIo.json"), dir.resolve("JavaIo.json"));
+        String util = Files.readString(jdk.resolve("JavaUtil.json"));
+        Files.writeString(dir.resolve("Truncated.json"), util.substring(0, util.length() / 2)); // crash mid-write
+
+        JavaInspector sequential = inspector();
+        LoadAnalysisResults reference = new LoadAnalysisResults(sequential.runtime(),
+                SourceSetImpl.testProtocolSourceSet());
+        Codec referenceCodec = new PrepWorkCodec(sequential.runtime(), SourceSetImpl.testProtocolSourceSet()).codec();
+        int expected = reference.go(referenceCodec, dir.resolve("JavaUtil.json"))
+                       + reference.go(referenceCodec, dir.resolve("JavaIo.json"));
+
+        JavaInspector ji = inspector();
+        LoadAnalysisResults lar = new LoadAnalysisResults(ji.runtime(), SourceSetImpl.testProtocolSourceSet());
+        int restored = lar.goDirTolerant(new PrepWorkCodec(ji.runtime(), SourceSetImpl.testProtocolSourceSet())
+                .codec(), dir.toFile());
+        assertEquals(expected, restored);
+
+        LoadAnalysisResults.RestoreStats stats = lar.restoreStats();
+        assertEquals(3, stats.files());
+        assertEquals(1, stats.skippedFiles());
+        assertTrue(stats.readNanos() > 0 && stats.parseNanos() > 0 && stats.decodeNanos() > 0, stats.toString());
+        assertFalse(ji.runtime().getFullyQualified("java.util.ArrayList", true).analysis().isEmpty());
+    }
+}
@@ -76,6 +76,9 @@ public class RunAnalyzer implements Runnable {
 
     @Override
     public void run() {
+        // the recorder's edges are JVM-wide, and a Gradle worker runs one build after another: the incremental
+        // state saved at the end of this run must hold the edges of this run only
+        io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.reset();
         try {
             AnalysisHintsConfiguration ac = configuration.analysisHintsConfiguration();
             // use cases 2 (analysis hints -> analysis results) and 3 (write updated hints): both go through the AnalysisHintsCompiler
@@ -127,6 +130,13 @@ public class RunAnalyzer implements Runnable {
         InputConfiguration inputConfiguration = configuration.inputConfiguration();
         javaInspector.initialize(inputConfiguration);
         javaInspector.preload("java.base::java.util");
+        // TYPESNAPSHOT=<dir>: restore the JDK and library types from a snapshot in <dir> instead of loading them
+        // from their class files; the first run with a given JDK, class path and options writes it. Value-carrying
+        // gate, FPDUMP convention.
+        String typeSnapshotDir = System.getenv("TYPESNAPSHOT");
+        if (typeSnapshotDir != null && !typeSnapshotDir.isBlank()) {
+            javaInspector.setTypeSnapshotDirectory(Path.of(typeSnapshotDir));
+        }
         AnalysisHintsConfiguration ac = configuration.analysisHintsConfiguration();
 
         List<String> analysisSteps = configuration.generalConfiguration().analysisSteps();
@@ -243,6 +253,24 @@ public class RunAnalyzer implements Runnable {
             List<Info> order = cao.go(ccg.graph(), parseOptions.parallel());
             LOGGER.info("Call graph analysis order has size {}; start modification analysis", order.size());
 
+            // VDBUDGET=<MB>: bounded-memory mode, the VariableData flatten-snapshot under an LRU heap budget.
+            // Value-carrying gate, FPDUMP convention. The MODREACH pass reads every statement's VariableData,
+            // so the budget only applies with MODREACH=0.
+            boolean modReach = !"0".equals(System.getenv("MODREACH"));
+            long variableDataBudget = 0;
+            String vdBudget = System.getenv("VDBUDGET");
+            if (vdBudget != null && !vdBudget.isBlank()) {
+                if (modReach) {
+                    LOGGER.warn("VDBUDGET ignored: not compatible with MODREACH, set MODREACH=0");
+                } else {
+                    try {
+                        variableDataBudget = Long.parseLong(vdBudget.trim()) * 1024 * 1024;
+                        LOGGER.info("VDBUDGET: VariableData budget of {} MB", vdBudget.trim());
+                    } catch (NumberFormatException e) {
+                        LOGGER.warn("VDBUDGET ignored: '{}' is not a number of MB", vdBudget);
+                    }
+                }
+            }
             // do actual modification analysis
             IteratingAnalyzer.Configuration modConfig = new IteratingAnalyzerImpl.ConfigurationBuilder()
                     .setMaxIterations(30) // safety net only: the loop exits on convergence/certification/plateau
@@ -258,7 +286,11 @@ public class RunAnalyzer implements Runnable {
                     // UNGATED 2026-08-01 alongside EVENTUALCLUSTER: the eventual layer needs the honest,
                     // post-cutover modification state (without it the abstract-union race returns);
                     // MODREACH=0 is the opt-out
-                    .setModificationViaReachability(!"0".equals(System.getenv("MODREACH")))
+                    .setModificationViaReachability(modReach)
+                    .setVariableDataBudget(variableDataBudget)
+                    // DEPCERT (presence-only): the worklist's certification re-verifies only the elements whose
+                    // inputs changed since their last analysis, instead of a full verification pass
+                    .setDependencyDrivenCertification(System.getenv("DEPCERT") != null)
                     .setFaultTolerant(true) // isolate a crash on one element; report it, don't abort the whole run
                     .setWarnNearMisses(configuration.generalConfiguration().warnNearMisses())
                     .build();
@@ -268,6 +300,7 @@ public class RunAnalyzer implements Runnable {
             // the verify-certify sweep of the resumed run is the soundness net. Value-carrying gates,
             // FPDUMP convention.
             String checkpointDir = System.getenv("CHECKPOINT");
+            io.codelaser.maddi.modification.analyzer.CheckpointWriter checkpointWriter = null;
             if (checkpointDir != null && !checkpointDir.isBlank()) {
                 if (System.getenv("CHECKPOINT_RESTORE") != null) {
                     try {
@@ -281,9 +314,55 @@ public class RunAnalyzer implements Runnable {
                     }
                 }
                 var linkCodec = new io.codelaser.maddi.modification.link.io.LinkCodec(javaInspector);
-                analyzer.setValueFeed(new io.codelaser.maddi.modification.analyzer.CheckpointWriter(
-                        javaInspector.runtime(), linkCodec::codec, new File(checkpointDir)));
-                LOGGER.info("CHECKPOINT: writing pass-boundary deltas to {}", checkpointDir);
+                // CHECKPOINT_ASYNC (presence): encode and write on a background thread, the coordinator only
+                // snapshots the values at the barrier; at most 64 primary types wait before it blocks
+                int queueCapacity = System.getenv("CHECKPOINT_ASYNC") != null ? 64 : 0;
+                checkpointWriter = new io.codelaser.maddi.modification.analyzer.CheckpointWriter(
+                        javaInspector.runtime(), linkCodec::codec, new File(checkpointDir),
+                        io.codelaser.maddi.modification.analyzer.CheckpointWriter.DEFAULT_WAVE_FLUSH_INTERVAL_MILLIS,
+                        queueCapacity);
+                analyzer.setValueFeed(checkpointWriter);
+                LOGGER.info("CHECKPOINT: writing pass-boundary deltas to {}{}", checkpointDir,
+                        queueCapacity > 0 ? " asynchronously" : "");
+            }
+            // PROFILE=<file>: per-element, per-phase profile of the whole analysis (AnalysisProfiler), written as
+            // JSON when the analysis ends, hot spots logged. Value-carrying gate, FPDUMP convention.
+            String profileFile = System.getenv("PROFILE");
+            io.codelaser.maddi.modification.analyzer.AnalysisProfiler profiler = null;
+            if (profileFile != null && !profileFile.isBlank()
+                && analyzer instanceof io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl iai) {
+                profiler = new io.codelaser.maddi.modification.analyzer.AnalysisProfiler();
+                iai.setProfiler(profiler);
+                LOGGER.info("PROFILE: profiling the analysis into {}", profileFile);
+            }
+            // LINKCACHE=<dir>: cross-run cache of source-method link summaries (LinkSummaryCache); LINKCACHE_MB caps
+            // its size (default 512), enforced when the analysis ends. Value-carrying gates, FPDUMP convention.
+            // A cache hit carries no per-call data, which the MODREACH pass reads: only with MODREACH=0.
+            String linkCacheDir = System.getenv("LINKCACHE");
+            io.codelaser.maddi.modification.link.io.LinkSummaryCache linkSummaryCache = null;
+            if (linkCacheDir != null && !linkCacheDir.isBlank() && modReach) {
+                LOGGER.warn("LINKCACHE ignored: not compatible with MODREACH, set MODREACH=0");
+            } else if (linkCacheDir != null && !linkCacheDir.isBlank()
+                       && analyzer instanceof io.codelaser.maddi.modification.analyzer.impl.IteratingAnalyzerImpl iai) {
+                String linkCacheMb = System.getenv("LINKCACHE_MB");
+                long maxMb = 512;
+                if (linkCacheMb != null && !linkCacheMb.isBlank()) {
+                    try {
+                        maxMb = Long.parseLong(linkCacheMb.trim());
+                    } catch (NumberFormatException e) {
+                        LOGGER.warn("LINKCACHE_MB ignored: '{}' is not a number of MB, using {}", linkCacheMb, maxMb);
+                    }
+                }
+                long maxBytes = maxMb * 1024 * 1024;
+                try {
+                    linkSummaryCache = new io.codelaser.maddi.modification.link.io.LinkSummaryCache(javaInspector,
+                            Path.of(linkCacheDir), maxBytes);
+                    iai.setLinkSummaryCache(linkSummaryCache);
+                    LOGGER.info("LINKCACHE: link summaries cached in {}, at most {} MB", linkCacheDir,
+                            maxBytes / 1024 / 1024);
+                } catch (IOException e) {
+                    LOGGER.error("LINKCACHE: cannot use {}, continuing without: {}", linkCacheDir, e.toString());
+                }
             }
             // task #35 phase C/D: INCREMENTAL=<dir of a prior CHECKPOINT run> — restore that run's
             // values, detect changed primary types by SOURCE fingerprint, seed the early-cutoff
@@ -291,11 +370,13 @@ public class RunAnalyzer implements Runnable {
             // into the wake relation. Unchanged elements keep their carried (restored) values; the
             // run stops when the worklist is dry. Value-carrying gate, FPDUMP convention.
             java.util.Set<io.codelaser.maddi.cst.api.info.Info> initialDirty = null;
+            io.codelaser.maddi.modification.prepwork.io.IncrementalState priorState = null;
             String incrementalDir = System.getenv("INCREMENTAL");
             if (incrementalDir != null && !incrementalDir.isBlank()) {
                 try {
                     var state = io.codelaser.maddi.modification.prepwork.io.IncrementalState
                             .load(new File(incrementalDir));
+                    priorState = state;
                     if (state.sourceFingerprints().isEmpty()) {
                         LOGGER.warn("INCREMENTAL: no usable state in {}; running cold", incrementalDir);
                     } else {
@@ -368,6 +449,26 @@ public class RunAnalyzer implements Runnable {
                 terminalError = analyzerError;
                 exitValue = Main.EXIT_ANALYZER_ERROR;
                 return;
+            } finally {
+                // also after a crash: what was queued is the checkpoint the resume starts from
+                if (checkpointWriter != null) checkpointWriter.close();
+                if (linkSummaryCache != null) {
+                    try {
+                        linkSummaryCache.evict();
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.error("LINKCACHE: eviction failed: {}", e.toString());
+                    }
+                    LOGGER.info("{}", linkSummaryCache.statistics());
+                }
+                // also after a crash: which elements a failed multi-hour run spent its time on is worth keeping
+                if (profiler != null) {
+                    LOGGER.info("{}", profiler.hotSpots(20));
+                    try {
+                        profiler.writeJson(Path.of(profileFile));
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.error("PROFILE: could not write {}: {}", profileFile, e.toString());
+                    }
+                }
             }
             // phase-1 shadow diff (PLAN §13): one-shot reachability over the converged artifacts,
             // no writes; names the frozen optimistic values the evidence contradicts (§9.4 cross-read)
@@ -396,11 +497,13 @@ public class RunAnalyzer implements Runnable {
             // task #35 phase C: a checkpointed run leaves per-type OUTPUT fingerprints + the
             // recorded consumption edges (CHECKPOINT arms the recorder) so the next run can seed
             // the early-cutoff worklist with changed types + their DIRECT consumers
+            // an INCREMENTAL run recorded the edges of what it re-analyzed only: keep those of the prior run
             if (checkpointDir != null && !checkpointDir.isBlank()) {
                 try {
-                    io.codelaser.maddi.modification.prepwork.io.IncrementalState
+                    var state = io.codelaser.maddi.modification.prepwork.io.IncrementalState
                             .capture(javaInspector.runtime(), summary.parseResult().primaryTypes(),
-                                    io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.edgesSnapshot())
+                                    io.codelaser.maddi.cst.impl.analysis.ConsumptionEdgeRecorder.edgesSnapshot());
+                    (initialDirty != null ? state.withPriorConsumers(priorState) : state)
                             .save(new File(checkpointDir));
                 } catch (IOException | RuntimeException e) {
                     LOGGER.warn("Cannot save incremental state: {}", e.toString());